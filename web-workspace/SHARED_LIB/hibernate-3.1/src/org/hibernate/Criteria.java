@@ -174,6 +174,15 @@ public interface Criteria extends CriteriaSpecification {
 	 */
 	public Criteria setCacheRegion(String cacheRegion);
 
+	/**
+	 * Entities retrieved by this query will be loaded in 
+	 * a read-only mode where Hibernate will never dirty-check
+	 * them or make changes persistent.
+	 *
+	 * @see Query#setReadOnly(boolean)
+	 */
+	public Criteria setReadOnly(boolean readOnly);
+
 	/**
 	 * Get the results.
 	 *
@@ -3,6 +3,7 @@ package org.hibernate;
 
 import java.io.Serializable;
 import java.sql.Connection;
+import java.util.Iterator;
 
 /**
  * A command-oriented API for performing bulk operations
@@ -58,6 +59,49 @@ public interface StatelessSession extends Serializable {
 	 * @param entity a detached entity instance
 	 */
 	public void delete(String entityName, Object entity);
+	/**
+	 * Insert a row for each instance returned by the iterator, which may
+	 * read them one at a time from some other source, then execute all
+	 * queued inserts. Combine with a bulk insert size and a JDBC batch size
+	 * to load a large number of rows in constant memory.
+	 * @param entities an iterator over new transient instances
+	 * @return the number of instances inserted
+	 * @see #setBulkInsertSize(int)
+	 */
+	public long insert(Iterator entities);
+	/**
+	 * Queue up to the given number of inserts, instead of executing each
+	 * one immediately. The queued inserts are grouped by entity, so that
+	 * inserts into the same table may be executed as a JDBC batch (if
+	 * <tt>hibernate.jdbc.batch_size</tt> is set), although no insert is
+	 * moved ahead of an insert of an entity that it references. The queue
+	 * is executed when it is full, before any other operation, and by 
+	 * <tt>flush()</tt>, when the transaction commits, or when the session
+	 * is closed. The queued inserts are discarded if the transaction rolls
+	 * back. Entities with an identifier generated by the database are always
+	 * inserted immediately.
+	 * @param bulkInsertSize the number of inserts to queue, or 0 to disable 
+	 * bulk insert mode (the default)
+	 */
+	public void setBulkInsertSize(int bulkInsertSize);
+	/**
+	 * The number of inserts that may be queued in bulk insert mode.
+	 */
+	public int getBulkInsertSize();
+	/**
+	 * Execute any queued inserts and JDBC batch.
+	 */
+	public void flush();
+	/**
+	 * The number of rows inserted by this session so far, not including
+	 * the inserts which are still queued, or which may still be waiting in
+	 * a JDBC batch. <tt>flush()</tt> executes both.
+	 */
+	public long getInsertCount();
+	/**
+	 * The number of inserts which are queued in bulk insert mode.
+	 */
+	public int getQueuedInsertCount();
 	/**
 	 * Retrieve a row.
 	 * @return a detached entity instance
@@ -54,10 +54,14 @@ public abstract class EntityAction implements Executable, Serializable, Comparab
 		return persister;
 	}
 
-	protected final Object getInstance() {
+	public final Object getInstance() {
 		return instance;
 	}
 
+	public final String getEntityName() {
+		return entityName;
+	}
+
 	public void beforeExecutions() {
 		throw new AssertionFailure( "beforeExecutions() called for non-collection action" );
 	}
@@ -35,6 +35,10 @@ public final class EntityInsertAction extends EntityAction {
 		this.version = version;
 	}
 
+	public Object[] getState() {
+		return state;
+	}
+
 	public void execute() throws HibernateException {
 		EntityPersister persister = getPersister();
 		SessionImplementor session = getSession();
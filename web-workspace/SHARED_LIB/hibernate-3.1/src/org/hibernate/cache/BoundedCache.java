@@ -0,0 +1,382 @@
+//$Id: $
+package org.hibernate.cache;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.util.SerializationHelper;
+
+/**
+ * An in-memory <tt>Cache</tt> bounded by a maximum number of entries, with
+ * optional expiry of entries a fixed time after they were cached.<br>
+ * <br>
+ * The region is split into segments, each guarded by its own monitor, so
+ * that threads working with different keys rarely contend. Each segment
+ * evicts its own entries once it holds more than its share of the maximum,
+ * either the least recently used entry, or (for LFU eviction) the least
+ * frequently used of the few least recently used entries. Use counts are
+ * halved periodically, so that entries which were popular a long time ago
+ * eventually become eligible for eviction.
+ *
+ * @see BoundedCacheProvider
+ */
+public class BoundedCache implements Cache {
+
+	private static final Log log = LogFactory.getLog(BoundedCache.class);
+
+	/**
+	 * How many of the least recently used entries of a segment are
+	 * considered by LFU eviction
+	 */
+	private static final int LFU_SAMPLE_SIZE = 8;
+
+	private final String regionName;
+	private final int maxEntries;
+	private final long timeToLive;
+	private final boolean lfu;
+	private final boolean estimateSize;
+	private final Segment[] segments;
+	private final int segmentMask;
+
+	/**
+	 * @param regionName the name of the region
+	 * @param maxEntries the maximum number of entries held in memory
+	 * @param timeToLive milliseconds after which an entry expires, or 0 if entries never expire
+	 * @param lfu evict the least frequently used entries, instead of the least recently used
+	 * @param segments the number of independently locked segments, rounded up to a power of two
+	 * @param estimateSize keep an estimate of the memory used, by serializing entries as they are cached
+	 */
+	public BoundedCache(
+			String regionName,
+			int maxEntries,
+			long timeToLive,
+			boolean lfu,
+			int segments,
+			boolean estimateSize) {
+		if ( maxEntries < 1 ) {
+			throw new IllegalArgumentException( "maximum entries must be positive: " + maxEntries );
+		}
+		this.regionName = regionName;
+		this.maxEntries = maxEntries;
+		this.timeToLive = timeToLive;
+		this.lfu = lfu;
+		this.estimateSize = estimateSize;
+
+		// don't bother segmenting small regions too finely
+		int size = 1;
+		while ( size < segments && size * LFU_SAMPLE_SIZE < maxEntries ) size <<= 1;
+		this.segments = new Segment[size];
+		for ( int i=0; i<size; i++ ) {
+			// spread any remainder over the first segments
+			int segmentMax = maxEntries / size + ( i < maxEntries % size ? 1 : 0 );
+			this.segments[i] = new Segment( segmentMax );
+		}
+		this.segmentMask = size - 1;
+	}
+
+	private Segment segmentFor(Object key) {
+		int h = key.hashCode();
+		h ^= (h >>> 20) ^ (h >>> 12);
+		h ^= (h >>> 7) ^ (h >>> 4);
+		return segments[h & segmentMask];
+	}
+
+	private long now() {
+		return timeToLive > 0 ? System.currentTimeMillis() : 0;
+	}
+
+	public String getRegionName() {
+		return regionName;
+	}
+
+	public Object read(Object key) throws CacheException {
+		return get(key);
+	}
+
+	public Object get(Object key) throws CacheException {
+		return segmentFor(key).get( key, now() );
+	}
+
+	public void update(Object key, Object value) throws CacheException {
+		put(key, value);
+	}
+
+	public void put(Object key, Object value) throws CacheException {
+		long size = estimateSize ? estimateSize(key, value) : 0;
+		long expires = timeToLive > 0 ? System.currentTimeMillis() + timeToLive : 0;
+		segmentFor(key).put( key, value, expires, size );
+	}
+
+	public void remove(Object key) throws CacheException {
+		segmentFor(key).remove(key);
+	}
+
+	public void clear() throws CacheException {
+		for ( int i=0; i<segments.length; i++ ) segments[i].clear();
+	}
+
+	public void destroy() throws CacheException {
+		clear();
+	}
+
+	public void lock(Object key) throws CacheException {
+		// local cache, so we use synchronization
+	}
+
+	public void unlock(Object key) throws CacheException {
+		// local cache, so we use synchronization
+	}
+
+	public long nextTimestamp() {
+		return Timestamper.next();
+	}
+
+	public int getTimeout() {
+		return Timestamper.ONE_MS * 60000; //ie. 60 seconds
+	}
+
+	/**
+	 * The estimated number of bytes used by the entries (their serialized
+	 * size), or -1 if size estimation is disabled
+	 */
+	public long getSizeInMemory() {
+		if ( !estimateSize ) return -1;
+		long size = 0;
+		for ( int i=0; i<segments.length; i++ ) size += segments[i].getSizeInMemory();
+		return size;
+	}
+
+	/**
+	 * The number of entries in the region, including any that have expired
+	 * but have not yet been looked up or evicted
+	 */
+	public long getElementCountInMemory() {
+		long count = 0;
+		for ( int i=0; i<segments.length; i++ ) count += segments[i].size();
+		return count;
+	}
+
+	public long getElementCountOnDisk() {
+		return 0;
+	}
+
+	/**
+	 * The number of entries evicted to make room for new ones (not
+	 * counting expired entries)
+	 */
+	public long getEvictionCount() {
+		long count = 0;
+		for ( int i=0; i<segments.length; i++ ) count += segments[i].getEvictionCount();
+		return count;
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	public boolean isLfu() {
+		return lfu;
+	}
+
+	/**
+	 * A snapshot of the entries that have not expired
+	 */
+	public Map toMap() {
+		Map result = new HashMap();
+		long now = now();
+		for ( int i=0; i<segments.length; i++ ) segments[i].copyTo(result, now);
+		return Collections.unmodifiableMap(result);
+	}
+
+	public String toString() {
+		return "BoundedCache(" + regionName + ')';
+	}
+
+	private static long estimateSize(Object key, Object value) {
+		try {
+			long size = 0;
+			if ( key instanceof Serializable ) size += SerializationHelper.serialize( (Serializable) key ).length;
+			if ( value instanceof Serializable ) size += SerializationHelper.serialize( (Serializable) value ).length;
+			return size;
+		}
+		catch (RuntimeException e) {
+			log.debug( "could not estimate size of cached entry", e );
+			return 0;
+		}
+	}
+
+	/**
+	 * A cached entry, which is also a link in its segment's recency list
+	 */
+	private static final class Entry {
+		private final Object key;
+		private Object value;
+		private long expires;
+		private long size;
+		private int frequency;
+		private Entry before;
+		private Entry after;
+
+		Entry(Object key) {
+			this.key = key;
+		}
+
+		boolean isExpired(long now) {
+			return expires!=0 && expires <= now;
+		}
+
+		void unlink() {
+			before.after = after;
+			after.before = before;
+		}
+
+		void linkBefore(Entry existing) {
+			after = existing;
+			before = existing.before;
+			before.after = this;
+			existing.before = this;
+		}
+	}
+
+	/**
+	 * One independently locked part of the region. Entries are kept in a
+	 * circular list from least recently used (<tt>header.after</tt>) to most
+	 * recently used (<tt>header.before</tt>).
+	 */
+	private final class Segment {
+		private final Map entries = new HashMap();
+		private final Entry header = new Entry(null);
+		private final int maxEntries;
+		private long sizeInMemory;
+		private long evictionCount;
+		private int accessesSinceAging;
+
+		Segment(int maxEntries) {
+			this.maxEntries = maxEntries;
+			header.before = header;
+			header.after = header;
+		}
+
+		synchronized Object get(Object key, long now) {
+			Entry entry = (Entry) entries.get(key);
+			if ( entry==null ) return null;
+			if ( entry.isExpired(now) ) {
+				remove(entry);
+				return null;
+			}
+			recordAccess(entry);
+			return entry.value;
+		}
+
+		synchronized void put(Object key, Object value, long expires, long size) {
+			Entry entry = (Entry) entries.get(key);
+			if ( entry==null ) {
+				entry = new Entry(key);
+				entries.put(key, entry);
+				entry.linkBefore(header);
+			}
+			else {
+				sizeInMemory -= entry.size;
+			}
+			entry.value = value;
+			entry.expires = expires;
+			entry.size = size;
+			sizeInMemory += size;
+			recordAccess(entry);
+
+			while ( entries.size() > maxEntries ) {
+				evict();
+			}
+		}
+
+		synchronized void remove(Object key) {
+			Entry entry = (Entry) entries.get(key);
+			if ( entry!=null ) remove(entry);
+		}
+
+		synchronized void clear() {
+			entries.clear();
+			header.before = header;
+			header.after = header;
+			sizeInMemory = 0;
+		}
+
+		synchronized int size() {
+			return entries.size();
+		}
+
+		synchronized long getSizeInMemory() {
+			return sizeInMemory;
+		}
+
+		synchronized long getEvictionCount() {
+			return evictionCount;
+		}
+
+		synchronized void copyTo(Map map, long now) {
+			for ( Entry entry = header.after; entry!=header; entry = entry.after ) {
+				if ( !entry.isExpired(now) ) map.put( entry.key, entry.value );
+			}
+		}
+
+		private void remove(Entry entry) {
+			entries.remove(entry.key);
+			entry.unlink();
+			sizeInMemory -= entry.size;
+		}
+
+		/**
+		 * Move the entry to the most recently used end of the list, and
+		 * count the use
+		 */
+		private void recordAccess(Entry entry) {
+			entry.unlink();
+			entry.linkBefore(header);
+			if ( lfu ) {
+				if ( entry.frequency < Integer.MAX_VALUE ) entry.frequency++;
+				if ( ++accessesSinceAging >= maxEntries * 10 ) age();
+			}
+		}
+
+		/**
+		 * Halve all the use counts
+		 */
+		private void age() {
+			for ( Entry entry = header.after; entry!=header; entry = entry.after ) {
+				entry.frequency >>= 1;
+			}
+			accessesSinceAging = 0;
+		}
+
+		private void evict() {
+			Entry victim = header.after;
+			if ( lfu ) {
+				// an expired entry is always the best victim, otherwise
+				// the least used of the least recently used few (but never
+				// the entry that was just added)
+				Entry candidate = victim;
+				long now = now();
+				for ( int i=0; i<LFU_SAMPLE_SIZE && candidate!=header.before; i++ ) {
+					if ( candidate.isExpired(now) ) {
+						victim = candidate;
+						break;
+					}
+					if ( candidate.frequency < victim.frequency ) victim = candidate;
+					candidate = candidate.after;
+				}
+			}
+			if ( log.isTraceEnabled() ) log.trace( "evicting from " + regionName + ": " + victim.key );
+			remove(victim);
+			evictionCount++;
+		}
+	}
+
+}
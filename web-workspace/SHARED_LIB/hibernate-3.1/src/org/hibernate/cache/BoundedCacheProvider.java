@@ -0,0 +1,152 @@
+//$Id: $
+package org.hibernate.cache;
+
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.util.PropertiesHelper;
+import org.hibernate.util.StringHelper;
+
+/**
+ * Provides {@link BoundedCache} regions, an in-memory cache with a bounded
+ * number of entries, that needs no third-party libraries. Regions are
+ * configured in <tt>hibernate.properties</tt>, with a default for all
+ * regions, which may be overridden for a region by qualifying the property
+ * with the region name, eg. <tt>hibernate.cache.bounded.org.hibernate.auction.Bid.max_entries</tt>.
+ *
+ * @see BoundedCache
+ */
+public class BoundedCacheProvider implements CacheProvider {
+
+	private static final Log log = LogFactory.getLog(BoundedCacheProvider.class);
+
+	/**
+	 * The prefix of all properties read by this provider
+	 */
+	public static final String PREFIX = "hibernate.cache.bounded";
+	/**
+	 * The maximum number of entries in a region (10000 by default)
+	 */
+	public static final String MAX_ENTRIES = "max_entries";
+	/**
+	 * Seconds after which a cached entry expires (by default entries
+	 * never expire)
+	 */
+	public static final String TIME_TO_LIVE = "time_to_live";
+	/**
+	 * The eviction policy, <tt>lru</tt> (the default) or <tt>lfu</tt>
+	 */
+	public static final String EVICTION = "eviction";
+	/**
+	 * The number of independently locked segments of a region (16 by default)
+	 */
+	public static final String SEGMENTS = "segments";
+	/**
+	 * Keep an estimate of the memory used by each region (disabled by
+	 * default, since it means serializing every cached entry)
+	 */
+	public static final String ESTIMATE_SIZE = "estimate_size";
+
+	public static final String LRU = "lru";
+	public static final String LFU = "lfu";
+
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+	public static final int DEFAULT_SEGMENTS = 16;
+
+	public Cache buildCache(String regionName, Properties properties) throws CacheException {
+		int maxEntries = PropertiesHelper.getInt(
+				property(regionName, MAX_ENTRIES, properties),
+				properties,
+				DEFAULT_MAX_ENTRIES
+			);
+		int timeToLive = PropertiesHelper.getInt(
+				property(regionName, TIME_TO_LIVE, properties),
+				properties,
+				0
+			);
+		String eviction = PropertiesHelper.getString(
+				property(regionName, EVICTION, properties),
+				properties,
+				LRU
+			);
+		int segments = PropertiesHelper.getInt(
+				property(regionName, SEGMENTS, properties),
+				properties,
+				DEFAULT_SEGMENTS
+			);
+		boolean estimateSize = PropertiesHelper.getBoolean(
+				property(regionName, ESTIMATE_SIZE, properties),
+				properties,
+				false
+			);
+
+		if ( maxEntries < 1 ) {
+			throw new CacheException( "maximum entries must be positive for region: " + regionName );
+		}
+		boolean lfu;
+		if ( LFU.equalsIgnoreCase(eviction) ) {
+			lfu = true;
+		}
+		else if ( LRU.equalsIgnoreCase(eviction) ) {
+			lfu = false;
+		}
+		else {
+			throw new CacheException( "eviction policy should be lru or lfu: " + eviction );
+		}
+
+		if ( log.isDebugEnabled() ) {
+			log.debug(
+					"building bounded cache region: " + regionName +
+					", max entries: " + maxEntries +
+					", time to live: " + timeToLive +
+					"s, eviction: " + eviction
+				);
+		}
+
+		return new BoundedCache(
+				regionName,
+				maxEntries,
+				timeToLive * 1000L,
+				lfu,
+				segments,
+				estimateSize
+			);
+	}
+
+	/**
+	 * The name of the region-specific property if it has been set,
+	 * otherwise the name of the property for all regions
+	 */
+	private static String property(String regionName, String name, Properties properties) {
+		String regionProperty = StringHelper.qualify( PREFIX + '.' + regionName, name );
+		return properties.getProperty(regionProperty)==null ?
+				StringHelper.qualify(PREFIX, name) :
+				regionProperty;
+	}
+
+	public long nextTimestamp() {
+		return Timestamper.next();
+	}
+
+	/**
+	 * Callback to perform any necessary initialization of the underlying cache implementation
+	 * during SessionFactory construction.
+	 *
+	 * @param properties current configuration settings.
+	 */
+	public void start(Properties properties) throws CacheException {
+	}
+
+	/**
+	 * Callback to perform any necessary cleanup of the underlying cache implementation
+	 * during SessionFactory.close().
+	 */
+	public void stop() {
+	}
+
+	public boolean isMinimalPutsEnabledByDefault() {
+		return false;
+	}
+
+}
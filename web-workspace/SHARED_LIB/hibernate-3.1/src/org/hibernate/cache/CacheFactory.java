@@ -44,7 +44,9 @@ public final class CacheFactory {
 			ccs = new ReadOnlyCache();
 		}
 		else if ( concurrencyStrategy.equals(READ_WRITE) ) {
-			ccs = new ReadWriteCache();
+			ccs = settings.getCacheLockStripes()>0 ?
+					(CacheConcurrencyStrategy) new StripedReadWriteCache( settings.getCacheLockStripes() ) :
+					new ReadWriteCache();
 		}
 		else if ( concurrencyStrategy.equals(NONSTRICT_READ_WRITE) ) {
 			ccs = new NonstrictReadWriteCache();
@@ -0,0 +1,495 @@
+//$Id: $
+package org.hibernate.cache;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.util.SerializationHelper;
+
+/**
+ * A <tt>Cache</tt> which keeps the cached state (typically the disassembled
+ * state of a <tt>CacheEntry</tt> or <tt>CollectionCacheEntry</tt>, wrapped
+ * by the concurrency strategy) serialized in direct <tt>ByteBuffer</tt>s,
+ * outside of the garbage collected heap. Only the keys, and a small index
+ * entry for each key, live on the heap, so very large read-mostly regions
+ * don't add to the cost of full collections.<br>
+ * <br>
+ * Memory is allocated in slabs of a fixed size, up to a maximum for the
+ * region. Each slab is carved into chunks of one size class (powers of two,
+ * from 64 bytes up to the slab size), and each entry is stored in a chunk
+ * of the smallest class it fits. When a size class has no free chunk and
+ * no more slabs may be allocated, an empty slab of another size class is
+ * moved to it. If there is none, the least recently used entry of the whole
+ * region is evicted: if it is of the same size class, its chunk is reused,
+ * otherwise every entry of its slab is evicted and the slab is moved to the
+ * size class that needs it. So the slabs follow the sizes of the entries
+ * being cached, even when they change over time. Entries larger than a slab
+ * are not cached, and are counted by <tt>getDroppedPutCount()</tt>.<br>
+ * <br>
+ * Every <tt>get()</tt> deserializes a fresh copy of the cached state, so
+ * this trades CPU for heap. The direct memory available to the VM may need
+ * to be raised with <tt>-XX:MaxDirectMemorySize</tt>.
+ *
+ * @see OffHeapCacheProvider
+ */
+public class OffHeapCache implements Cache {
+
+	private static final Log log = LogFactory.getLog(OffHeapCache.class);
+
+	private static final int MIN_CHUNK_SIZE = 64;
+
+	private final String regionName;
+	private final int slabSize;
+	private final int maxSlabs;
+
+	private final Map index = new HashMap();
+	private final List slabs = new ArrayList();
+	private final SizeClass[] sizeClasses;
+	private long bytesStored;
+	private long evictionCount;
+	private long droppedPutCount;
+	private long slabMoveCount;
+	// ticks on every access, to compare the recency of entries of different size classes
+	private long clock;
+
+	/**
+	 * @param regionName the name of the region
+	 * @param maxMemory the maximum number of bytes of direct memory to use
+	 * @param slabSize the number of bytes allocated at a time, rounded up to a power of two
+	 */
+	public OffHeapCache(String regionName, long maxMemory, int slabSize) {
+		int size = MIN_CHUNK_SIZE;
+		while ( size < slabSize ) size <<= 1;
+		if ( maxMemory < size ) {
+			throw new IllegalArgumentException( "maximum memory must be at least one slab: " + maxMemory );
+		}
+		this.regionName = regionName;
+		this.slabSize = size;
+		this.maxSlabs = (int) Math.min( maxMemory / size, Integer.MAX_VALUE );
+
+		List classes = new ArrayList();
+		for ( int chunkSize = MIN_CHUNK_SIZE; chunkSize <= size; chunkSize <<= 1 ) {
+			classes.add( new SizeClass(chunkSize) );
+		}
+		this.sizeClasses = (SizeClass[]) classes.toArray( new SizeClass[classes.size()] );
+	}
+
+	public String getRegionName() {
+		return regionName;
+	}
+
+	public Object read(Object key) throws CacheException {
+		return get(key);
+	}
+
+	public Object get(Object key) throws CacheException {
+		byte[] bytes;
+		synchronized (this) {
+			Entry entry = (Entry) index.get(key);
+			if ( entry==null ) return null;
+			bytes = readBytes(entry);
+			entry.lastUsed = ++clock;
+			entry.sizeClass.touch(entry);
+		}
+		// deserialize outside the lock
+		return SerializationHelper.deserialize(bytes);
+	}
+
+	public void update(Object key, Object value) throws CacheException {
+		put(key, value);
+	}
+
+	public void put(Object key, Object value) throws CacheException {
+		if ( !(value instanceof Serializable) ) {
+			throw new CacheException( "cannot store non-serializable value in off-heap region " + regionName + ": " + value );
+		}
+		// serialize outside the lock
+		byte[] bytes = SerializationHelper.serialize( (Serializable) value );
+
+		synchronized (this) {
+			removeEntry( (Entry) index.remove(key) );
+
+			SizeClass sizeClass = sizeClassFor(bytes.length);
+			if ( sizeClass==null ) {
+				if ( log.isDebugEnabled() ) {
+					log.debug( "not caching entry larger than slab size (" + bytes.length + " bytes): " + key );
+				}
+				droppedPutCount++;
+				return;
+			}
+			long chunk = allocate(sizeClass);
+
+			Entry entry = new Entry( key, sizeClass, (int) (chunk >>> 32), (int) chunk, bytes.length );
+			Slab slab = slab(entry.slab);
+			slab.buffer.position(entry.offset);
+			slab.buffer.put(bytes);
+			slab.used++;
+			entry.lastUsed = ++clock;
+			sizeClass.add(entry);
+			index.put(key, entry);
+			bytesStored += bytes.length;
+		}
+	}
+
+	public synchronized void remove(Object key) throws CacheException {
+		removeEntry( (Entry) index.remove(key) );
+	}
+
+	public synchronized void clear() throws CacheException {
+		index.clear();
+		// the slabs will be reallocated as needed
+		slabs.clear();
+		for ( int i=0; i<sizeClasses.length; i++ ) sizeClasses[i].clear();
+		bytesStored = 0;
+	}
+
+	public void destroy() throws CacheException {
+		clear();
+	}
+
+	public void lock(Object key) throws CacheException {
+		// local cache, so we use synchronization
+	}
+
+	public void unlock(Object key) throws CacheException {
+		// local cache, so we use synchronization
+	}
+
+	public long nextTimestamp() {
+		return Timestamper.next();
+	}
+
+	public int getTimeout() {
+		return Timestamper.ONE_MS * 60000; //ie. 60 seconds
+	}
+
+	/**
+	 * The number of bytes of direct memory allocated by this region
+	 */
+	public synchronized long getSizeInMemory() {
+		return (long) slabs.size() * slabSize;
+	}
+
+	public synchronized long getElementCountInMemory() {
+		return index.size();
+	}
+
+	public long getElementCountOnDisk() {
+		return 0;
+	}
+
+	/**
+	 * The number of bytes of serialized state stored (which is less than the
+	 * memory allocated, since entries are stored in power of two chunks)
+	 */
+	public synchronized long getBytesStored() {
+		return bytesStored;
+	}
+
+	/**
+	 * The number of entries evicted to make room for new ones
+	 */
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * The number of entries that were not cached because they were larger
+	 * than a slab
+	 */
+	public synchronized long getDroppedPutCount() {
+		return droppedPutCount;
+	}
+
+	/**
+	 * The number of times a slab was moved from one size class to another
+	 */
+	public synchronized long getSlabMoveCount() {
+		return slabMoveCount;
+	}
+
+	public int getSlabSize() {
+		return slabSize;
+	}
+
+	/**
+	 * A copy of the contents of the region (deserializing every entry!)
+	 */
+	public Map toMap() {
+		Map bytes = new HashMap();
+		synchronized (this) {
+			Iterator iter = index.values().iterator();
+			while ( iter.hasNext() ) {
+				Entry entry = (Entry) iter.next();
+				bytes.put( entry.key, readBytes(entry) );
+			}
+		}
+		Map result = new HashMap();
+		Iterator iter = bytes.entrySet().iterator();
+		while ( iter.hasNext() ) {
+			Map.Entry me = (Map.Entry) iter.next();
+			result.put( me.getKey(), SerializationHelper.deserialize( (byte[]) me.getValue() ) );
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	public String toString() {
+		return "OffHeapCache(" + regionName + ')';
+	}
+
+	private Slab slab(int slab) {
+		return (Slab) slabs.get(slab);
+	}
+
+	private byte[] readBytes(Entry entry) {
+		byte[] bytes = new byte[entry.length];
+		ByteBuffer buffer = slab(entry.slab).buffer;
+		buffer.position(entry.offset);
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	private SizeClass sizeClassFor(int length) {
+		for ( int i=0; i<sizeClasses.length; i++ ) {
+			if ( length <= sizeClasses[i].chunkSize ) return sizeClasses[i];
+		}
+		return null;
+	}
+
+	/**
+	 * Find a free chunk of the size class, allocating a new slab, moving a
+	 * slab from another size class, or evicting the least recently used
+	 * entry of the region if necessary.
+	 *
+	 * @return the slab number in the high 32 bits and the offset in the low
+	 * 32 bits
+	 */
+	private long allocate(SizeClass sizeClass) {
+		if ( !sizeClass.hasFreeChunk() ) {
+			if ( slabs.size() < maxSlabs ) {
+				Slab slab = new Slab( slabs.size(), ByteBuffer.allocateDirect(slabSize) );
+				slabs.add(slab);
+				moveSlab(slab, sizeClass);
+			}
+			else {
+				Slab empty = emptySlab();
+				if ( empty!=null ) {
+					moveSlab(empty, sizeClass);
+				}
+				else {
+					// every slab holds at least one entry, so there is one
+					Entry lru = leastRecentlyUsed();
+					if ( lru.sizeClass==sizeClass ) {
+						evict(lru);
+					}
+					else {
+						Slab slab = slab(lru.slab);
+						evictSlab(slab);
+						moveSlab(slab, sizeClass);
+					}
+				}
+			}
+		}
+		return sizeClass.takeFreeChunk();
+	}
+
+	private Slab emptySlab() {
+		for ( int i=0; i<slabs.size(); i++ ) {
+			Slab slab = slab(i);
+			if ( slab.used==0 ) return slab;
+		}
+		return null;
+	}
+
+	/**
+	 * The least recently used entry of the whole region, which is the least
+	 * recently used entry of one of the size classes
+	 */
+	private Entry leastRecentlyUsed() {
+		Entry result = null;
+		for ( int i=0; i<sizeClasses.length; i++ ) {
+			Entry lru = sizeClasses[i].leastRecentlyUsed();
+			if ( lru!=null && ( result==null || lru.lastUsed < result.lastUsed ) ) result = lru;
+		}
+		return result;
+	}
+
+	private void moveSlab(Slab slab, SizeClass sizeClass) {
+		if ( slab.sizeClass!=null ) {
+			if ( log.isTraceEnabled() ) {
+				log.trace( "moving slab of " + regionName + " from chunk size " + slab.sizeClass.chunkSize + " to " + sizeClass.chunkSize );
+			}
+			slab.sizeClass.removeSlab(slab.number);
+			slabMoveCount++;
+		}
+		slab.sizeClass = sizeClass;
+		sizeClass.addSlab(slab.number, slabSize);
+	}
+
+	private void evictSlab(Slab slab) {
+		Iterator iter = slab.sizeClass.entries(slab.number).iterator();
+		while ( iter.hasNext() ) evict( (Entry) iter.next() );
+	}
+
+	private void evict(Entry entry) {
+		if ( log.isTraceEnabled() ) log.trace( "evicting from " + regionName + ": " + entry.key );
+		index.remove(entry.key);
+		removeEntry(entry);
+		evictionCount++;
+	}
+
+	private void removeEntry(Entry entry) {
+		if ( entry!=null ) {
+			entry.sizeClass.remove(entry);
+			slab(entry.slab).used--;
+			bytesStored -= entry.length;
+		}
+	}
+
+	/**
+	 * A slab of direct memory, the size class it is carved into, and the
+	 * number of its chunks holding entries
+	 */
+	private static final class Slab {
+		private final int number;
+		private final ByteBuffer buffer;
+		private SizeClass sizeClass;
+		private int used;
+
+		Slab(int number, ByteBuffer buffer) {
+			this.number = number;
+			this.buffer = buffer;
+		}
+	}
+
+	/**
+	 * The on-heap index entry for a cached value, which is also a link in the
+	 * recency list of its size class
+	 */
+	private static final class Entry {
+		private final Object key;
+		private final SizeClass sizeClass;
+		private final int slab;
+		private final int offset;
+		private final int length;
+		private long lastUsed;
+		private Entry before;
+		private Entry after;
+
+		Entry(Object key, SizeClass sizeClass, int slab, int offset, int length) {
+			this.key = key;
+			this.sizeClass = sizeClass;
+			this.slab = slab;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		void unlink() {
+			before.after = after;
+			after.before = before;
+		}
+
+		void linkBefore(Entry existing) {
+			after = existing;
+			before = existing.before;
+			before.after = this;
+			existing.before = this;
+		}
+	}
+
+	/**
+	 * The chunks of one size, with a stack of the free ones, and the entries
+	 * stored in them, from least recently used (<tt>header.after</tt>) to most
+	 * recently used (<tt>header.before</tt>)
+	 */
+	private static final class SizeClass {
+		private final int chunkSize;
+		private final Entry header = new Entry(null, null, -1, -1, 0);
+		private long[] freeChunks = new long[16];
+		private int freeCount;
+
+		SizeClass(int chunkSize) {
+			this.chunkSize = chunkSize;
+			clear();
+		}
+
+		void clear() {
+			header.before = header;
+			header.after = header;
+			freeCount = 0;
+		}
+
+		boolean hasFreeChunk() {
+			return freeCount > 0;
+		}
+
+		long takeFreeChunk() {
+			return freeChunks[--freeCount];
+		}
+
+		void addSlab(int slab, int slabSize) {
+			for ( int offset = slabSize - chunkSize; offset >= 0; offset -= chunkSize ) {
+				freeChunk(slab, offset);
+			}
+		}
+
+		/**
+		 * Forget the free chunks of a slab that is moved to another size
+		 * class (it must hold no entries)
+		 */
+		void removeSlab(int slab) {
+			int kept = 0;
+			for ( int i=0; i<freeCount; i++ ) {
+				if ( (int) ( freeChunks[i] >>> 32 )!=slab ) freeChunks[kept++] = freeChunks[i];
+			}
+			freeCount = kept;
+		}
+
+		private void freeChunk(int slab, int offset) {
+			if ( freeCount==freeChunks.length ) {
+				long[] grown = new long[freeCount * 2];
+				System.arraycopy(freeChunks, 0, grown, 0, freeCount);
+				freeChunks = grown;
+			}
+			freeChunks[freeCount++] = ( (long) slab << 32 ) | offset;
+		}
+
+		void add(Entry entry) {
+			entry.linkBefore(header);
+		}
+
+		void touch(Entry entry) {
+			entry.unlink();
+			entry.linkBefore(header);
+		}
+
+		void remove(Entry entry) {
+			entry.unlink();
+			freeChunk(entry.slab, entry.offset);
+		}
+
+		Entry leastRecentlyUsed() {
+			return header.after==header ? null : header.after;
+		}
+
+		/**
+		 * The entries stored in the given slab
+		 */
+		List entries(int slab) {
+			List result = new ArrayList();
+			for ( Entry entry = header.after; entry!=header; entry = entry.after ) {
+				if ( entry.slab==slab ) result.add(entry);
+			}
+			return result;
+		}
+	}
+
+}
@@ -0,0 +1,107 @@
+//$Id: $
+package org.hibernate.cache;
+
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.util.PropertiesHelper;
+import org.hibernate.util.StringHelper;
+
+/**
+ * Provides {@link OffHeapCache} regions, which keep cached state serialized
+ * in direct memory. Regions are configured in <tt>hibernate.properties</tt>,
+ * with a default for all regions, which may be overridden for a region by
+ * qualifying the property with the region name, eg.
+ * <tt>hibernate.cache.offheap.org.hibernate.auction.Bid.max_memory</tt>.
+ *
+ * @see OffHeapCache
+ */
+public class OffHeapCacheProvider implements CacheProvider {
+
+	private static final Log log = LogFactory.getLog(OffHeapCacheProvider.class);
+
+	/**
+	 * The prefix of all properties read by this provider
+	 */
+	public static final String PREFIX = "hibernate.cache.offheap";
+	/**
+	 * The maximum direct memory used by a region, in megabytes (64 by default)
+	 */
+	public static final String MAX_MEMORY = "max_memory";
+	/**
+	 * The size of the slabs of memory a region allocates at a time, in
+	 * kilobytes (1024 by default); also the size of the largest entry
+	 * which may be cached
+	 */
+	public static final String SLAB_SIZE = "slab_size";
+
+	public static final int DEFAULT_MAX_MEMORY = 64;
+	public static final int DEFAULT_SLAB_SIZE = 1024;
+
+	public Cache buildCache(String regionName, Properties properties) throws CacheException {
+		int maxMemory = PropertiesHelper.getInt(
+				property(regionName, MAX_MEMORY, properties),
+				properties,
+				DEFAULT_MAX_MEMORY
+			);
+		int slabSize = PropertiesHelper.getInt(
+				property(regionName, SLAB_SIZE, properties),
+				properties,
+				DEFAULT_SLAB_SIZE
+			);
+
+		if ( slabSize < 1 || slabSize > 1024 * 1024 ) {
+			throw new CacheException( "slab size should be between 1 and 1048576 kilobytes for region: " + regionName );
+		}
+		if ( (long) maxMemory * 1024 < slabSize ) {
+			throw new CacheException( "maximum memory must be at least one slab for region: " + regionName );
+		}
+
+		if ( log.isDebugEnabled() ) {
+			log.debug(
+					"building off-heap cache region: " + regionName +
+					", max memory: " + maxMemory +
+					"MB, slab size: " + slabSize + "KB"
+				);
+		}
+
+		return new OffHeapCache( regionName, maxMemory * 1024L * 1024L, slabSize * 1024 );
+	}
+
+	/**
+	 * The name of the region-specific property if it has been set,
+	 * otherwise the name of the property for all regions
+	 */
+	private static String property(String regionName, String name, Properties properties) {
+		String regionProperty = StringHelper.qualify( PREFIX + '.' + regionName, name );
+		return properties.getProperty(regionProperty)==null ?
+				StringHelper.qualify(PREFIX, name) :
+				regionProperty;
+	}
+
+	public long nextTimestamp() {
+		return Timestamper.next();
+	}
+
+	/**
+	 * Callback to perform any necessary initialization of the underlying cache implementation
+	 * during SessionFactory construction.
+	 *
+	 * @param properties current configuration settings.
+	 */
+	public void start(Properties properties) throws CacheException {
+	}
+
+	/**
+	 * Callback to perform any necessary cleanup of the underlying cache implementation
+	 * during SessionFactory.close().
+	 */
+	public void stop() {
+	}
+
+	public boolean isMinimalPutsEnabledByDefault() {
+		return false;
+	}
+
+}
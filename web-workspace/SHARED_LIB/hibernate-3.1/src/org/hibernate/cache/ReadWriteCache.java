@@ -18,8 +18,13 @@ import org.apache.commons.logging.LogFactory;
  * must support distributed hard locks (which are held only momentarily). This
  * strategy also assumes that the underlying cache implementation does not do
  * asynchronous replication and that state has been fully replicated as soon
- * as the lock is released.
+ * as the lock is released.<br>
+ * <br>
+ * Every operation on a key holds the monitor returned by
+ * <tt>lockFor(key)</tt>, which is the strategy itself, serializing all
+ * operations on the region.
  *
+ * @see StripedReadWriteCache for finer grained locking
  * @see NonstrictReadWriteCache for a faster algorithm
  * @see CacheConcurrencyStrategy
  */
@@ -28,6 +33,7 @@ public class ReadWriteCache implements CacheConcurrencyStrategy {
 	private static final Log log = LogFactory.getLog(ReadWriteCache.class);
 
 	private Cache cache;
+	private final Object lockIdMonitor = new Object();
 	private int nextLockId;
 
 	public ReadWriteCache() {}
@@ -44,14 +50,23 @@ public class ReadWriteCache implements CacheConcurrencyStrategy {
 		return cache.getRegionName();
 	}
 	
+	/**
+	 * The monitor to hold while operating on the given key. All the
+	 * operations on a particular key must use the same monitor.
+	 */
+	protected Object lockFor(Object key) {
+		return this;
+	}
+
 	/**
 	 * Generate an id for a new lock. Uniqueness per cache instance is very
-	 * desirable but not absolutely critical. Must be called from one of the
-	 * synchronized methods of this class.
+	 * desirable but not absolutely critical.
 	 */
 	private int nextLockId() {
-		if (nextLockId==Integer.MAX_VALUE) nextLockId = Integer.MIN_VALUE;
-		return nextLockId++;
+		synchronized (lockIdMonitor) {
+			if (nextLockId==Integer.MAX_VALUE) nextLockId = Integer.MIN_VALUE;
+			return nextLockId++;
+		}
 	}
 
 	/**
@@ -70,36 +85,38 @@ public class ReadWriteCache implements CacheConcurrencyStrategy {
 	 * problem would be caught by the update-time version-checking, if
 	 * the data is versioned or timestamped.
 	 */
-	public synchronized Object get(Object key, long txTimestamp) throws CacheException {
+	public Object get(Object key, long txTimestamp) throws CacheException {
 
 		if ( log.isTraceEnabled() ) log.trace("Cache lookup: " + key);
 
-		/*try {
-			cache.lock(key);*/
+		synchronized ( lockFor(key) ) {
+			/*try {
+				cache.lock(key);*/
 
-			Lockable lockable = (Lockable) cache.get(key);
+				Lockable lockable = (Lockable) cache.get(key);
 
-			boolean gettable = lockable!=null && lockable.isGettable(txTimestamp);
+				boolean gettable = lockable!=null && lockable.isGettable(txTimestamp);
 
-			if (gettable) {
-				if ( log.isTraceEnabled() ) log.trace("Cache hit: " + key);
-				return ( (Item) lockable ).getValue();
-			}
-			else {
-				if ( log.isTraceEnabled() ) {
-					if (lockable==null) {
-						log.trace("Cache miss: " + key);
-					}
-					else {
-						log.trace("Cached item was locked: " + key);
+				if (gettable) {
+					if ( log.isTraceEnabled() ) log.trace("Cache hit: " + key);
+					return ( (Item) lockable ).getValue();
+				}
+				else {
+					if ( log.isTraceEnabled() ) {
+						if (lockable==null) {
+							log.trace("Cache miss: " + key);
+						}
+						else {
+							log.trace("Cached item was locked: " + key);
+						}
 					}
+					return null;
 				}
-				return null;
-			}
-		/*}
-		finally {
-			cache.unlock(key);
-		}*/
+			/*}
+			finally {
+				cache.unlock(key);
+			}*/
+		}
 	}
 
 	/**
@@ -109,24 +126,25 @@ public class ReadWriteCache implements CacheConcurrencyStrategy {
 	 * locks of transactions which simultaneously attempt to write to an
 	 * item.
 	 */
-	public synchronized SoftLock lock(Object key, Object version) throws CacheException {
+	public SoftLock lock(Object key, Object version) throws CacheException {
 		if ( log.isTraceEnabled() ) log.trace("Invalidating: " + key);
 
-		try {
-			cache.lock(key);
-
-			Lockable lockable = (Lockable) cache.get(key);
-			long timeout = cache.nextTimestamp() + cache.getTimeout();
-			final Lock lock = (lockable==null) ?
-				new Lock( timeout, nextLockId(), version ) :
-				lockable.lock( timeout, nextLockId() );
-			cache.update(key, lock);
-			return lock;
-		}
-		finally {
-			cache.unlock(key);
+		synchronized ( lockFor(key) ) {
+			try {
+				cache.lock(key);
+
+				Lockable lockable = (Lockable) cache.get(key);
+				long timeout = cache.nextTimestamp() + cache.getTimeout();
+				final Lock lock = (lockable==null) ?
+					new Lock( timeout, nextLockId(), version ) :
+					lockable.lock( timeout, nextLockId() );
+				cache.update(key, lock);
+				return lock;
+			}
+			finally {
+				cache.unlock(key);
+			}
 		}
-
 	}
 
 	/**
@@ -137,7 +155,7 @@ public class ReadWriteCache implements CacheConcurrencyStrategy {
 	 * For versioned data, don't add the item unless it is the later
 	 * version.
 	 */
-	public synchronized boolean put(
+	public boolean put(
 			Object key, 
 			Object value, 
 			long txTimestamp, 
@@ -147,38 +165,41 @@ public class ReadWriteCache implements CacheConcurrencyStrategy {
 	throws CacheException {
 		if ( log.isTraceEnabled() ) log.trace("Caching: " + key);
 
-		try {
-			cache.lock(key);
+		synchronized ( lockFor(key) ) {
+			try {
+				cache.lock(key);
 
-			Lockable lockable = (Lockable) cache.get(key);
+				Lockable lockable = (Lockable) cache.get(key);
 
-			boolean puttable = lockable==null || 
-				lockable.isPuttable(txTimestamp, version, versionComparator);
+				boolean puttable = lockable==null || 
+					lockable.isPuttable(txTimestamp, version, versionComparator);
 
-			if (puttable) {
-				cache.put( key, new Item( value, version, cache.nextTimestamp() ) );
-				if ( log.isTraceEnabled() ) log.trace("Cached: " + key);
-				return true;
-			}
-			else {
-				if ( log.isTraceEnabled() ) {
-					if ( lockable.isLock() ) {
-						log.trace("Item was locked: " + key);
-					}
-					else {
-						log.trace("Item was already cached: " + key);
+				if (puttable) {
+					cache.put( key, new Item( value, version, cache.nextTimestamp() ) );
+					if ( log.isTraceEnabled() ) log.trace("Cached: " + key);
+					return true;
+				}
+				else {
+					if ( log.isTraceEnabled() ) {
+						if ( lockable.isLock() ) {
+							log.trace("Item was locked: " + key);
+						}
+						else {
+							log.trace("Item was already cached: " + key);
+						}
 					}
+					return false;
 				}
-				return false;
 			}
-		}
-		finally {
-			cache.unlock(key);
+			finally {
+				cache.unlock(key);
+			}
 		}
 	}
 
 	/**
-	 * decrement a lock and put it back in the cache
+	 * decrement a lock and put it back in the cache (must be called
+	 * holding the key's monitor)
 	 */
 	private void decrementLock(Object key, Lock lock) throws CacheException {
 		//decrement the lock
@@ -191,25 +212,31 @@ public class ReadWriteCache implements CacheConcurrencyStrategy {
 	 * re-cache the item (assuming that no other transaction holds a
 	 * simultaneous lock).
 	 */
-	public synchronized void release(Object key, SoftLock clientLock) throws CacheException {
+	public void release(Object key, SoftLock clientLock) throws CacheException {
 		if ( log.isTraceEnabled() ) log.trace("Releasing: " + key);
 
-		try {
-			cache.lock(key);
+		synchronized ( lockFor(key) ) {
+			try {
+				cache.lock(key);
 
-			Lockable lockable = (Lockable) cache.get(key);
-			if ( isUnlockable(clientLock, lockable) ) {
-				decrementLock(key, (Lock) lockable);
+				Lockable lockable = (Lockable) cache.get(key);
+				if ( isUnlockable(clientLock, lockable) ) {
+					decrementLock(key, (Lock) lockable);
+				}
+				else {
+					handleLockExpiry(key);
+				}
 			}
-			else {
-				handleLockExpiry(key);
+			finally {
+				cache.unlock(key);
 			}
 		}
-		finally {
-			cache.unlock(key);
-		}
 	}
 
+	/**
+	 * Replace the item with a lock that times out immediately (must be
+	 * called holding the key's monitor)
+	 */
 	void handleLockExpiry(Object key) throws CacheException {
 		log.warn("An item was expired by the cache while it was locked (increase your cache timeout): " + key);
 		long ts = cache.nextTimestamp() + cache.getTimeout();
@@ -240,38 +267,40 @@ public class ReadWriteCache implements CacheConcurrencyStrategy {
 	 * Re-cache the updated state, if and only if there there are
 	 * no other concurrent soft locks. Release our lock.
 	 */
-	public synchronized boolean afterUpdate(Object key, Object value, Object version, SoftLock clientLock) 
+	public boolean afterUpdate(Object key, Object value, Object version, SoftLock clientLock) 
 	throws CacheException {
 		
 		if ( log.isTraceEnabled() ) log.trace("Updating: " + key);
 
-		try {
-			cache.lock(key);
-
-			Lockable lockable = (Lockable) cache.get(key);
-			if ( isUnlockable(clientLock, lockable) ) {
-				Lock lock = (Lock) lockable;
-				if ( lock.wasLockedConcurrently() ) {
-					// just decrement the lock, don't recache
-					// (we don't know which transaction won)
-					decrementLock(key, lock);
-					return false;
+		synchronized ( lockFor(key) ) {
+			try {
+				cache.lock(key);
+
+				Lockable lockable = (Lockable) cache.get(key);
+				if ( isUnlockable(clientLock, lockable) ) {
+					Lock lock = (Lock) lockable;
+					if ( lock.wasLockedConcurrently() ) {
+						// just decrement the lock, don't recache
+						// (we don't know which transaction won)
+						decrementLock(key, lock);
+						return false;
+					}
+					else {
+						//recache the updated state
+						cache.update( key, new Item( value, version, cache.nextTimestamp() ) );
+						if ( log.isTraceEnabled() ) log.trace("Updated: " + key);
+						return true;
+					}
 				}
 				else {
-					//recache the updated state
-					cache.update( key, new Item( value, version, cache.nextTimestamp() ) );
-					if ( log.isTraceEnabled() ) log.trace("Updated: " + key);
-					return true;
+					handleLockExpiry(key);
+					return false;
 				}
+
 			}
-			else {
-				handleLockExpiry(key);
-				return false;
+			finally {
+				cache.unlock(key);
 			}
-
-		}
-		finally {
-			cache.unlock(key);
 		}
 	}
 
@@ -279,26 +308,29 @@ public class ReadWriteCache implements CacheConcurrencyStrategy {
 	 * Add the new item to the cache, checking that no other transaction has
 	 * accessed the item.
 	 */
-	public synchronized boolean afterInsert(Object key, Object value, Object version) 
+	public boolean afterInsert(Object key, Object value, Object version) 
 	throws CacheException {
 	
 		if ( log.isTraceEnabled() ) log.trace("Inserting: " + key);
-		try {
-			cache.lock(key);
 
-			Lockable lockable = (Lockable) cache.get(key);
-			if (lockable==null) {
-				cache.update( key, new Item( value, version, cache.nextTimestamp() ) );
-				if ( log.isTraceEnabled() ) log.trace("Inserted: " + key);
-				return true;
+		synchronized ( lockFor(key) ) {
+			try {
+				cache.lock(key);
+
+				Lockable lockable = (Lockable) cache.get(key);
+				if (lockable==null) {
+					cache.update( key, new Item( value, version, cache.nextTimestamp() ) );
+					if ( log.isTraceEnabled() ) log.trace("Inserted: " + key);
+					return true;
+				}
+				else {
+					return false;
+				}
 			}
-			else {
-				return false;
+			finally {
+				cache.unlock(key);
 			}
 		}
-		finally {
-			cache.unlock(key);
-		}
 	}
 
 	/**
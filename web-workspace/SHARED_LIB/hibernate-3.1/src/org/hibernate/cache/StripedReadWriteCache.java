@@ -0,0 +1,65 @@
+//$Id: $
+package org.hibernate.cache;
+
+/**
+ * The same "read committed" concurrency strategy as {@link ReadWriteCache},
+ * but instead of serializing every operation on the region through a
+ * single monitor, each key is guarded by one of a fixed number of lock
+ * stripes. Transactions working with different keys of a hot region only
+ * contend when their keys happen to share a stripe.<br>
+ * <br>
+ * All operations on a particular key are still serialized within this VM,
+ * so the isolation semantics are exactly those of <tt>ReadWriteCache</tt>.
+ * The underlying cache implementation must tolerate concurrent access to
+ * different keys (all the bundled providers do). The same restrictions as
+ * for <tt>ReadWriteCache</tt> apply in a cluster.
+ *
+ * @see ReadWriteCache
+ * @see CacheConcurrencyStrategy
+ */
+public class StripedReadWriteCache extends ReadWriteCache {
+
+	public static final int DEFAULT_STRIPES = 32;
+
+	private final Object[] stripes;
+	private final int stripeMask;
+
+	public StripedReadWriteCache() {
+		this(DEFAULT_STRIPES);
+	}
+
+	/**
+	 * @param stripes the number of lock stripes, rounded up to a power of two
+	 */
+	public StripedReadWriteCache(int stripes) {
+		int size = 1;
+		while ( size < stripes ) size <<= 1;
+		this.stripes = new Object[size];
+		for ( int i=0; i<size; i++ ) this.stripes[i] = new Object();
+		this.stripeMask = size - 1;
+	}
+
+	/**
+	 * The number of lock stripes
+	 */
+	public int getStripeCount() {
+		return stripes.length;
+	}
+
+	/**
+	 * The stripe guarding the given key. The hash is spread, since
+	 * the low bits of many key hashcodes (eg. small integer ids) are
+	 * poorly distributed.
+	 */
+	protected Object lockFor(Object key) {
+		int h = key.hashCode();
+		h ^= (h >>> 20) ^ (h >>> 12);
+		h ^= (h >>> 7) ^ (h >>> 4);
+		return stripes[h & stripeMask];
+	}
+
+	public String toString() {
+		return getCache() + "(read-write, " + stripes.length + " lock stripes)";
+	}
+
+}
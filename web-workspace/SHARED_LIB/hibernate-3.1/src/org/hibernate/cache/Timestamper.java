@@ -13,8 +13,11 @@ public final class Timestamper {
 	public static final short ONE_MS = 1<<BIN_DIGITS;
 	
 	public static long next() {
+		// read the clock before taking the lock, to keep the critical section
+		// short; a thread that then waits for the lock simply sees a time that
+		// has already been passed, and increments the counter instead
+		long newTime = System.currentTimeMillis() << BIN_DIGITS;
 		synchronized(Timestamper.class) {
-			long newTime = System.currentTimeMillis() << BIN_DIGITS;
 			if (time<newTime) {
 				time = newTime;
 				counter = 0;
@@ -24,8 +24,11 @@ public class UpdateTimestampsCache {
 
 	private static final Log log = LogFactory.getLog(UpdateTimestampsCache.class);
 
+	private static final int STRIPES = 32;
+
 	private Cache updateTimestamps;
 	private final String regionName;
+	private final Object[] stripes = new Object[STRIPES];
 
 	public static final String REGION_NAME = UpdateTimestampsCache.class.getName();
 
@@ -42,33 +45,54 @@ public class UpdateTimestampsCache {
 				prefix + '.' + REGION_NAME;
 		log.info("starting update timestamps cache at region: " + regionName);
 		this.updateTimestamps = settings.getCacheProvider().buildCache(regionName, props);
+		for ( int i=0; i<STRIPES; i++ ) stripes[i] = new Object();
+	}
+
+	/**
+	 * Writes to a space are serialized, so that the timestamps of a space are
+	 * put in the order they were generated. Writes to different spaces, and
+	 * reads, don't contend.
+	 */
+	private Object stripeFor(Serializable space) {
+		int h = space.hashCode();
+		h ^= (h >>> 16);
+		return stripes[ (h & 0x7fffffff) % STRIPES ];
 	}
 
-	public synchronized void preinvalidate(Serializable[] spaces) throws CacheException {
+	public void preinvalidate(Serializable[] spaces) throws CacheException {
 		//TODO: to handle concurrent writes correctly, this should return a Lock to the client
-		Long ts = new Long( updateTimestamps.nextTimestamp() + updateTimestamps.getTimeout() );
 		for ( int i=0; i<spaces.length; i++ ) {
 			if ( log.isDebugEnabled() ) log.debug("Pre-invalidating space [" + spaces[i] + "]");
-			//put() has nowait semantics, is this really appropriate?
-			//note that it needs to be async replication, never local or sync
-			updateTimestamps.put( spaces[i], ts );
+			synchronized ( stripeFor( spaces[i] ) ) {
+				Long ts = new Long( updateTimestamps.nextTimestamp() + updateTimestamps.getTimeout() );
+				//put() has nowait semantics, is this really appropriate?
+				//note that it needs to be async replication, never local or sync
+				updateTimestamps.put( spaces[i], ts );
+			}
 		}
 		//TODO: return new Lock(ts);
 	}
 
-	 public synchronized void invalidate(Serializable[] spaces) throws CacheException {
+	 public void invalidate(Serializable[] spaces) throws CacheException {
 	 	//TODO: to handle concurrent writes correctly, the client should pass in a Lock
-		Long ts = new Long( updateTimestamps.nextTimestamp() );
 		//TODO: if lock.getTimestamp().equals(ts)
 		for ( int i=0; i<spaces.length; i++ ) {
-			if ( log.isDebugEnabled() ) log.debug("Invalidating space [" + spaces[i] + "], timestamp: " + ts);
-			//put() has nowait semantics, is this really appropriate?
-			//note that it needs to be async replication, never local or sync
-			updateTimestamps.put( spaces[i], ts );
+			synchronized ( stripeFor( spaces[i] ) ) {
+				Long ts = new Long( updateTimestamps.nextTimestamp() );
+				if ( log.isDebugEnabled() ) log.debug("Invalidating space [" + spaces[i] + "], timestamp: " + ts);
+				//put() has nowait semantics, is this really appropriate?
+				//note that it needs to be async replication, never local or sync
+				updateTimestamps.put( spaces[i], ts );
+			}
 		}
 	}
 
-	public synchronized boolean isUpToDate(Set spaces, Long timestamp) throws HibernateException {
+	/**
+	 * Not synchronized: the underlying cache is threadsafe, and a
+	 * concurrent invalidation could equally have happened just after
+	 * we returned.
+	 */
+	public boolean isUpToDate(Set spaces, Long timestamp) throws HibernateException {
 		Iterator iter = spaces.iterator();
 		while ( iter.hasNext() ) {
 			Serializable space = (Serializable) iter.next();
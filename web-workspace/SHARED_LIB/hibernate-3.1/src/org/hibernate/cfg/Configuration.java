@@ -1,6 +1,8 @@
 //$Id: Configuration.java,v 1.112 2005/12/08 07:08:19 steveebersole Exp $
 package org.hibernate.cfg;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -8,10 +10,13 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.io.StringReader;
 import java.lang.reflect.Array;
 import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -69,15 +74,18 @@ import org.hibernate.id.PersistentIdentifierGenerator;
 import org.hibernate.impl.SessionFactoryImpl;
 import org.hibernate.mapping.AuxiliaryDatabaseObject;
 import org.hibernate.mapping.Collection;
+import org.hibernate.mapping.Component;
 import org.hibernate.mapping.ForeignKey;
 import org.hibernate.mapping.IdentifierCollection;
 import org.hibernate.mapping.Index;
+import org.hibernate.mapping.IndexedCollection;
 import org.hibernate.mapping.PersistentClass;
 import org.hibernate.mapping.Property;
 import org.hibernate.mapping.RootClass;
 import org.hibernate.mapping.SimpleValue;
 import org.hibernate.mapping.Table;
 import org.hibernate.mapping.UniqueKey;
+import org.hibernate.mapping.Value;
 import org.hibernate.secure.JACCConfiguration;
 import org.hibernate.tool.hbm2ddl.DatabaseMetadata;
 import org.hibernate.tool.hbm2ddl.TableMetadata;
@@ -331,6 +339,231 @@ public class Configuration implements Serializable {
 		return addCacheableFile( new File( xmlFile ) );
 	}
 
+	/**
+	 * Read mappings from the given application resources, or from a snapshot
+	 * of the bound mappings, so that no XML is parsed when the resources are
+	 * unchanged. If <tt>snapshotFile</tt> was written for resources with the
+	 * same contents, by the same version of Hibernate, with the same naming
+	 * strategy, the mappings are deserialized from it. Otherwise the resources
+	 * are read, the mappings are built, and written to <tt>snapshotFile</tt>
+	 * for use the next time. The snapshot is only used if no other mappings
+	 * were added first.
+	 * <p>
+	 * Since the binder reflects upon the mapped classes (to guess property
+	 * types, for example), the snapshot also records a hash of the bytecode
+	 * of each entity class, proxy interface and component class, and is not
+	 * used if any of them has changed. Other classes named by the mappings,
+	 * such as custom types and identifier generators, are only recorded by
+	 * name. Type definitions are kept in the snapshot, so mappings added
+	 * later may use them.
+	 *
+	 * @param paths the resources
+	 * @param snapshotFile a file, which need not exist yet
+	 */
+	public Configuration addCacheableResources(String[] paths, File snapshotFile) throws MappingException {
+		final boolean useSnapshot = classes.isEmpty() && collections.isEmpty() && tables.isEmpty();
+		if ( !useSnapshot ) {
+			log.info( "Other mappings were added first, not using mapping snapshot: " + snapshotFile );
+			for ( int i = 0; i < paths.length; i++ ) addResource( paths[i] );
+			return this;
+		}
+
+		String key = getMappingSnapshotKey( paths );
+		if ( snapshotFile.exists() ) {
+			try {
+				if ( readMappingSnapshot( snapshotFile, key ) ) return this;
+				log.info( "Mappings have changed since the mapping snapshot was written: " + snapshotFile );
+			}
+			catch (Exception e) {
+				log.warn( "Could not read mapping snapshot: " + snapshotFile, e );
+			}
+		}
+
+		for ( int i = 0; i < paths.length; i++ ) addResource( paths[i] );
+		buildMappings();
+		try {
+			writeMappingSnapshot( snapshotFile, key );
+		}
+		catch (IOException ioe) {
+			log.warn( "Could not write mapping snapshot: " + snapshotFile, ioe );
+		}
+		return this;
+	}
+
+	/**
+	 * A hash of everything that determines the bound mappings
+	 */
+	private String getMappingSnapshotKey(String[] paths) throws MappingException {
+		try {
+			MessageDigest digest = MessageDigest.getInstance( "MD5" );
+			digest.update( Environment.VERSION.getBytes() );
+			digest.update( namingStrategy.getClass().getName().getBytes() );
+			for ( int i = 0; i < paths.length; i++ ) {
+				digest.update( paths[i].getBytes() );
+				digestResource( digest, ConfigHelper.getResourceAsStream( paths[i] ) );
+			}
+			return toHexString( digest.digest() );
+		}
+		catch (NoSuchAlgorithmException nsae) {
+			throw new MappingException( "Could not hash mapping resources", nsae );
+		}
+		catch (IOException ioe) {
+			throw new MappingException( "Could not read mapping resources", ioe );
+		}
+		catch (HibernateException he) {
+			throw new MappingException( "Could not read mapping resources", he );
+		}
+	}
+
+	/**
+	 * The classes the binder reflected upon: the entity classes, their proxy
+	 * interfaces, and the component classes
+	 */
+	private Set getMappedClassNames() {
+		Set names = new HashSet();
+		Iterator iter = classes.values().iterator();
+		while ( iter.hasNext() ) {
+			PersistentClass pc = (PersistentClass) iter.next();
+			names.add( pc.getClassName() );
+			names.add( pc.getProxyInterfaceName() );
+			addComponentClassNames( pc.getIdentifier(), names );
+			Iterator props = pc.getPropertyIterator();
+			while ( props.hasNext() ) {
+				addComponentClassNames( ( (Property) props.next() ).getValue(), names );
+			}
+		}
+		iter = collections.values().iterator();
+		while ( iter.hasNext() ) {
+			Collection collection = (Collection) iter.next();
+			addComponentClassNames( collection.getElement(), names );
+			if ( collection.isIndexed() ) {
+				addComponentClassNames( ( (IndexedCollection) collection ).getIndex(), names );
+			}
+		}
+		names.remove( null );
+		return names;
+	}
+
+	private static void addComponentClassNames(Value value, Set names) {
+		if ( value instanceof Component ) {
+			Component component = (Component) value;
+			names.add( component.getComponentClassName() );
+			Iterator props = component.getPropertyIterator();
+			while ( props.hasNext() ) {
+				addComponentClassNames( ( (Property) props.next() ).getValue(), names );
+			}
+		}
+	}
+
+	/**
+	 * A hash of the bytecode of each of the given classes, or an empty string
+	 * for a class which is not on the classpath
+	 */
+	private static Map getClassFingerprints(Set classNames) throws IOException {
+		try {
+			Map result = new TreeMap();
+			Iterator iter = classNames.iterator();
+			while ( iter.hasNext() ) {
+				String className = (String) iter.next();
+				InputStream stream;
+				try {
+					stream = ConfigHelper.getResourceAsStream( className.replace( '.', '/' ) + ".class" );
+				}
+				catch (HibernateException he) {
+					result.put( className, "" );
+					continue;
+				}
+				MessageDigest digest = MessageDigest.getInstance( "MD5" );
+				digestResource( digest, stream );
+				result.put( className, toHexString( digest.digest() ) );
+			}
+			return result;
+		}
+		catch (NoSuchAlgorithmException nsae) {
+			throw new MappingException( "Could not hash mapped classes", nsae );
+		}
+	}
+
+	private static void digestResource(MessageDigest digest, InputStream stream) throws IOException {
+		try {
+			byte[] buffer = new byte[4096];
+			int read;
+			while ( ( read = stream.read( buffer ) ) != -1 ) digest.update( buffer, 0, read );
+		}
+		finally {
+			stream.close();
+		}
+	}
+
+	private static String toHexString(byte[] hash) {
+		StringBuffer result = new StringBuffer();
+		for ( int i = 0; i < hash.length; i++ ) {
+			result.append( Integer.toHexString( ( hash[i] & 0xFF ) | 0x100 ).substring( 1 ) );
+		}
+		return result.toString();
+	}
+
+	private boolean readMappingSnapshot(File snapshotFile, String key) 
+	throws IOException, ClassNotFoundException {
+		ObjectInputStream ois = new ObjectInputStream( 
+				new BufferedInputStream( new FileInputStream( snapshotFile ) ) 
+			);
+		try {
+			if ( !key.equals( ois.readUTF() ) ) return false;
+			Map classFingerprints = (Map) ois.readObject();
+			if ( !classFingerprints.equals( getClassFingerprints( classFingerprints.keySet() ) ) ) return false;
+			log.info( "Reading mappings from mapping snapshot: " + snapshotFile );
+			// read everything before changing anything
+			Object[] mappings = new Object[13];
+			for ( int i = 0; i < mappings.length; i++ ) mappings[i] = ois.readObject();
+			classes = (Map) mappings[0];
+			imports = (Map) mappings[1];
+			collections = (Map) mappings[2];
+			tables = (Map) mappings[3];
+			auxiliaryDatabaseObjects = (List) mappings[4];
+			namedQueries = (Map) mappings[5];
+			namedSqlQueries = (Map) mappings[6];
+			sqlResultSetMappings = (Map) mappings[7];
+			filterDefinitions = (Map) mappings[8];
+			propertyReferences = (List) mappings[9];
+			tableNameBinding = (Map) mappings[10];
+			columnNameBindingPerTable = (Map) mappings[11];
+			typeDefs = (Map) mappings[12];
+			return true;
+		}
+		finally {
+			ois.close();
+		}
+	}
+
+	private void writeMappingSnapshot(File snapshotFile, String key) throws IOException {
+		log.info( "Writing mapping snapshot: " + snapshotFile );
+		Map classFingerprints = getClassFingerprints( getMappedClassNames() );
+		ObjectOutputStream oos = new ObjectOutputStream( 
+				new BufferedOutputStream( new FileOutputStream( snapshotFile ) ) 
+			);
+		try {
+			oos.writeUTF( key );
+			oos.writeObject( classFingerprints );
+			oos.writeObject( classes );
+			oos.writeObject( imports );
+			oos.writeObject( collections );
+			oos.writeObject( tables );
+			oos.writeObject( auxiliaryDatabaseObjects );
+			oos.writeObject( namedQueries );
+			oos.writeObject( namedSqlQueries );
+			oos.writeObject( sqlResultSetMappings );
+			oos.writeObject( filterDefinitions );
+			oos.writeObject( propertyReferences );
+			oos.writeObject( tableNameBinding );
+			oos.writeObject( columnNameBindingPerTable );
+			oos.writeObject( typeDefs );
+		}
+		finally {
+			oos.close();
+		}
+	}
+
 
 	/**
 	 * Read mappings from a <tt>String</tt>
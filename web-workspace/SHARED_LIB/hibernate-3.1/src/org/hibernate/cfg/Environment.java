@@ -245,6 +245,17 @@ public final class Environment {
 	 * The default batch size for batch fetching
 	 */
 	public static final String DEFAULT_BATCH_FETCH_SIZE = "hibernate.default_batch_fetch_size";
+	/**
+	 * Batch fetch with a few <tt>in</tt> lists, of sizes that are powers of two,
+	 * padding the keys with repeated keys, rather than with many lists of
+	 * exact sizes. Queued keys of subclasses then share the entity batch.
+	 */
+	public static final String PADDED_BATCH_FETCH = "hibernate.batch_fetch_padded";
+	/**
+	 * The number of threads used to build the persisters, and generate their
+	 * SQL, when building a <tt>SessionFactory</tt> (1 by default)
+	 */
+	public static final String BOOTSTRAP_THREADS = "hibernate.bootstrap_threads";
 	/**
 	 * Use <tt>java.io</tt> streams to read / write binary data from / to JDBC
 	 */
@@ -388,6 +399,12 @@ public final class Environment {
 	 * The <tt>CacheProvider</tt> region name prefix
 	 */
 	public static final String CACHE_REGION_PREFIX = "hibernate.cache.region_prefix";
+	/**
+	 * The number of lock stripes used by each <tt>read-write</tt> cache region.
+	 * When set, keys are locked by stripe instead of by region (by default the
+	 * whole region is serialized).
+	 */
+	public static final String CACHE_LOCK_STRIPES = "hibernate.cache.read_write_lock_stripes";
 	/**
 	 * Enable use of structured second-level cache entries
 	 */
@@ -414,6 +431,16 @@ public final class Environment {
 	 * query to SQL
 	 */
 	public static final String QUERY_SUBSTITUTIONS = "hibernate.query.substitutions";
+	/**
+	 * The maximum number of query plans (and native-sql parameter metadata) held
+	 * by strong references in the query plan cache
+	 */
+	public static final String QUERY_PLAN_CACHE_MAX_SIZE = "hibernate.query.plan_cache_max_size";
+	/**
+	 * Keep query plans pushed out of the query plan cache by soft references, until
+	 * the memory is needed (<tt>true</tt> by default)
+	 */
+	public static final String QUERY_PLAN_CACHE_SOFT_REFERENCES = "hibernate.query.plan_cache_soft_references";
 	/**
 	 * Auto export/update schema using hbm2ddl tool. Valid values are <tt>update</tt>, 
 	 * <tt>create</tt>, <tt>create-drop</tt> and <tt>validate</tt>.
@@ -429,7 +456,8 @@ public final class Environment {
 
 	/**
 	 * Enable wrapping of JDBC result sets in order to speed up column name lookups for
-	 * broken JDBC drivers
+	 * broken JDBC drivers. Each loader computes the column indexes of its result sets
+	 * once, so rows are hydrated by column index.
 	 */
 	public static final String WRAP_RESULT_SETS = "hibernate.jdbc.wrap_result_sets";
 
@@ -438,6 +466,12 @@ public final class Environment {
 	 */
 	public static final String ORDER_UPDATES = "hibernate.order_updates";
 
+	/**
+	 * Enable ordering of insert statements, grouping inserts into the same
+	 * table so that they may be batched
+	 */
+	public static final String ORDER_INSERTS = "hibernate.order_inserts";
+
 	/**
 	 * The EntityMode in which set the Session opened from the SessionFactory.
 	 */
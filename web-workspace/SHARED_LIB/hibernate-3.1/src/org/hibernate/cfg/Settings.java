@@ -29,6 +29,8 @@ public final class Settings {
 	private Dialect dialect;
 	private int jdbcBatchSize;
 	private int defaultBatchFetchSize;
+	private boolean paddedBatchFetchEnabled;
+	private int bootstrapThreads;
 	private boolean scrollableResultSetsEnabled;
 	private boolean getGeneratedKeysEnabled;
 	private String defaultSchemaName;
@@ -43,6 +45,7 @@ public final class Settings {
 	private boolean structuredCacheEntriesEnabled;
 	private boolean secondLevelCacheEnabled;
 	private String cacheRegionPrefix;
+	private int cacheLockStripes;
 	private boolean minimalPutsEnabled;
 	private boolean commentsEnabled;
 	private boolean statisticsEnabled;
@@ -61,6 +64,9 @@ public final class Settings {
 	private SQLExceptionConverter sqlExceptionConverter;
 	private boolean wrapResultSetsEnabled;
 	private boolean orderUpdatesEnabled;
+	private boolean orderInsertsEnabled;
+	private int queryPlanCacheMaxSize;
+	private boolean queryPlanCacheSoftReferencesEnabled;
 	private EntityMode defaultEntityMode;
 	
 	Settings() {}
@@ -85,6 +91,14 @@ public final class Settings {
 		return defaultBatchFetchSize;
 	}
 
+	public boolean isPaddedBatchFetchEnabled() {
+		return paddedBatchFetchEnabled;
+	}
+
+	public int getBootstrapThreads() {
+		return bootstrapThreads;
+	}
+
 	public Map getQuerySubstitutions() {
 		return querySubstitutions;
 	}
@@ -133,6 +147,14 @@ public final class Settings {
 		defaultBatchFetchSize = i;
 	}
 
+	void setPaddedBatchFetchEnabled(boolean b) {
+		paddedBatchFetchEnabled = b;
+	}
+
+	void setBootstrapThreads(int i) {
+		bootstrapThreads = i;
+	}
+
 	void setQuerySubstitutions(Map map) {
 		querySubstitutions = map;
 	}
@@ -259,6 +281,13 @@ public final class Settings {
 		this.cacheRegionPrefix = cacheRegionPrefix;
 	}
 
+	public int getCacheLockStripes() {
+		return cacheLockStripes;
+	}
+	void setCacheLockStripes(int cacheLockStripes) {
+		this.cacheLockStripes = cacheLockStripes;
+	}
+
 	public QueryCacheFactory getQueryCacheFactory() {
 		return queryCacheFactory;
 	}
@@ -340,6 +369,27 @@ public final class Settings {
 		this.orderUpdatesEnabled = orderUpdatesEnabled;
 	}
 
+	public boolean isOrderInsertsEnabled() {
+		return orderInsertsEnabled;
+	}
+	void setOrderInsertsEnabled(boolean orderInsertsEnabled) {
+		this.orderInsertsEnabled = orderInsertsEnabled;
+	}
+
+	public int getQueryPlanCacheMaxSize() {
+		return queryPlanCacheMaxSize;
+	}
+	void setQueryPlanCacheMaxSize(int queryPlanCacheMaxSize) {
+		this.queryPlanCacheMaxSize = queryPlanCacheMaxSize;
+	}
+
+	public boolean isQueryPlanCacheSoftReferencesEnabled() {
+		return queryPlanCacheSoftReferencesEnabled;
+	}
+	void setQueryPlanCacheSoftReferencesEnabled(boolean queryPlanCacheSoftReferencesEnabled) {
+		this.queryPlanCacheSoftReferencesEnabled = queryPlanCacheSoftReferencesEnabled;
+	}
+
 	public boolean isStructuredCacheEntriesEnabled() {
 		return structuredCacheEntriesEnabled;
 	}
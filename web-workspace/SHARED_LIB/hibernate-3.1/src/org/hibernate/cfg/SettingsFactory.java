@@ -186,6 +186,13 @@ public class SettingsFactory implements Serializable {
 		int batchFetchSize = PropertiesHelper.getInt(Environment.DEFAULT_BATCH_FETCH_SIZE, properties, 1);
 		log.info("Default batch fetch size: " + batchFetchSize);
 		settings.setDefaultBatchFetchSize(batchFetchSize);
+		boolean paddedBatchFetch = PropertiesHelper.getBoolean(Environment.PADDED_BATCH_FETCH, properties);
+		log.info( "Padded batch fetch: " + enabledDisabled(paddedBatchFetch) );
+		settings.setPaddedBatchFetchEnabled(paddedBatchFetch);
+
+		int bootstrapThreads = PropertiesHelper.getInt(Environment.BOOTSTRAP_THREADS, properties, 1);
+		if (bootstrapThreads>1) log.info("Session factory bootstrap threads: " + bootstrapThreads);
+		settings.setBootstrapThreads(bootstrapThreads);
 
 		boolean comments = PropertiesHelper.getBoolean(Environment.USE_SQL_COMMENTS, properties);
 		log.info( "Generate SQL with comments: " + enabledDisabled(comments) );
@@ -195,6 +202,10 @@ public class SettingsFactory implements Serializable {
 		log.info( "Order SQL updates by primary key: " + enabledDisabled(orderUpdates) );
 		settings.setOrderUpdatesEnabled(orderUpdates);
 		
+		boolean orderInserts = PropertiesHelper.getBoolean(Environment.ORDER_INSERTS, properties);
+		log.info( "Order SQL inserts for batching: " + enabledDisabled(orderInserts) );
+		settings.setOrderInsertsEnabled(orderInserts);
+		
 		//Query parser settings:
 		
 		settings.setQueryTranslatorFactory( createQueryTranslatorFactory(properties) );
@@ -203,6 +214,14 @@ public class SettingsFactory implements Serializable {
 		log.info("Query language substitutions: " + querySubstitutions);
 		settings.setQuerySubstitutions(querySubstitutions);
 		
+		int queryPlanCacheMaxSize = PropertiesHelper.getInt(Environment.QUERY_PLAN_CACHE_MAX_SIZE, properties, 2048);
+		log.info("Query plan cache maximum size: " + queryPlanCacheMaxSize);
+		settings.setQueryPlanCacheMaxSize(queryPlanCacheMaxSize);
+
+		boolean queryPlanCacheSoftReferences = PropertiesHelper.getBoolean(Environment.QUERY_PLAN_CACHE_SOFT_REFERENCES, properties, true);
+		log.info( "Query plan cache soft references: " + enabledDisabled(queryPlanCacheSoftReferences) );
+		settings.setQueryPlanCacheSoftReferencesEnabled(queryPlanCacheSoftReferences);
+		
 		// Second-level / query cache:
 
 		boolean useSecondLevelCache = PropertiesHelper.getBoolean(Environment.USE_SECOND_LEVEL_CACHE, properties, true);
@@ -233,6 +252,10 @@ public class SettingsFactory implements Serializable {
 		if (prefix!=null) log.info("Cache region prefix: "+ prefix);
 		settings.setCacheRegionPrefix(prefix);
 
+		int cacheLockStripes = PropertiesHelper.getInt(Environment.CACHE_LOCK_STRIPES, properties, 0);
+		if (cacheLockStripes>0) log.info("Read-write cache lock stripes: " + cacheLockStripes);
+		settings.setCacheLockStripes(cacheLockStripes);
+
 		boolean useStructuredCacheEntries = PropertiesHelper.getBoolean(Environment.USE_STRUCTURED_CACHE, properties, false);
 		log.info( "Structured second-level cache entries: " + enabledDisabled(useStructuredCacheEntries) );
 		settings.setStructuredCacheEntriesEnabled(useStructuredCacheEntries);
@@ -299,6 +299,50 @@ public class ActionQueue implements Serializable {
 			java.util.Collections.sort( collectionUpdates );
 			java.util.Collections.sort( collectionRemovals );
 		}
+		else if ( session.getFactory().getSettings().isOrderInsertsEnabled() ) {
+			//group the (re)creations by role, so they can be batched
+			java.util.Collections.sort( collectionCreations );
+		}
+	}
+
+	/**
+	 * Group the entity insertions by entity name, so that consecutive
+	 * inserts use the same SQL and may be batched, without moving any
+	 * insertion ahead of an insertion of an entity it references.
+	 */
+	public void sortInsertActions() {
+		if ( !session.getFactory().getSettings().isOrderInsertsEnabled() || insertions.size() < 2 ) {
+			return;
+		}
+
+		int size = insertions.size();
+		for ( int i = 0; i < size; i++ ) {
+			Object action = insertions.get(i);
+			if ( !( action instanceof EntityInsertAction ) ) {
+				//not safe to move anything around
+				return;
+			}
+		}
+
+		InsertBatches batches = new InsertBatches( session.getEntityMode(), size );
+		for ( int i = 0; i < size; i++ ) {
+			EntityInsertAction action = ( EntityInsertAction ) insertions.get(i);
+			batches.add(
+					action.getEntityName(),
+					action.getInstance(),
+					action.getState(),
+					session.getFactory().getEntityPersister( action.getEntityName() ).getPropertyTypes(),
+					action
+				);
+		}
+
+		if ( log.isDebugEnabled() ) {
+			log.debug( "ordered " + size + " insertions into " + batches.getBatchCount() + " batches" );
+		}
+		insertions.clear();
+		for ( int i = 0; i < batches.getBatchCount(); i++ ) {
+			insertions.addAll( batches.getBatch(i) );
+		}
 	}
 
 	public void sortUpdateActions() {
@@ -157,6 +157,28 @@ public class BatchFetchQueue {
 			final Serializable id, 
 			final int batchSize, 
 			final EntityMode entityMode
+	) {
+		return getEntityBatch(persister, id, batchSize, entityMode, false);
+	}
+
+	/**
+	 * Get a batch of unloaded identifiers for this class, and optionally
+	 * for its subclasses, using a slightly complex algorithm that tries to
+	 * grab keys registered immediately after the given key.
+	 * 
+	 * @param entityName The name of the persistent class
+	 * @param id an identifier that must be included
+	 * @param batchSize the maximum number of keys to return
+	 * @param includeSubclasses should keys of subclasses share the batch?
+	 * (the entity loader is polymorphic, so it can load them)
+	 * @return an array of identifiers, of length batchSize (padded with nulls)
+	 */
+	public Serializable[] getEntityBatch(
+			final EntityPersister persister, 
+			final Serializable id, 
+			final int batchSize, 
+			final EntityMode entityMode,
+			final boolean includeSubclasses
 	) {
 		Serializable[] ids = new Serializable[batchSize];
 		ids[0] = id; //first element of array is reserved for the actual instance we are loading!
@@ -168,7 +190,10 @@ public class BatchFetchQueue {
 		while ( iter.hasNext() ) {
 			
 			EntityKey key = (EntityKey) iter.next();
-			if ( key.getEntityName().equals( persister.getEntityName() ) ) { //TODO: this needn't exclude subclasses...
+			final boolean batchable = includeSubclasses ?
+					persister.isSubclassEntityName( key.getEntityName() ) :
+					key.getEntityName().equals( persister.getEntityName() ); //TODO: this needn't exclude subclasses...
+			if (batchable) {
 				
 				if ( checkForEnd && i == end ) return ids; //the first id found after the given id
 
@@ -0,0 +1,97 @@
+//$Id: $
+package org.hibernate.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.EntityMode;
+import org.hibernate.type.AbstractComponentType;
+import org.hibernate.type.Type;
+import org.hibernate.util.IdentityMap;
+
+/**
+ * Groups entity insertions into batches by entity name, so that consecutive
+ * inserts use the same SQL and may be executed as one JDBC batch. Each
+ * insertion is added to the most recent batch of its entity name, unless
+ * that batch comes before the batch of an entity it references, in which
+ * case a new batch is started for its entity name after all the existing
+ * batches.
+ *
+ * @see ActionQueue#sortInsertActions()
+ */
+public final class InsertBatches {
+
+	// the latest batch number of each entity name
+	private final Map latestBatches = new HashMap();
+	// the batch number of each entity instance (by identity)
+	private final Map entityBatchNumber;
+	// the insertions in each batch
+	private final List batches = new ArrayList();
+	private final EntityMode entityMode;
+
+	public InsertBatches(EntityMode entityMode, int expectedSize) {
+		this.entityMode = entityMode;
+		this.entityBatchNumber = IdentityMap.instantiate(expectedSize);
+	}
+
+	/**
+	 * Add an insertion to the batch it belongs to
+	 *
+	 * @param entityName the entity name of the inserted entity
+	 * @param entity the inserted entity instance
+	 * @param state the property values of the entity
+	 * @param types the property types of the entity
+	 * @param insertion the object to add to the batch
+	 */
+	public void add(String entityName, Object entity, Object[] state, Type[] types, Object insertion) {
+		Integer batchNumber = (Integer) latestBatches.get(entityName);
+		if ( batchNumber==null || dependsOnLaterBatch( state, types, batchNumber.intValue() ) ) {
+			batchNumber = new Integer( batches.size() );
+			latestBatches.put(entityName, batchNumber);
+			batches.add( new ArrayList() );
+		}
+		entityBatchNumber.put(entity, batchNumber);
+		( (List) batches.get( batchNumber.intValue() ) ).add(insertion);
+	}
+
+	public int getBatchCount() {
+		return batches.size();
+	}
+
+	/**
+	 * The insertions in the given batch, in the order they were added
+	 */
+	public List getBatch(int batchNumber) {
+		return (List) batches.get(batchNumber);
+	}
+
+	public void clear() {
+		latestBatches.clear();
+		entityBatchNumber.clear();
+		batches.clear();
+	}
+
+	private boolean dependsOnLaterBatch(Object[] values, Type[] types, int batchNumber) {
+		for ( int i=0; i<types.length; i++ ) {
+			Object value = values[i];
+			if ( value==null ) continue;
+			if ( types[i].isEntityType() ) {
+				Integer associationBatchNumber = (Integer) entityBatchNumber.get(value);
+				if ( associationBatchNumber!=null && associationBatchNumber.intValue()>batchNumber ) {
+					return true;
+				}
+			}
+			else if ( types[i].isComponentType() ) {
+				AbstractComponentType componentType = (AbstractComponentType) types[i];
+				Object[] componentValues = componentType.getPropertyValues(value, entityMode);
+				if ( dependsOnLaterBatch( componentValues, componentType.getSubtypes(), batchNumber ) ) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+}
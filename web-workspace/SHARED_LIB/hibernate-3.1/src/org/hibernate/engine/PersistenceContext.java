@@ -431,4 +431,14 @@ public interface PersistenceContext {
 	 */
 	public void setReadOnly(Object entity, boolean readOnly);
 
+	/**
+	 * Are entities loaded into this persistence context read only by default?
+	 */
+	public boolean isDefaultReadOnly();
+
+	/**
+	 * Load entities in read only mode, without a snapshot, by default
+	 */
+	public void setDefaultReadOnly(boolean defaultReadOnly);
+
 }
\ No newline at end of file
@@ -106,6 +106,7 @@ public class StatefulPersistenceContext implements Serializable, PersistenceCont
 	private transient boolean flushing = false;
 	
 	private boolean hasNonReadOnlyEntities = false;
+	private boolean defaultReadOnly = false;
 	
 	private transient CollectionLoadContext collectionLoadContext;
 	private transient BatchFetchQueue batchFetchQueue;
@@ -1169,4 +1170,12 @@ public class StatefulPersistenceContext implements Serializable, PersistenceCont
 		entry.setReadOnly(readOnly, entity);
 		hasNonReadOnlyEntities = hasNonReadOnlyEntities || !readOnly;
 	}
+
+	public boolean isDefaultReadOnly() {
+		return defaultReadOnly;
+	}
+
+	public void setDefaultReadOnly(boolean defaultReadOnly) {
+		this.defaultReadOnly = defaultReadOnly;
+	}
 }
@@ -166,7 +166,7 @@ public final class TwoPhaseLoad {
 			}
 		}
 	
-		if ( readOnly || !persister.isMutable() ) {
+		if ( readOnly || persistenceContext.isDefaultReadOnly() || !persister.isMutable() ) {
 			//no need to take a snapshot - this is a 
 			//performance optimization, but not really
 			//important, except for entities with huge 
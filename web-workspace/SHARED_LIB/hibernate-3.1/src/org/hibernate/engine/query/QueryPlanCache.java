@@ -1,7 +1,7 @@
 package org.hibernate.engine.query;
 
 import org.hibernate.util.ArrayHelper;
-import org.hibernate.util.SimpleMRUCache;
+import org.hibernate.util.SoftLimitMRUCache;
 import org.hibernate.engine.SessionFactoryImplementor;
 import org.hibernate.engine.NamedSQLQueryDefinition;
 import org.hibernate.QueryException;
@@ -29,20 +29,62 @@ public class QueryPlanCache implements Serializable {
 
 	private SessionFactoryImplementor factory;
 
-	public QueryPlanCache(SessionFactoryImplementor factory) {
-		this.factory = factory;
-	}
-
 	// simple cache of param metadata based on query string.  Ideally, the
 	// original "user-supplied query" string should be used to retreive this
 	// metadata (i.e., not the para-list-expanded query string) to avoid
 	// unnecessary cache entries.
 	// Used solely for caching param metadata for native-sql queries, see
 	// getSQLParameterMetadata() for a discussion as to why...
-	private final SimpleMRUCache sqlParamMetadataCache = new SimpleMRUCache();
+	private final SoftLimitMRUCache sqlParamMetadataCache;
 
 	// the cache of the actual plans...
-	private final SimpleMRUCache planCache = new SimpleMRUCache();
+	private final SoftLimitMRUCache planCache;
+
+	public QueryPlanCache(SessionFactoryImplementor factory) {
+		this(
+				factory,
+				SoftLimitMRUCache.DEFAULT_STRONG_REF_COUNT,
+				SoftLimitMRUCache.DEFAULT_STRONG_REF_COUNT,
+				true
+		);
+	}
+
+	/**
+	 * @param maxPlans the number of plans held by strong references
+	 * @param maxParameterMetadata the number of native-sql parameter metadata held by strong references
+	 * @param useSoftReferences should plans pushed out of the strong core be kept softly?
+	 */
+	public QueryPlanCache(
+			SessionFactoryImplementor factory,
+			int maxPlans,
+			int maxParameterMetadata,
+			boolean useSoftReferences) {
+		this.factory = factory;
+		this.planCache = new SoftLimitMRUCache( maxPlans, useSoftReferences );
+		this.sqlParamMetadataCache = new SoftLimitMRUCache( maxParameterMetadata, useSoftReferences );
+	}
+
+	/**
+	 * The number of plans currently held by strong references
+	 */
+	public int getPlanCount() {
+		return planCache.size();
+	}
+
+	/**
+	 * The number of native-sql parameter metadata currently held by strong references
+	 */
+	public int getParameterMetadataCount() {
+		return sqlParamMetadataCache.size();
+	}
+
+	/**
+	 * Discard all cached plans and parameter metadata
+	 */
+	public void clear() {
+		planCache.clear();
+		sqlParamMetadataCache.clear();
+	}
 
 
 	public ParameterMetadata getSQLParameterMetadata(String query) {
@@ -54,7 +96,7 @@ public class QueryPlanCache implements Serializable {
 			// types having been set, which might not be the case up-front when
 			// param metadata would be most useful
 			metadata = buildNativeSQLParameterMetadata( query );
-			sqlParamMetadataCache.put( query, metadata );
+			put( sqlParamMetadataCache, query, metadata );
 		}
 		return metadata;
 	}
@@ -69,15 +111,16 @@ public class QueryPlanCache implements Serializable {
 				log.trace( "unable to locate HQL query plan in cache; generating (" + queryString + ")" );
 			}
 			plan = new HQLQueryPlan(queryString, shallow, enabledFilters, factory );
+			planMissed();
+			put( planCache, key, plan );
 		}
 		else {
 			if ( log.isTraceEnabled() ) {
 				log.trace( "located HQL query plan in cache (" + queryString + ")" );
 			}
+			planHit();
 		}
 
-		planCache.put( key, plan );
-
 		return plan;
 	}
 
@@ -91,15 +134,16 @@ public class QueryPlanCache implements Serializable {
 				log.trace( "unable to locate collection-filter query plan in cache; generating (" + collectionRole + " : " + filterString + ")" );
 			}
 			plan = new FilterQueryPlan( filterString, collectionRole, shallow, enabledFilters, factory );
+			planMissed();
+			put( planCache, key, plan );
 		}
 		else {
 			if ( log.isTraceEnabled() ) {
 				log.trace( "located collection-filter query plan in cache (" + collectionRole + " : " + filterString + ")" );
 			}
+			planHit();
 		}
 
-		planCache.put( key, plan );
-
 		return plan;
 	}
 
@@ -111,17 +155,38 @@ public class QueryPlanCache implements Serializable {
 				log.trace( "unable to locate native-sql query plan in cache; generating (" + spec.getQueryString() + ")" );
 			}
 			plan = new NativeSQLQueryPlan( spec, factory );
+			planMissed();
+			put( planCache, spec, plan );
 		}
 		else {
 			if ( log.isTraceEnabled() ) {
 				log.trace( "located native-sql query plan in cache (" + spec.getQueryString() + ")" );
 			}
+			planHit();
 		}
 
-		planCache.put( spec, plan );
 		return plan;
 	}
 
+	private void put(SoftLimitMRUCache cache, Object key, Object value) {
+		boolean evicted = cache.put( key, value );
+		if ( evicted && factory.getStatistics().isStatisticsEnabled() ) {
+			factory.getStatisticsImplementor().queryPlanCacheEviction();
+		}
+	}
+
+	private void planHit() {
+		if ( factory.getStatistics().isStatisticsEnabled() ) {
+			factory.getStatisticsImplementor().queryPlanCacheHit();
+		}
+	}
+
+	private void planMissed() {
+		if ( factory.getStatistics().isStatisticsEnabled() ) {
+			factory.getStatisticsImplementor().queryPlanCacheMiss();
+		}
+	}
+
 	private ParameterMetadata buildNativeSQLParameterMetadata(String sqlString) {
 		ParamLocationRecognizer recognizer = ParamLocationRecognizer.parseLocations( sqlString );
 
@@ -188,7 +188,12 @@ public abstract class AbstractFlushingEventListener implements Serializable {
 			EntityEntry entry = (EntityEntry) me.getValue();
 			Status status = entry.getStatus();
 
-			if ( status != Status.LOADING && status != Status.GONE ) {
+			// a read only instance without collections can't be dirty,
+			// and doesn't reference any collection, so skip it
+			boolean skip = status == Status.READ_ONLY && 
+					!entry.getPersister().hasCollections();
+
+			if ( status != Status.LOADING && status != Status.GONE && !skip ) {
 				FlushEntityEvent entityEvent = new FlushEntityEvent( source, me.getKey(), entry );
 				FlushEntityEventListener[] listeners = source.getListeners().getFlushEntityEventListeners();
 				for ( int j = 0; j < listeners.length; j++ ) {
@@ -197,6 +202,7 @@ public abstract class AbstractFlushingEventListener implements Serializable {
 			}
 		}
 
+		source.getActionQueue().sortInsertActions();
 		source.getActionQueue().sortUpdateActions();
 	}
 
@@ -516,24 +516,29 @@ public class DefaultLoadEventListener extends AbstractLockUpgradeEventListener i
 				session
 			);
 
+		final PersistenceContext persistenceContext = session.getPersistenceContext();
+		final boolean readOnly = persistenceContext.isDefaultReadOnly();
+
 		Type[] types = subclassPersister.getPropertyTypes();
 		Object[] values = entry.assemble( result, id, subclassPersister, session.getInterceptor(), session ); // intializes result by side-effect
-		TypeFactory.deepCopy( 
-				values, 
-				types, 
-				subclassPersister.getPropertyUpdateability(), 
-				values, 
-				session
-			);
+		if ( !readOnly ) {
+			//take a snapshot
+			TypeFactory.deepCopy( 
+					values, 
+					types, 
+					subclassPersister.getPropertyUpdateability(), 
+					values, 
+					session
+				);
+		}
 		
 		Object version = Versioning.getVersion( values, subclassPersister );
 		if ( log.isTraceEnabled() ) log.trace( "Cached Version: " + version );
 		
-		final PersistenceContext persistenceContext = session.getPersistenceContext();
 		persistenceContext.addEntry( 
 				result, 
-				Status.MANAGED, 
-				values, 
+				readOnly ? Status.READ_ONLY : Status.MANAGED, 
+				readOnly ? null : values, 
 				null, 
 				id, 
 				version, 
@@ -79,6 +79,8 @@ public final class IdentifierGeneratorFactory {
 		GENERATORS.put("select", SelectGenerator.class);
 		GENERATORS.put("sequence", SequenceGenerator.class);
 		GENERATORS.put("seqhilo", SequenceHiLoGenerator.class);
+		GENERATORS.put("seqpooled", PooledSequenceGenerator.class);
+		GENERATORS.put("tablepooled", PooledTableGenerator.class);
 		GENERATORS.put("increment", IncrementGenerator.class);
 		GENERATORS.put("foreign", ForeignGenerator.class);
 		GENERATORS.put("guid", GUIDGenerator.class);
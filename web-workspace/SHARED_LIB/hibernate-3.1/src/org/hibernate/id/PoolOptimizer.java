@@ -0,0 +1,174 @@
+//$Id: $
+package org.hibernate.id;
+
+import java.io.Serializable;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.MappingException;
+
+/**
+ * Hands out identifiers from blocks of <tt>increment_size</tt> values,
+ * only going to the database (the "source", a sequence or table which
+ * itself advances by <tt>increment_size</tt>) when a block is used up.
+ * Unlike hi/lo, the values stored in the database are real identifier
+ * values, so the database never lags far behind the identifiers in use.<br>
+ * <br>
+ * Two interpretations of the source value are supported:
+ * <ul>
+ * <li><tt>pooled</tt>: the value is the (exclusive) upper bound of the block
+ * <li><tt>pooled-lo</tt>: the value is the first identifier of the block
+ * </ul>
+ * Once a block has been fetched, handing out an identifier only takes a
+ * short synchronized increment.
+ *
+ * @see PooledSequenceGenerator
+ * @see PooledTableGenerator
+ */
+public abstract class PoolOptimizer {
+
+	/**
+	 * The optimizer parameter
+	 */
+	public static final String OPTIMIZER = "optimizer";
+
+	/**
+	 * The increment_size parameter
+	 */
+	public static final String INCREMENT_SIZE = "increment_size";
+
+	public static final String POOLED = "pooled";
+	public static final String POOLED_LO = "pooled-lo";
+
+	public static final int DEFAULT_INCREMENT_SIZE = 50;
+
+	private static final Log log = LogFactory.getLog(PoolOptimizer.class);
+
+	/**
+	 * Obtains the next value from the source (a round trip to the database)
+	 */
+	public static interface AccessCallback {
+		public long getNextValue();
+	}
+
+	protected final int incrementSize;
+	private final Class returnClass;
+
+	protected long value = -1;
+	protected long hiValue = -1;
+	private long sourceCallCount;
+	private long generatedCount;
+
+	protected PoolOptimizer(int incrementSize, Class returnClass) {
+		this.incrementSize = incrementSize;
+		this.returnClass = returnClass;
+	}
+
+	/**
+	 * Build the optimizer named by the <tt>optimizer</tt> parameter
+	 */
+	public static PoolOptimizer build(String type, int incrementSize, Class returnClass) throws MappingException {
+		if ( incrementSize < 1 ) {
+			throw new MappingException( "increment_size must be positive: " + incrementSize );
+		}
+		if ( POOLED.equals(type) ) {
+			return new Pooled(incrementSize, returnClass);
+		}
+		else if ( POOLED_LO.equals(type) ) {
+			return new PooledLo(incrementSize, returnClass);
+		}
+		else {
+			throw new MappingException( "optimizer should be pooled or pooled-lo: " + type );
+		}
+	}
+
+	public synchronized Serializable generate(AccessCallback callback) {
+		if ( value < 0 || value >= hiValue ) {
+			nextBlock(callback);
+			if ( log.isDebugEnabled() ) {
+				log.debug( "new identifier block: " + value + " to " + (hiValue - 1) );
+			}
+		}
+		generatedCount++;
+		return IdentifierGeneratorFactory.createNumber( value++, returnClass );
+	}
+
+	/**
+	 * Fetch the next block from the source, setting <tt>value</tt> to its
+	 * first identifier and <tt>hiValue</tt> to its (exclusive) upper bound
+	 */
+	protected abstract void nextBlock(AccessCallback callback);
+
+	protected final long getNextValue(AccessCallback callback) {
+		sourceCallCount++;
+		return callback.getNextValue();
+	}
+
+	public int getIncrementSize() {
+		return incrementSize;
+	}
+
+	/**
+	 * The number of times the source has been called
+	 */
+	public synchronized long getSourceCallCount() {
+		return sourceCallCount;
+	}
+
+	/**
+	 * The number of identifiers handed out
+	 */
+	public synchronized long getGeneratedCount() {
+		return generatedCount;
+	}
+
+	/**
+	 * Round trips to the database per thousand identifiers
+	 */
+	public synchronized double getSourceCallsPerThousand() {
+		return generatedCount==0 ? 0 : sourceCallCount * 1000d / generatedCount;
+	}
+
+	/**
+	 * The source value is the upper bound of the block. A source just
+	 * starting out (returning less than the increment size) is called
+	 * twice, so that its first value is not lost.
+	 */
+	public static final class Pooled extends PoolOptimizer {
+		Pooled(int incrementSize, Class returnClass) {
+			super(incrementSize, returnClass);
+		}
+
+		protected void nextBlock(AccessCallback callback) {
+			if ( hiValue < 0 ) {
+				value = getNextValue(callback);
+				if ( value < incrementSize ) {
+					hiValue = getNextValue(callback);
+				}
+				else {
+					hiValue = value;
+					value = hiValue - incrementSize;
+				}
+			}
+			else {
+				hiValue = getNextValue(callback);
+				value = hiValue - incrementSize;
+			}
+		}
+	}
+
+	/**
+	 * The source value is the first identifier of the block.
+	 */
+	public static final class PooledLo extends PoolOptimizer {
+		PooledLo(int incrementSize, Class returnClass) {
+			super(incrementSize, returnClass);
+		}
+
+		protected void nextBlock(AccessCallback callback) {
+			value = getNextValue(callback);
+			hiValue = value + incrementSize;
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+//$Id: $
+package org.hibernate.id;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.type.Type;
+import org.hibernate.util.PropertiesHelper;
+
+/**
+ * <b>seqpooled</b><br>
+ * <br>
+ * Generates <tt>long</tt> values using an oracle-style sequence which
+ * increments by <tt>increment_size</tt>, handing out the values in between
+ * without going to the database. Unlike <tt>SequenceHiLoGenerator</tt>,
+ * the sequence holds real identifier values, so other applications may
+ * safely use the same sequence, as long as they respect the increment.<br>
+ * <br>
+ * Mapping parameters supported: sequence, parameters, increment_size,
+ * optimizer (<tt>pooled</tt>, the default, or <tt>pooled-lo</tt>). If
+ * no parameters are given, the sequence is created with
+ * <tt>increment by</tt> <i>increment_size</i>.
+ *
+ * @see PoolOptimizer
+ * @see SequenceGenerator
+ */
+public class PooledSequenceGenerator extends SequenceGenerator {
+
+	private PoolOptimizer optimizer;
+
+	public void configure(Type type, Properties params, Dialect dialect) throws MappingException {
+		int incrementSize = PropertiesHelper.getInt(
+				PoolOptimizer.INCREMENT_SIZE, params, PoolOptimizer.DEFAULT_INCREMENT_SIZE
+			);
+		String optimizerType = PropertiesHelper.getString(
+				PoolOptimizer.OPTIMIZER, params, PoolOptimizer.POOLED
+			);
+		optimizer = PoolOptimizer.build( optimizerType, incrementSize, type.getReturnedClass() );
+
+		if ( params.getProperty(PARAMETERS)==null ) {
+			params = (Properties) params.clone();
+			params.setProperty( PARAMETERS, "increment by " + incrementSize );
+		}
+		super.configure(type, params, dialect);
+	}
+
+	public Serializable generate(final SessionImplementor session, final Object obj)
+	throws HibernateException {
+		return optimizer.generate(
+				new PoolOptimizer.AccessCallback() {
+					public long getNextValue() {
+						return ( (Number) PooledSequenceGenerator.super.generate(session, obj) ).longValue();
+					}
+				}
+			);
+	}
+
+	public PoolOptimizer getOptimizer() {
+		return optimizer;
+	}
+
+}
@@ -0,0 +1,186 @@
+//$Id: $
+package org.hibernate.id;
+
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.HibernateException;
+import org.hibernate.LockMode;
+import org.hibernate.MappingException;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.engine.TransactionHelper;
+import org.hibernate.mapping.Table;
+import org.hibernate.type.Type;
+import org.hibernate.util.PropertiesHelper;
+
+/**
+ * <b>tablepooled</b><br>
+ * <br>
+ * Generates <tt>long</tt>, <tt>integer</tt> or <tt>short</tt> values using
+ * a table which holds the next identifier value, and is advanced by
+ * <tt>increment_size</tt> at a time, in a seperate transaction. The values
+ * in between are handed out without going to the database. Unlike
+ * <tt>TableHiLoGenerator</tt>, the table holds a real identifier value, so
+ * other applications may safely use the same table, as long as they
+ * respect the increment.<br>
+ * <br>
+ * Like <tt>TableGenerator</tt>, this generator may not be used when the
+ * user is supplying connections.<br>
+ * <br>
+ * Mapping parameters supported: table, column, increment_size, optimizer
+ * (<tt>pooled</tt>, the default, or <tt>pooled-lo</tt>).
+ *
+ * @see PoolOptimizer
+ * @see TableGenerator
+ */
+public class PooledTableGenerator extends TransactionHelper
+	implements PersistentIdentifierGenerator, Configurable {
+
+	/** The column parameter */
+	public static final String COLUMN = "column";
+
+	/** Default column name */
+	public static final String DEFAULT_COLUMN_NAME = "next_val";
+
+	/** The table parameter */
+	public static final String TABLE = "table";
+
+	/** Default table name */
+	public static final String DEFAULT_TABLE_NAME = "hibernate_id_pool";
+
+	private static final Log log = LogFactory.getLog(PooledTableGenerator.class);
+
+	private String tableName;
+	private String columnName;
+	private String query;
+	private String update;
+	private int incrementSize;
+	private PoolOptimizer optimizer;
+
+	public void configure(Type type, Properties params, Dialect dialect) throws MappingException {
+
+		tableName = PropertiesHelper.getString(TABLE, params, DEFAULT_TABLE_NAME);
+		columnName = PropertiesHelper.getString(COLUMN, params, DEFAULT_COLUMN_NAME);
+		String schemaName = params.getProperty(SCHEMA);
+		String catalogName = params.getProperty(CATALOG);
+
+		if ( tableName.indexOf( '.' )<0 ) {
+			tableName = Table.qualify( catalogName, schemaName, tableName );
+		}
+
+		incrementSize = PropertiesHelper.getInt(
+				PoolOptimizer.INCREMENT_SIZE, params, PoolOptimizer.DEFAULT_INCREMENT_SIZE
+			);
+		String optimizerType = PropertiesHelper.getString(
+				PoolOptimizer.OPTIMIZER, params, PoolOptimizer.POOLED
+			);
+		optimizer = PoolOptimizer.build( optimizerType, incrementSize, type.getReturnedClass() );
+
+		query = "select " +
+			columnName +
+			" from " +
+			dialect.appendLockHint(LockMode.UPGRADE, tableName) +
+			dialect.getForUpdateString();
+
+		update = "update " +
+			tableName +
+			" set " +
+			columnName +
+			" = ? where " +
+			columnName +
+			" = ?";
+	}
+
+	public Serializable generate(final SessionImplementor session, Object object)
+		throws HibernateException {
+		return optimizer.generate(
+				new PoolOptimizer.AccessCallback() {
+					public long getNextValue() {
+						return ( (Long) doWorkInNewTransaction(session) ).longValue();
+					}
+				}
+			);
+	}
+
+	public String[] sqlCreateStrings(Dialect dialect) throws HibernateException {
+		return new String[] {
+			"create table " + tableName + " ( " + columnName + " " + dialect.getTypeName(Types.BIGINT) + " )",
+			"insert into " + tableName + " values ( 1 )"
+		};
+	}
+
+	public String[] sqlDropStrings(Dialect dialect) {
+		StringBuffer sqlDropString = new StringBuffer()
+			.append("drop table ");
+		if ( dialect.supportsIfExistsBeforeTableName() ) sqlDropString.append("if exists ");
+		sqlDropString.append(tableName)
+			.append( dialect.getCascadeConstraintsString() );
+		if ( dialect.supportsIfExistsAfterTableName() ) sqlDropString.append(" if exists");
+		return new String[] { sqlDropString.toString() };
+	}
+
+	public Object generatorKey() {
+		return tableName;
+	}
+
+	public PoolOptimizer getOptimizer() {
+		return optimizer;
+	}
+
+	public Serializable doWorkInCurrentTransaction(Connection conn, String sql) throws SQLException {
+		long result;
+		int rows;
+		do {
+			// The loop ensures atomicity of the
+			// select + update even for no transaction
+			// or read committed isolation level
+
+			sql = query;
+			SQL.debug(query);
+			PreparedStatement qps = conn.prepareStatement(query);
+			try {
+				ResultSet rs = qps.executeQuery();
+				if ( !rs.next() ) {
+					String err = "could not read the next value - you need to populate the table: " + tableName;
+					log.error(err);
+					throw new IdentifierGenerationException(err);
+				}
+				result = rs.getLong(1);
+				rs.close();
+			}
+			catch (SQLException sqle) {
+				log.error("could not read the next value", sqle);
+				throw sqle;
+			}
+			finally {
+				qps.close();
+			}
+
+			sql = update;
+			SQL.debug(update);
+			PreparedStatement ups = conn.prepareStatement(update);
+			try {
+				ups.setLong( 1, result + incrementSize );
+				ups.setLong( 2, result );
+				rows = ups.executeUpdate();
+			}
+			catch (SQLException sqle) {
+				log.error("could not update the next value in: " + tableName, sqle);
+				throw sqle;
+			}
+			finally {
+				ups.close();
+			}
+		}
+		while (rows==0);
+		return new Long(result);
+	}
+}
@@ -0,0 +1,79 @@
+//$Id: $
+package org.hibernate.impl;
+
+import java.io.Serializable;
+import java.util.List;
+
+import org.hibernate.EntityMode;
+import org.hibernate.engine.InsertBatches;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Holds the inserts queued by a <tt>StatelessSession</tt> in bulk insert
+ * mode, grouped into batches by entity name by {@link InsertBatches}, so
+ * that consecutive inserts use the same SQL and may be executed as one
+ * JDBC batch.
+ */
+final class BulkInsertQueue {
+
+	private final InsertBatches batches = new InsertBatches(EntityMode.POJO, 64);
+	private int size;
+
+	void add(EntityPersister persister, Serializable id, Object[] state, Object entity) {
+		batches.add(
+				persister.getEntityName(),
+				entity,
+				state,
+				persister.getPropertyTypes(),
+				new Insertion(persister, id, state, entity)
+			);
+		size++;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Insert the queued entities, batch by batch, and empty the queue
+	 *
+	 * @return the number of entities inserted
+	 */
+	int execute(SessionImplementor session) {
+		int result = size;
+		try {
+			for ( int i=0; i<batches.getBatchCount(); i++ ) {
+				List batch = batches.getBatch(i);
+				for ( int j=0; j<batch.size(); j++ ) {
+					Insertion insertion = (Insertion) batch.get(j);
+					insertion.persister.insert( insertion.id, insertion.state, insertion.entity, session );
+				}
+			}
+		}
+		finally {
+			clear();
+		}
+		return result;
+	}
+
+	void clear() {
+		batches.clear();
+		size = 0;
+	}
+
+	private static final class Insertion {
+		final EntityPersister persister;
+		final Serializable id;
+		final Object[] state;
+		final Object entity;
+
+		Insertion(EntityPersister persister, Serializable id, Object[] state, Object entity) {
+			this.persister = persister;
+			this.id = id;
+			this.state = state;
+			this.entity = entity;
+		}
+	}
+
+}
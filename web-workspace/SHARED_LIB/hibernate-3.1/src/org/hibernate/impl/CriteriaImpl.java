@@ -47,6 +47,7 @@ public class CriteriaImpl implements Criteria, Serializable {
 	private Integer timeout;
 	private Integer fetchSize;
 	private boolean cacheable;
+	private boolean readOnly;
 	private String cacheRegion;
 	private String comment;
 	private transient SessionImplementor session;
@@ -134,6 +135,11 @@ public class CriteriaImpl implements Criteria, Serializable {
 			return this;
 		}
 
+		public Criteria setReadOnly(boolean readOnly) {
+			CriteriaImpl.this.setReadOnly(readOnly);
+			return this;
+		}
+
 		public Criteria createCriteria(String associationPath)
 			throws HibernateException {
 			return new Subcriteria(Subcriteria.this, associationPath);
@@ -340,6 +346,15 @@ public class CriteriaImpl implements Criteria, Serializable {
 		return this;
 	}
 
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	public Criteria setReadOnly(boolean readOnly) {
+		this.readOnly = readOnly;
+		return this;
+	}
+
 	public Iterator iterateExpressionEntries() {
 		return criterionEntries.iterator();
 	}
@@ -0,0 +1,84 @@
+//$Id: $
+package org.hibernate.impl;
+
+import org.hibernate.HibernateException;
+
+/**
+ * Runs independent initialization tasks of the <tt>SessionFactory</tt>
+ * (building persisters, generating their SQL) on a number of threads.
+ * The tasks are handed out in order, and each task writes its result to
+ * its own slot, so the result does not depend upon the scheduling; if any
+ * tasks fail, the failure of the first of them is rethrown. If the calling
+ * thread is interrupted while waiting for the other threads, it still waits
+ * for their tasks to finish, since they write to shared state, then fails
+ * with the interrupt status restored.
+ */
+final class ParallelInitializer {
+
+	private final int threads;
+
+	/**
+	 * @param threads the number of threads to use, including the calling
+	 * thread (1 runs every task in the calling thread)
+	 */
+	ParallelInitializer(int threads) {
+		this.threads = threads;
+	}
+
+	void run(final Runnable[] tasks) throws HibernateException {
+		if ( threads<=1 || tasks.length<=1 ) {
+			for ( int i=0; i<tasks.length; i++ ) tasks[i].run();
+			return;
+		}
+
+		final Throwable[] failures = new Throwable[tasks.length];
+		final int[] next = new int[1];
+		Runnable worker = new Runnable() {
+			public void run() {
+				while (true) {
+					int task;
+					synchronized (next) {
+						if ( next[0]==tasks.length ) return;
+						task = next[0]++;
+					}
+					try {
+						tasks[task].run();
+					}
+					catch (Throwable t) {
+						failures[task] = t;
+					}
+				}
+			}
+		};
+
+		Thread[] workers = new Thread[ Math.min( threads, tasks.length ) - 1 ];
+		for ( int i=0; i<workers.length; i++ ) {
+			workers[i] = new Thread( worker, "hibernate-initializer-" + (i+1) );
+			workers[i].setDaemon(true);
+			workers[i].start();
+		}
+		worker.run();
+		InterruptedException interrupted = null;
+		for ( int i=0; i<workers.length; i++ ) {
+			try {
+				workers[i].join();
+			}
+			catch (InterruptedException ie) {
+				interrupted = ie;
+				i--; //wait for the same worker again
+			}
+		}
+		if ( interrupted!=null ) {
+			Thread.currentThread().interrupt();
+			throw new HibernateException("interrupted while initializing the session factory", interrupted);
+		}
+
+		for ( int i=0; i<failures.length; i++ ) {
+			Throwable failure = failures[i];
+			if ( failure instanceof RuntimeException ) throw (RuntimeException) failure;
+			if ( failure instanceof Error ) throw (Error) failure;
+			if ( failure!=null ) throw new HibernateException(failure);
+		}
+	}
+
+}
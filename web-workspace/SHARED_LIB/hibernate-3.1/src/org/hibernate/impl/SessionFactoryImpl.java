@@ -13,6 +13,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -135,7 +136,7 @@ public final class SessionFactoryImpl implements SessionFactory, SessionFactoryI
 	private final transient EventListeners eventListeners;
 	private final transient CurrentSessionContext currentSessionContext;
 
-	private final QueryPlanCache queryPlanCache = new QueryPlanCache( this );
+	private final QueryPlanCache queryPlanCache;
 
 	private transient boolean isClosed = false;
 
@@ -151,11 +152,20 @@ public final class SessionFactoryImpl implements SessionFactory, SessionFactoryI
 	throws HibernateException {
 
 		log.info("building session factory");
+		long phaseStart = System.currentTimeMillis();
+		StringBuffer timings = new StringBuffer();
+		ParallelInitializer initializer = new ParallelInitializer( settings.getBootstrapThreads() );
 
 		this.properties = new Properties();
 		this.properties.putAll( cfg.getProperties() );
 		this.interceptor = cfg.getInterceptor();
 		this.settings = settings;
+		this.queryPlanCache = new QueryPlanCache(
+				this,
+				settings.getQueryPlanCacheMaxSize(),
+				settings.getQueryPlanCacheMaxSize(),
+				settings.isQueryPlanCacheSoftReferencesEnabled()
+		);
         this.eventListeners = listeners;
         this.filters = new HashMap();
 		this.filters.putAll( cfg.getFilterDefinitions() );
@@ -188,11 +198,13 @@ public final class SessionFactoryImpl implements SessionFactory, SessionFactoryI
 			}
 		}
 
+		phaseStart = logPhase( timings, "identifier generators", phaseStart );
+
 		//Persisters:
 
 		Map caches = new HashMap();
-		entityPersisters = new HashMap();
-		Map classMeta = new HashMap();
+		final List entityModels = new ArrayList();
+		final List entityCaches = new ArrayList();
 		classes = cfg.getClassMappings();
 		while ( classes.hasNext() ) {
 			PersistentClass model = (PersistentClass) classes.next();
@@ -212,14 +224,38 @@ public final class SessionFactoryImpl implements SessionFactory, SessionFactoryI
 					allCacheRegions.put( cache.getRegionName(), cache.getCache() );
 				}
 			}
-			EntityPersister cp = PersisterFactory.createClassPersister(model, cache, this, mapping);
-			entityPersisters.put( model.getEntityName(), cp );
-			classMeta.put( model.getEntityName(), cp.getClassMetadata() );
+			entityModels.add(model);
+			entityCaches.add(cache);
+		}
+		final EntityPersister[] newEntityPersisters = new EntityPersister[ entityModels.size() ];
+		Runnable[] tasks = new Runnable[ newEntityPersisters.length ];
+		for ( int i=0; i<tasks.length; i++ ) {
+			final int index = i;
+			final Mapping persisterMapping = mapping;
+			tasks[i] = new Runnable() {
+				public void run() {
+					newEntityPersisters[index] = PersisterFactory.createClassPersister( 
+							(PersistentClass) entityModels.get(index), 
+							(CacheConcurrencyStrategy) entityCaches.get(index), 
+							SessionFactoryImpl.this, 
+							persisterMapping 
+						);
+				}
+			};
+		}
+		initializer.run(tasks);
+		entityPersisters = new HashMap();
+		Map classMeta = new HashMap();
+		for ( int i=0; i<newEntityPersisters.length; i++ ) {
+			EntityPersister cp = newEntityPersisters[i];
+			entityPersisters.put( cp.getEntityName(), cp );
+			classMeta.put( cp.getEntityName(), cp.getClassMetadata() );
 		}
 		classMetadata = Collections.unmodifiableMap(classMeta);
+		phaseStart = logPhase( timings, "entity persisters", phaseStart );
 
-		Map tmpEntityToCollectionRoleMap = new HashMap();
-		collectionPersisters = new HashMap();
+		final List collectionModels = new ArrayList();
+		final List collectionCaches = new ArrayList();
 		Iterator collections = cfg.getCollectionMappings();
 		while ( collections.hasNext() ) {
 			Collection model = (Collection) collections.next();
@@ -231,8 +267,31 @@ public final class SessionFactoryImpl implements SessionFactory, SessionFactoryI
 				properties
 			);
 			if (cache!=null) allCacheRegions.put( cache.getRegionName(), cache.getCache() );
-			CollectionPersister persister = PersisterFactory.createCollectionPersister(cfg, model, cache, this);
-			collectionPersisters.put( model.getRole(), persister.getCollectionMetadata() );
+			collectionModels.add(model);
+			collectionCaches.add(cache);
+		}
+		final CollectionPersister[] newCollectionPersisters = new CollectionPersister[ collectionModels.size() ];
+		tasks = new Runnable[ newCollectionPersisters.length ];
+		for ( int i=0; i<tasks.length; i++ ) {
+			final int index = i;
+			final Configuration configuration = cfg;
+			tasks[i] = new Runnable() {
+				public void run() {
+					newCollectionPersisters[index] = PersisterFactory.createCollectionPersister( 
+							configuration, 
+							(Collection) collectionModels.get(index), 
+							(CacheConcurrencyStrategy) collectionCaches.get(index), 
+							SessionFactoryImpl.this 
+						);
+				}
+			};
+		}
+		initializer.run(tasks);
+		Map tmpEntityToCollectionRoleMap = new HashMap();
+		collectionPersisters = new HashMap();
+		for ( int i=0; i<newCollectionPersisters.length; i++ ) {
+			CollectionPersister persister = newCollectionPersisters[i];
+			collectionPersisters.put( persister.getRole(), persister.getCollectionMetadata() );
 			Type indexType = persister.getIndexType();
 			if ( indexType != null && indexType.isAssociationType() && !indexType.isAnyType() ) {
 				String entityName = ( ( AssociationType ) indexType ).getAssociatedEntityName( this );
@@ -261,6 +320,7 @@ public final class SessionFactoryImpl implements SessionFactory, SessionFactoryI
 			entry.setValue( Collections.unmodifiableSet( ( Set ) entry.getValue() ) );
 		}
 		collectionRolesByEntityParticipant = Collections.unmodifiableMap( tmpEntityToCollectionRoleMap );
+		phaseStart = logPhase( timings, "collection persisters", phaseStart );
 
 		//Named Queries:
 		namedQueries = new HashMap( cfg.getNamedQueries() );
@@ -269,14 +329,28 @@ public final class SessionFactoryImpl implements SessionFactory, SessionFactoryI
 		imports = new HashMap( cfg.getImports() );
 
 		// after *all* persisters and named queries are registered
-		Iterator iter = entityPersisters.values().iterator();
-		while ( iter.hasNext() ) {
-			( (EntityPersister) iter.next() ).postInstantiate();
+		tasks = new Runnable[ newEntityPersisters.length ];
+		for ( int i=0; i<tasks.length; i++ ) {
+			final EntityPersister persister = newEntityPersisters[i];
+			tasks[i] = new Runnable() {
+				public void run() {
+					persister.postInstantiate();
+				}
+			};
 		}
-		iter = collectionPersisters.values().iterator();
-		while ( iter.hasNext() ) {
-			( (CollectionPersister) iter.next() ).postInstantiate();
+		initializer.run(tasks);
+		phaseStart = logPhase( timings, "entity loaders", phaseStart );
+		tasks = new Runnable[ newCollectionPersisters.length ];
+		for ( int i=0; i<tasks.length; i++ ) {
+			final CollectionPersister persister = newCollectionPersisters[i];
+			tasks[i] = new Runnable() {
+				public void run() {
+					persister.postInstantiate();
+				}
+			};
 		}
+		initializer.run(tasks);
+		phaseStart = logPhase( timings, "collection loaders", phaseStart );
 
 		//JNDI + Serialization:
 
@@ -295,6 +369,7 @@ public final class SessionFactoryImpl implements SessionFactory, SessionFactoryI
 		if ( settings.isAutoUpdateSchema() ) new SchemaUpdate(cfg, settings).execute(false, true);
 		if ( settings.isAutoValidateSchema() ) new SchemaValidator(cfg, settings).validate();
 		if ( settings.isAutoDropSchema() ) schemaExport = new SchemaExport(cfg, settings);
+		phaseStart = logPhase( timings, "schema tools", phaseStart );
 
 		if ( settings.getTransactionManagerLookup()!=null ) {
 			log.debug("obtaining JTA TransactionManager");
@@ -324,7 +399,10 @@ public final class SessionFactoryImpl implements SessionFactory, SessionFactoryI
 		}
 
 		//checking for named queries
+		phaseStart = logPhase( timings, "caches and transactions", phaseStart );
 		Map errors = checkNamedQueries();
+		logPhase( timings, "named queries", phaseStart );
+		log.info( "session factory phases (ms): " + timings );
 		if ( !errors.isEmpty() ) {
 			Set keys = errors.keySet();
 			StringBuffer failingQueries = new StringBuffer( "Errors in named queries: " );
@@ -342,6 +420,13 @@ public final class SessionFactoryImpl implements SessionFactory, SessionFactoryI
 		getStatistics().setStatisticsEnabled( settings.isStatisticsEnabled() );
 	}
 
+	private static long logPhase(StringBuffer timings, String phase, long phaseStart) {
+		long now = System.currentTimeMillis();
+		if ( timings.length()>0 ) timings.append(", ");
+		timings.append(phase).append('=').append(now - phaseStart);
+		return now;
+	}
+
 	public QueryPlanCache getQueryPlanCache() {
 		return queryPlanCache;
 	}
@@ -1740,6 +1740,15 @@ public final class SessionImpl extends AbstractSessionImpl
 		persistenceContext.setReadOnly(entity, readOnly);
 	}
 
+	public void setDefaultReadOnly(boolean readOnly) {
+		checkTransactionSynchStatus();
+		persistenceContext.setDefaultReadOnly(readOnly);
+	}
+
+	public boolean isDefaultReadOnly() {
+		return persistenceContext.isDefaultReadOnly();
+	}
+
 	public void afterScrollOperation() {
 		// nothing to do in a stateful session
 	}
@@ -10,6 +10,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.hibernate.CacheMode;
 import org.hibernate.ConnectionReleaseMode;
 import org.hibernate.Criteria;
@@ -52,8 +54,14 @@ import org.hibernate.util.CollectionHelper;
 public class StatelessSessionImpl extends AbstractSessionImpl
 		implements JDBCContext.Context, StatelessSession {
 	
+	private static final Log log = LogFactory.getLog(StatelessSessionImpl.class);
+	
 	private JDBCContext jdbcContext;
 	private boolean closed;
+	private int bulkInsertSize;
+	private final BulkInsertQueue bulkInserts = new BulkInsertQueue();
+	private long insertCount;
+	private long batchedInsertCount; //inserts which may still be in the JDBC batch
 	
 	StatelessSessionImpl(
 			Connection connection, 
@@ -84,16 +92,65 @@ public class StatelessSessionImpl extends AbstractSessionImpl
 			if (substitute) persister.setPropertyValues(entity, state, EntityMode.POJO);
 		}
 		if ( id == IdentifierGeneratorFactory.POST_INSERT_INDICATOR ) {
+			executeBulkInserts(); //the row may reference a queued row
 			id = persister.insert(state, entity, this);
+			insertCount++;
+		}
+		else if ( bulkInsertSize>0 ) {
+			bulkInserts.add(persister, id, state, entity);
+			if ( bulkInserts.size()>=bulkInsertSize ) executeBulkInserts();
 		}
 		else {
 			persister.insert(id, state, entity, this);			
+			batchedInsertCount++;
 		}
 		persister.setIdentifier(entity, id, EntityMode.POJO);
 		return id;
 	}
 	
+	public long insert(Iterator entities) {
+		long count = 0;
+		while ( entities.hasNext() ) {
+			insert( null, entities.next() );
+			count++;
+		}
+		flush();
+		return count;
+	}
+	
+	public void setBulkInsertSize(int bulkInsertSize) {
+		if ( bulkInsertSize<this.bulkInsertSize ) executeBulkInserts();
+		this.bulkInsertSize = bulkInsertSize;
+	}
+	
+	public int getBulkInsertSize() {
+		return bulkInsertSize;
+	}
+	
+	public long getInsertCount() {
+		return insertCount;
+	}
+	
+	public int getQueuedInsertCount() {
+		return bulkInserts.size();
+	}
+	
+	private void executeBulkInserts() {
+		if ( bulkInserts.size()>0 ) {
+			if ( log.isDebugEnabled() ) {
+				log.debug( "executing " + bulkInserts.size() + " queued inserts" );
+			}
+			batchedInsertCount += bulkInserts.execute(this);
+		}
+		if ( batchedInsertCount>0 ) {
+			getBatcher().executeBatch(); //so that the inserts may be counted
+			insertCount += batchedInsertCount;
+			batchedInsertCount = 0;
+		}
+	}
+	
 	public void update(String entityName, Object entity) {
+		executeBulkInserts();
 		EntityPersister persister = getEntityPersister(entityName, entity);
 		Serializable id = persister.getIdentifier(entity, EntityMode.POJO);
 		Object[] state = persister.getPropertyValues(entity, EntityMode.POJO);
@@ -111,6 +168,7 @@ public class StatelessSessionImpl extends AbstractSessionImpl
 	}
 	
 	public void delete(String entityName, Object entity) {
+		executeBulkInserts();
 		EntityPersister persister = getEntityPersister(entityName, entity);
 		Serializable id = persister.getIdentifier(entity, EntityMode.POJO);
 		Object version = persister.getVersion(entity, EntityMode.POJO);
@@ -138,11 +196,17 @@ public class StatelessSessionImpl extends AbstractSessionImpl
 	}
 
 	public void managedClose() {
-		jdbcContext.getConnectionManager().close();
-		closed = true;
+		try {
+			executeBulkInserts();
+		}
+		finally {
+			jdbcContext.getConnectionManager().close();
+			closed = true;
+		}
 	}
 
 	public void managedFlush() {
+		executeBulkInserts();
 		getBatcher().executeBatch();
 	}
 
@@ -150,7 +214,13 @@ public class StatelessSessionImpl extends AbstractSessionImpl
 		return isAutoCloseSessionEnabled() && isOpen();
 	}
 
-	public void afterTransactionCompletion(boolean successful, Transaction tx) {}
+	public void afterTransactionCompletion(boolean successful, Transaction tx) {
+		if ( !successful ) {
+			//the queued inserts belonged to the rolled back transaction
+			bulkInserts.clear();
+			batchedInsertCount = 0;
+		}
+	}
 
 	public void beforeTransactionCompletion(Transaction tx) {}
 
@@ -162,11 +232,13 @@ public class StatelessSessionImpl extends AbstractSessionImpl
 	}
 
 	public Connection connection() {
+		flush();
 		return jdbcContext.userConnection();
 	}
 
 	public int executeUpdate(String query, QueryParameters queryParameters) 
 	throws HibernateException {
+		flush();
 		queryParameters.validateParameters();
 		HQLQueryPlan plan = getHQLQueryPlan( query, false );
 		boolean success = false;
@@ -269,6 +341,7 @@ public class StatelessSessionImpl extends AbstractSessionImpl
 	}
 
 	public Object get(String entityName, Serializable id, LockMode lockMode) {
+		executeBulkInserts();
 		Object result = getFactory().getEntityPersister(entityName)
 				.load(id, null, lockMode, this);
 		temporaryPersistenceContext.clear();
@@ -360,6 +433,7 @@ public class StatelessSessionImpl extends AbstractSessionImpl
 	//TODO: COPY/PASTE FROM SessionImpl, pull up!
 
 	public List list(String query, QueryParameters queryParameters) throws HibernateException {
+		executeBulkInserts();
 		queryParameters.validateParameters();
 		HQLQueryPlan plan = getHQLQueryPlan( query, false );
 		boolean success = false;
@@ -398,6 +472,7 @@ public class StatelessSessionImpl extends AbstractSessionImpl
 	}
 
 	public ScrollableResults scroll(CriteriaImpl criteria, ScrollMode scrollMode) {
+		executeBulkInserts();
 		String entityName = criteria.getEntityOrClassName();
 		CriteriaLoader loader = new CriteriaLoader(
 				getOuterJoinLoadable(entityName),
@@ -410,6 +485,7 @@ public class StatelessSessionImpl extends AbstractSessionImpl
 	}
 
 	public List list(CriteriaImpl criteria) throws HibernateException {
+		executeBulkInserts();
 
 		String[] implementors = factory.getImplementors( criteria.getEntityOrClassName() );
 		int size = implementors.length;
@@ -458,6 +534,7 @@ public class StatelessSessionImpl extends AbstractSessionImpl
 
 	public List listCustomQuery(CustomQuery customQuery, QueryParameters queryParameters) 
 	throws HibernateException {
+		executeBulkInserts();
 
 		CustomLoader loader = new CustomLoader( customQuery, getFactory() );
 
@@ -476,11 +553,13 @@ public class StatelessSessionImpl extends AbstractSessionImpl
 
 	public ScrollableResults scrollCustomQuery(CustomQuery customQuery, QueryParameters queryParameters) 
 	throws HibernateException {
+		executeBulkInserts();
 		CustomLoader loader = new CustomLoader( customQuery, getFactory() );
 		return loader.scroll(queryParameters, this);
 	}
 
 	public ScrollableResults scroll(String query, QueryParameters queryParameters) throws HibernateException {
+		executeBulkInserts();
 		HQLQueryPlan plan = getHQLQueryPlan( query, false );
 		return plan.performScroll( queryParameters, this );
 	}
@@ -489,7 +568,10 @@ public class StatelessSessionImpl extends AbstractSessionImpl
 		temporaryPersistenceContext.clear();
 	}
 
-	public void flush() {}
+	public void flush() {
+		executeBulkInserts();
+		getBatcher().executeBatch();
+	}
 
 	public String getFetchProfile() {
 		return null;
@@ -55,7 +55,11 @@ public class BatchingBatcher extends AbstractBatcher {
 			if ( log.isDebugEnabled() ) log.debug("Executing batch size: " + batchSize );
 	
 			try {
-				checkRowCounts( ps.executeBatch() );
+				int[] rowCounts = ps.executeBatch();
+				if ( getFactory().getStatistics().isStatisticsEnabled() ) {
+					getFactory().getStatisticsImplementor().executeBatch(batchSize);
+				}
+				checkRowCounts(rowCounts);
 			}
 			catch (RuntimeException re) {
 				log.error("Exception executing batch: ", re);
@@ -1,22 +1,47 @@
 // $Id: ColumnNameCache.java,v 1.6 2005/02/20 23:02:30 oneovthafew Exp $
 package org.hibernate.jdbc;
 
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Implementation of ColumnNameCache.
+ * Resolves column names to column indexes for a <tt>Loader</tt>. The
+ * indexes of all the columns of the result set are computed up front from
+ * the <tt>ResultSetMetaData</tt> of the first result set, so hydrating a
+ * row reads each column by index after a single lookup of the (shared)
+ * alias <tt>String</tt>, and the lookup never needs a lock. Names which do
+ * not match a column label (for example, because the driver reports the
+ * labels in some other way) are resolved by the driver, and remembered.
  *
  * @author Steve Ebersole
  */
 public class ColumnNameCache {
 
 	private final Map columnNameToIndexCache;
+	private final Map unlabelledColumnNameToIndexCache = new HashMap();
 
-	public ColumnNameCache(int columnCount) {
-		// should *not* need to grow beyond the size of the total number of columns in the rs
-		this.columnNameToIndexCache = new HashMap( columnCount );
+	public ColumnNameCache(ResultSetMetaData metaData) throws SQLException {
+		int columnCount = metaData.getColumnCount();
+		// never modified after construction, so safe for concurrent reads
+		this.columnNameToIndexCache = new HashMap( columnCount * 4 );
+		for ( int i=1; i<=columnCount; i++ ) {
+			String label = metaData.getColumnLabel(i);
+			if ( label!=null ) {
+				// findColumn() is case insensitive, and returns the first match
+				Integer index = new Integer(i);
+				cache( label, index );
+				cache( label.toLowerCase(), index );
+				cache( label.toUpperCase(), index );
+			}
+		}
+	}
+
+	private void cache(String columnName, Integer index) {
+		if ( !columnNameToIndexCache.containsKey(columnName) ) {
+			columnNameToIndexCache.put(columnName, index);
+		}
 	}
 
 	public int getIndexForColumnName(String columnName, ResultSetWrapper rs)throws SQLException {
@@ -25,9 +50,27 @@ public class ColumnNameCache {
 			return cached.intValue();
 		}
 		else {
-			int index = rs.getTarget().findColumn( columnName );
-			columnNameToIndexCache.put( columnName, new Integer(index) );
+			synchronized (unlabelledColumnNameToIndexCache) {
+				cached = ( Integer ) unlabelledColumnNameToIndexCache.get( columnName );
+			}
+			if ( cached != null ) {
+				return cached.intValue();
+			}
+			cached = ( Integer ) columnNameToIndexCache.get( columnName.toUpperCase() );
+			int index = cached==null ? rs.getTarget().findColumn( columnName ) : cached.intValue();
+			synchronized (unlabelledColumnNameToIndexCache) {
+				unlabelledColumnNameToIndexCache.put( columnName, new Integer(index) );
+			}
 			return index;
 		}
 	}
+
+	/**
+	 * The number of distinct names resolved without the result set metadata
+	 */
+	public int getUnlabelledColumnCount() {
+		synchronized (unlabelledColumnNameToIndexCache) {
+			return unlabelledColumnNameToIndexCache.size();
+		}
+	}
 }
@@ -180,6 +180,15 @@ public class StatisticsService implements StatisticsServiceMBean {
 	public long getQueryCachePutCount() {
 		return stats.getQueryCachePutCount();
 	}
+	public long getQueryPlanCacheHitCount() {
+		return stats.getQueryPlanCacheHitCount();
+	}
+	public long getQueryPlanCacheMissCount() {
+		return stats.getQueryPlanCacheMissCount();
+	}
+	public long getQueryPlanCacheEvictionCount() {
+		return stats.getQueryPlanCacheEvictionCount();
+	}
 	/**
 	 * @see StatisticsServiceMBean#getFlushCount()
 	 */
@@ -306,6 +315,12 @@ public class StatisticsService implements StatisticsServiceMBean {
 	public long getPrepareStatementCount() {
 		return stats.getPrepareStatementCount();
 	}
+	public long getBatchCount() {
+		return stats.getBatchCount();
+	}
+	public long getBatchedStatementCount() {
+		return stats.getBatchedStatementCount();
+	}
 
 	public long getOptimisticFailureCount() {
 		return stats.getOptimisticFailureCount();
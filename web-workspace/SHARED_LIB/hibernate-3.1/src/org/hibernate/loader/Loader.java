@@ -1690,9 +1690,7 @@ public abstract class Loader {
 		
 	}
 
-	private synchronized ResultSet wrapResultSetIfEnabled(final ResultSet rs, final SessionImplementor session) {
-		// synchronized to avoid multi-thread access issues; defined as method synch to avoid
-		// potential deadlock issues due to nature of code.
+	private ResultSet wrapResultSetIfEnabled(final ResultSet rs, final SessionImplementor session) {
 		if ( session.getFactory().getSettings().isWrapResultSetsEnabled() ) {
 			try {
 				log.debug("Wrapping result set [" + rs + "]");
@@ -1708,10 +1706,13 @@ public abstract class Loader {
 		}
 	}
 
-	private ColumnNameCache retreiveColumnNameToIndexCache(ResultSet rs) throws SQLException {
+	private synchronized ColumnNameCache retreiveColumnNameToIndexCache(ResultSet rs) throws SQLException {
+		// synchronized to avoid multi-thread access issues; the cache itself
+		// is built once, from the metadata of the first result set, and is
+		// then safe for concurrent use
 		if ( columnNameCache == null ) {
 			log.trace("Building columnName->columnIndex cache");
-			columnNameCache = new ColumnNameCache( rs.getMetaData().getColumnCount() );
+			columnNameCache = new ColumnNameCache( rs.getMetaData() );
 		}
 
 		return columnNameCache;
@@ -26,11 +26,21 @@ public class BatchingCollectionInitializer implements CollectionInitializer {
 	private final Loader[] loaders;
 	private final int[] batchSizes;
 	private final CollectionPersister collectionPersister;
+	private final boolean padded;
 
 	public BatchingCollectionInitializer(CollectionPersister collPersister, int[] batchSizes, Loader[] loaders) {
+		this(collPersister, batchSizes, loaders, false);
+	}
+
+	/**
+	 * @param padded should the batch be padded up to the next biggest batch size,
+	 * instead of split into the next smallest?
+	 */
+	public BatchingCollectionInitializer(CollectionPersister collPersister, int[] batchSizes, Loader[] loaders, boolean padded) {
 		this.loaders = loaders;
 		this.batchSizes = batchSizes;
 		this.collectionPersister = collPersister;
+		this.padded = padded;
 	}
 
 	public void initialize(Serializable id, SessionImplementor session)
@@ -39,15 +49,29 @@ public class BatchingCollectionInitializer implements CollectionInitializer {
 		Serializable[] batch = session.getPersistenceContext().getBatchFetchQueue()
 			.getCollectionBatch( collectionPersister, id, batchSizes[0], session.getEntityMode() );
 		
-		for ( int i=0; i<batchSizes.length-1; i++) {
-			final int smallBatchSize = batchSizes[i];
-			if ( batch[smallBatchSize-1]!=null ) {
-				Serializable[] smallBatch = new Serializable[smallBatchSize];
-				System.arraycopy(batch, 0, smallBatch, 0, smallBatchSize);
-				loaders[i].loadCollectionBatch( session, smallBatch, collectionPersister.getKeyType() );
+		if (padded) {
+			final int keyCount = ArrayHelper.countNonNull(batch);
+			if ( keyCount>1 ) {
+				final int i = ArrayHelper.getPaddedBatchSizeIndex(batchSizes, keyCount);
+				loaders[i].loadCollectionBatch( 
+						session, 
+						ArrayHelper.pad( batch, keyCount, batchSizes[i] ), 
+						collectionPersister.getKeyType() 
+				);
 				return; //EARLY EXIT!
 			}
 		}
+		else {
+			for ( int i=0; i<batchSizes.length-1; i++) {
+				final int smallBatchSize = batchSizes[i];
+				if ( batch[smallBatchSize-1]!=null ) {
+					Serializable[] smallBatch = new Serializable[smallBatchSize];
+					System.arraycopy(batch, 0, smallBatch, 0, smallBatchSize);
+					loaders[i].loadCollectionBatch( session, smallBatch, collectionPersister.getKeyType() );
+					return; //EARLY EXIT!
+				}
+			}
+		}
 		
 		loaders[batchSizes.length-1].loadCollection( session, id, collectionPersister.getKeyType() );
 
@@ -61,12 +85,15 @@ public class BatchingCollectionInitializer implements CollectionInitializer {
 	throws MappingException {
 
 		if ( maxBatchSize>1 ) {
-			int[] batchSizesToCreate = ArrayHelper.getBatchSizes(maxBatchSize);
+			final boolean padded = factory.getSettings().isPaddedBatchFetchEnabled();
+			int[] batchSizesToCreate = padded ?
+					ArrayHelper.getPaddedBatchSizes(maxBatchSize) :
+					ArrayHelper.getBatchSizes(maxBatchSize);
 			Loader[] loadersToCreate = new Loader[ batchSizesToCreate.length ];
 			for ( int i=0; i<batchSizesToCreate.length; i++ ) {
 				loadersToCreate[i] = new OneToManyLoader(persister, batchSizesToCreate[i], factory, enabledFilters);
 			}
-			return new BatchingCollectionInitializer(persister, batchSizesToCreate, loadersToCreate);
+			return new BatchingCollectionInitializer(persister, batchSizesToCreate, loadersToCreate, padded);
 		}
 		else {
 			return new OneToManyLoader(persister, factory, enabledFilters);
@@ -81,12 +108,15 @@ public class BatchingCollectionInitializer implements CollectionInitializer {
 	throws MappingException {
 
 		if ( maxBatchSize>1 ) {
-			int[] batchSizesToCreate = ArrayHelper.getBatchSizes(maxBatchSize);
+			final boolean padded = factory.getSettings().isPaddedBatchFetchEnabled();
+			int[] batchSizesToCreate = padded ?
+					ArrayHelper.getPaddedBatchSizes(maxBatchSize) :
+					ArrayHelper.getBatchSizes(maxBatchSize);
 			Loader[] loadersToCreate = new Loader[ batchSizesToCreate.length ];
 			for ( int i=0; i<batchSizesToCreate.length; i++ ) {
 				loadersToCreate[i] = new BasicCollectionLoader(persister, batchSizesToCreate[i], factory, enabledFilters);
 			}
-			return new BatchingCollectionInitializer(persister, batchSizesToCreate, loadersToCreate);
+			return new BatchingCollectionInitializer(persister, batchSizesToCreate, loadersToCreate, padded);
 		}
 		else {
 			return new BasicCollectionLoader(persister, factory, enabledFilters);
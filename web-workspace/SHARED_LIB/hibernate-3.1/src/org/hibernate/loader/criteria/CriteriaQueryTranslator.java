@@ -259,7 +259,7 @@ public class CriteriaQueryTranslator implements CriteriaQuery {
 			if (lm!=null) lockModes.put( getSQLAlias(subcriteria), lm );
 		}
 
-		return new QueryParameters(
+		QueryParameters queryParameters = new QueryParameters(
 				typeArray,
 				valueArray,
 				lockModes,
@@ -270,6 +270,8 @@ public class CriteriaQueryTranslator implements CriteriaQuery {
 				rootCriteria.getComment(),
 				rootCriteria.isLookupByNaturalKey()
 			);
+		queryParameters.setReadOnly( rootCriteria.isReadOnly() );
+		return queryParameters;
 	}
 
 	public boolean hasProjection() {
@@ -30,11 +30,21 @@ public class BatchingEntityLoader implements UniqueEntityLoader {
 	private final int[] batchSizes;
 	private final EntityPersister persister;
 	private final Type idType;
+	private final boolean padded;
 
 	public BatchingEntityLoader(EntityPersister persister, int[] batchSizes, Loader[] loaders) {
+		this(persister, batchSizes, loaders, false);
+	}
+
+	/**
+	 * @param padded should the batch be padded up to the next biggest batch size,
+	 * instead of split into the next smallest?
+	 */
+	public BatchingEntityLoader(EntityPersister persister, int[] batchSizes, Loader[] loaders, boolean padded) {
 		this.batchSizes = batchSizes;
 		this.loaders = loaders;
 		this.persister = persister;
+		this.padded = padded;
 		idType = persister.getIdentifierType();
 	}
 
@@ -59,16 +69,15 @@ public class BatchingEntityLoader implements UniqueEntityLoader {
 		
 		Serializable[] batch = session.getPersistenceContext()
 			.getBatchFetchQueue()
-			.getEntityBatch( persister, id, batchSizes[0], session.getEntityMode() );
+			.getEntityBatch( persister, id, batchSizes[0], session.getEntityMode(), padded );
 		
-		for ( int i=0; i<batchSizes.length-1; i++) {
-			final int smallBatchSize = batchSizes[i];
-			if ( batch[smallBatchSize-1]!=null ) {
-				Serializable[] smallBatch = new Serializable[smallBatchSize];
-				System.arraycopy(batch, 0, smallBatch, 0, smallBatchSize);
+		if (padded) {
+			final int idCount = ArrayHelper.countNonNull(batch);
+			if ( idCount>1 ) {
+				final int i = ArrayHelper.getPaddedBatchSizeIndex(batchSizes, idCount);
 				final List results = loaders[i].loadEntityBatch(
 						session, 
-						smallBatch, 
+						ArrayHelper.pad( batch, idCount, batchSizes[i] ), 
 						idType, 
 						optionalObject, 
 						persister.getEntityName(), 
@@ -78,6 +87,25 @@ public class BatchingEntityLoader implements UniqueEntityLoader {
 				return getObjectFromList(results, id, session); //EARLY EXIT
 			}
 		}
+		else {
+			for ( int i=0; i<batchSizes.length-1; i++) {
+				final int smallBatchSize = batchSizes[i];
+				if ( batch[smallBatchSize-1]!=null ) {
+					Serializable[] smallBatch = new Serializable[smallBatchSize];
+					System.arraycopy(batch, 0, smallBatch, 0, smallBatchSize);
+					final List results = loaders[i].loadEntityBatch(
+							session, 
+							smallBatch, 
+							idType, 
+							optionalObject, 
+							persister.getEntityName(), 
+							id, 
+							persister
+					);
+					return getObjectFromList(results, id, session); //EARLY EXIT
+				}
+			}
+		}
 		
 		return ( (UniqueEntityLoader) loaders[batchSizes.length-1] ).load(id, optionalObject, session);
 
@@ -92,12 +120,15 @@ public class BatchingEntityLoader implements UniqueEntityLoader {
 	throws MappingException {
 
 		if ( maxBatchSize>1 ) {
-			int[] batchSizesToCreate = ArrayHelper.getBatchSizes(maxBatchSize);
+			final boolean padded = factory.getSettings().isPaddedBatchFetchEnabled();
+			int[] batchSizesToCreate = padded ?
+					ArrayHelper.getPaddedBatchSizes(maxBatchSize) :
+					ArrayHelper.getBatchSizes(maxBatchSize);
 			Loader[] loadersToCreate = new Loader[ batchSizesToCreate.length ];
 			for ( int i=0; i<batchSizesToCreate.length; i++ ) {
 				loadersToCreate[i] = new EntityLoader(persister, batchSizesToCreate[i], lockMode, factory, enabledFilters);
 			}
-			return new BatchingEntityLoader(persister, batchSizesToCreate, loadersToCreate);
+			return new BatchingEntityLoader(persister, batchSizesToCreate, loadersToCreate, padded);
 		}
 		else {
 			return new EntityLoader(persister, lockMode, factory, enabledFilters);
@@ -1,6 +1,8 @@
 //$Id: Formula.java,v 1.9 2005/07/19 18:28:35 maxcsaucdk Exp $
 package org.hibernate.mapping;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 import org.hibernate.dialect.Dialect;
@@ -20,6 +22,12 @@ public class Formula implements Selectable, Serializable {
 		uniqueInteger = formulaUniqueInteger++;
 	}
 
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ois.defaultReadObject();
+		//formulas created from now on must not reuse the unique integer of a deserialized formula
+		if ( uniqueInteger >= formulaUniqueInteger ) formulaUniqueInteger = uniqueInteger + 1;
+	}
+
 	public String getTemplate(Dialect dialect) {
 		return Template.renderWhereStringTemplate(formula, dialect);
 	}
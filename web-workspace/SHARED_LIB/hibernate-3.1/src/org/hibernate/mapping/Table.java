@@ -1,6 +1,8 @@
 //$Id: Table.java,v 1.51 2005/11/27 22:42:03 oneovthafew Exp $
 package org.hibernate.mapping;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -79,6 +81,12 @@ public class Table implements RelationalModel, Serializable {
 	public Table() {
 		uniqueInteger = tableCounter++;
 	}
+
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ois.defaultReadObject();
+		//tables created from now on must not reuse the unique integer of a deserialized table
+		if ( uniqueInteger >= tableCounter ) tableCounter = uniqueInteger + 1;
+	}
 	
 	public Table(String name) {
 		this();
@@ -0,0 +1,88 @@
+//$Id: $
+package org.hibernate.stat;
+
+import java.io.Serializable;
+
+/**
+ * Counts execution times (in ms) in buckets of bounded relative width, so
+ * that percentiles may be estimated in constant memory. Times below 16ms
+ * each have their own bucket; above that, every power of two is split into
+ * 8 buckets, so a percentile is never overestimated by more than 12.5%.
+ * Not threadsafe.
+ */
+final class LatencyHistogram implements Serializable {
+
+	private static final int EXACT = 16;
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int EXACT_BITS = 4; // 1<<EXACT_BITS == EXACT
+	private static final int MAX_BITS = 40; // about 35 years
+	private static final int BUCKETS = EXACT + (MAX_BITS - EXACT_BITS) * SUB_BUCKETS;
+
+	private final long[] counts = new long[BUCKETS];
+	private long count;
+	private long max;
+
+	void record(long time) {
+		if (time<0) time = 0;
+		counts[ bucket(time) ]++;
+		count++;
+		if (time>max) max = time;
+	}
+
+	long getCount() {
+		return count;
+	}
+
+	long getMax() {
+		return max;
+	}
+
+	/**
+	 * The (upper bound of the bucket containing the) time which the given
+	 * percentage of the recorded times did not exceed
+	 *
+	 * @param percentile between 0 and 100
+	 */
+	long getPercentile(double percentile) {
+		if (count==0) return 0;
+		long rank = (long) Math.ceil( count * percentile / 100d );
+		if (rank<1) rank = 1;
+		long seen = 0;
+		for ( int i=0; i<BUCKETS; i++ ) {
+			seen += counts[i];
+			if (seen>=rank) return Math.min( upperBound(i), max );
+		}
+		return max;
+	}
+
+	static int bucket(long time) {
+		if (time<EXACT) return (int) time;
+		int bits = highestBit(time);
+		if (bits>=MAX_BITS) return BUCKETS-1;
+		int subBucket = (int) ( time >>> (bits - SUB_BUCKET_BITS) ) & (SUB_BUCKETS - 1);
+		return EXACT + (bits - EXACT_BITS) * SUB_BUCKETS + subBucket;
+	}
+
+	static long upperBound(int bucket) {
+		if (bucket<EXACT) return bucket;
+		int bits = (bucket - EXACT) / SUB_BUCKETS + EXACT_BITS;
+		int subBucket = (bucket - EXACT) % SUB_BUCKETS;
+		return ( (long) (SUB_BUCKETS + subBucket + 1) << (bits - SUB_BUCKET_BITS) ) - 1;
+	}
+
+	/**
+	 * The position of the highest set bit of a positive value
+	 */
+	private static int highestBit(long value) {
+		int bit = 0;
+		if ( (value >>> 32)!=0 ) { value >>>= 32; bit += 32; }
+		if ( (value >>> 16)!=0 ) { value >>>= 16; bit += 16; }
+		if ( (value >>> 8)!=0 ) { value >>>= 8; bit += 8; }
+		if ( (value >>> 4)!=0 ) { value >>>= 4; bit += 4; }
+		if ( (value >>> 2)!=0 ) { value >>>= 2; bit += 2; }
+		if ( (value >>> 1)!=0 ) { bit += 1; }
+		return bit;
+	}
+
+}
@@ -23,6 +23,7 @@ public class QueryStatistics extends CategorizedStatistics {
 	private long executionAvgTime;
 	private long executionMaxTime;
 	private long executionMinTime;
+	private final LatencyHistogram executionTimes = new LatencyHistogram();
 
 	/**
 	 * queries executed to the DB
@@ -77,18 +78,30 @@ public class QueryStatistics extends CategorizedStatistics {
 		return executionMinTime;
 	}
 	
+	/**
+	 * time in ms within which the given percentage of the executions of
+	 * this query onto the DB completed, eg. 50 for the median, or 99 (this
+	 * is an estimate, which may be up to 12.5% too high)
+	 * 
+	 * @param percentile between 0 and 100
+	 */
+	public synchronized long getExecutionTimePercentile(double percentile) {
+		return executionTimes.getPercentile(percentile);
+	}
+	
 	/**
 	 * add statistics report of a DB query
 	 * 
 	 * @param rows rows count returned
 	 * @param time time taken
 	 */
-	void executed(long rows, long time) {
+	synchronized void executed(long rows, long time) {
 		if (time < executionMinTime) executionMinTime = time;
 		if (time > executionMaxTime) executionMaxTime = time;
 		executionAvgTime = ( executionAvgTime * executionCount + time ) / ( executionCount + 1 );
 		executionCount++;
 		executionRowCount += rows;
+		executionTimes.record(time);
 	}
 
 	public String toString() {
@@ -102,6 +115,8 @@ public class QueryStatistics extends CategorizedStatistics {
 			.append(",executionAvgTime=").append(this.executionAvgTime)
 			.append(",executionMaxTime=").append(this.executionMaxTime)
 			.append(",executionMinTime=").append(this.executionMinTime)
+			.append(",executionMedianTime=").append( getExecutionTimePercentile(50) )
+			.append(",execution99thPercentileTime=").append( getExecutionTimePercentile(99) )
 			.append(']')
 			.toString();
 	}
@@ -103,6 +103,20 @@ public interface Statistics {
      * Get the global number of cacheable queries put in cache
      */
 	public long getQueryCachePutCount();
+    /**
+     * Get the global number of query plans found in the query plan cache
+     */
+	public long getQueryPlanCacheHitCount();
+    /**
+     * Get the global number of query plans *not* found in the query plan
+     * cache (and so compiled)
+     */
+	public long getQueryPlanCacheMissCount();
+    /**
+     * Get the global number of query plans pushed out of the strongly
+     * referenced part of the query plan cache
+     */
+	public long getQueryPlanCacheEvictionCount();
 	/**
      * Get the global number of flush executed by sessions (either implicit or explicit)
      */
@@ -203,6 +217,15 @@ public interface Statistics {
 	 * The number of prepared statements that were released
 	 */
 	public long getCloseStatementCount();
+	/**
+	 * The number of JDBC batches that were executed
+	 */
+	public long getBatchCount();
+	/**
+	 * The number of statements executed in JDBC batches (divide by
+	 * the batch count to get the average batch size)
+	 */
+	public long getBatchedStatementCount();
 	/**
 	 * The number of <tt>StaleObjectStateException</tt>s 
 	 * that occurred
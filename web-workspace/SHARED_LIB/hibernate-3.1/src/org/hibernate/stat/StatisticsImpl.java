@@ -1,6 +1,8 @@
 //$Id: StatisticsImpl.java,v 1.18 2005/09/30 07:48:53 oneovthafew Exp $
 package org.hibernate.stat;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.logging.Log;
@@ -10,6 +12,11 @@ import org.hibernate.engine.SessionFactoryImplementor;
 import org.hibernate.util.ArrayHelper;
 
 /**
+ * Since statistics are gathered by every session, the counters are striped
+ * and the statistics of each category are looked up in striped maps, so
+ * that concurrent sessions rarely contend for a lock, even when statistics
+ * are enabled in production.
+ * 
  * @see org.hibernate.stat.Statistics 
  *  
  * @author Gavin King
@@ -22,51 +29,76 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 
 	private SessionFactoryImplementor sessionFactory;
 
-	private boolean isStatisticsEnabled;
-	private long startTime;
-	private long sessionOpenCount;
-	private long sessionCloseCount;
-	private long flushCount;
-	private long connectCount;
-	
-	private long prepareStatementCount;
-	private long closeStatementCount;
-	
-	private long entityLoadCount;
-	private long entityUpdateCount;
-	private long entityInsertCount;
-	private long entityDeleteCount;
-	private long entityFetchCount;
-	private long collectionLoadCount;
-	private long collectionUpdateCount;
-	private long collectionRemoveCount;
-	private long collectionRecreateCount;
-	private long collectionFetchCount;
-	
-	private long secondLevelCacheHitCount;
-	private long secondLevelCacheMissCount;
-	private long secondLevelCachePutCount;
-	
-	private long queryExecutionCount;
-	private long queryExecutionMaxTime;
+	private volatile boolean isStatisticsEnabled;
+	private volatile long startTime;
+	private final StripedCounter sessionOpenCount = new StripedCounter();
+	private final StripedCounter sessionCloseCount = new StripedCounter();
+	private final StripedCounter flushCount = new StripedCounter();
+	private final StripedCounter connectCount = new StripedCounter();
+	
+	private final StripedCounter prepareStatementCount = new StripedCounter();
+	private final StripedCounter closeStatementCount = new StripedCounter();
+	private final StripedCounter batchCount = new StripedCounter();
+	private final StripedCounter batchedStatementCount = new StripedCounter();
+	
+	private final StripedCounter entityLoadCount = new StripedCounter();
+	private final StripedCounter entityUpdateCount = new StripedCounter();
+	private final StripedCounter entityInsertCount = new StripedCounter();
+	private final StripedCounter entityDeleteCount = new StripedCounter();
+	private final StripedCounter entityFetchCount = new StripedCounter();
+	private final StripedCounter collectionLoadCount = new StripedCounter();
+	private final StripedCounter collectionUpdateCount = new StripedCounter();
+	private final StripedCounter collectionRemoveCount = new StripedCounter();
+	private final StripedCounter collectionRecreateCount = new StripedCounter();
+	private final StripedCounter collectionFetchCount = new StripedCounter();
+	
+	private final StripedCounter secondLevelCacheHitCount = new StripedCounter();
+	private final StripedCounter secondLevelCacheMissCount = new StripedCounter();
+	private final StripedCounter secondLevelCachePutCount = new StripedCounter();
+	
+	private final StripedCounter queryExecutionCount = new StripedCounter();
+	private volatile long queryExecutionMaxTime;
 	private String queryExecutionMaxTimeQueryString;
-	private long queryCacheHitCount;
-	private long queryCacheMissCount;
-	private long queryCachePutCount;
+	private final Object queryExecutionMaxTimeLock = new Object();
+	private final StripedCounter queryCacheHitCount = new StripedCounter();
+	private final StripedCounter queryCacheMissCount = new StripedCounter();
+	private final StripedCounter queryCachePutCount = new StripedCounter();
 	
-	private long commitedTransactionCount;
-	private long transactionCount;
+	private final StripedCounter queryPlanCacheHitCount = new StripedCounter();
+	private final StripedCounter queryPlanCacheMissCount = new StripedCounter();
+	private final StripedCounter queryPlanCacheEvictionCount = new StripedCounter();
 	
-	private long optimisticFailureCount;
+	private final StripedCounter commitedTransactionCount = new StripedCounter();
+	private final StripedCounter transactionCount = new StripedCounter();
+	
+	private final StripedCounter optimisticFailureCount = new StripedCounter();
 	
 	/** second level cache statistics per region */
-	private final Map secondLevelCacheStatistics = new HashMap();
+	private final Categories secondLevelCacheStatistics = new Categories() {
+		Object create(String regionName) {
+			if (sessionFactory == null) return null;
+			Cache cache = sessionFactory.getSecondLevelCacheRegion(regionName);
+			return cache==null ? null : new SecondLevelCacheStatistics(cache);
+		}
+	};
 	/** entity statistics per name */
-	private final Map entityStatistics = new HashMap();
+	private final Categories entityStatistics = new Categories() {
+		Object create(String entityName) {
+			return new EntityStatistics(entityName);
+		}
+	};
 	/** collection statistics per name */
-	private final Map collectionStatistics = new HashMap();
+	private final Categories collectionStatistics = new Categories() {
+		Object create(String role) {
+			return new CollectionStatistics(role);
+		}
+	};
 	/** entity statistics per query string (HQL or SQL) */
-	private final Map queryStatistics = new HashMap();
+	private final Categories queryStatistics = new Categories() {
+		Object create(String queryString) {
+			return new QueryStatistics(queryString);
+		}
+	};
 
 	public StatisticsImpl() {
 		clear();
@@ -80,41 +112,50 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 	/**
 	 * reset all statistics
 	 */
-	public synchronized void clear() {
-		secondLevelCacheHitCount = 0;
-		secondLevelCacheMissCount = 0;
-		secondLevelCachePutCount = 0;
+	public void clear() {
+		secondLevelCacheHitCount.reset();
+		secondLevelCacheMissCount.reset();
+		secondLevelCachePutCount.reset();
 		
-		sessionCloseCount = 0;
-		sessionOpenCount = 0;
-		flushCount = 0;
-		connectCount = 0;
+		sessionCloseCount.reset();
+		sessionOpenCount.reset();
+		flushCount.reset();
+		connectCount.reset();
 		
-		prepareStatementCount = 0;
-		closeStatementCount = 0;
+		prepareStatementCount.reset();
+		closeStatementCount.reset();
+		batchCount.reset();
+		batchedStatementCount.reset();
 		
-		entityDeleteCount = 0;
-		entityInsertCount = 0;
-		entityUpdateCount = 0;
-		entityLoadCount = 0;
-		entityFetchCount = 0;
+		entityDeleteCount.reset();
+		entityInsertCount.reset();
+		entityUpdateCount.reset();
+		entityLoadCount.reset();
+		entityFetchCount.reset();
 		
-		collectionRemoveCount = 0;
-		collectionUpdateCount = 0;
-		collectionRecreateCount = 0;
-		collectionLoadCount = 0;
-		collectionFetchCount = 0;
+		collectionRemoveCount.reset();
+		collectionUpdateCount.reset();
+		collectionRecreateCount.reset();
+		collectionLoadCount.reset();
+		collectionFetchCount.reset();
 		
-		queryExecutionCount = 0;
-		queryCacheHitCount = 0;
-		queryExecutionMaxTime = 0;
-		queryCacheMissCount = 0;
-		queryCachePutCount = 0;
+		queryExecutionCount.reset();
+		queryCacheHitCount.reset();
+		synchronized (queryExecutionMaxTimeLock) {
+			queryExecutionMaxTime = 0;
+			queryExecutionMaxTimeQueryString = null;
+		}
+		queryCacheMissCount.reset();
+		queryCachePutCount.reset();
+		
+		queryPlanCacheHitCount.reset();
+		queryPlanCacheMissCount.reset();
+		queryPlanCacheEvictionCount.reset();
 		
-		transactionCount = 0;
-		commitedTransactionCount = 0;
+		transactionCount.reset();
+		commitedTransactionCount.reset();
 		
-		optimisticFailureCount = 0;
+		optimisticFailureCount.reset();
 		
 		secondLevelCacheStatistics.clear();
 		entityStatistics.clear();
@@ -124,30 +165,32 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 		startTime = System.currentTimeMillis();
 	}
 	
-	public synchronized void openSession() {
-		sessionOpenCount++;
+	public void openSession() {
+		sessionOpenCount.increment();
 	}
 	
-	public synchronized void closeSession() {
-		sessionCloseCount++;
+	public void closeSession() {
+		sessionCloseCount.increment();
 	}
 	
-	public synchronized void flush() {
-		flushCount++;
+	public void flush() {
+		flushCount.increment();
 	}
 	
-	public synchronized void connect() {
-		connectCount++;
+	public void connect() {
+		connectCount.increment();
 	}
 	
-	public synchronized void loadEntity(String entityName) {
-		entityLoadCount++;
-		getEntityStatistics(entityName).loadCount++;
+	public void loadEntity(String entityName) {
+		entityLoadCount.increment();
+		EntityStatistics es = getEntityStatistics(entityName);
+		synchronized (es) { es.loadCount++; }
 	}
 
-	public synchronized void fetchEntity(String entityName) {
-		entityFetchCount++;
-		getEntityStatistics(entityName).fetchCount++;
+	public void fetchEntity(String entityName) {
+		entityFetchCount.increment();
+		EntityStatistics es = getEntityStatistics(entityName);
+		synchronized (es) { es.fetchCount++; }
 	}
 
 	/**
@@ -156,31 +199,26 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 	 * @param entityName entity name
 	 * @return EntityStatistics object
 	 */
-	public synchronized EntityStatistics getEntityStatistics(String entityName) {
-		EntityStatistics es = (EntityStatistics) entityStatistics.get(entityName);
-		if (es==null) {
-			es = new EntityStatistics(entityName);
-			entityStatistics.put(entityName, es);
-		}
-		return es;
+	public EntityStatistics getEntityStatistics(String entityName) {
+		return (EntityStatistics) entityStatistics.get(entityName);
 	}
 	
-	public synchronized void updateEntity(String entityName) {
-		entityUpdateCount++;
+	public void updateEntity(String entityName) {
+		entityUpdateCount.increment();
 		EntityStatistics es = getEntityStatistics(entityName);
-		es.updateCount++;
+		synchronized (es) { es.updateCount++; }
 	}
 
-	public synchronized void insertEntity(String entityName) {
-		entityInsertCount++;
+	public void insertEntity(String entityName) {
+		entityInsertCount.increment();
 		EntityStatistics es = getEntityStatistics(entityName);
-		es.insertCount++;
+		synchronized (es) { es.insertCount++; }
 	}
 
-	public synchronized void deleteEntity(String entityName) {
-		entityDeleteCount++;
+	public void deleteEntity(String entityName) {
+		entityDeleteCount.increment();
 		EntityStatistics es = getEntityStatistics(entityName);
-		es.deleteCount++;
+		synchronized (es) { es.deleteCount++; }
 	}
 
 	/**
@@ -189,38 +227,38 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 	 * @param role collection role
 	 * @return CollectionStatistics
 	 */
-	public synchronized CollectionStatistics getCollectionStatistics(String role) {
-		CollectionStatistics cs = (CollectionStatistics) collectionStatistics.get(role);
-		if (cs==null) {
-			cs = new CollectionStatistics(role);
-			collectionStatistics.put(role, cs);
-		}
-		return cs;
+	public CollectionStatistics getCollectionStatistics(String role) {
+		return (CollectionStatistics) collectionStatistics.get(role);
 	}
 	
-	public synchronized void loadCollection(String role) {
-		collectionLoadCount++;
-		getCollectionStatistics(role).loadCount++;
+	public void loadCollection(String role) {
+		collectionLoadCount.increment();
+		CollectionStatistics cs = getCollectionStatistics(role);
+		synchronized (cs) { cs.loadCount++; }
 	}
 
-	public synchronized void fetchCollection(String role) {
-		collectionFetchCount++;
-		getCollectionStatistics(role).fetchCount++;
+	public void fetchCollection(String role) {
+		collectionFetchCount.increment();
+		CollectionStatistics cs = getCollectionStatistics(role);
+		synchronized (cs) { cs.fetchCount++; }
 	}
 
-	public synchronized void updateCollection(String role) {
-		collectionUpdateCount++;
-		getCollectionStatistics(role).updateCount++;
+	public void updateCollection(String role) {
+		collectionUpdateCount.increment();
+		CollectionStatistics cs = getCollectionStatistics(role);
+		synchronized (cs) { cs.updateCount++; }
 	}
 
-	public synchronized void recreateCollection(String role) {
-		collectionRecreateCount++;
-		getCollectionStatistics(role).recreateCount++;
+	public void recreateCollection(String role) {
+		collectionRecreateCount.increment();
+		CollectionStatistics cs = getCollectionStatistics(role);
+		synchronized (cs) { cs.recreateCount++; }
 	}
 
-	public synchronized void removeCollection(String role) {
-		collectionRemoveCount++;
-		getCollectionStatistics(role).removeCount++;
+	public void removeCollection(String role) {
+		collectionRemoveCount.increment();
+		CollectionStatistics cs = getCollectionStatistics(role);
+		synchronized (cs) { cs.removeCount++; }
 	}
 	
 	/**
@@ -229,38 +267,39 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 	 * @param regionName region name
 	 * @return SecondLevelCacheStatistics
 	 */
-	public synchronized SecondLevelCacheStatistics getSecondLevelCacheStatistics(String regionName) {
-		SecondLevelCacheStatistics slcs = (SecondLevelCacheStatistics) secondLevelCacheStatistics.get(regionName);
-		if (slcs==null) {
-			if (sessionFactory == null) return null;
-			Cache cache = sessionFactory.getSecondLevelCacheRegion(regionName);
-			if (cache==null) return null;
-			slcs = new SecondLevelCacheStatistics(cache);
-			secondLevelCacheStatistics.put(regionName, slcs);
-		}
-		return slcs;
+	public SecondLevelCacheStatistics getSecondLevelCacheStatistics(String regionName) {
+		return (SecondLevelCacheStatistics) secondLevelCacheStatistics.get(regionName);
 	}
 
-	public synchronized void secondLevelCachePut(String regionName) {
-		secondLevelCachePutCount++;
-		getSecondLevelCacheStatistics(regionName).putCount++;
+	public void secondLevelCachePut(String regionName) {
+		secondLevelCachePutCount.increment();
+		SecondLevelCacheStatistics slcs = getSecondLevelCacheStatistics(regionName);
+		synchronized (slcs) { slcs.putCount++; }
 	}
 
-	public synchronized void secondLevelCacheHit(String regionName) {
-		secondLevelCacheHitCount++;
-		getSecondLevelCacheStatistics(regionName).hitCount++;
+	public void secondLevelCacheHit(String regionName) {
+		secondLevelCacheHitCount.increment();
+		SecondLevelCacheStatistics slcs = getSecondLevelCacheStatistics(regionName);
+		synchronized (slcs) { slcs.hitCount++; }
 	}
 
-	public synchronized void secondLevelCacheMiss(String regionName) {
-		secondLevelCacheMissCount++;
-		getSecondLevelCacheStatistics(regionName).missCount++;
+	public void secondLevelCacheMiss(String regionName) {
+		secondLevelCacheMissCount.increment();
+		SecondLevelCacheStatistics slcs = getSecondLevelCacheStatistics(regionName);
+		synchronized (slcs) { slcs.missCount++; }
 	}
 
-	public synchronized void queryExecuted(String hql, int rows, long time) {
-		queryExecutionCount++;
+	public void queryExecuted(String hql, int rows, long time) {
+		queryExecutionCount.increment();
+		//a racy read is fine here: it only saves taking the lock
+		//for the (usual) case of a query which isn't the slowest yet
 		if (queryExecutionMaxTime<time) {
-			queryExecutionMaxTime=time;
-			queryExecutionMaxTimeQueryString = hql;
+			synchronized (queryExecutionMaxTimeLock) {
+				if (queryExecutionMaxTime<time) {
+					queryExecutionMaxTime=time;
+					queryExecutionMaxTimeQueryString = hql;
+				}
+			}
 		}
 		if (hql!=null) {
 			QueryStatistics qs = getQueryStatistics(hql);
@@ -268,34 +307,46 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 		}
 	}
 	
-	public synchronized void queryCacheHit(String hql, String regionName) {
-		queryCacheHitCount++;
+	public void queryCacheHit(String hql, String regionName) {
+		queryCacheHitCount.increment();
 		if (hql!=null) {
 			QueryStatistics qs = getQueryStatistics(hql);
-			qs.cacheHitCount++;
+			synchronized (qs) { qs.cacheHitCount++; }
 		}
 		SecondLevelCacheStatistics slcs = getSecondLevelCacheStatistics(regionName);
-		slcs.hitCount++;
+		synchronized (slcs) { slcs.hitCount++; }
 	}
 
-	public synchronized void queryCacheMiss(String hql, String regionName) {
-		queryCacheMissCount++;
+	public void queryCacheMiss(String hql, String regionName) {
+		queryCacheMissCount.increment();
 		if (hql!=null) {
 			QueryStatistics qs = getQueryStatistics(hql);
-			qs.cacheMissCount++;
+			synchronized (qs) { qs.cacheMissCount++; }
 		}
 		SecondLevelCacheStatistics slcs = getSecondLevelCacheStatistics(regionName);
-		slcs.missCount++;
+		synchronized (slcs) { slcs.missCount++; }
 	}
 
-	public synchronized void queryCachePut(String hql, String regionName) {
-		queryCachePutCount++;
+	public void queryCachePut(String hql, String regionName) {
+		queryCachePutCount.increment();
 		if (hql!=null) {
 			QueryStatistics qs = getQueryStatistics(hql);
-			qs.cachePutCount++;
+			synchronized (qs) { qs.cachePutCount++; }
 		}
 		SecondLevelCacheStatistics slcs = getSecondLevelCacheStatistics(regionName);
-		slcs.putCount++;
+		synchronized (slcs) { slcs.putCount++; }
+	}
+
+	public void queryPlanCacheHit() {
+		queryPlanCacheHitCount.increment();
+	}
+
+	public void queryPlanCacheMiss() {
+		queryPlanCacheMissCount.increment();
+	}
+
+	public void queryPlanCacheEviction() {
+		queryPlanCacheEvictionCount.increment();
 	}
 
 	/**
@@ -304,134 +355,141 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 	 * @param queryString query string
 	 * @return QueryStatistics
 	 */
-	public synchronized QueryStatistics getQueryStatistics(String queryString) {
-		QueryStatistics qs = (QueryStatistics) queryStatistics.get(queryString);
-		if (qs==null) {
-			qs = new QueryStatistics(queryString);
-			queryStatistics.put(queryString, qs);
-		}
-		return qs;
+	public QueryStatistics getQueryStatistics(String queryString) {
+		return (QueryStatistics) queryStatistics.get(queryString);
 	}
 
 	/**
 	 * @return entity deletion count
 	 */
 	public long getEntityDeleteCount() {
-		return entityDeleteCount;
+		return entityDeleteCount.get();
 	}
 	
 	/**
 	 * @return entity insertion count
 	 */
 	public long getEntityInsertCount() {
-		return entityInsertCount;
+		return entityInsertCount.get();
 	}
 	
 	/**
 	 * @return entity load (from DB)
 	 */
 	public long getEntityLoadCount() {
-		return entityLoadCount;
+		return entityLoadCount.get();
 	}
 	
 	/**
 	 * @return entity fetch (from DB)
 	 */
 	public long getEntityFetchCount() {
-		return entityFetchCount;
+		return entityFetchCount.get();
 	}
 
 	/**
 	 * @return entity update
 	 */
 	public long getEntityUpdateCount() {
-		return entityUpdateCount;
+		return entityUpdateCount.get();
 	}
 
 	public long getQueryExecutionCount() {
-		return queryExecutionCount;
+		return queryExecutionCount.get();
 	}
 	
 	public long getQueryCacheHitCount() {
-		return queryCacheHitCount;
+		return queryCacheHitCount.get();
 	}
 	
 	public long getQueryCacheMissCount() {
-		return queryCacheMissCount;
+		return queryCacheMissCount.get();
 	}
 	
 	public long getQueryCachePutCount() {
-		return queryCachePutCount;
+		return queryCachePutCount.get();
+	}
+	
+	public long getQueryPlanCacheHitCount() {
+		return queryPlanCacheHitCount.get();
+	}
+	
+	public long getQueryPlanCacheMissCount() {
+		return queryPlanCacheMissCount.get();
+	}
+	
+	public long getQueryPlanCacheEvictionCount() {
+		return queryPlanCacheEvictionCount.get();
 	}
 	
 	/**
 	 * @return flush
 	 */
 	public long getFlushCount() {
-		return flushCount;
+		return flushCount.get();
 	}
 	
 	/**
 	 * @return session connect
 	 */
 	public long getConnectCount() {
-		return connectCount;
+		return connectCount.get();
 	}
 
 	/**
 	 * @return second level cache hit
 	 */
 	public long getSecondLevelCacheHitCount() {
-		return secondLevelCacheHitCount;
+		return secondLevelCacheHitCount.get();
 	}
 
 	/**
 	 * @return second level cache miss
 	 */
 	public long getSecondLevelCacheMissCount() {
-		return secondLevelCacheMissCount;
+		return secondLevelCacheMissCount.get();
 	}
 	
 	/**
 	 * @return second level cache put
 	 */
 	public long getSecondLevelCachePutCount() {
-		return secondLevelCachePutCount;
+		return secondLevelCachePutCount.get();
 	}
 
 	/**
 	 * @return session closing
 	 */
 	public long getSessionCloseCount() {
-		return sessionCloseCount;
+		return sessionCloseCount.get();
 	}
 	
 	/**
 	 * @return session opening
 	 */
 	public long getSessionOpenCount() {
-		return sessionOpenCount;
+		return sessionOpenCount.get();
 	}
 
 	/**
 	 * @return collection loading (from DB)
 	 */
 	public long getCollectionLoadCount() {
-		return collectionLoadCount;
+		return collectionLoadCount.get();
 	}
 
 	/**
 	 * @return collection fetching (from DB)
 	 */
 	public long getCollectionFetchCount() {
-		return collectionFetchCount;
+		return collectionFetchCount.get();
 	}
 	
 	/**
 	 * @return collection update
 	 */
 	public long getCollectionUpdateCount() {
-		return collectionUpdateCount;
+		return collectionUpdateCount.get();
 	}
 
 	/**
@@ -439,13 +497,13 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 	 * FIXME: even if isInverse="true"?
 	 */
 	public long getCollectionRemoveCount() {
-		return collectionRemoveCount;
+		return collectionRemoveCount.get();
 	}
 	/**
 	 * @return collection recreation
 	 */
 	public long getCollectionRecreateCount() {
-		return collectionRecreateCount;
+		return collectionRecreateCount.get();
 	}
 
 	/**
@@ -470,6 +528,9 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 		log.info("connections obtained: " + connectCount);
 		log.info("statements prepared: " + prepareStatementCount);
 		log.info("statements closed: " + closeStatementCount);
+		log.info("batches executed: " + batchCount);
+		long batches = batchCount.get();
+		if (batches>0) log.info("average batch size: " + (double) batchedStatementCount.get() / batches);
 		log.info("second level cache puts: " + secondLevelCachePutCount);
 		log.info("second level cache hits: " + secondLevelCacheHitCount);
 		log.info("second level cache misses: " + secondLevelCacheMissCount);
@@ -487,6 +548,9 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 		log.info("query cache puts: " + queryCachePutCount);
 		log.info("query cache hits: " + queryCacheHitCount);
 		log.info("query cache misses: " + queryCacheMissCount);
+		log.info("query plan cache hits: " + queryPlanCacheHitCount);
+		log.info("query plan cache misses: " + queryPlanCacheMissCount);
+		log.info("query plan cache evictions: " + queryPlanCacheEvictionCount);
 		log.info("max query time: " + queryExecutionMaxTime + "ms");
 	}
 	
@@ -516,7 +580,7 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 	 * Get all executed query strings
 	 */
 	public String[] getQueries() {
-		return ArrayHelper.toStringArray( queryStatistics.keySet() );
+		return queryStatistics.names();
 	}
 	
 	/**
@@ -524,7 +588,7 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 	 */
 	public String[] getEntityNames() {
 		if (sessionFactory==null) {
-			return ArrayHelper.toStringArray( entityStatistics.keySet() );
+			return entityStatistics.names();
 		}
 		else {
 			return ArrayHelper.toStringArray( sessionFactory.getAllClassMetadata().keySet() );
@@ -536,7 +600,7 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 	 */
 	public String[] getCollectionRoleNames() {
 		if (sessionFactory==null) {
-			return ArrayHelper.toStringArray( collectionStatistics.keySet() );
+			return collectionStatistics.names();
 		}
 		else {
 			return ArrayHelper.toStringArray( sessionFactory.getAllCollectionMetadata().keySet() );
@@ -548,7 +612,7 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 	 */
 	public String[] getSecondLevelCacheRegionNames() {
 		if (sessionFactory==null) {
-			return ArrayHelper.toStringArray( secondLevelCacheStatistics.keySet() );
+			return secondLevelCacheStatistics.names();
 		}
 		else {
 			return ArrayHelper.toStringArray( sessionFactory.getAllSecondLevelCacheRegions().keySet() );
@@ -556,41 +620,55 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 	}
 
 	public void endTransaction(boolean success) {
-		transactionCount++;
-		if (success) commitedTransactionCount++;
+		transactionCount.increment();
+		if (success) commitedTransactionCount.increment();
 	}
 	
 	public long getSuccessfulTransactionCount() {
-		return commitedTransactionCount;
+		return commitedTransactionCount.get();
 	}
 	
 	public long getTransactionCount() {
-		return transactionCount;
+		return transactionCount.get();
 	}
 
 	public void closeStatement() {
-		closeStatementCount++;
+		closeStatementCount.increment();
 	}
 
 	public void prepareStatement() {
-		prepareStatementCount++;
+		prepareStatementCount.increment();
+	}
+
+	public void executeBatch(int statementCount) {
+		batchCount.increment();
+		batchedStatementCount.add(statementCount);
+	}
+
+	public long getBatchCount() {
+		return batchCount.get();
+	}
+
+	public long getBatchedStatementCount() {
+		return batchedStatementCount.get();
 	}
 
 	public long getCloseStatementCount() {
-		return closeStatementCount;
+		return closeStatementCount.get();
 	}
 
 	public long getPrepareStatementCount() {
-		return prepareStatementCount;
+		return prepareStatementCount.get();
 	}
 
 	public void optimisticFailure(String entityName) {
-		optimisticFailureCount++;
-		getEntityStatistics(entityName).optimisticFailureCount++;
+		optimisticFailureCount.increment();
+		EntityStatistics es = getEntityStatistics(entityName);
+		synchronized (es) { es.optimisticFailureCount++; }
 	}
 
 	public long getOptimisticFailureCount() {
-		return optimisticFailureCount;
+		return optimisticFailureCount.get();
 	}
 	public String toString() {
 		return new StringBuffer()
@@ -605,6 +683,8 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 			.append(",connections obtained=").append(connectCount)
 			.append(",statements prepared=").append(prepareStatementCount)
 			.append(",statements closed=").append(closeStatementCount)
+			.append(",batches executed=").append(batchCount)
+			.append(",statements batched=").append(batchedStatementCount)
 			.append(",second level cache puts=").append(secondLevelCachePutCount)
 			.append(",second level cache hits=").append(secondLevelCacheHitCount)
 			.append(",second level cache misses=").append(secondLevelCacheMissCount)
@@ -622,6 +702,9 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 			.append(",query cache puts=").append(queryCachePutCount)
 			.append(",query cache hits=").append(queryCacheHitCount)
 			.append(",query cache misses=").append(queryCacheMissCount)
+			.append(",query plan cache hits=").append(queryPlanCacheHitCount)
+			.append(",query plan cache misses=").append(queryPlanCacheMissCount)
+			.append(",query plan cache evictions=").append(queryPlanCacheEvictionCount)
 			.append(",max query time=").append(queryExecutionMaxTime)
 			.append(']')
 			.toString();
@@ -631,4 +714,62 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 		return queryExecutionMaxTimeQueryString;
 	}
 	
+	/**
+	 * The statistics of each category (entity, collection role, cache region
+	 * or query), created on demand, in a number of maps, each with its own
+	 * lock, so that lookups of different categories rarely contend
+	 */
+	private static abstract class Categories {
+		
+		private static final int STRIPES = 16; //must be a power of two
+		
+		private final Map[] stripes = new Map[STRIPES];
+		
+		Categories() {
+			for ( int i=0; i<STRIPES; i++ ) stripes[i] = new HashMap();
+		}
+		
+		/**
+		 * @return the statistics of the named category, or null if it does not exist
+		 */
+		abstract Object create(String name);
+		
+		Object get(String name) {
+			Map stripe = stripes[ stripe(name) ];
+			synchronized (stripe) {
+				Object statistics = stripe.get(name);
+				if (statistics==null) {
+					statistics = create(name);
+					if (statistics!=null) stripe.put(name, statistics);
+				}
+				return statistics;
+			}
+		}
+		
+		String[] names() {
+			List names = new ArrayList();
+			for ( int i=0; i<STRIPES; i++ ) {
+				synchronized ( stripes[i] ) {
+					names.addAll( stripes[i].keySet() );
+				}
+			}
+			return ArrayHelper.toStringArray(names);
+		}
+		
+		void clear() {
+			for ( int i=0; i<STRIPES; i++ ) {
+				synchronized ( stripes[i] ) {
+					stripes[i].clear();
+				}
+			}
+		}
+		
+		private static int stripe(String name) {
+			int hash = name.hashCode();
+			hash ^= ( hash >>> 16 );
+			hash ^= ( hash >>> 8 );
+			return hash & ( STRIPES - 1 );
+		}
+	}
+	
 }
\ No newline at end of file
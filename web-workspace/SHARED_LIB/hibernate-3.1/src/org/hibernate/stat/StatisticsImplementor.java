@@ -28,8 +28,12 @@ public interface StatisticsImplementor {
 	public void queryCacheHit(String hql, String regionName);
 	public void queryCacheMiss(String hql, String regionName);
 	public void queryCachePut(String hql, String regionName);
+	public void queryPlanCacheHit();
+	public void queryPlanCacheMiss();
+	public void queryPlanCacheEviction();
 	public void endTransaction(boolean success);
 	public void closeStatement();
 	public void prepareStatement();
+	public void executeBatch(int statementCount);
 	public void optimisticFailure(String entityName);
 }
\ No newline at end of file
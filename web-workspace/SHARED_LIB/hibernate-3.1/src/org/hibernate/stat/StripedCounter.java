@@ -0,0 +1,66 @@
+//$Id: $
+package org.hibernate.stat;
+
+/**
+ * A counter which many threads may increment without contending for a
+ * single lock. The count is split over a number of cells, each with its
+ * own lock, and a thread always increments the cell picked by the hash of
+ * the thread. Reading the count sums the cells, so it is a little more
+ * expensive than incrementing it.
+ */
+final class StripedCounter {
+
+	private static final int STRIPES = 16; //must be a power of two
+	private static final int PADDING = 8; //keep cells on different cache lines
+
+	private final long[] cells = new long[STRIPES * PADDING];
+	private final Object[] locks = new Object[STRIPES];
+
+	StripedCounter() {
+		for ( int i=0; i<STRIPES; i++ ) locks[i] = new Object();
+	}
+
+	void increment() {
+		add(1);
+	}
+
+	void add(long value) {
+		int stripe = stripe();
+		synchronized ( locks[stripe] ) {
+			cells[stripe * PADDING] += value;
+		}
+	}
+
+	long get() {
+		long sum = 0;
+		for ( int i=0; i<STRIPES; i++ ) {
+			synchronized ( locks[i] ) {
+				sum += cells[i * PADDING];
+			}
+		}
+		return sum;
+	}
+
+	void reset() {
+		for ( int i=0; i<STRIPES; i++ ) {
+			synchronized ( locks[i] ) {
+				cells[i * PADDING] = 0;
+			}
+		}
+	}
+
+	public String toString() {
+		return String.valueOf( get() );
+	}
+
+	/**
+	 * The stripe used by the current thread
+	 */
+	static int stripe() {
+		int hash = System.identityHashCode( Thread.currentThread() );
+		hash ^= ( hash >>> 16 );
+		hash ^= ( hash >>> 8 );
+		return hash & ( STRIPES - 1 );
+	}
+
+}
@@ -454,7 +454,10 @@ public final class TypeFactory {
 
 	/**
 	 * Determine if any of the given field values are dirty, returning an array containing 
-	 * indexes of the dirty fields or <tt>null</tt> if no fields are dirty.
+	 * indexes of the dirty fields or <tt>null</tt> if no fields are dirty. A value which
+	 * is the very instance held by the snapshot is never dirty (the snapshot holds a deep
+	 * copy of mutable values), so the <tt>Type</tt> is only asked about values which were
+	 * reassigned or copied.
 	 * @param x the current state of the entity
 	 * @param y the snapshot state from the time the object was loaded
 	 */
@@ -474,6 +477,7 @@ public final class TypeFactory {
 		for ( int i = 0; i < span; i++ ) {
 
 			final boolean dirty = x[i]!=LazyPropertyInitializer.UNFETCHED_PROPERTY //x is the "current" state
+					&& x[i]!=y[i] //the same instance as the snapshot can't be dirty
 					&& properties[i].isDirtyCheckable(anyUninitializedProperties)
 					&& properties[i].getType().isDirty( y[i], x[i], includeColumns[i], session );
 
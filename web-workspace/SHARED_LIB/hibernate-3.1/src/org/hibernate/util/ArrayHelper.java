@@ -1,5 +1,6 @@
 //$Id: ArrayHelper.java,v 1.15 2005/07/19 18:17:15 oneovthafew Exp $
 package org.hibernate.util;
+import java.io.Serializable;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -240,6 +241,59 @@ public final class ArrayHelper {
 		return result;
 	}
 	
+	/**
+	 * The batch sizes used when batch fetching with padded <tt>in</tt> lists:
+	 * the maximum batch size, followed by every smaller power of two
+	 */
+	public static int[] getPaddedBatchSizes(int maxBatchSize) {
+		int n=1;
+		int powerOfTwo = 1;
+		while ( powerOfTwo*2 < maxBatchSize ) {
+			powerOfTwo *= 2;
+			n++;
+		}
+		if ( maxBatchSize>1 ) n++;
+		int[] result = new int[n];
+		result[0] = maxBatchSize;
+		for ( int i=1; i<n; i++ ) {
+			result[i] = powerOfTwo;
+			powerOfTwo /= 2;
+		}
+		return result;
+	}
+	
+	/**
+	 * Choose the smallest of the (descending) batch sizes that can hold
+	 * the given number of keys
+	 * 
+	 * @return an index of the given batch sizes
+	 */
+	public static int getPaddedBatchSizeIndex(int[] batchSizes, int keyCount) {
+		for ( int i=batchSizes.length-1; i>0; i-- ) {
+			if ( batchSizes[i]>=keyCount ) return i;
+		}
+		return 0;
+	}
+	
+	/**
+	 * Copy the given number of keys to an array of the given batch size,
+	 * filling the rest of the array with the first key
+	 */
+	public static Serializable[] pad(Serializable[] keys, int keyCount, int batchSize) {
+		Serializable[] result = new Serializable[batchSize];
+		System.arraycopy(keys, 0, result, 0, keyCount);
+		for ( int i=keyCount; i<batchSize; i++ ) result[i] = keys[0];
+		return result;
+	}
+	
+	public static int countNonNull(Object[] array) {
+		int result=0;
+		for ( int i=0; i<array.length; i++ ) {
+			if ( array[i]!=null ) result++;
+		}
+		return result;
+	}
+	
 	private static int getNextBatchSize(int batchSize) {
 		if (batchSize<=10) {
 			return batchSize-1; //allow 9,8,7,6,5,4,3,2,1
@@ -0,0 +1,136 @@
+package org.hibernate.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Map;
+
+import org.apache.commons.collections.LRUMap;
+import org.apache.commons.collections.ReferenceMap;
+
+/**
+ * Cache following a "Most Recently Used" (MRU) algorithm for maintaining a
+ * bounded in-memory size; the "Least Recently Used" (LRU) entry is the first
+ * available for removal from the cache.
+ * <p/>
+ * Up to <tt>strongReferenceCount</tt> entries are held by strong references,
+ * so the most recently used entries survive heap pressure. Entries pushed out
+ * of that core are either discarded, or (if soft references are enabled) kept
+ * in a soft-reference overflow, from which they are promoted back into the
+ * core when used again, until the garbage collector needs the memory.
+ * <p/>
+ * Counts hits, misses and evictions from the strong core.
+ *
+ * @author <a href="mailto:steve@hibernate.org">Steve Ebersole </a>
+ */
+public class SoftLimitMRUCache implements Serializable {
+
+	public static final int DEFAULT_STRONG_REF_COUNT = 128;
+
+	private final int strongReferenceCount;
+	private final boolean useSoftReferences;
+
+	private transient LRUMap strongReferenceCache;
+	private transient Map softReferenceCache;
+
+	private transient long hitCount;
+	private transient long missCount;
+	private transient long evictionCount;
+
+	public SoftLimitMRUCache() {
+		this( DEFAULT_STRONG_REF_COUNT, true );
+	}
+
+	public SoftLimitMRUCache(int strongReferenceCount, boolean useSoftReferences) {
+		if ( strongReferenceCount < 1 ) {
+			throw new IllegalArgumentException( "strongReferenceCount must be positive: " + strongReferenceCount );
+		}
+		this.strongReferenceCount = strongReferenceCount;
+		this.useSoftReferences = useSoftReferences;
+		init();
+	}
+
+	public synchronized Object get(Object key) {
+		Object result = strongReferenceCache.get( key );
+		if ( result == null && softReferenceCache != null ) {
+			result = softReferenceCache.remove( key );
+			if ( result != null ) {
+				// promote it back to the strong core
+				strongReferenceCache.put( key, result );
+			}
+		}
+		if ( result == null ) {
+			missCount++;
+		}
+		else {
+			hitCount++;
+		}
+		return result;
+	}
+
+	/**
+	 * Add an entry, making it the most recently used.
+	 *
+	 * @return true if this pushed the least recently used entry out of the
+	 * strong core
+	 */
+	public synchronized boolean put(Object key, Object value) {
+		long evictionsBefore = evictionCount;
+		if ( softReferenceCache != null ) {
+			softReferenceCache.remove( key );
+		}
+		strongReferenceCache.put( key, value );
+		return evictionCount != evictionsBefore;
+	}
+
+	public synchronized int size() {
+		return strongReferenceCache.size();
+	}
+
+	public synchronized int softSize() {
+		return softReferenceCache == null ? 0 : softReferenceCache.size();
+	}
+
+	public synchronized void clear() {
+		strongReferenceCache.clear();
+		if ( softReferenceCache != null ) {
+			softReferenceCache.clear();
+		}
+	}
+
+	public int getStrongReferenceCount() {
+		return strongReferenceCount;
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	private void init() {
+		strongReferenceCache = new LRUMap( strongReferenceCount ) {
+			protected void processRemovedLRU(Object key, Object value) {
+				evictionCount++;
+				if ( softReferenceCache != null ) {
+					softReferenceCache.put( key, value );
+				}
+			}
+		};
+		// both keys and values may be soft since value keeps a hard ref to the key (and there is a hard ref to MRU values)
+		softReferenceCache = useSoftReferences ?
+				new ReferenceMap( ReferenceMap.SOFT, ReferenceMap.SOFT ) :
+				null;
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		init();
+	}
+}
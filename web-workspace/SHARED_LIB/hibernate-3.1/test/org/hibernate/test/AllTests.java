@@ -9,9 +9,15 @@ import org.hibernate.test.array.ArrayTest;
 import org.hibernate.test.ast.ASTIteratorTest;
 import org.hibernate.test.ast.ASTUtilTest;
 import org.hibernate.test.batchfetch.BatchFetchTest;
+import org.hibernate.test.batchfetch.PaddedBatchFetchTest;
 import org.hibernate.test.bidi.AuctionTest;
 import org.hibernate.test.bidi.AuctionTest2;
+import org.hibernate.test.bootstrap.MappingSnapshotTest;
+import org.hibernate.test.bootstrap.ParallelBootstrapTest;
+import org.hibernate.test.cache.BoundedCacheTest;
+import org.hibernate.test.cache.OffHeapCacheTest;
 import org.hibernate.test.cache.SecondLevelCacheTest;
+import org.hibernate.test.cache.TimestamperTest;
 import org.hibernate.test.cascade.RefreshTest;
 import org.hibernate.test.cid.CompositeIdTest;
 import org.hibernate.test.collection.CollectionTest;
@@ -22,6 +28,7 @@ import org.hibernate.test.connections.ConnectionsSuite;
 import org.hibernate.test.criteria.CriteriaQueryTest;
 import org.hibernate.test.cuk.CompositePropertyRefTest;
 import org.hibernate.test.cut.CompositeUserTypeTest;
+import org.hibernate.test.dirtycheck.DirtyCheckTest;
 import org.hibernate.test.discriminator.DiscriminatorTest;
 import org.hibernate.test.dom4j.Dom4jAccessorTest;
 import org.hibernate.test.dom4j.Dom4jManyToOneTest;
@@ -41,13 +48,16 @@ import org.hibernate.test.generated.TriggerGeneratedValuesWithoutCachingTest;
 import org.hibernate.test.generatedkeys.oracle.OracleGeneratedKeysTest;
 import org.hibernate.test.hql.HQLSuite;
 import org.hibernate.test.id.MultipleHiLoPerTableGeneratorTest;
+import org.hibernate.test.id.PoolOptimizerTest;
 import org.hibernate.test.idbag.IdBagTest;
 import org.hibernate.test.idclass.IdClassTest;
+import org.hibernate.test.insertordering.InsertOrderingTest;
 import org.hibernate.test.immutable.ImmutableTest;
 import org.hibernate.test.instrument.InstrumentTest;
 import org.hibernate.test.interceptor.InterceptorTest;
 import org.hibernate.test.interfaceproxy.InterfaceProxyTest;
 import org.hibernate.test.iterate.IterateTest;
+import org.hibernate.test.jdbc.ColumnNameCacheTest;
 import org.hibernate.test.join.JoinTest;
 import org.hibernate.test.joinedsubclass.JoinedSubclassTest;
 import org.hibernate.test.joinfetch.JoinFetchTest;
@@ -103,6 +113,7 @@ import org.hibernate.test.sorted.SortTest;
 import org.hibernate.test.sql.MSSQLTest;
 import org.hibernate.test.sql.MySQLTest;
 import org.hibernate.test.sql.OracleSQLTest;
+import org.hibernate.test.stats.ConcurrentStatisticsTest;
 import org.hibernate.test.stats.SessionStatsTest;
 import org.hibernate.test.stats.StatsTest;
 import org.hibernate.test.subclassfilter.DiscrimSubclassFilterTest;
@@ -120,6 +131,7 @@ import org.hibernate.test.typeparameters.TypeParameterTest;
 import org.hibernate.test.unconstrained.UnconstrainedTest;
 import org.hibernate.test.unidir.BackrefTest;
 import org.hibernate.test.unionsubclass.UnionSubclassTest;
+import org.hibernate.test.util.SoftLimitMRUCacheTest;
 import org.hibernate.test.version.VersionTest;
 import org.hibernate.test.version.db.DbVersionTest;
 import org.hibernate.test.version.sybase.SybaseTimestampVersioningTest;
@@ -183,6 +195,8 @@ public class AllTests {
 			suite.addTest( OneToOneCacheTest.suite() );
 			suite.addTest( NonReflectiveBinderTest.suite() );
 			suite.addTest( ConfigurationPerformanceTest.suite() ); // Added to ensure we can utilize the recommended performance tips ;)
+			suite.addTest( ParallelBootstrapTest.suite() );
+			suite.addTest( MappingSnapshotTest.suite() );
 			return suite;
 		}
 
@@ -231,11 +245,13 @@ public class AllTests {
 			suite.addTest( MapElementFormulaTest.suite() );
 			suite.addTest( BackrefTest.suite() );
 			suite.addTest( BatchFetchTest.suite() );
+			suite.addTest( PaddedBatchFetchTest.suite() );
 			suite.addTest( CompositeIdTest.suite() );
 			suite.addTest( CompositeElementTest.suite() );
 			suite.addTest( CompositePropertyRefTest.suite() );
 			suite.addTest( FormulaJoinTest.suite() );
 			suite.addTest( DiscriminatorTest.suite() );
+			suite.addTest( DirtyCheckTest.suite() );
 			suite.addTest( DynamicClassTest.suite() );
 			suite.addTest( DynamicFilterTest.suite() );
 			suite.addTest( InterfaceProxyTest.suite() );
@@ -269,13 +285,19 @@ public class AllTests {
 			suite.addTest( HQLSuite.suite() );
 			suite.addTest( ASTUtilTest.suite() );
 			suite.addTest( SecondLevelCacheTest.suite() );
+			suite.addTest( BoundedCacheTest.suite() );
+			suite.addTest( OffHeapCacheTest.suite() );
+			suite.addTest( TimestamperTest.suite() );
 			suite.addTest( QueryCacheTest.suite() );
+			suite.addTest( SoftLimitMRUCacheTest.suite() );
+			suite.addTest( InsertOrderingTest.suite() );
 			suite.addTest( CompositeUserTypeTest.suite() );
 			suite.addTest( TypeParameterTest.suite() );
 			suite.addTest( TypedOneToOneTest.suite() );
 			suite.addTest( TypedManyToOneTest.suite() );
 			suite.addTest( CMTTest.suite() );
 			suite.addTest( MultipleHiLoPerTableGeneratorTest.suite() );
+			suite.addTest( PoolOptimizerTest.suite() );
 			suite.addTest( MultiRepresentationTest.suite() );
 			suite.addTest( Dom4jAccessorTest.suite() );
 			suite.addTest( Dom4jTest.suite() );
@@ -294,8 +316,10 @@ public class AllTests {
 			suite.addTest( ExtraLazyTest.suite() );
 			suite.addTest( StatsTest.suite() );
 			suite.addTest( SessionStatsTest.suite() );
+			suite.addTest( ConcurrentStatisticsTest.suite() );
 			suite.addTest( ConnectionsSuite.suite() );
 			suite.addTest( SQLExceptionConversionTest.suite() );
+			suite.addTest( ColumnNameCacheTest.suite() );
 			suite.addTest( ValueVisitorTest.suite() );
 			suite.addTest( PersistentClassVisitorTest.suite() );
 			suite.addTest( AuctionTest.suite() );
@@ -0,0 +1,121 @@
+//$Id: $
+package org.hibernate.test.batchfetch;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Runs the batch fetch tests with the <tt>in</tt> lists padded up
+ * to powers of two.
+ */
+public class PaddedBatchFetchTest extends BatchFetchTest {
+	
+	public PaddedBatchFetchTest(String str) {
+		super(str);
+	}
+
+	protected void configure(Configuration cfg) {
+		cfg.setProperty( Environment.PADDED_BATCH_FETCH, "true" );
+		cfg.setProperty( Environment.GENERATE_STATISTICS, "true" );
+	}
+
+	public void testPaddedInLists() {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		for ( int i=0; i<3; i++ ) {
+			ProductLine pl = new ProductLine();
+			pl.setDescription( "line " + i );
+			for ( int j=0; j<2-i/2; j++ ) { //2, 2 and 1 models
+				Model m = new Model(pl);
+				m.setName( "model " + i + j );
+				m.setDescription( "model " + i + j );
+			}
+			s.save(pl);
+		}
+		t.commit();
+		s.close();
+
+		getSessions().evict(Model.class);
+		getSessions().evict(ProductLine.class);
+		Statistics stats = getSessions().getStatistics();
+
+		SqlRecorder recorder = new SqlRecorder();
+		s = openSession(recorder);
+		t = s.beginTransaction();
+
+		List list = s.createQuery("from ProductLine").list();
+		assertEquals( 3, list.size() );
+		recorder.statements.clear();
+		stats.clear();
+		( (ProductLine) list.get(0) ).getModels().size(); //fetch all 3 collections
+		for ( int i=0; i<list.size(); i++ ) {
+			assertTrue( Hibernate.isInitialized( ( (ProductLine) list.get(i) ).getModels() ) );
+		}
+		assertEquals( 1, stats.getPrepareStatementCount() );
+		assertEquals( 1, recorder.statements.size() );
+		assertEquals( 4, countParameters( (String) recorder.statements.get(0) ) ); //3 keys, padded to 4
+
+		s.clear();
+		getSessions().evict(Model.class); //loaded with the collections
+
+		Iterator iter = s.createQuery("from Model").iterate();
+		list = new ArrayList();
+		while ( iter.hasNext() ) {
+			list.add( iter.next() );
+		}
+		assertEquals( 5, list.size() );
+		recorder.statements.clear();
+		stats.clear();
+		for ( int i=0; i<list.size(); i++ ) {
+			( (Model) list.get(i) ).getDescription(); //the first fetches all 5 models
+		}
+		assertEquals( 1, stats.getPrepareStatementCount() );
+		assertEquals( 1, recorder.statements.size() );
+		assertEquals( 8, countParameters( (String) recorder.statements.get(0) ) ); //5 keys, padded to 8
+
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		list = s.createQuery("from ProductLine").list();
+		for ( int i=0; i<list.size(); i++ ) {
+			s.delete( list.get(i) );
+		}
+		t.commit();
+		s.close();
+	}
+
+	private static int countParameters(String sql) {
+		int count = 0;
+		for ( int i=0; i<sql.length(); i++ ) {
+			if ( sql.charAt(i)=='?' ) count++;
+		}
+		return count;
+	}
+
+	private static class SqlRecorder extends EmptyInterceptor {
+		private final List statements = new ArrayList();
+		public String onPrepareStatement(String sql) {
+			statements.add(sql);
+			return sql;
+		}
+	}
+
+	public static Test suite() {
+		return new TestSuite(PaddedBatchFetchTest.class);
+	}
+
+}
@@ -0,0 +1,179 @@
+//$Id: $
+package org.hibernate.test.bootstrap;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.dialect.HSQLDialect;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.persister.collection.QueryableCollection;
+import org.hibernate.persister.entity.Queryable;
+import org.hibernate.test.typeparameters.DefaultValueIntegerType;
+import org.hibernate.type.CustomType;
+import org.hibernate.type.Type;
+
+/**
+ * Checks that a session factory built from a mapping snapshot is the
+ * same as one built from the mapping documents, and that the snapshot
+ * is only used when the documents, and the mapped classes, are unchanged.
+ * No database is needed.
+ */
+public class MappingSnapshotTest extends TestCase {
+
+	private static final String[] MAPPINGS = {
+		"org/hibernate/test/legacy/FooBar.hbm.xml",
+		"org/hibernate/test/legacy/Baz.hbm.xml",
+		"org/hibernate/test/legacy/Qux.hbm.xml",
+		"org/hibernate/test/legacy/Glarch.hbm.xml",
+		"org/hibernate/test/legacy/Fum.hbm.xml",
+		"org/hibernate/test/legacy/Fumm.hbm.xml",
+		"org/hibernate/test/legacy/Fo.hbm.xml",
+		"org/hibernate/test/legacy/One.hbm.xml",
+		"org/hibernate/test/legacy/Many.hbm.xml",
+		"org/hibernate/test/legacy/Immutable.hbm.xml",
+		"org/hibernate/test/legacy/Fee.hbm.xml",
+		"org/hibernate/test/legacy/Vetoer.hbm.xml",
+		"org/hibernate/test/legacy/Holder.hbm.xml",
+		"org/hibernate/test/legacy/Location.hbm.xml",
+		"org/hibernate/test/legacy/Stuff.hbm.xml",
+		"org/hibernate/test/legacy/Container.hbm.xml",
+		"org/hibernate/test/legacy/Simple.hbm.xml",
+		"org/hibernate/test/legacy/XY.hbm.xml"
+	};
+
+	private File snapshot;
+
+	public MappingSnapshotTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(MappingSnapshotTest.class);
+	}
+
+	protected void setUp() throws Exception {
+		snapshot = File.createTempFile("mappings", ".bin");
+		snapshot.delete();
+	}
+
+	protected void tearDown() throws Exception {
+		snapshot.delete();
+	}
+
+	public void testSnapshot() throws Exception {
+		Map parsed = describePersisters( configuration().addCacheableResources(MAPPINGS, snapshot) );
+		assertTrue( snapshot.exists() );
+
+		snapshot.setLastModified(0);
+		Configuration cfg = configuration().addCacheableResources(MAPPINGS, snapshot);
+		assertEquals( "snapshot was rewritten", 0, snapshot.lastModified() );
+		assertEquals( parsed, describePersisters(cfg) );
+	}
+
+	public void testChangedMappings() throws Exception {
+		configuration().addCacheableResources(MAPPINGS, snapshot);
+		snapshot.setLastModified(0);
+
+		String[] fewerMappings = new String[ MAPPINGS.length - 1 ];
+		System.arraycopy(MAPPINGS, 0, fewerMappings, 0, fewerMappings.length);
+		Configuration cfg = configuration().addCacheableResources(fewerMappings, snapshot);
+		assertTrue( "snapshot was not rewritten", snapshot.lastModified() != 0 );
+		assertNull( cfg.getClassMapping( "org.hibernate.test.legacy.XY" ) );
+		assertNotNull( cfg.getClassMapping( "org.hibernate.test.legacy.Simple" ) );
+	}
+
+	public void testChangedClasses() throws Exception {
+		configuration().addCacheableResources(MAPPINGS, snapshot);
+		snapshot.setLastModified(0);
+
+		// a class loader that sees different bytecode for one mapped class
+		final ClassLoader original = Thread.currentThread().getContextClassLoader();
+		ClassLoader changed = new ClassLoader(original) {
+			public InputStream getResourceAsStream(String name) {
+				if ( name.equals( "org/hibernate/test/legacy/Simple.class" ) ) {
+					return new ByteArrayInputStream( new byte[] { 1, 2, 3 } );
+				}
+				return super.getResourceAsStream(name);
+			}
+		};
+		Thread.currentThread().setContextClassLoader(changed);
+		try {
+			Configuration cfg = configuration().addCacheableResources(MAPPINGS, snapshot);
+			assertTrue( "snapshot was not rewritten", snapshot.lastModified() != 0 );
+			assertNotNull( cfg.getClassMapping( "org.hibernate.test.legacy.Simple" ) );
+		}
+		finally {
+			Thread.currentThread().setContextClassLoader(original);
+		}
+	}
+
+	public void testTypeDefs() throws Exception {
+		String[] typeDefs = { "org/hibernate/test/typeparameters/Typedef.hbm.xml" };
+		configuration().addCacheableResources(typeDefs, snapshot);
+		snapshot.setLastModified(0);
+		Configuration cfg = configuration().addCacheableResources(typeDefs, snapshot);
+		assertEquals( "snapshot was rewritten", 0, snapshot.lastModified() );
+
+		// uses a typedef from the snapshot
+		cfg.addResource( "org/hibernate/test/typeparameters/Widget.hbm.xml" );
+		cfg.buildMappings();
+		Type type = cfg.getClassMapping( "org.hibernate.test.typeparameters.Widget" )
+			.getProperty( "valueThree" )
+			.getType();
+		assertTrue( type instanceof CustomType );
+		assertEquals( DefaultValueIntegerType.class.getName(), type.getName() );
+	}
+
+	public void testCorruptSnapshot() throws Exception {
+		FileOutputStream out = new FileOutputStream(snapshot);
+		out.write( new byte[] { 1, 2, 3 } );
+		out.close();
+		Configuration cfg = configuration().addCacheableResources(MAPPINGS, snapshot);
+		assertNotNull( cfg.getClassMapping( "org.hibernate.test.legacy.Simple" ) );
+		assertTrue( snapshot.length() > 3 );
+	}
+
+	private static Configuration configuration() {
+		return new Configuration()
+			.setProperty( Environment.DIALECT, HSQLDialect.class.getName() )
+			.setProperty( Environment.USE_SECOND_LEVEL_CACHE, "false" );
+	}
+
+	private static Map describePersisters(Configuration cfg) {
+		SessionFactoryImplementor factory = (SessionFactoryImplementor) cfg.buildSessionFactory();
+		try {
+			Map result = new TreeMap();
+			for ( Iterator iter = factory.getAllClassMetadata().keySet().iterator(); iter.hasNext(); ) {
+				String entityName = (String) iter.next();
+				Queryable persister = (Queryable) factory.getEntityPersister(entityName);
+				result.put(
+						entityName,
+						persister.fromJoinFragment("x", true, true) +
+						persister.identifierSelectFragment("x", "_0") +
+						persister.propertySelectFragment("x", "_0", true)
+					);
+			}
+			for ( Iterator iter = factory.getAllCollectionMetadata().keySet().iterator(); iter.hasNext(); ) {
+				String role = (String) iter.next();
+				QueryableCollection persister = (QueryableCollection) factory.getCollectionPersister(role);
+				result.put( role, persister.selectFragment("x", "_0") );
+			}
+			return result;
+		}
+		finally {
+			factory.close();
+		}
+	}
+
+}
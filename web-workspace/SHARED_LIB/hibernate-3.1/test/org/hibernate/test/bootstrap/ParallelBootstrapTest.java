@@ -0,0 +1,157 @@
+//$Id: $
+package org.hibernate.test.bootstrap;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.dialect.HSQLDialect;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.loader.Loader;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.collection.QueryableCollection;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.Queryable;
+
+/**
+ * Builds a session factory for the legacy test mappings with one thread,
+ * and with several, and checks that the persisters, and the SQL of their
+ * loaders, are the same. The generated SQL is not visible outside the
+ * persisters, so it is read by reflection. No database is needed.
+ */
+public class ParallelBootstrapTest extends TestCase {
+
+	private static final String[] MAPPINGS = {
+		"legacy/FooBar.hbm.xml",
+		"legacy/Baz.hbm.xml",
+		"legacy/Qux.hbm.xml",
+		"legacy/Glarch.hbm.xml",
+		"legacy/Fum.hbm.xml",
+		"legacy/Fumm.hbm.xml",
+		"legacy/Fo.hbm.xml",
+		"legacy/One.hbm.xml",
+		"legacy/Many.hbm.xml",
+		"legacy/Immutable.hbm.xml",
+		"legacy/Fee.hbm.xml",
+		"legacy/Vetoer.hbm.xml",
+		"legacy/Holder.hbm.xml",
+		"legacy/Location.hbm.xml",
+		"legacy/Stuff.hbm.xml",
+		"legacy/Container.hbm.xml",
+		"legacy/Simple.hbm.xml",
+		"legacy/XY.hbm.xml"
+	};
+
+	public ParallelBootstrapTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(ParallelBootstrapTest.class);
+	}
+
+	public void testParallelBootstrap() throws Exception {
+		// the same mappings, since the column aliases depend upon the order tables were mapped in
+		Configuration cfg = new Configuration()
+			.setProperty( Environment.DIALECT, HSQLDialect.class.getName() )
+			.setProperty( Environment.USE_SECOND_LEVEL_CACHE, "false" );
+		for ( int i=0; i<MAPPINGS.length; i++ ) {
+			cfg.addResource( "org/hibernate/test/" + MAPPINGS[i] );
+		}
+		Map sequential = describePersisters(cfg, 1);
+		Map parallel = describePersisters(cfg, 4);
+		assertTrue( sequential.size() > 50 );
+		assertEquals( sequential.keySet(), parallel.keySet() );
+		Iterator iter = sequential.keySet().iterator();
+		while ( iter.hasNext() ) {
+			Object name = iter.next();
+			assertEquals( name.toString(), sequential.get(name), parallel.get(name) );
+		}
+	}
+
+	private Map describePersisters(Configuration cfg, int threads) throws Exception {
+		cfg.setProperty( Environment.BOOTSTRAP_THREADS, String.valueOf(threads) );
+		SessionFactoryImplementor factory = (SessionFactoryImplementor) cfg.buildSessionFactory();
+		try {
+			Map result = new TreeMap();
+			for ( Iterator iter = factory.getAllClassMetadata().keySet().iterator(); iter.hasNext(); ) {
+				String entityName = (String) iter.next();
+				Queryable persister = (Queryable) factory.getEntityPersister(entityName);
+				result.put(
+						entityName,
+						persister.fromJoinFragment("x", true, true) +
+						persister.identifierSelectFragment("x", "_0") +
+						persister.propertySelectFragment("x", "_0", true) +
+						invoke( persister, AbstractEntityPersister.class, "getSQLSnapshotSelectString" ) +
+						invoke( persister, AbstractEntityPersister.class, "getSQLInsertStrings" ) +
+						invoke( persister, AbstractEntityPersister.class, "getSQLUpdateStrings" ) +
+						invoke( persister, AbstractEntityPersister.class, "getSQLDeleteStrings" ) +
+						describeLoaders( (Map) field( persister, AbstractEntityPersister.class, "loaders" ) ) +
+						describeLoaders( (Map) field( persister, AbstractEntityPersister.class, "uniqueKeyLoaders" ) )
+					);
+			}
+			for ( Iterator iter = factory.getAllCollectionMetadata().keySet().iterator(); iter.hasNext(); ) {
+				String role = (String) iter.next();
+				QueryableCollection persister = (QueryableCollection) factory.getCollectionPersister(role);
+				result.put(
+						role,
+						persister.selectFragment("x", "_0") +
+						invoke( persister, AbstractCollectionPersister.class, "getSQLInsertRowString" ) +
+						invoke( persister, AbstractCollectionPersister.class, "getSQLDeleteString" ) +
+						loaderSQL( field( persister, AbstractCollectionPersister.class, "initializer" ) )
+					);
+			}
+			return result;
+		}
+		finally {
+			factory.close();
+		}
+	}
+
+	private static String describeLoaders(Map loaders) throws Exception {
+		Map result = new TreeMap();
+		for ( Iterator iter = loaders.entrySet().iterator(); iter.hasNext(); ) {
+			Map.Entry entry = (Map.Entry) iter.next();
+			result.put( entry.getKey().toString(), loaderSQL( entry.getValue() ) );
+		}
+		return result.toString();
+	}
+
+	/**
+	 * The SQL of a loader, or of each loader of a batching loader
+	 */
+	private static String loaderSQL(Object loader) throws Exception {
+		if ( loader instanceof Loader ) {
+			return (String) invoke( loader, Loader.class, "getSQLString" );
+		}
+		Loader[] loaders = (Loader[]) field( loader, loader.getClass(), "loaders" );
+		StringBuffer result = new StringBuffer();
+		for ( int i=0; i<loaders.length; i++ ) {
+			result.append( loaderSQL( loaders[i] ) ).append(';');
+		}
+		return result.toString();
+	}
+
+	private static Object invoke(Object object, Class clazz, String methodName) throws Exception {
+		Method method = clazz.getDeclaredMethod( methodName, new Class[0] );
+		method.setAccessible(true);
+		Object result = method.invoke( object, new Object[0] );
+		return result instanceof Object[] ? Arrays.asList( (Object[]) result ) : result;
+	}
+
+	private static Object field(Object object, Class clazz, String fieldName) throws Exception {
+		Field field = clazz.getDeclaredField(fieldName);
+		field.setAccessible(true);
+		return field.get(object);
+	}
+
+}
@@ -0,0 +1,119 @@
+//$Id: $
+package org.hibernate.test.cache;
+
+import java.util.Properties;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.hibernate.cache.BoundedCache;
+import org.hibernate.cache.BoundedCacheProvider;
+import org.hibernate.cache.CacheException;
+
+public class BoundedCacheTest extends TestCase {
+
+	public BoundedCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(BoundedCacheTest.class);
+	}
+
+	public void testLruEviction() throws Exception {
+		BoundedCache cache = new BoundedCache( "lru", 3, 0, false, 1, false );
+		cache.put( "a", "A" );
+		cache.put( "b", "B" );
+		cache.put( "c", "C" );
+		assertEquals( "A", cache.get( "a" ) );
+		cache.put( "d", "D" );
+
+		assertEquals( 3, cache.getElementCountInMemory() );
+		assertEquals( 1, cache.getEvictionCount() );
+		assertNull( cache.get( "b" ) );
+		assertEquals( "A", cache.get( "a" ) );
+		assertEquals( "C", cache.get( "c" ) );
+		assertEquals( "D", cache.get( "d" ) );
+		assertEquals( 3, cache.toMap().size() );
+	}
+
+	public void testLfuEviction() throws Exception {
+		BoundedCache cache = new BoundedCache( "lfu", 3, 0, true, 1, false );
+		cache.put( "a", "A" );
+		cache.put( "b", "B" );
+		cache.put( "c", "C" );
+		// "a" is used often, but "b" is the most recent
+		for ( int i=0; i<5; i++ ) cache.get( "a" );
+		cache.get( "c" );
+		cache.get( "b" );
+		cache.put( "d", "D" );
+
+		assertEquals( 3, cache.getElementCountInMemory() );
+		assertNull( cache.get( "c" ) );
+		assertEquals( "A", cache.get( "a" ) );
+		assertEquals( "B", cache.get( "b" ) );
+		assertEquals( "D", cache.get( "d" ) );
+	}
+
+	public void testTimeToLive() throws Exception {
+		BoundedCache cache = new BoundedCache( "ttl", 10, 50, false, 1, false );
+		cache.put( "a", "A" );
+		assertEquals( "A", cache.get( "a" ) );
+		Thread.sleep( 100 );
+		assertTrue( cache.toMap().isEmpty() );
+		assertNull( cache.get( "a" ) );
+		assertEquals( 0, cache.getElementCountInMemory() );
+	}
+
+	public void testSegmentsAreBounded() throws Exception {
+		BoundedCache cache = new BoundedCache( "segments", 1000, 0, false, 16, false );
+		for ( int i=0; i<5000; i++ ) cache.put( new Integer(i), "value" );
+		assertTrue( cache.getElementCountInMemory() <= 1000 );
+		assertEquals( 5000 - cache.getElementCountInMemory(), cache.getEvictionCount() );
+	}
+
+	public void testSizeEstimation() throws Exception {
+		BoundedCache cache = new BoundedCache( "size", 10, 0, false, 1, false );
+		assertEquals( -1, cache.getSizeInMemory() );
+
+		cache = new BoundedCache( "size", 10, 0, false, 1, true );
+		cache.put( "a", "some value" );
+		long size = cache.getSizeInMemory();
+		assertTrue( size > 0 );
+		cache.put( "b", "some other value" );
+		assertTrue( cache.getSizeInMemory() > size );
+		cache.remove( "b" );
+		assertEquals( size, cache.getSizeInMemory() );
+		cache.clear();
+		assertEquals( 0, cache.getSizeInMemory() );
+	}
+
+	public void testProviderSettings() throws Exception {
+		Properties properties = new Properties();
+		properties.setProperty( "hibernate.cache.bounded.max_entries", "100" );
+		properties.setProperty( "hibernate.cache.bounded.Bid.max_entries", "5" );
+		properties.setProperty( "hibernate.cache.bounded.Bid.eviction", "lfu" );
+		properties.setProperty( "hibernate.cache.bounded.Bid.time_to_live", "60" );
+
+		BoundedCacheProvider provider = new BoundedCacheProvider();
+		BoundedCache item = (BoundedCache) provider.buildCache( "Item", properties );
+		assertEquals( 100, item.getMaxEntries() );
+		assertFalse( item.isLfu() );
+		assertEquals( 0, item.getTimeToLive() );
+
+		BoundedCache bid = (BoundedCache) provider.buildCache( "Bid", properties );
+		assertEquals( 5, bid.getMaxEntries() );
+		assertTrue( bid.isLfu() );
+		assertEquals( 60000, bid.getTimeToLive() );
+
+		properties.setProperty( "hibernate.cache.bounded.eviction", "fifo" );
+		try {
+			provider.buildCache( "Item", properties );
+			fail( "expecting CacheException" );
+		}
+		catch (CacheException expected) {
+		}
+	}
+
+}
@@ -0,0 +1,150 @@
+//$Id: $
+package org.hibernate.test.cache;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.OffHeapCache;
+import org.hibernate.cache.OffHeapCacheProvider;
+import org.hibernate.cache.ReadWriteCache;
+
+public class OffHeapCacheTest extends TestCase {
+
+	public OffHeapCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(OffHeapCacheTest.class);
+	}
+
+	public void testRoundTrip() throws Exception {
+		OffHeapCache cache = new OffHeapCache( "roundtrip", 64 * 1024, 4096 );
+		Serializable[] state = new Serializable[] { "name", new Integer(42), null };
+		cache.put( "key", new ReadWriteCache.Item( state, new Integer(1), 1000 ) );
+
+		ReadWriteCache.Item item = (ReadWriteCache.Item) cache.get( "key" );
+		Serializable[] cached = (Serializable[]) item.getValue();
+		assertEquals( "name", cached[0] );
+		assertEquals( new Integer(42), cached[1] );
+		assertNull( cached[2] );
+		assertEquals( 1000, item.getFreshTimestamp() );
+		// each get returns a fresh copy
+		assertNotSame( item, cache.get( "key" ) );
+
+		assertEquals( 1, cache.getElementCountInMemory() );
+		assertEquals( 4096, cache.getSizeInMemory() );
+		assertTrue( cache.getBytesStored() > 0 );
+
+		cache.put( "key", "replaced" );
+		assertEquals( "replaced", cache.get( "key" ) );
+		assertEquals( 1, cache.getElementCountInMemory() );
+		assertEquals( 1, cache.toMap().size() );
+
+		cache.remove( "key" );
+		assertNull( cache.get( "key" ) );
+		assertEquals( 0, cache.getBytesStored() );
+	}
+
+	public void testLruEvictionWhenFull() throws Exception {
+		// two slabs of 1KB, each holding 16 short strings in 64 byte chunks
+		OffHeapCache cache = new OffHeapCache( "eviction", 2048, 1024 );
+		for ( int i=0; i<16; i++ ) cache.put( new Integer(i), String.valueOf(i) );
+		assertEquals( 1024, cache.getSizeInMemory() );
+		for ( int i=16; i<32; i++ ) cache.put( new Integer(i), String.valueOf(i) );
+		assertEquals( 2048, cache.getSizeInMemory() );
+		assertEquals( 0, cache.getEvictionCount() );
+
+		cache.get( new Integer(0) );
+		cache.put( new Integer(32), "32" );
+		assertEquals( 1, cache.getEvictionCount() );
+		assertEquals( 32, cache.getElementCountInMemory() );
+		assertEquals( "0", cache.get( new Integer(0) ) );
+		assertNull( cache.get( new Integer(1) ) );
+		assertEquals( "32", cache.get( new Integer(32) ) );
+		assertEquals( 2048, cache.getSizeInMemory() );
+	}
+
+	public void testSlabsFollowEntrySizes() throws Exception {
+		// both slabs are carved into 64 byte chunks by the short strings
+		OffHeapCache cache = new OffHeapCache( "sizes", 2048, 1024 );
+		for ( int i=0; i<32; i++ ) cache.put( new Integer(i), String.valueOf(i) );
+		assertEquals( 2048, cache.getSizeInMemory() );
+
+		// a larger entry takes over the slab of the least recently used entry
+		for ( int i=16; i<32; i++ ) cache.get( new Integer(i) );
+		String large = new String( new char[300] );
+		cache.put( "large", large );
+		assertEquals( large, cache.get( "large" ) );
+		assertEquals( 1, cache.getSlabMoveCount() );
+		assertEquals( 16, cache.getEvictionCount() );
+		assertNull( cache.get( new Integer(0) ) );
+		assertEquals( "16", cache.get( new Integer(16) ) );
+		assertEquals( 17, cache.getElementCountInMemory() );
+		assertEquals( 2048, cache.getSizeInMemory() );
+
+		// an empty slab is moved without evicting anything
+		cache.remove( "large" );
+		cache.put( "medium", new String( new char[100] ) );
+		assertNotNull( cache.get( "medium" ) );
+		assertEquals( 2, cache.getSlabMoveCount() );
+		assertEquals( 16, cache.getEvictionCount() );
+		assertEquals( 0, cache.getDroppedPutCount() );
+	}
+
+	public void testEntryLargerThanSlabIsNotCached() throws Exception {
+		OffHeapCache cache = new OffHeapCache( "large", 4096, 1024 );
+		cache.put( "key", new byte[2048] );
+		assertNull( cache.get( "key" ) );
+		assertEquals( 0, cache.getElementCountInMemory() );
+		assertEquals( 1, cache.getDroppedPutCount() );
+	}
+
+	public void testClear() throws Exception {
+		OffHeapCache cache = new OffHeapCache( "clear", 4096, 1024 );
+		cache.put( "a", "A" );
+		cache.put( "b", "B" );
+		cache.clear();
+		assertEquals( 0, cache.getElementCountInMemory() );
+		assertEquals( 0, cache.getSizeInMemory() );
+		assertNull( cache.get( "a" ) );
+		cache.put( "a", "A" );
+		assertEquals( "A", cache.get( "a" ) );
+	}
+
+	public void testNonSerializable() throws Exception {
+		OffHeapCache cache = new OffHeapCache( "serializable", 4096, 1024 );
+		try {
+			cache.put( "key", new Object() );
+			fail( "expecting CacheException" );
+		}
+		catch (CacheException expected) {
+		}
+	}
+
+	public void testProviderSettings() throws Exception {
+		Properties properties = new Properties();
+		properties.setProperty( "hibernate.cache.offheap.max_memory", "8" );
+		properties.setProperty( "hibernate.cache.offheap.Bid.slab_size", "64" );
+
+		OffHeapCacheProvider provider = new OffHeapCacheProvider();
+		OffHeapCache item = (OffHeapCache) provider.buildCache( "Item", properties );
+		assertEquals( 1024 * 1024, item.getSlabSize() );
+		OffHeapCache bid = (OffHeapCache) provider.buildCache( "Bid", properties );
+		assertEquals( 64 * 1024, bid.getSlabSize() );
+
+		properties.setProperty( "hibernate.cache.offheap.Bid.slab_size", "16384" );
+		try {
+			provider.buildCache( "Bid", properties );
+			fail( "expecting CacheException" );
+		}
+		catch (CacheException expected) {
+		}
+	}
+
+}
@@ -0,0 +1,132 @@
+//$Id: $
+package org.hibernate.test.cache;
+
+import java.text.NumberFormat;
+import java.util.Comparator;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+import org.hibernate.cache.Cache;
+import org.hibernate.cache.CacheConcurrencyStrategy;
+import org.hibernate.cache.HashtableCacheProvider;
+import org.hibernate.cache.ReadWriteCache;
+import org.hibernate.cache.StripedReadWriteCache;
+import org.hibernate.cache.CacheConcurrencyStrategy.SoftLock;
+
+/**
+ * Compares the throughput of <tt>ReadWriteCache</tt> and
+ * <tt>StripedReadWriteCache</tt> over one hot region, with 1 to 64
+ * threads doing a mix of reads, puts and lock/update cycles.
+ * Not part of AllTests, since it takes a while; run it from main().
+ */
+public class ReadWriteCachePerformanceTest extends TestCase {
+
+	private static final int[] THREADS = { 1, 2, 4, 8, 16, 32, 64 };
+	private static final int KEYS = 10000;
+	private static final int OPERATIONS = 2000000;
+
+	private static final Comparator VERSION_COMPARATOR = new Comparator() {
+		public int compare(Object x, Object y) {
+			return ( (Comparable) x ).compareTo(y);
+		}
+	};
+
+	public ReadWriteCachePerformanceTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(ReadWriteCachePerformanceTest.class);
+	}
+
+	public static void main(String[] args) throws Exception {
+		TestRunner.run( suite() );
+	}
+
+	public void testThroughput() throws Exception {
+		NumberFormat format = NumberFormat.getInstance();
+		format.setMaximumFractionDigits(0);
+
+		System.out.println("threads\tread-write ops/sec\tstriped ops/sec");
+		for ( int i=0; i<THREADS.length; i++ ) {
+			int threads = THREADS[i];
+			// warm up
+			run( new ReadWriteCache(), threads, OPERATIONS/10 );
+			run( new StripedReadWriteCache(), threads, OPERATIONS/10 );
+
+			double plain = run( new ReadWriteCache(), threads, OPERATIONS );
+			double striped = run( new StripedReadWriteCache(), threads, OPERATIONS );
+			System.out.println( threads + "\t" + format.format(plain) + "\t\t\t" + format.format(striped) );
+		}
+	}
+
+	/**
+	 * @return operations per second
+	 */
+	private double run(final CacheConcurrencyStrategy ccs, int threadCount, int operations) throws Exception {
+		final Cache cache = new HashtableCacheProvider().buildCache( "perf", System.getProperties() );
+		ccs.setCache(cache);
+		long ts = cache.nextTimestamp();
+		for ( int i=0; i<KEYS; i++ ) {
+			ccs.put( new Integer(i), "value" + i, ts, new Integer(0), VERSION_COMPARATOR, false );
+		}
+		Thread.sleep(5); // so the items are visible to transactions starting now
+
+		final int operationsPerThread = operations / threadCount;
+		final Throwable[] failure = new Throwable[1];
+		Thread[] threads = new Thread[threadCount];
+		for ( int t=0; t<threadCount; t++ ) {
+			final int seed = t;
+			threads[t] = new Thread() {
+				public void run() {
+					try {
+						work( ccs, cache, seed, operationsPerThread );
+					}
+					catch (Throwable e) {
+						failure[0] = e;
+					}
+				}
+			};
+		}
+
+		long start = System.currentTimeMillis();
+		for ( int t=0; t<threadCount; t++ ) threads[t].start();
+		for ( int t=0; t<threadCount; t++ ) threads[t].join();
+		long elapsed = Math.max( System.currentTimeMillis() - start, 1 );
+
+		if ( failure[0]!=null ) {
+			fail( "worker failed: " + failure[0] );
+		}
+		ccs.destroy();
+		return ( (double) operationsPerThread * threadCount ) / elapsed * 1000;
+	}
+
+	/**
+	 * 90% reads, 8% puts, 2% lock/afterUpdate
+	 */
+	private static void work(CacheConcurrencyStrategy ccs, Cache cache, int seed, int operations) {
+		int x = seed * 7919 + 1;
+		for ( int i=0; i<operations; i++ ) {
+			x ^= x << 13;
+			x ^= x >>> 17;
+			x ^= x << 5;
+			Integer key = new Integer( ( x & Integer.MAX_VALUE ) % KEYS );
+			int op = ( x >>> 8 & Integer.MAX_VALUE ) % 100;
+			long ts = cache.nextTimestamp();
+			if ( op < 90 ) {
+				ccs.get( key, ts );
+			}
+			else if ( op < 98 ) {
+				ccs.put( key, "value", ts, new Integer(i), VERSION_COMPARATOR, false );
+			}
+			else {
+				SoftLock lock = ccs.lock( key, null );
+				ccs.afterUpdate( key, "updated", new Integer(i), lock );
+			}
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+//$Id: $
+package org.hibernate.test.cache;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.hibernate.cache.Timestamper;
+
+public class TimestamperTest extends TestCase {
+
+	public TimestamperTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(TimestamperTest.class);
+	}
+
+	public void testTimestampsIncreaseInEachThread() throws Exception {
+		final String[] failure = new String[1];
+		Thread[] threads = new Thread[8];
+		for ( int t=0; t<threads.length; t++ ) {
+			threads[t] = new Thread() {
+				public void run() {
+					long last = Timestamper.next();
+					for ( int i=0; i<100000; i++ ) {
+						long next = Timestamper.next();
+						if ( next < last ) failure[0] = "timestamp went backwards: " + last + " then " + next;
+						last = next;
+					}
+				}
+			};
+		}
+		for ( int t=0; t<threads.length; t++ ) threads[t].start();
+		for ( int t=0; t<threads.length; t++ ) threads[t].join();
+		assertNull( failure[0], failure[0] );
+	}
+
+	public void testTimestampsFollowTheClock() throws Exception {
+		long before = System.currentTimeMillis();
+		long ts = Timestamper.next();
+		Thread.sleep(20);
+		long later = Timestamper.next();
+		assertTrue( ts / Timestamper.ONE_MS >= before );
+		assertTrue( later - ts >= 10 * Timestamper.ONE_MS );
+	}
+
+}
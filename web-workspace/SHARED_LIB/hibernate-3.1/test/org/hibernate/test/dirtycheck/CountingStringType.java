@@ -0,0 +1,84 @@
+//$Id: $
+package org.hibernate.test.dirtycheck;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.hibernate.HibernateException;
+import org.hibernate.usertype.UserType;
+
+/**
+ * A string type that counts how often it is asked to compare values
+ */
+public class CountingStringType implements UserType, Serializable {
+
+	private static int equalsCalls;
+
+	public static synchronized int getEqualsCalls() {
+		return equalsCalls;
+	}
+
+	public static synchronized void resetEqualsCalls() {
+		equalsCalls = 0;
+	}
+
+	private static synchronized void countEqualsCall() {
+		equalsCalls++;
+	}
+
+	public int[] sqlTypes() {
+		return new int[] {Types.VARCHAR};
+	}
+
+	public Class returnedClass() {
+		return String.class;
+	}
+
+	public boolean equals(Object x, Object y) throws HibernateException {
+		countEqualsCall();
+		if (x==y) return true;
+		if (x==null || y==null) return false;
+		return x.equals(y);
+	}
+
+	public int hashCode(Object x) throws HibernateException {
+		return x.hashCode();
+	}
+
+	public Object nullSafeGet(ResultSet rs, String[] names, Object owner) throws HibernateException, SQLException {
+		return rs.getString( names[0] );
+	}
+
+	public void nullSafeSet(PreparedStatement st, Object value, int index) throws HibernateException, SQLException {
+		if (value==null) {
+			st.setNull(index, Types.VARCHAR);
+		}
+		else {
+			st.setString(index, (String) value);
+		}
+	}
+
+	public Object deepCopy(Object value) throws HibernateException {
+		return value;
+	}
+
+	public boolean isMutable() {
+		return false;
+	}
+
+	public Serializable disassemble(Object value) throws HibernateException {
+		return (Serializable) value;
+	}
+
+	public Object assemble(Serializable cached, Object owner) throws HibernateException {
+		return cached;
+	}
+
+	public Object replace(Object original, Object target, Object owner) throws HibernateException {
+		return original;
+	}
+
+}
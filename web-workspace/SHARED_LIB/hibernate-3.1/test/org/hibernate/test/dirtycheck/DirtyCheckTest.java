@@ -0,0 +1,162 @@
+//$Id: $
+package org.hibernate.test.dirtycheck;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.hibernate.EntityMode;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.engine.EntityEntry;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.stat.Statistics;
+import org.hibernate.test.TestCase;
+
+/**
+ * Tests the dirty checking done at flush time: values which are the very
+ * instance held by the loaded state are not compared by their
+ * <tt>Type</tt>, values which were reassigned are, and only properties
+ * which really changed are reported dirty.
+ */
+public class DirtyCheckTest extends TestCase {
+
+	public DirtyCheckTest(String name) {
+		super(name);
+	}
+
+	public void testUnchangedValuesAreNotCompared() {
+		createDocument();
+
+		Statistics stats = getSessions().getStatistics();
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		s.get( Document.class, new Long(1) );
+		stats.clear();
+		CountingStringType.resetEqualsCalls();
+		s.flush();
+		assertEquals( 0, CountingStringType.getEqualsCalls() );
+		assertEquals( 0, stats.getEntityUpdateCount() );
+		t.commit();
+		s.close();
+
+		deleteAll();
+	}
+
+	public void testReassignedValuesAreCompared() {
+		createDocument();
+
+		Statistics stats = getSessions().getStatistics();
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		Document document = (Document) s.get( Document.class, new Long(1) );
+		document.setNotes( new String( document.getNotes() ) );
+		document.setTitle( new String( document.getTitle() ) );
+		document.setPublished( new Date( document.getPublished().getTime() ) );
+		stats.clear();
+		CountingStringType.resetEqualsCalls();
+		s.flush();
+		assertEquals( 1, CountingStringType.getEqualsCalls() );
+		assertEquals( 0, stats.getEntityUpdateCount() );
+		t.commit();
+		s.close();
+
+		deleteAll();
+	}
+
+	public void testChangedPropertiesAreDirty() {
+		createDocument();
+
+		Statistics stats = getSessions().getStatistics();
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		Folder other = new Folder( new Long(2), "other" );
+		s.persist(other);
+		Document document = (Document) s.get( Document.class, new Long(1) );
+		document.setTitle("changed");
+		document.setFolder(other);
+
+		SessionImplementor session = (SessionImplementor) s;
+		EntityPersister persister = session.getFactory().getEntityPersister( Document.class.getName() );
+		EntityEntry entry = session.getPersistenceContext().getEntry(document);
+		int[] dirty = persister.findDirty(
+				persister.getPropertyValues( document, EntityMode.POJO ),
+				entry.getLoadedState(),
+				document,
+				session
+			);
+		String[] names = persister.getPropertyNames();
+		int[] expected = new int[] {
+				Arrays.asList(names).indexOf("title"),
+				Arrays.asList(names).indexOf("folder")
+			};
+		Arrays.sort(expected);
+		assertNotNull(dirty);
+		assertTrue( Arrays.equals( expected, dirty ) );
+
+		stats.clear();
+		t.commit();
+		s.close();
+		assertEquals( 1, stats.getEntityUpdateCount() );
+
+		s = openSession();
+		t = s.beginTransaction();
+		document = (Document) s.get( Document.class, new Long(1) );
+		assertEquals( "changed", document.getTitle() );
+		assertEquals( new Long(2), document.getFolder().getId() );
+		assertEquals( "notes", document.getNotes() );
+		t.commit();
+		s.close();
+
+		deleteAll();
+	}
+
+	private void createDocument() {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		Folder folder = new Folder( new Long(1), "books" );
+		s.persist(folder);
+		Document document = new Document();
+		document.setId( new Long(1) );
+		document.setTitle("title");
+		document.setAuthor("author");
+		document.setLanguage("en");
+		document.setPages(100);
+		document.setPublished( new Date() );
+		document.setPrice( new BigDecimal("19.99") );
+		document.setFolder(folder);
+		document.setNotes("notes");
+		s.persist(document);
+		t.commit();
+		s.close();
+	}
+
+	private void deleteAll() {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		s.createQuery("delete from Document").executeUpdate();
+		s.createQuery("delete from Folder").executeUpdate();
+		t.commit();
+		s.close();
+	}
+
+	protected void configure(Configuration cfg) {
+		cfg.setProperty( Environment.GENERATE_STATISTICS, "true" );
+		cfg.setProperty( Environment.USE_SECOND_LEVEL_CACHE, "false" );
+	}
+
+	protected String[] getMappings() {
+		return new String[] { "dirtycheck/Document.hbm.xml" };
+	}
+
+	public static Test suite() {
+		return new TestSuite(DirtyCheckTest.class);
+	}
+
+}
@@ -0,0 +1,114 @@
+//$Id: $
+package org.hibernate.test.dirtycheck;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+public class Document {
+	private Long id;
+	private String title;
+	private String author;
+	private String summary;
+	private String language;
+	private String isbn;
+	private int pages;
+	private long words;
+	private int edition;
+	private boolean draft;
+	private Date published;
+	private Date modified;
+	private BigDecimal price;
+	private Folder folder;
+	private String notes;
+
+	public Long getId() {
+		return id;
+	}
+	public void setId(Long id) {
+		this.id = id;
+	}
+	public String getTitle() {
+		return title;
+	}
+	public void setTitle(String title) {
+		this.title = title;
+	}
+	public String getAuthor() {
+		return author;
+	}
+	public void setAuthor(String author) {
+		this.author = author;
+	}
+	public String getSummary() {
+		return summary;
+	}
+	public void setSummary(String summary) {
+		this.summary = summary;
+	}
+	public String getLanguage() {
+		return language;
+	}
+	public void setLanguage(String language) {
+		this.language = language;
+	}
+	public String getIsbn() {
+		return isbn;
+	}
+	public void setIsbn(String isbn) {
+		this.isbn = isbn;
+	}
+	public int getPages() {
+		return pages;
+	}
+	public void setPages(int pages) {
+		this.pages = pages;
+	}
+	public long getWords() {
+		return words;
+	}
+	public void setWords(long words) {
+		this.words = words;
+	}
+	public int getEdition() {
+		return edition;
+	}
+	public void setEdition(int edition) {
+		this.edition = edition;
+	}
+	public boolean isDraft() {
+		return draft;
+	}
+	public void setDraft(boolean draft) {
+		this.draft = draft;
+	}
+	public Date getPublished() {
+		return published;
+	}
+	public void setPublished(Date published) {
+		this.published = published;
+	}
+	public Date getModified() {
+		return modified;
+	}
+	public void setModified(Date modified) {
+		this.modified = modified;
+	}
+	public BigDecimal getPrice() {
+		return price;
+	}
+	public void setPrice(BigDecimal price) {
+		this.price = price;
+	}
+	public Folder getFolder() {
+		return folder;
+	}
+	public void setFolder(Folder folder) {
+		this.folder = folder;
+	}
+	public String getNotes() {
+		return notes;
+	}
+	public void setNotes(String notes) {
+		this.notes = notes;
+	}
+}
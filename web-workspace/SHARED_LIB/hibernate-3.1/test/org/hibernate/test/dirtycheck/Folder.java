@@ -0,0 +1,27 @@
+//$Id: $
+package org.hibernate.test.dirtycheck;
+
+public class Folder {
+	private Long id;
+	private String name;
+
+	public Folder() {}
+
+	public Folder(Long id, String name) {
+		this.id = id;
+		this.name = name;
+	}
+
+	public Long getId() {
+		return id;
+	}
+	public void setId(Long id) {
+		this.id = id;
+	}
+	public String getName() {
+		return name;
+	}
+	public void setName(String name) {
+		this.name = name;
+	}
+}
@@ -0,0 +1,115 @@
+//$Id: $
+package org.hibernate.test.id;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.hibernate.MappingException;
+import org.hibernate.id.PoolOptimizer;
+
+public class PoolOptimizerTest extends TestCase {
+
+	public PoolOptimizerTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(PoolOptimizerTest.class);
+	}
+
+	/**
+	 * A sequence or table starting at 1 and incrementing by the given size
+	 */
+	private static class Source implements PoolOptimizer.AccessCallback {
+		private final int incrementSize;
+		private long next = 1;
+		private int calls;
+		Source(int incrementSize) {
+			this.incrementSize = incrementSize;
+		}
+		public synchronized long getNextValue() {
+			calls++;
+			long result = next;
+			next += incrementSize;
+			return result;
+		}
+	}
+
+	public void testPooled() throws Exception {
+		Source source = new Source(10);
+		PoolOptimizer optimizer = PoolOptimizer.build( PoolOptimizer.POOLED, 10, Long.class );
+		for ( int i=1; i<=25; i++ ) {
+			assertEquals( new Long(i), optimizer.generate(source) );
+		}
+		// first block needs two calls, then one per block
+		assertEquals( 4, source.calls );
+		assertEquals( 4, optimizer.getSourceCallCount() );
+		assertEquals( 25, optimizer.getGeneratedCount() );
+	}
+
+	public void testPooledLo() throws Exception {
+		Source source = new Source(10);
+		PoolOptimizer optimizer = PoolOptimizer.build( PoolOptimizer.POOLED_LO, 10, Integer.class );
+		for ( int i=1; i<=25; i++ ) {
+			assertEquals( new Integer(i), optimizer.generate(source) );
+		}
+		assertEquals( 3, source.calls );
+	}
+
+	public void testOptimizersSharingSourceDoNotOverlap() throws Exception {
+		Source source = new Source(10);
+		PoolOptimizer first = PoolOptimizer.build( PoolOptimizer.POOLED, 10, Long.class );
+		PoolOptimizer second = PoolOptimizer.build( PoolOptimizer.POOLED, 10, Long.class );
+		Set ids = new HashSet();
+		for ( int i=0; i<100; i++ ) {
+			assertTrue( ids.add( first.generate(source) ) );
+			assertTrue( ids.add( second.generate(source) ) );
+		}
+	}
+
+	public void testConcurrentGeneration() throws Exception {
+		final Source source = new Source(50);
+		final PoolOptimizer optimizer = PoolOptimizer.build( PoolOptimizer.POOLED, 50, Long.class );
+		final Set ids = new HashSet();
+		final int perThread = 5000;
+		Thread[] threads = new Thread[32];
+		for ( int t=0; t<threads.length; t++ ) {
+			threads[t] = new Thread() {
+				public void run() {
+					Object[] generated = new Object[perThread];
+					for ( int i=0; i<perThread; i++ ) generated[i] = optimizer.generate(source);
+					synchronized (ids) {
+						for ( int i=0; i<perThread; i++ ) ids.add( generated[i] );
+					}
+				}
+			};
+		}
+		for ( int t=0; t<threads.length; t++ ) threads[t].start();
+		for ( int t=0; t<threads.length; t++ ) threads[t].join();
+
+		assertEquals( threads.length * perThread, ids.size() );
+		// one round trip per fifty ids (plus one to start)
+		assertEquals( threads.length * perThread / 50 + 1, source.calls );
+		assertTrue( optimizer.getSourceCallsPerThousand() < 21 );
+	}
+
+	public void testBadParameters() throws Exception {
+		try {
+			PoolOptimizer.build( "hilo", 10, Long.class );
+			fail( "expecting MappingException" );
+		}
+		catch (MappingException expected) {
+		}
+		try {
+			PoolOptimizer.build( PoolOptimizer.POOLED, 0, Long.class );
+			fail( "expecting MappingException" );
+		}
+		catch (MappingException expected) {
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+//$Id: $
+package org.hibernate.test.insertordering;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.stat.Statistics;
+import org.hibernate.test.TestCase;
+
+/**
+ * Saving alternating purchases and line items should produce
+ * one batch of purchases and one of line items, with the
+ * purchases inserted first.
+ */
+public class InsertOrderingTest extends TestCase {
+
+	private static final int PURCHASES = 10;
+
+	public InsertOrderingTest(String str) {
+		super(str);
+	}
+
+	public void testBatchOrdering() {
+		Statistics stats = getSessions().getStatistics();
+		stats.clear();
+
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		for ( int i=0; i<PURCHASES; i++ ) {
+			Purchase purchase = new Purchase( "customer " + i );
+			s.save(purchase);
+			s.save( new LineItem( purchase, "product " + i ) );
+		}
+		t.commit();
+		s.close();
+
+		assertEquals( PURCHASES * 2, stats.getEntityInsertCount() );
+		assertEquals( 2, stats.getBatchCount() );
+		assertEquals( PURCHASES * 2, stats.getBatchedStatementCount() );
+
+		s = openSession();
+		t = s.beginTransaction();
+		assertEquals(
+				new Integer(PURCHASES),
+				s.createQuery( "select count(li) from LineItem li where li.purchase is not null" ).uniqueResult()
+			);
+		s.createQuery( "delete from LineItem" ).executeUpdate();
+		s.createQuery( "delete from Purchase" ).executeUpdate();
+		t.commit();
+		s.close();
+	}
+
+	protected void configure(Configuration cfg) {
+		cfg.setProperty( Environment.ORDER_INSERTS, "true" );
+		cfg.setProperty( Environment.STATEMENT_BATCH_SIZE, "20" );
+		cfg.setProperty( Environment.GENERATE_STATISTICS, "true" );
+	}
+
+	protected String[] getMappings() {
+		return new String[] { "insertordering/Purchase.hbm.xml" };
+	}
+
+	public static Test suite() {
+		return new TestSuite(InsertOrderingTest.class);
+	}
+
+}
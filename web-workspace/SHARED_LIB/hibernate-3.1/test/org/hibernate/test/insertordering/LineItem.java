@@ -0,0 +1,34 @@
+//$Id: $
+package org.hibernate.test.insertordering;
+
+public class LineItem {
+	private Long id;
+	private Purchase purchase;
+	private String product;
+
+	LineItem() {}
+
+	public LineItem(Purchase purchase, String product) {
+		this.purchase = purchase;
+		this.product = product;
+	}
+
+	public Long getId() {
+		return id;
+	}
+	public void setId(Long id) {
+		this.id = id;
+	}
+	public Purchase getPurchase() {
+		return purchase;
+	}
+	public void setPurchase(Purchase purchase) {
+		this.purchase = purchase;
+	}
+	public String getProduct() {
+		return product;
+	}
+	public void setProduct(String product) {
+		this.product = product;
+	}
+}
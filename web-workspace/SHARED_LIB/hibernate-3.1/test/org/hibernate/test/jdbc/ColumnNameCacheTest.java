@@ -0,0 +1,69 @@
+//$Id: $
+package org.hibernate.test.jdbc;
+
+import java.sql.ResultSet;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.hibernate.Hibernate;
+import org.hibernate.jdbc.ColumnNameCache;
+import org.hibernate.jdbc.ResultSetWrapper;
+
+public class ColumnNameCacheTest extends TestCase {
+
+	public ColumnNameCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(ColumnNameCacheTest.class);
+	}
+
+	public void testIndexesComputedFromMetaData() throws Exception {
+		String[] labels = { "ID1_0_", "NAME1_0_", "NAME1_0_" };
+		ResultSet rs = FakeResultSet.create( labels, new Object[] { new Long(1), "Gavin", "Steve" }, 3 );
+		ColumnNameCache cache = new ColumnNameCache( rs.getMetaData() );
+		ResultSetWrapper wrapper = new ResultSetWrapper( rs, cache );
+
+		assertEquals( 1, wrapper.findColumn("id1_0_") );
+		assertEquals( 1, wrapper.findColumn("ID1_0_") );
+		// first match wins, like findColumn()
+		assertEquals( 2, wrapper.findColumn("name1_0_") );
+
+		while ( wrapper.next() ) {
+			assertEquals( new Long(1), Hibernate.LONG.nullSafeGet( wrapper, "id1_0_" ) );
+			assertEquals( "Gavin", Hibernate.STRING.nullSafeGet( wrapper, "name1_0_" ) );
+		}
+		assertEquals( 0, FakeResultSet.getNameLookups(rs) );
+		assertEquals( 0, cache.getUnlabelledColumnCount() );
+	}
+
+	public void testMixedCaseNames() throws Exception {
+		String[] labels = { "Id", "Name" };
+		ResultSet rs = FakeResultSet.create( labels, new Object[] { new Long(1), null }, 1 );
+		ColumnNameCache cache = new ColumnNameCache( rs.getMetaData() );
+		ResultSetWrapper wrapper = new ResultSetWrapper( rs, cache );
+
+		assertEquals( 2, wrapper.findColumn("nAmE") );
+		assertEquals( 2, wrapper.findColumn("nAmE") );
+		assertEquals( 1, cache.getUnlabelledColumnCount() );
+		assertEquals( 0, FakeResultSet.getNameLookups(rs) );
+
+		wrapper.next();
+		assertNull( Hibernate.STRING.nullSafeGet( wrapper, "name" ) );
+	}
+
+	public void testNamesMissingFromMetaDataResolvedByDriver() throws Exception {
+		ResultSet rs = FakeResultSet.create( new String[] { "a", "x" }, new Object[] { "A", "X" }, 1 );
+		ColumnNameCache cache = new ColumnNameCache( FakeResultSet.createMetaData( new String[] { "a", "b" } ) );
+		ResultSetWrapper wrapper = new ResultSetWrapper( rs, cache );
+
+		assertEquals( 2, wrapper.findColumn("x") );
+		assertEquals( 2, wrapper.findColumn("x") );
+		assertEquals( 1, FakeResultSet.getNameLookups(rs) );
+		assertEquals( 1, cache.getUnlabelledColumnCount() );
+	}
+
+}
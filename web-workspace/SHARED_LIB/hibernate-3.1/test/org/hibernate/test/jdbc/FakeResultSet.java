@@ -0,0 +1,98 @@
+//$Id: $
+package org.hibernate.test.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * A <tt>ResultSet</tt> returning the same row a number of times, which
+ * resolves column names the way many drivers do: by a case insensitive
+ * scan of the column labels, on every call.
+ */
+public class FakeResultSet implements InvocationHandler {
+
+	private final String[] labels;
+	private final Object[] row;
+	private final int rowCount;
+	private int currentRow;
+	private boolean wasNull;
+	private int nameLookups;
+
+	private FakeResultSet(String[] labels, Object[] row, int rowCount) {
+		this.labels = labels;
+		this.row = row;
+		this.rowCount = rowCount;
+	}
+
+	public static ResultSet create(String[] labels, Object[] row, int rowCount) {
+		return (ResultSet) Proxy.newProxyInstance(
+				FakeResultSet.class.getClassLoader(),
+				new Class[] { ResultSet.class },
+				new FakeResultSet(labels, row, rowCount)
+			);
+	}
+
+	public static int getNameLookups(ResultSet rs) {
+		return ( (FakeResultSet) Proxy.getInvocationHandler(rs) ).nameLookups;
+	}
+
+	public static ResultSetMetaData createMetaData(final String[] labels) {
+		return (ResultSetMetaData) Proxy.newProxyInstance(
+				FakeResultSet.class.getClassLoader(),
+				new Class[] { ResultSetMetaData.class },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						String name = method.getName();
+						if ( "getColumnCount".equals(name) ) {
+							return new Integer( labels.length );
+						}
+						else if ( "getColumnLabel".equals(name) || "getColumnName".equals(name) ) {
+							return labels[ ( (Integer) args[0] ).intValue() - 1 ];
+						}
+						throw new UnsupportedOperationException(name);
+					}
+				}
+			);
+	}
+
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		String name = method.getName();
+		if ( "next".equals(name) ) {
+			return Boolean.valueOf( ++currentRow <= rowCount );
+		}
+		else if ( "wasNull".equals(name) ) {
+			return Boolean.valueOf(wasNull);
+		}
+		else if ( "findColumn".equals(name) ) {
+			return new Integer( findColumn( (String) args[0] ) );
+		}
+		else if ( "getMetaData".equals(name) ) {
+			return createMetaData(labels);
+		}
+		else if ( "close".equals(name) ) {
+			return null;
+		}
+		else if ( name.startsWith("get") && args!=null && args.length==1 ) {
+			int index = args[0] instanceof String ?
+					findColumn( (String) args[0] ) :
+					( (Integer) args[0] ).intValue();
+			Object value = row[index-1];
+			wasNull = value==null;
+			return value;
+		}
+		throw new UnsupportedOperationException(name);
+	}
+
+	private int findColumn(String columnName) throws SQLException {
+		nameLookups++;
+		for ( int i=0; i<labels.length; i++ ) {
+			if ( labels[i].equalsIgnoreCase(columnName) ) return i+1;
+		}
+		throw new SQLException( "no such column: " + columnName );
+	}
+
+}
@@ -0,0 +1,94 @@
+//$Id: $
+package org.hibernate.test.jdbc;
+
+import java.sql.ResultSet;
+import java.text.NumberFormat;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+import org.hibernate.Hibernate;
+import org.hibernate.jdbc.ColumnNameCache;
+import org.hibernate.jdbc.ResultSetWrapper;
+import org.hibernate.type.NullableType;
+
+/**
+ * Compares hydrating the rows of a 40 column entity by alias, through the
+ * driver's column name resolution, and through a <tt>ResultSetWrapper</tt>
+ * with precomputed column indexes. The columns are labelled in upper case,
+ * as by Oracle, while the aliases are in lower case, as generated by
+ * Hibernate. Not part of AllTests, since it takes a while; run it from
+ * main().
+ */
+public class ResultSetWrapperPerformanceTest extends TestCase {
+
+	private static final int COLUMNS = 40;
+	private static final int ROWS = 200000;
+
+	public ResultSetWrapperPerformanceTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(ResultSetWrapperPerformanceTest.class);
+	}
+
+	public static void main(String[] args) throws Exception {
+		TestRunner.run( suite() );
+	}
+
+	public void testHydration() throws Exception {
+		String[] labels = new String[COLUMNS];
+		String[] aliases = new String[COLUMNS];
+		NullableType[] types = new NullableType[COLUMNS];
+		Object[] row = new Object[COLUMNS];
+		for ( int i=0; i<COLUMNS; i++ ) {
+			aliases[i] = "col" + i + "_1_0_";
+			labels[i] = aliases[i].toUpperCase();
+			if ( i%2==0 ) {
+				types[i] = Hibernate.STRING;
+				row[i] = "value" + i;
+			}
+			else {
+				types[i] = Hibernate.LONG;
+				row[i] = new Long(i);
+			}
+		}
+
+		NumberFormat format = NumberFormat.getInstance();
+		format.setMaximumFractionDigits(0);
+
+		// warm up
+		hydrate( FakeResultSet.create(labels, row, ROWS/10), aliases, types, false );
+		hydrate( FakeResultSet.create(labels, row, ROWS/10), aliases, types, true );
+
+		double byName = hydrate( FakeResultSet.create(labels, row, ROWS), aliases, types, false );
+		double byIndex = hydrate( FakeResultSet.create(labels, row, ROWS), aliases, types, true );
+		System.out.println( "columns: " + COLUMNS + ", rows: " + ROWS );
+		System.out.println( "by name:  " + format.format(byName) + " rows/sec" );
+		System.out.println( "by index: " + format.format(byIndex) + " rows/sec" );
+	}
+
+	/**
+	 * @return rows per second
+	 */
+	private double hydrate(ResultSet rs, String[] aliases, NullableType[] types, boolean wrap)
+	throws Exception {
+		if (wrap) rs = new ResultSetWrapper( rs, new ColumnNameCache( rs.getMetaData() ) );
+		Object[] values = new Object[aliases.length];
+		int rows = 0;
+		long start = System.currentTimeMillis();
+		while ( rs.next() ) {
+			for ( int i=0; i<aliases.length; i++ ) {
+				values[i] = types[i].nullSafeGet( rs, aliases[i] );
+			}
+			rows++;
+		}
+		long elapsed = Math.max( System.currentTimeMillis() - start, 1 );
+		assertEquals( "value0", values[0] );
+		return (double) rows / elapsed * 1000;
+	}
+
+}
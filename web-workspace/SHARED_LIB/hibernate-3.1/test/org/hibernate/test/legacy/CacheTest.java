@@ -8,7 +8,9 @@ import junit.framework.TestSuite;
 import org.hibernate.cache.Cache;
 import org.hibernate.cache.CacheConcurrencyStrategy;
 import org.hibernate.cache.CacheProvider;
+import org.hibernate.cache.HashtableCacheProvider;
 import org.hibernate.cache.ReadWriteCache;
+import org.hibernate.cache.StripedReadWriteCache;
 import org.hibernate.cache.CacheConcurrencyStrategy.SoftLock;
 
 public class CacheTest extends TestCase {
@@ -25,9 +27,15 @@ public class CacheTest extends TestCase {
 		//doTestCache( new CoherenceCacheProvider() );
 // steve - commented this out becuase it is breaking the build after the package rename
 		//doTestCache( new Provider() );
+		doTestCache( new HashtableCacheProvider(), new ReadWriteCache() );
+		doTestCache( new HashtableCacheProvider(), new StripedReadWriteCache() );
 	}
 
 	public void doTestCache(CacheProvider cacheProvider) throws Exception {
+		doTestCache( cacheProvider, new ReadWriteCache() );
+	}
+
+	public void doTestCache(CacheProvider cacheProvider, CacheConcurrencyStrategy ccs) throws Exception {
 
 		Cache cache = cacheProvider.buildCache( String.class.getName(), System.getProperties() );
 
@@ -40,7 +48,6 @@ public class CacheTest extends TestCase {
 		Thread.sleep(15);
 
 		//cache.setTimeout(1000);
-		CacheConcurrencyStrategy ccs = new ReadWriteCache();
 		ccs.setCache(cache);
 
 		// cache something
@@ -14,6 +14,10 @@ import org.hibernate.Session;
 import org.hibernate.Transaction;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.cfg.Environment;
+import org.hibernate.criterion.Order;
+import org.hibernate.engine.EntityEntry;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.engine.Status;
 import org.hibernate.test.TestCase;
 
 /**
@@ -68,6 +72,70 @@ public class ReadOnlyTest extends TestCase {
 		
 	}
 	
+	public void testDefaultReadOnlySession() {
+		
+		Session s = openSession();
+		Transaction t = s.beginTransaction();		
+		for ( int i=0; i<10; i++ ) {
+			DataPoint dp = new DataPoint();
+			dp.setX( new BigDecimal(i * 0.1d).setScale(19, BigDecimal.ROUND_DOWN) );
+			dp.setY( new BigDecimal( Math.cos( dp.getX().doubleValue() ) ).setScale(19, BigDecimal.ROUND_DOWN) );
+			s.save(dp);
+		}
+		t.commit();
+		s.close();
+		
+		s = openSession();
+		s.setDefaultReadOnly(true);
+		assertTrue( s.isDefaultReadOnly() );
+		t = s.beginTransaction();
+		List list = s.createQuery("from DataPoint dp order by dp.x asc").list();
+		DataPoint first = (DataPoint) list.get(0);
+		EntityEntry entry = ( (SessionImplementor) s ).getPersistenceContext().getEntry(first);
+		assertSame( Status.READ_ONLY, entry.getStatus() );
+		assertNull( entry.getLoadedState() );
+		for ( int i=0; i<list.size(); i++ ) {
+			( (DataPoint) list.get(i) ).setDescription("done!");
+		}
+		DataPoint last = (DataPoint) list.get( list.size()-1 );
+		s.setReadOnly(last, false);
+		last.setDescription("changed!");
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		assertEquals( 
+				new Integer(0), 
+				s.createQuery("select count(*) from DataPoint where description='done!'").uniqueResult() 
+			);
+		assertEquals( 
+				new Integer(1), 
+				s.createQuery("select count(*) from DataPoint where description='changed!'").uniqueResult() 
+			);
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		list = s.createCriteria(DataPoint.class)
+				.addOrder( Order.asc("x") )
+				.setReadOnly(true)
+				.list();
+		( (DataPoint) list.get(0) ).setDescription("done!");
+		t.commit();
+		s.clear();
+		t = s.beginTransaction();
+		assertEquals( 
+				new Integer(0), 
+				s.createQuery("select count(*) from DataPoint where description='done!'").uniqueResult() 
+			);
+		s.createQuery("delete from DataPoint").executeUpdate();
+		t.commit();
+		s.close();
+		
+	}
+	
 	protected void configure(Configuration cfg) {
 		cfg.setProperty(Environment.STATEMENT_BATCH_SIZE, "20");
 	}
@@ -1,7 +1,10 @@
 //$Id: StatelessSessionTest.java,v 1.6 2005/11/30 13:56:19 steveebersole Exp $
 package org.hibernate.test.stateless;
 
+import java.sql.Connection;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -10,6 +13,10 @@ import org.hibernate.ScrollMode;
 import org.hibernate.ScrollableResults;
 import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.connection.ConnectionProvider;
+import org.hibernate.engine.SessionFactoryImplementor;
 import org.hibernate.test.TestCase;
 
 /**
@@ -114,6 +121,91 @@ public class StatelessSessionTest extends TestCase {
 		ss.close();
 	}
 
+	public void testBulkInsert() {
+		StatelessSession ss = getSessions().openStatelessSession();
+		Transaction tx = ss.beginTransaction();
+		ss.setBulkInsertSize(10);
+		ss.insert( new Document("first", "Doc0") );
+		assertEquals( 1, ss.getQueuedInsertCount() );
+		assertEquals( 0, ss.getInsertCount() );
+		assertEquals( 1, ss.createQuery("from Document").list().size() ); //executes the queue
+		assertEquals( 0, ss.getQueuedInsertCount() );
+		assertEquals( 1, ss.getInsertCount() );
+
+		Iterator documents = new Iterator() {
+			private int i = 1;
+			public boolean hasNext() {
+				return i<=25;
+			}
+			public Object next() {
+				if ( !hasNext() ) throw new NoSuchElementException();
+				return new Document( "text " + i, "Doc" + i++ );
+			}
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+		assertEquals( 25, ss.insert(documents) );
+		assertEquals( 0, ss.getQueuedInsertCount() );
+		assertEquals( 26, ss.getInsertCount() );
+		tx.commit();
+
+		tx = ss.beginTransaction();
+		Paper paper = new Paper(); //not queued, if the id is generated by the insert
+		paper.setColor( "White" );
+		ss.insert(paper);
+		assertNotNull( paper.getId() );
+		ss.insert( new Document("last", "Doc26") );
+		assertTrue( ss.getQueuedInsertCount()>0 );
+		tx.commit();
+		assertEquals( 0, ss.getQueuedInsertCount() );
+		assertEquals( 28, ss.getInsertCount() );
+
+		tx = ss.beginTransaction();
+		assertEquals( 27, ss.createQuery( "delete Document" ).executeUpdate() );
+		assertEquals( 1, ss.createQuery( "delete Paper" ).executeUpdate() );
+		tx.commit();
+		ss.close();
+	}
+
+	public void testInsertCount() throws Exception {
+		StatelessSession ss = getSessions().openStatelessSession();
+		Transaction tx = ss.beginTransaction();
+		ss.insert( new Document("first", "Doc0") );
+		ss.insert( new Document("second", "Doc1") );
+		assertEquals( 0, ss.getInsertCount() ); //still in the JDBC batch
+		ss.flush();
+		assertEquals( 2, ss.getInsertCount() );
+
+		ss.setBulkInsertSize(10);
+		ss.insert( new Document("rolled back", "Doc2") );
+		assertEquals( 1, ss.getQueuedInsertCount() );
+		tx.rollback();
+		assertEquals( 0, ss.getQueuedInsertCount() ); //discarded
+		assertEquals( 2, ss.getInsertCount() );
+		ss.close();
+
+		ConnectionProvider connections = ( (SessionFactoryImplementor) getSessions() ).getConnectionProvider();
+		Connection conn = connections.getConnection();
+		try {
+			ss = getSessions().openStatelessSession(conn);
+			ss.setBulkInsertSize(10);
+			ss.insert( new Document("closed", "Doc3") );
+			ss.close(); //executes the queue
+			if ( !conn.getAutoCommit() ) conn.commit();
+		}
+		finally {
+			connections.closeConnection(conn);
+		}
+
+		ss = getSessions().openStatelessSession();
+		tx = ss.beginTransaction();
+		assertNotNull( ss.get( Document.class, "Doc3" ) );
+		assertEquals( 1, ss.createQuery( "delete Document" ).executeUpdate() );
+		tx.commit();
+		ss.close();
+	}
+
 	public void testInitId() {
 		StatelessSession ss = getSessions().openStatelessSession();
 		Transaction tx = ss.beginTransaction();
@@ -130,6 +222,10 @@ public class StatelessSessionTest extends TestCase {
 	}
 	
 	
+	protected void configure(Configuration cfg) {
+		cfg.setProperty( Environment.STATEMENT_BATCH_SIZE, "10" );
+	}
+
 	protected String[] getMappings() {
 		return new String[] { "stateless/Document.hbm.xml" };
 	}
@@ -0,0 +1,131 @@
+//$Id: $
+package org.hibernate.test.stats;
+
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.StatisticsImpl;
+
+/**
+ * Checks that statistics gathered by many threads at once add up, and the
+ * query execution time percentiles. No database is needed.
+ */
+public class ConcurrentStatisticsTest extends TestCase {
+
+	private static final int THREADS = 16;
+	private static final int ITERATIONS = 20000;
+
+	public ConcurrentStatisticsTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(ConcurrentStatisticsTest.class);
+	}
+
+	public void testConcurrentCounts() throws Exception {
+		final StatisticsImpl stats = new StatisticsImpl();
+		final String[] entityNames = { "Country", "Continent", "City", "Person" };
+		Thread[] threads = new Thread[THREADS];
+		final Throwable[] failure = new Throwable[1];
+		for ( int t=0; t<THREADS; t++ ) {
+			final int offset = t;
+			threads[t] = new Thread() {
+				public void run() {
+					try {
+						for ( int i=0; i<ITERATIONS; i++ ) {
+							stats.openSession();
+							stats.loadEntity( entityNames[ (i + offset) % entityNames.length ] );
+							stats.queryExecuted( "from Country", 1, i % 10 );
+							stats.executeBatch(3);
+							stats.closeSession();
+						}
+					}
+					catch (Throwable e) {
+						failure[0] = e;
+					}
+				}
+			};
+		}
+		for ( int t=0; t<THREADS; t++ ) threads[t].start();
+		for ( int t=0; t<THREADS; t++ ) threads[t].join();
+		if ( failure[0]!=null ) fail( failure[0].toString() );
+
+		long total = THREADS * ITERATIONS;
+		assertEquals( total, stats.getSessionOpenCount() );
+		assertEquals( total, stats.getSessionCloseCount() );
+		assertEquals( total, stats.getEntityLoadCount() );
+		assertEquals( total, stats.getQueryExecutionCount() );
+		assertEquals( total, stats.getBatchCount() );
+		assertEquals( total * 3, stats.getBatchedStatementCount() );
+		assertEquals( 9, stats.getQueryExecutionMaxTime() );
+		assertEquals( "from Country", stats.getQueryExecutionMaxTimeQueryString() );
+
+		long entityLoads = 0;
+		for ( int i=0; i<entityNames.length; i++ ) {
+			EntityStatistics es = stats.getEntityStatistics( entityNames[i] );
+			assertEquals( total / entityNames.length, es.getLoadCount() );
+			entityLoads += es.getLoadCount();
+		}
+		assertEquals( total, entityLoads );
+		String[] names = stats.getEntityNames();
+		Arrays.sort(names);
+		assertEquals( Arrays.asList( new String[] { "City", "Continent", "Country", "Person" } ), Arrays.asList(names) );
+
+		QueryStatistics qs = stats.getQueryStatistics( "from Country" );
+		assertEquals( total, qs.getExecutionCount() );
+		assertEquals( total, qs.getExecutionRowCount() );
+		assertEquals( 9, qs.getExecutionMaxTime() );
+		assertEquals( 0, qs.getExecutionMinTime() );
+
+		stats.clear();
+		assertEquals( 0, stats.getSessionOpenCount() );
+		assertEquals( 0, stats.getQueryExecutionMaxTime() );
+		assertEquals( 0, stats.getQueries().length );
+	}
+
+	public void testExecutionTimePercentiles() {
+		StatisticsImpl stats = new StatisticsImpl();
+		String hql = "from Country c where c.name = :name";
+		assertEquals( 0, stats.getQueryStatistics(hql).getExecutionTimePercentile(50) );
+		for ( int i=1; i<=1000; i++ ) {
+			stats.queryExecuted( hql, 1, i );
+		}
+		QueryStatistics qs = stats.getQueryStatistics(hql);
+		assertEquals( 1000, qs.getExecutionMaxTime() );
+		assertEquals( 1000, qs.getExecutionTimePercentile(100) );
+		assertBetween( 500, qs.getExecutionTimePercentile(50), 500 * 1.125 );
+		assertBetween( 990, qs.getExecutionTimePercentile(99), 1000 );
+		assertBetween( 1, qs.getExecutionTimePercentile(0), 1 );
+
+		// short queries are counted exactly
+		stats.clear();
+		for ( int i=0; i<100; i++ ) {
+			stats.queryExecuted( hql, 1, i % 4 );
+		}
+		qs = stats.getQueryStatistics(hql);
+		assertEquals( 1, qs.getExecutionTimePercentile(50) );
+		assertEquals( 3, qs.getExecutionTimePercentile(99) );
+
+		// one slow execution doesn't hide behind the average
+		stats.clear();
+		for ( int i=0; i<999; i++ ) {
+			stats.queryExecuted( hql, 1, 2 );
+		}
+		stats.queryExecuted( hql, 1, 60000 );
+		qs = stats.getQueryStatistics(hql);
+		assertEquals( 2, qs.getExecutionTimePercentile(99) );
+		assertEquals( 60000, qs.getExecutionTimePercentile(99.95) );
+		assertTrue( qs.toString().indexOf("execution99thPercentileTime=2")>0 );
+	}
+
+	private static void assertBetween(long min, long actual, double max) {
+		assertTrue( actual + " not in [" + min + "," + max + "]", actual>=min && actual<=max );
+	}
+
+}
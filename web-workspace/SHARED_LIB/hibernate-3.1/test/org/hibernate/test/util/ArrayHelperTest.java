@@ -0,0 +1,65 @@
+//$Id: $
+package org.hibernate.test.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.hibernate.util.ArrayHelper;
+
+/**
+ * Checks the batch sizes used for batch fetching.
+ */
+public class ArrayHelperTest extends TestCase {
+
+	public ArrayHelperTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(ArrayHelperTest.class);
+	}
+
+	public void testBatchSizes() {
+		assertEquals( 
+				toList( new int[] { 50, 25, 12, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1 } ), 
+				toList( ArrayHelper.getBatchSizes(50) ) 
+		);
+	}
+
+	public void testPaddedBatchSizes() {
+		assertEquals( toList( new int[] { 50, 32, 16, 8, 4, 2, 1 } ), toList( ArrayHelper.getPaddedBatchSizes(50) ) );
+		assertEquals( toList( new int[] { 64, 32, 16, 8, 4, 2, 1 } ), toList( ArrayHelper.getPaddedBatchSizes(64) ) );
+		assertEquals( toList( new int[] { 3, 2, 1 } ), toList( ArrayHelper.getPaddedBatchSizes(3) ) );
+		assertEquals( toList( new int[] { 2, 1 } ), toList( ArrayHelper.getPaddedBatchSizes(2) ) );
+		assertEquals( toList( new int[] { 1 } ), toList( ArrayHelper.getPaddedBatchSizes(1) ) );
+	}
+
+	public void testPaddedBatchSizeIndex() {
+		int[] batchSizes = ArrayHelper.getPaddedBatchSizes(50);
+		assertEquals( 2, batchSizes[ ArrayHelper.getPaddedBatchSizeIndex(batchSizes, 2) ] );
+		assertEquals( 4, batchSizes[ ArrayHelper.getPaddedBatchSizeIndex(batchSizes, 3) ] );
+		assertEquals( 32, batchSizes[ ArrayHelper.getPaddedBatchSizeIndex(batchSizes, 23) ] );
+		assertEquals( 32, batchSizes[ ArrayHelper.getPaddedBatchSizeIndex(batchSizes, 32) ] );
+		assertEquals( 50, batchSizes[ ArrayHelper.getPaddedBatchSizeIndex(batchSizes, 33) ] );
+		assertEquals( 50, batchSizes[ ArrayHelper.getPaddedBatchSizeIndex(batchSizes, 50) ] );
+	}
+
+	public void testPad() {
+		Serializable[] keys = new Serializable[] { "a", "b", "c", null, null, null };
+		assertEquals( 3, ArrayHelper.countNonNull(keys) );
+		Serializable[] padded = ArrayHelper.pad(keys, 3, 4);
+		assertEquals( Arrays.asList( new Object[] { "a", "b", "c", "a" } ), Arrays.asList(padded) );
+	}
+
+	private static List toList(int[] array) {
+		Integer[] result = new Integer[array.length];
+		for ( int i=0; i<array.length; i++ ) result[i] = new Integer( array[i] );
+		return Arrays.asList(result);
+	}
+
+}
@@ -0,0 +1,87 @@
+package org.hibernate.test.util;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.hibernate.util.SerializationHelper;
+import org.hibernate.util.SoftLimitMRUCache;
+
+/**
+ * @author <a href="mailto:steve@hibernate.org">Steve Ebersole </a>
+ */
+public class SoftLimitMRUCacheTest extends TestCase {
+
+	public SoftLimitMRUCacheTest(String string) {
+		super( string );
+	}
+
+	public static Test suite() {
+		return new TestSuite( SoftLimitMRUCacheTest.class );
+	}
+
+	public void testStrongCoreIsBounded() {
+		SoftLimitMRUCache cache = new SoftLimitMRUCache( 2, false );
+		assertFalse( cache.put( "a", "A" ) );
+		assertFalse( cache.put( "b", "B" ) );
+		// touch "a" so that "b" is the least recently used
+		assertEquals( "A", cache.get( "a" ) );
+		assertTrue( cache.put( "c", "C" ) );
+
+		assertEquals( 2, cache.size() );
+		assertEquals( 0, cache.softSize() );
+		assertNull( cache.get( "b" ) );
+		assertEquals( "A", cache.get( "a" ) );
+		assertEquals( "C", cache.get( "c" ) );
+
+		assertEquals( 3, cache.getHitCount() );
+		assertEquals( 1, cache.getMissCount() );
+		assertEquals( 1, cache.getEvictionCount() );
+	}
+
+	public void testEvictedEntriesArePromotedFromSoftReferences() {
+		SoftLimitMRUCache cache = new SoftLimitMRUCache( 2, true );
+		cache.put( "a", "A" );
+		cache.put( "b", "B" );
+		assertTrue( cache.put( "c", "C" ) );
+		assertEquals( 2, cache.size() );
+		assertEquals( 1, cache.softSize() );
+
+		// "a" is only softly held now; using it moves it back into the core
+		assertEquals( "A", cache.get( "a" ) );
+		assertEquals( 2, cache.size() );
+		assertEquals( 1, cache.softSize() );
+		assertEquals( "C", cache.get( "c" ) );
+		assertEquals( "B", cache.get( "b" ) );
+		assertEquals( 0, cache.getMissCount() );
+	}
+
+	public void testClear() {
+		SoftLimitMRUCache cache = new SoftLimitMRUCache( 1, true );
+		cache.put( "a", "A" );
+		cache.put( "b", "B" );
+		cache.clear();
+		assertEquals( 0, cache.size() );
+		assertEquals( 0, cache.softSize() );
+		assertNull( cache.get( "a" ) );
+	}
+
+	public void testSerialization() {
+		SoftLimitMRUCache cache = new SoftLimitMRUCache( 3, true );
+		cache.put( "a", "A" );
+		SoftLimitMRUCache copy = ( SoftLimitMRUCache ) SerializationHelper.clone( cache );
+		assertEquals( 3, copy.getStrongReferenceCount() );
+		assertEquals( 0, copy.size() );
+		assertFalse( copy.put( "b", "B" ) );
+		assertEquals( "B", copy.get( "b" ) );
+	}
+
+	public void testInvalidSize() {
+		try {
+			new SoftLimitMRUCache( 0, true );
+			fail( "expecting IllegalArgumentException" );
+		}
+		catch ( IllegalArgumentException expected ) {
+		}
+	}
+}
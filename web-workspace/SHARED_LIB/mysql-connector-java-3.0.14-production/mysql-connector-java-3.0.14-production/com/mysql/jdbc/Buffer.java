@@ -423,6 +423,31 @@ class Buffer {
         writeLongLong(l);
     }
 
+    // Write a length-coded binary length (used by the binary protocol)
+    final void writeFieldLength(long length) throws SQLException {
+        if (length < 251) {
+            writeByte((byte) length);
+        } else if (length < 65536L) {
+            ensureCapacity(3);
+            writeByte((byte) 252);
+            writeInt((int) length);
+        } else if (length < 16777216L) {
+            ensureCapacity(4);
+            writeByte((byte) 253);
+            writeLongInt((int) length);
+        } else {
+            ensureCapacity(9);
+            writeByte((byte) 254);
+            writeLongLong(length);
+        }
+    }
+
+    // Write a byte array prefixed with its length-coded binary length
+    final void writeLenBytes(byte[] b) throws SQLException {
+        writeFieldLength(b.length);
+        writeBytesNoNull(b);
+    }
+
     final void writeFloat(float f) {
         int i = Float.floatToIntBits(f);
         byte[] b = this.byteBuffer;
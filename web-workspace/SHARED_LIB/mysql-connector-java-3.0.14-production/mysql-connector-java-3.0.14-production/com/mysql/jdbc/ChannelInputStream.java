@@ -0,0 +1,301 @@
+/*
+   Copyright (C) 2002 MySQL AB
+
+      This program is free software; you can redistribute it and/or modify
+      it under the terms of the GNU General Public License as published by
+      the Free Software Foundation; either version 2 of the License, or
+      (at your option) any later version.
+
+      This program is distributed in the hope that it will be useful,
+      but WITHOUT ANY WARRANTY; without even the implied warranty of
+      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+      GNU General Public License for more details.
+
+      You should have received a copy of the GNU General Public License
+      along with this program; if not, write to the Free Software
+      Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+ */
+package com.mysql.jdbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import java.util.LinkedList;
+
+
+/**
+ * Reads data from the server through a blocking channel into a direct
+ * ByteBuffer, from which packet headers and bodies are copied straight
+ * into the caller's arrays. Direct buffers are expensive to allocate and
+ * are only reclaimed by the garbage collector, so they are kept in a small
+ * pool shared by all connections and handed back when the stream is
+ * closed. The stream may be closed by another thread while a read is
+ * blocked on the channel (when the connection is forcibly closed), so the
+ * buffer only goes back to the pool once no read is using it any more.
+ *
+ * @author Mark Matthews
+ */
+class ChannelInputStream extends InputStream {
+    /** The size of the pooled read buffers */
+    static final int BUFFER_SIZE = 16384;
+
+    /** How many idle read buffers the pool will hold on to */
+    private static final int MAX_POOLED_BUFFERS = 16;
+
+    /** Idle read buffers, shared by all connections */
+    private static final LinkedList bufferPool = new LinkedList();
+
+    /** The data read from the channel that hasn't been consumed yet */
+    private ByteBuffer readBuffer;
+
+    /** The channel we are reading from the server */
+    private ReadableByteChannel channel;
+
+    /** Guards closed, readsInProgress and handing back readBuffer */
+    private final Object lock = new Object();
+
+    /** Has close() been called? */
+    private boolean closed = false;
+
+    /** How many read(), skip() or available() calls are using readBuffer */
+    private int readsInProgress = 0;
+
+    /**
+     * Creates a new ChannelInputStream that reads the given (blocking)
+     * channel.
+     *
+     * @param channel the channel connected to the server
+     */
+    ChannelInputStream(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.readBuffer = borrowBuffer();
+    }
+
+    /**
+     * @see java.io.InputStream#available()
+     */
+    public int available() throws IOException {
+        beginRead();
+
+        try {
+            return this.readBuffer.remaining();
+        } finally {
+            endRead();
+        }
+    }
+
+    /**
+     * Closes the channel, and returns the read buffer to the pool, unless
+     * a read is still in progress, in which case the reading thread returns
+     * it when the read ends.
+     *
+     * @see java.io.InputStream#close()
+     */
+    public void close() throws IOException {
+        synchronized (this.lock) {
+            if (this.closed) {
+                return;
+            }
+
+            this.closed = true;
+        }
+
+        try {
+            // wakes up any read blocked on the channel
+            this.channel.close();
+        } finally {
+            synchronized (this.lock) {
+                releaseBufferIfUnused();
+            }
+        }
+    }
+
+    /**
+     * Stops reading without closing the channel, and returns the read
+     * buffer to the pool. Used when the socket is handed over to an SSL
+     * socket, which reads it through its own stream from then on.
+     */
+    void detach() {
+        synchronized (this.lock) {
+            if (this.closed) {
+                return;
+            }
+
+            this.closed = true;
+            releaseBufferIfUnused();
+        }
+    }
+
+    /**
+     * @see java.io.InputStream#read()
+     */
+    public int read() throws IOException {
+        beginRead();
+
+        try {
+            if (!this.readBuffer.hasRemaining() && (fill() < 0)) {
+                return -1;
+            }
+
+            return this.readBuffer.get() & 0xff;
+        } finally {
+            endRead();
+        }
+    }
+
+    /**
+     * @see java.io.InputStream#read(byte[], int, int)
+     */
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (b == null) {
+            throw new NullPointerException();
+        } else if ((off < 0) || (off > b.length) || (len < 0)
+                || ((off + len) > b.length) || ((off + len) < 0)) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        if (len == 0) {
+            checkClosed();
+
+            return 0;
+        }
+
+        beginRead();
+
+        try {
+            if (!this.readBuffer.hasRemaining() && (fill() < 0)) {
+                return -1;
+            }
+
+            int toCopy = Math.min(len, this.readBuffer.remaining());
+
+            this.readBuffer.get(b, off, toCopy);
+
+            return toCopy;
+        } finally {
+            endRead();
+        }
+    }
+
+    /**
+     * @see java.io.InputStream#skip(long)
+     */
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            checkClosed();
+
+            return 0;
+        }
+
+        beginRead();
+
+        try {
+            if (!this.readBuffer.hasRemaining() && (fill() < 0)) {
+                return 0;
+            }
+
+            int toSkip = (int) Math.min(n, this.readBuffer.remaining());
+
+            this.readBuffer.position(this.readBuffer.position() + toSkip);
+
+            return toSkip;
+        } finally {
+            endRead();
+        }
+    }
+
+    private static ByteBuffer borrowBuffer() {
+        synchronized (bufferPool) {
+            if (!bufferPool.isEmpty()) {
+                return (ByteBuffer) bufferPool.removeFirst();
+            }
+        }
+
+        return ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    private static void returnBuffer(ByteBuffer buf) {
+        buf.clear();
+
+        synchronized (bufferPool) {
+            if (bufferPool.size() < MAX_POOLED_BUFFERS) {
+                bufferPool.addFirst(buf);
+            }
+        }
+    }
+
+    private void checkClosed() throws IOException {
+        synchronized (this.lock) {
+            if (this.closed) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+
+    /**
+     * Marks the read buffer as in use, so that a concurrent close() leaves
+     * it alone.
+     *
+     * @throws IOException if the stream has been closed
+     */
+    private void beginRead() throws IOException {
+        synchronized (this.lock) {
+            if (this.closed) {
+                throw new IOException("Stream closed");
+            }
+
+            this.readsInProgress++;
+        }
+    }
+
+    /**
+     * Ends a read started with beginRead(), returning the read buffer to
+     * the pool if the stream was closed in the meantime.
+     */
+    private void endRead() {
+        synchronized (this.lock) {
+            this.readsInProgress--;
+
+            if (this.closed) {
+                releaseBufferIfUnused();
+            }
+        }
+    }
+
+    /**
+     * Returns the read buffer to the pool once no read is using it. Must be
+     * called holding the lock, after the stream has been closed.
+     */
+    private void releaseBufferIfUnused() {
+        if ((this.readsInProgress == 0) && (this.readBuffer != null)) {
+            returnBuffer(this.readBuffer);
+            this.readBuffer = null;
+        }
+    }
+
+    /**
+     * Reads whatever the channel has available (blocking until at least
+     * one byte arrives) into the (empty) read buffer.
+     *
+     * @return the number of bytes read, or -1 at end of stream
+     *
+     * @throws IOException if the read fails
+     */
+    private int fill() throws IOException {
+        this.readBuffer.clear();
+
+        int bytesRead;
+
+        do {
+            bytesRead = this.channel.read(this.readBuffer);
+        } while (bytesRead == 0);
+
+        this.readBuffer.flip();
+
+        return bytesRead;
+    }
+}
@@ -36,15 +36,27 @@ import java.util.zip.Inflater;
 */
 class CompressedInputStream extends InputStream {
 
+ /** The smallest buffers we allocate, so small packets can share them */
+ private static final int MIN_BUFFER_SIZE = 16384;
+
  /** The ZIP inflater used to un-compress packets */
  private Inflater inflater;
 
  /** The stream we are reading from the server */
  private InputStream in;
 
- /** The packet data after it has been un-compressed */
+ /**
+  * The packet data after it has been un-compressed. Re-used from packet to
+  * packet, so may be longer than the data in it.
+  */
  private byte[] buffer;
 
+ /** How much of 'buffer' holds packet data */
+ private int bufferLength = 0;
+
+ /** The compressed packet data, re-used from packet to packet */
+ private byte[] compressedBuffer;
+
  /** The position we are reading from */
  private int pos = 0;
  
@@ -73,7 +85,7 @@ class CompressedInputStream extends InputStream {
          return this.in.available();
      }
 
-     return this.buffer.length - this.pos + this.in.available();
+     return this.bufferLength - this.pos + this.in.available();
  }
 
  /**
@@ -82,7 +94,13 @@ class CompressedInputStream extends InputStream {
  public void close() throws IOException {
      this.in.close();
      this.buffer = null;
-     this.inflater = null;
+     this.compressedBuffer = null;
+
+     if (this.inflater != null) {
+         // Frees the native zlib state now, rather than at finalization
+         this.inflater.end();
+         this.inflater = null;
+     }
  }
 
  /**
@@ -153,13 +171,13 @@ class CompressedInputStream extends InputStream {
 
  /**
   * Retrieves and un-compressed (if necessary) the next packet from the
-  * server.
+  * server, appending it to whatever hasn't been read from the buffer yet.
+  * The inflater and both buffers are re-used, so reading a packet doesn't
+  * allocate anything unless it is bigger than any read so far.
   *
   * @throws IOException if an I/O error occurs
   */
  private void getNextPacketFromServer() throws IOException {
-     byte[] uncompressedData = null;
-
      int lengthRead = readFully(this.packetHeaderBuffer, 0,
              7);
 
@@ -174,65 +192,87 @@ class CompressedInputStream extends InputStream {
      int uncompressedLength = ((int) (this.packetHeaderBuffer[4] & 0xff))
          + (((int) (this.packetHeaderBuffer[5] & 0xff)) << 8)
          + (((int) (this.packetHeaderBuffer[6] & 0xff)) << 16);
-     
-     if (uncompressedLength > 0) {
-         uncompressedData = new byte[uncompressedLength];
 
-         byte[] compressedBuffer = new byte[compressedPacketLength];
+     int dataLength = (uncompressedLength > 0) ? uncompressedLength
+                                               : compressedPacketLength;
 
-         readFully(compressedBuffer, 0, compressedPacketLength);
+     //
+     // Move what hasn't been read yet to the front of the buffer, and
+     // make room after it for the new packet (not holding on to a large
+     // buffer once the packets get small again)
+     //
+     int remaining = (this.buffer == null) ? 0 : (this.bufferLength - this.pos);
+     int needed = remaining + dataLength;
 
-         try {
-             this.inflater.reset();
-         } catch (NullPointerException npe) {
+     if ((this.buffer == null) || (this.buffer.length < needed)
+             || ((this.buffer.length > 1048576) && (needed <= 1048576))) {
+         byte[] newBuffer = new byte[Math.max(needed, MIN_BUFFER_SIZE)];
+
+         if (remaining > 0) {
+             System.arraycopy(this.buffer, this.pos, newBuffer, 0, remaining);
+         }
+
+         this.buffer = newBuffer;
+     } else if ((remaining > 0) && (this.pos > 0)) {
+         System.arraycopy(this.buffer, this.pos, this.buffer, 0, remaining);
+     }
+
+     if (uncompressedLength > 0) {
+         if ((this.compressedBuffer == null)
+                 || (this.compressedBuffer.length < compressedPacketLength)) {
+             this.compressedBuffer = new byte[Math.max(
+                         compressedPacketLength, MIN_BUFFER_SIZE)];
+         }
+
+         readFully(this.compressedBuffer, 0, compressedPacketLength);
+
+         if (this.inflater == null) {
              this.inflater = new Inflater();
+         } else {
+             this.inflater.reset();
          }
 
-         this.inflater.setInput(compressedBuffer);
+         this.inflater.setInput(this.compressedBuffer, 0,
+             compressedPacketLength);
 
          try {
-             this.inflater.inflate(uncompressedData);
+             int inflatedLength = this.inflater.inflate(this.buffer,
+                     remaining, uncompressedLength);
+
+             if (inflatedLength != uncompressedLength) {
+                 throw new IOException(
+                     "Error while uncompressing packet from server.");
+             }
          } catch (DataFormatException dfe) {
              throw new IOException(
                  "Error while uncompressing packet from server.");
          }
-
-         this.inflater.end();
      } else {
         
          //	
          //	Read data, note this this code is reached when using
          //  compressed packets that have not been compressed, as well
          //
-         uncompressedData = new byte[compressedPacketLength];
-         readFully(uncompressedData, 0, compressedPacketLength);
+         readFully(this.buffer, remaining, compressedPacketLength);
      }
 
-     if ((this.buffer != null) && (this.pos < this.buffer.length)) {
-         
-         int remaining = buffer.length - this.pos;
-         byte[] newBuffer = new byte[remaining + uncompressedData.length];
-
-         int newIndex = 0;
-
-         for (int i = this.pos; i < this.buffer.length; i++)
-             newBuffer[newIndex++] = this.buffer[i];
-
-         System.arraycopy(uncompressedData, 0, newBuffer, newIndex,
-             uncompressedData.length);
-
-         uncompressedData = newBuffer; 
-     }
-     
      this.pos = 0;
-     this.buffer = uncompressedData;
+     this.bufferLength = needed;
+
+     // 
+     // Don't hold on to large buffers
+     //
+     if ((this.compressedBuffer != null)
+             && (this.compressedBuffer.length > 1048576)) {
+         this.compressedBuffer = null;
+     }
 
      return;
  }
 
  /**
   * Determines if another packet needs to be read from the server to be able
-  * to read numBytes from the stream.
+  * to read numBytes from the stream, and reads as many as are needed.
   *
   * @param numBytes the number of bytes to be read
   *
@@ -240,8 +280,8 @@ class CompressedInputStream extends InputStream {
   */
  private void getNextPacketIfRequired(int numBytes)
      throws IOException {
-     if ((this.buffer == null)
-             || ((this.pos + numBytes) > this.buffer.length)) {
+     while ((this.buffer == null)
+             || ((this.pos + numBytes) > this.bufferLength)) {
          getNextPacketFromServer();
      }
  }
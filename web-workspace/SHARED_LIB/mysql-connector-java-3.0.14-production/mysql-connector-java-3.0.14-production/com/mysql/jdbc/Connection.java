@@ -114,7 +114,15 @@ public class Connection implements java.sql.Connection {
     /** The list of host(s) to try and connect to */
     private List hostList = null;
 
-    /** A map of SQL to parsed prepared statement parameters. */
+    /**
+     * The 'SET NAMES' and 'SET character_set_results' queries used to set up
+     * the character set of this connection, replayed on replicas
+     */
+    private List charsetQueries = new ArrayList();
+
+    /**
+     * An LRU map of catalog and SQL to parsed prepared statement parameters.
+     */
     private Map cachedPreparedStatementParams;
 
     /**
@@ -137,6 +145,15 @@ public class Connection implements java.sql.Connection {
     /** The I/O abstraction interface (network conn to MySQL server */
     private MysqlIO io = null;
 
+    /**
+     * The connection to the replica that SELECTs are sent to when
+     * load-balancing reads, opened on first use
+     */
+    private MysqlIO replicaIo = null;
+
+    /** The health of the replica we're connected to */
+    private LoadBalancer.HostStatus replicaStatus = null;
+
     /** Mutex */
     private final Object mutex = new Object();
 
@@ -152,12 +169,18 @@ public class Connection implements java.sql.Connection {
     /** The database we're currently using (called Catalog in JDBC terms). */
     private String database = null;
 
+    /** The database the replica connection is using */
+    private String replicaDatabase = null;
+
     /** If we're doing unicode character conversions, what encoding do we use? */
     private String encoding = null;
 
     /** The hostname we're connected to */
     private String host = null;
 
+    /** How do we pick which replica to send reads to? */
+    private String loadBalanceStrategy = LoadBalancer.ROUND_ROBIN;
+
     /** The JDBC URL we're using */
     private String myURL = null;
 
@@ -245,6 +268,12 @@ public class Connection implements java.sql.Connection {
     /** Should we tell MySQL that we're an interactive client? */
     private boolean isInteractiveClient = false;
 
+    /**
+     * Should SELECTs issued while the connection is read-only be sent to
+     * one of the replicas (the hosts after the first one in the URL)?
+     */
+    private boolean loadBalanceReads = false;
+
     /** Is the server configured to use lower-case table names only? */
     private boolean lowerCaseTableNames = false;
 
@@ -276,6 +305,12 @@ public class Connection implements java.sql.Connection {
     /** Do we relax the autoCommit semantics? (For enhydra, for example) */
     private boolean relaxAutoCommit = false;
 
+    /**
+     * Should batched simple INSERTs be sent to the server as multi-row
+     * INSERTs?
+     */
+    private boolean rewriteBatchedStatements = false;
+
     /** Do we need to correct endpoint rounding errors */
     private boolean strictFloatingPoint = false;
 
@@ -291,6 +326,12 @@ public class Connection implements java.sql.Connection {
     /** Should we use compression? */
     private boolean useCompression = false;
 
+    /**
+     * Should ResultSet.getInt()/getLong()/getShort()/getDouble() parse
+     * numeric columns directly from the row bytes?
+     */
+    private boolean useFastIntParsing = true;
+
     /** Can we use the "ping" command rather than a query? */
     private boolean useFastPing = false;
 
@@ -300,6 +341,9 @@ public class Connection implements java.sql.Connection {
     /** Should we use SSL? */
     private boolean useSSL = false;
 
+    /** Should we prepare statements on the server (4.1 and newer)? */
+    private boolean useServerPreparedStmts = false;
+
     /**
      * Should we use stream lengths in prepared statements? (true by default ==
      * JDBC compliant)
@@ -312,8 +356,20 @@ public class Connection implements java.sql.Connection {
     /** Should we return PreparedStatements for UltraDev's stupid bug? */
     private boolean useUltraDevWorkAround = false;
     private boolean useUnbufferedInput = true;
+
+    /**
+     * Should forward-only, read-only SELECTs with a fetch size be read in
+     * LIMIT-ed windows of that many rows?
+     */
+    private boolean useWindowedFetch = false;
     private double initialTimeout = 2.0D;
 
+    /**
+     * Packets shorter than this are sent uncompressed when using
+     * compression, as deflating them costs more than it saves
+     */
+    private int compressionThreshold = MysqlIO.MIN_COMPRESS_LEN;
+
     /** How many hosts are in the host list? */
     private int hostListSize = 0;
 
@@ -325,6 +381,12 @@ public class Connection implements java.sql.Connection {
      * supports, we get this at connection init).
      */
     private int maxAllowedPacket = 65536;
+
+    /**
+     * How many queries sent with executeAsync() may be waiting for their
+     * results to be read?
+     */
+    private int maxPipelinedQueries = 16;
     private int maxReconnects = 3;
 
     /**
@@ -346,6 +408,12 @@ public class Connection implements java.sql.Connection {
     /** If prepared statement caching is enabled, how many should we cache? */
     private int preparedStatementCacheSize = 25;
 
+    /** How many prepareStatement() calls found their SQL in the cache? */
+    private long preparedStatementCacheHits = 0;
+
+    /** How many prepareStatement() calls had to parse their SQL? */
+    private long preparedStatementCacheMisses = 0;
+
     /**
      * How many queries should we wait before we try to re-connect to the
      * master, when we are failing over to replicated hosts Defaults to 50
@@ -358,6 +426,9 @@ public class Connection implements java.sql.Connection {
     /** When did the last query finish? */
     private long lastQueryFinishedTime = 0;
 
+    /** How long (in ms) should we avoid a replica after it has failed? */
+    private long loadBalanceBlacklistTimeout = 30000;
+
     /** When did the master fail? */
     private long masterFailTimeMillis = 0L;
 
@@ -1355,44 +1426,93 @@ public class Connection implements java.sql.Connection {
         throws SQLException {
         checkClosed();
 
+        if (this.useServerPreparedStmts && this.io.versionMeetsMinimum(4, 1, 2)) {
+            PreparedStatement pStmt = null;
+
+            try {
+                pStmt = new com.mysql.jdbc.ServerPreparedStatement(this, sql,
+                        this.database);
+            } catch (SQLException sqlEx) {
+                // Not all statements can be prepared on the server,
+                // those that can't are prepared on the client
+                if (sqlEx.getErrorCode() != ServerPreparedStatement.ER_UNSUPPORTED_PS) {
+                    throw sqlEx;
+                }
+            }
+
+            if (pStmt != null) {
+                pStmt.setResultSetType(resultSetType);
+                pStmt.setResultSetConcurrency(resultSetConcurrency);
+
+                return pStmt;
+            }
+        }
+
+        return clientPrepareStatement(sql, resultSetType, resultSetConcurrency);
+    }
+
+    /**
+     * Creates a PreparedStatement that is always prepared by the driver,
+     * even if 'useServerPrepStmts' is enabled.
+     *
+     * @param sql the SQL query containing place holders
+     *
+     * @return a new client-side PreparedStatement
+     *
+     * @throws SQLException if a database-access error occurs.
+     */
+    public java.sql.PreparedStatement clientPrepareStatement(String sql)
+        throws SQLException {
+        return clientPrepareStatement(sql,
+            java.sql.ResultSet.TYPE_FORWARD_ONLY,
+            java.sql.ResultSet.CONCUR_READ_ONLY);
+    }
+
+    /**
+     * Creates a PreparedStatement that is always prepared by the driver,
+     * even if 'useServerPrepStmts' is enabled.
+     *
+     * @param sql the SQL query containing place holders
+     * @param resultSetType a result set type, see ResultSet.TYPE_XXX
+     * @param resultSetConcurrency a concurrency type, see ResultSet.CONCUR_XXX
+     *
+     * @return a new client-side PreparedStatement
+     *
+     * @throws SQLException if a database-access error occurs.
+     */
+    public synchronized java.sql.PreparedStatement clientPrepareStatement(
+        String sql, int resultSetType, int resultSetConcurrency)
+        throws SQLException {
+        checkClosed();
+
         PreparedStatement pStmt = null;
 
         if (this.cachePreparedStatements) {
-            PreparedStatement.ParseInfo pStmtInfo = (PreparedStatement.ParseInfo) cachedPreparedStatementParams
-                .get(sql);
+            //
+            // The parsed form depends on the catalog (via the
+            // database metadata used while parsing), so the
+            // catalog is part of the key
+            //
+            PreparedStatementCacheKey cacheKey = new PreparedStatementCacheKey(this.database,
+                    sql);
+
+            PreparedStatement.ParseInfo pStmtInfo = (PreparedStatement.ParseInfo) this.cachedPreparedStatementParams
+                .get(cacheKey);
 
             if (pStmtInfo == null) {
+                this.preparedStatementCacheMisses++;
+
                 pStmt = new com.mysql.jdbc.PreparedStatement(this, sql,
                         this.database);
 
                 PreparedStatement.ParseInfo parseInfo = pStmt.getParseInfo();
 
                 if (parseInfo.statementLength < this.preparedStatementCacheMaxSqlSize) {
-                    if (this.cachedPreparedStatementParams.size() >= 25) {
-                        Iterator oldestIter = this.cachedPreparedStatementParams.keySet()
-                                                                                .iterator();
-                        long lruTime = Long.MAX_VALUE;
-                        String oldestSql = null;
-
-                        while (oldestIter.hasNext()) {
-                            String sqlKey = (String) oldestIter.next();
-                            PreparedStatement.ParseInfo lruInfo = (PreparedStatement.ParseInfo) this.cachedPreparedStatementParams
-                                .get(sqlKey);
-
-                            if (lruInfo.lastUsed < lruTime) {
-                                lruTime = lruInfo.lastUsed;
-                                oldestSql = sqlKey;
-                            }
-                        }
-
-                        if (oldestSql != null) {
-                            this.cachedPreparedStatementParams.remove(oldestSql);
-                        }
-                    }
-
-                    cachedPreparedStatementParams.put(sql, pStmt.getParseInfo());
+                    this.cachedPreparedStatementParams.put(cacheKey, parseInfo);
                 }
             } else {
+                this.preparedStatementCacheHits++;
+
                 pStmtInfo.lastUsed = System.currentTimeMillis();
                 pStmt = new com.mysql.jdbc.PreparedStatement(this, sql,
                         this.database, pStmtInfo);
@@ -1577,6 +1697,52 @@ public class Connection implements java.sql.Connection {
         return this.transactionsSupported;
     }
 
+    /**
+     * Returns the number of prepareStatement() calls that found the parsed
+     * form of their SQL in the prepared statement cache (see
+     * 'cachePrepStmts').
+     *
+     * @return the number of cache hits
+     */
+    public synchronized long getPreparedStatementCacheHits() {
+        return this.preparedStatementCacheHits;
+    }
+
+    /**
+     * Returns the number of prepareStatement() calls that had to parse
+     * their SQL because it wasn't in the prepared statement cache (see
+     * 'cachePrepStmts').
+     *
+     * @return the number of cache misses
+     */
+    public synchronized long getPreparedStatementCacheMisses() {
+        return this.preparedStatementCacheMisses;
+    }
+
+    /**
+     * Returns the number of parsed statements currently held in the prepared
+     * statement cache.
+     *
+     * @return the number of cached statements, 0 if caching is disabled
+     */
+    public synchronized int getPreparedStatementCacheSize() {
+        if (this.cachedPreparedStatementParams == null) {
+            return 0;
+        }
+
+        return this.cachedPreparedStatementParams.size();
+    }
+
+    /**
+     * Should PreparedStatement.executeBatch() rewrite batches of simple
+     * INSERTs as multi-row INSERTs?
+     *
+     * @return should we rewrite batched INSERTs?
+     */
+    public boolean rewriteBatchedStatements() {
+        return this.rewriteBatchedStatements;
+    }
+
     /**
      * Should we use compression?
      *
@@ -1586,6 +1752,60 @@ public class Connection implements java.sql.Connection {
         return this.useCompression;
     }
 
+    /**
+     * Should numeric getters in ResultSet parse values directly from the row
+     * data, rather than converting them to Strings first?
+     *
+     * @return should we use the byte-level number parsers?
+     */
+    public boolean useFastIntParsing() {
+        return this.useFastIntParsing;
+    }
+
+    /**
+     * Should prepareStatement() prepare statements on the server?
+     *
+     * @return should we use server-side prepared statements?
+     */
+    public boolean useServerPreparedStmts() {
+        return this.useServerPreparedStmts;
+    }
+
+    /**
+     * Should Statement.executeQuery() and (client-side)
+     * PreparedStatement.executeQuery() read SELECTs in windows of
+     * setFetchSize() rows, rather than all at once?
+     *
+     * @return should we use windowed fetches?
+     */
+    public boolean useWindowedFetch() {
+        return this.useWindowedFetch;
+    }
+
+    /**
+     * Are SELECTs issued while the connection is read-only sent to one of
+     * the replicas in the host list?
+     *
+     * @return should we load-balance reads?
+     */
+    public boolean loadBalanceReads() {
+        return this.loadBalanceReads;
+    }
+
+    /**
+     * Returns the replica that read-only SELECTs are currently being sent
+     * to.
+     *
+     * @return the replica, as given in the URL, or null if this connection
+     *         isn't connected to one
+     */
+    public String getReplicaHost() {
+        synchronized (this.mutex) {
+            return (this.replicaStatus != null)
+            ? this.replicaStatus.getHostPortPair() : null;
+        }
+    }
+
     /**
      * Returns the paranoidErrorMessages.
      *
@@ -1892,7 +2112,7 @@ public class Connection implements java.sql.Connection {
                                 this.database, null);
                         }
 
-                        ping();
+                        pingInternal();
                         this.isClosed = false;
 
                         // save state from old connection
@@ -2006,6 +2226,8 @@ public class Connection implements java.sql.Connection {
             this.io = null;
         }
 
+        closeReplicaIO(false);
+
         if (this.cachedPreparedStatementParams != null) {
             this.cachedPreparedStatementParams.clear();
             this.cachedPreparedStatementParams = null;
@@ -2099,6 +2321,26 @@ public class Connection implements java.sql.Connection {
         return this.netBufferLength;
     }
 
+    /**
+     * Returns the length below which packets are sent uncompressed when
+     * using compression.
+     *
+     * @return the compression threshold, in bytes
+     */
+    int getCompressionThreshold() {
+        return this.compressionThreshold;
+    }
+
+    /**
+     * Returns how many queries sent with executeAsync() may be waiting for
+     * their results to be read.
+     *
+     * @return the maximum number of pipelined queries
+     */
+    int getMaxPipelinedQueries() {
+        return this.maxPipelinedQueries;
+    }
+
     boolean isPedantic() {
         return this.pedantic;
     }
@@ -2152,6 +2394,86 @@ public class Connection implements java.sql.Connection {
         return this.continueBatchOnError;
     }
 
+    /**
+     * Sends a query to the server without waiting for its results. Several
+     * queries can be sent this way before any results are read; the server
+     * executes them in order, and their results are read (in order) when
+     * QueryFuture.getResultSet() or getUpdateCount() is called for one of
+     * them, or before any other statement is executed on this connection.
+     * The results of the query are read completely, as if it had been
+     * executed by a Statement with the default fetch size.
+     *
+     * @param sql the SQL to execute
+     *
+     * @return a future that holds the results once they have been read
+     *
+     * @throws SQLException if the query can't be sent
+     */
+    public QueryFuture executeAsync(String sql) throws SQLException {
+        return executeAsync(sql, null);
+    }
+
+    /**
+     * Sends a query to the server without waiting for its results, and
+     * notifies the given listener from whichever thread reads them.
+     *
+     * @param sql the SQL to execute
+     * @param listener notified once the results have been read, may be null
+     *
+     * @return a future that holds the results once they have been read
+     *
+     * @throws SQLException if the query can't be sent
+     *
+     * @see #executeAsync(String)
+     */
+    public QueryFuture executeAsync(String sql, QueryListener listener)
+        throws SQLException {
+        checkClosed();
+
+        if ((sql == null) || (sql.length() == 0)) {
+            throw new SQLException("Query can not be null or empty",
+                SQLError.SQL_STATE_ILLEGAL_ARGUMENT);
+        }
+
+        if (StringUtils.startsWithIgnoreCaseAndWs(sql, "LOAD DATA")) {
+            throw new SQLException("Can not issue LOAD DATA with executeAsync()",
+                SQLError.SQL_STATE_ILLEGAL_ARGUMENT);
+        }
+
+        synchronized (this.mutex) {
+            MysqlIO mysqlIO = getIO();
+            QueryFuture future = new QueryFuture(this, mysqlIO,
+                    this.database, listener);
+
+            String encoding = null;
+
+            if (useUnicode()) {
+                encoding = getEncoding();
+            }
+
+            try {
+                mysqlIO.sendQueryAsync(sql, encoding, future);
+            } catch (SQLException sqlEx) {
+                throw sqlEx;
+            } catch (Exception ex) {
+                String exceptionType = ex.getClass().getName();
+                String exceptionMessage = ex.getMessage();
+
+                if (!this.useParanoidErrorMessages()) {
+                    exceptionMessage += "\n\nNested Stack Trace:\n";
+                    exceptionMessage += Util.stackTraceToString(ex);
+                }
+
+                throw new java.sql.SQLException(
+                    "Error during query: Unexpected Exception: "
+                    + exceptionType + " message given: " + exceptionMessage,
+                    SQLError.SQL_STATE_GENERAL_ERROR);
+            }
+
+            return future;
+        }
+    }
+
     /**
      * Send a query to the server.  Returns one of the ResultSet objects. This
      * is synchronized, so Statement's queries will be serialized.
@@ -2223,6 +2545,16 @@ public class Connection implements java.sql.Connection {
             try {
                 int realMaxRows = (maxRows == -1) ? MysqlDefs.MAX_ROWS : maxRows;
 
+                if (shouldLoadBalance(queryIsSelectOnly)) {
+                    ResultSet replicaResults = execSQLOnReplica(sql,
+                            realMaxRows, packet, resultSetType, streamResults,
+                            catalog);
+
+                    if (replicaResults != null) {
+                        return replicaResults;
+                    }
+                }
+
                 if (packet == null) {
                     String encoding = null;
 
@@ -2274,6 +2606,243 @@ public class Connection implements java.sql.Connection {
         }
     }
 
+    /**
+     * Sends a SELECT to the replica this connection reads from, connecting
+     * to one first if needed. If the replica can't be reached, it is
+     * blacklisted for 'loadBalanceBlacklistTimeout' ms, and null is
+     * returned so the query can be sent to the master instead.
+     *
+     * @param sql the query, or null if it is in the packet
+     * @param maxRows the maximum number of rows to read
+     * @param packet the query, already encoded, or null
+     * @param resultSetType the concurrency of the result set
+     * @param streamResults should the rows be streamed?
+     * @param catalog the catalog in use
+     *
+     * @return the results, or null if no replica is available
+     *
+     * @throws Exception if the query fails other than by the replica going
+     *         away
+     */
+    private ResultSet execSQLOnReplica(String sql, int maxRows,
+        Buffer packet, int resultSetType, boolean streamResults,
+        String catalog) throws Exception {
+        LoadBalancer.HostStatus status = null;
+        long queryStartTime = 0;
+
+        try {
+            MysqlIO replica = getReplicaIO();
+
+            if (replica == null) {
+                return null;
+            }
+
+            status = this.replicaStatus;
+            queryStartTime = System.currentTimeMillis();
+            status.queryStarted();
+
+            ResultSet results = null;
+
+            if (packet == null) {
+                String encoding = null;
+
+                if (useUnicode()) {
+                    encoding = getEncoding();
+                }
+
+                results = replica.sqlQuery(sql, maxRows, encoding, this,
+                        resultSetType, streamResults, catalog);
+            } else {
+                results = replica.sqlQueryDirect(packet, maxRows, this,
+                        resultSetType, streamResults, catalog);
+            }
+
+            if (results.rowData instanceof RowDataDynamic) {
+                // The rows are still being read, the result set reports
+                // the query as finished once it has read the last one
+                ((RowDataDynamic) results.rowData).setHostStatus(status,
+                    queryStartTime);
+                status = null;
+            }
+
+            return results;
+        } catch (SQLException sqlEx) {
+            if (!SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE.equals(
+                        sqlEx.getSQLState())) {
+                throw sqlEx;
+            }
+        } catch (IOException ioEx) {
+            ; // fall through, and blacklist the replica
+        } finally {
+            if (status != null) {
+                status.queryFinished(System.currentTimeMillis()
+                    - queryStartTime);
+            }
+        }
+
+        if (this.replicaStatus != null) {
+            this.replicaStatus.blacklist(this.loadBalanceBlacklistTimeout);
+        }
+
+        closeReplicaIO(true);
+
+        return null;
+    }
+
+    /**
+     * Returns the connection to the replica SELECTs are sent to when
+     * load-balancing, connecting to one chosen by the 'loadBalanceStrategy'
+     * if we aren't connected yet, and switching it to the current catalog.
+     *
+     * @return the replica connection, or null if every replica is
+     *         blacklisted or can't be reached
+     *
+     * @throws SQLException if the catalog can't be changed
+     */
+    private MysqlIO getReplicaIO() throws SQLException {
+        if (this.replicaIo == null) {
+            // Give every replica one chance at most, as failed ones won't
+            // stay blacklisted if the blacklist timeout is 0
+            for (int i = 1; (i < this.hostListSize) && (this.replicaIo == null);
+                    i++) {
+                LoadBalancer.HostStatus status = LoadBalancer.chooseReplica(this.hostList,
+                        this.loadBalanceStrategy);
+
+                if (status == null) {
+                    return null;
+                }
+
+                try {
+                    this.replicaIo = createReplicaIO(status.getHostPortPair());
+                    this.replicaStatus = status;
+                    this.replicaDatabase = null;
+                    status.connectionOpened();
+                } catch (Exception ex) {
+                    status.blacklist(this.loadBalanceBlacklistTimeout);
+                }
+            }
+
+            if (this.replicaIo == null) {
+                return null;
+            }
+        }
+
+        if ((this.database != null) && (this.database.length() != 0)
+                && !this.database.equals(this.replicaDatabase)) {
+            try {
+                this.replicaIo.sendCommand(MysqlDefs.INIT_DB, this.database,
+                    null);
+            } catch (SQLException sqlEx) {
+                throw sqlEx;
+            } catch (Exception ex) {
+                throw new SQLException("Could not change the catalog of the replica to '"
+                    + this.database + "': " + ex.toString(),
+                    SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE);
+            }
+
+            this.replicaDatabase = this.database;
+        }
+
+        return this.replicaIo;
+    }
+
+    /**
+     * Opens a connection to the given replica, with the same user and
+     * character set as the master connection.
+     *
+     * @param hostPortPair the replica, as given in the URL
+     *
+     * @return the new connection
+     *
+     * @throws Exception if the connection can't be made
+     */
+    private MysqlIO createReplicaIO(String hostPortPair)
+        throws Exception {
+        String[] hostPortPairParts = NonRegisteringDriver.parseHostPortPair(hostPortPair);
+        String replicaHost = hostPortPairParts[NonRegisteringDriver.HOST_NAME_INDEX];
+        int replicaPort = 3306;
+
+        if ((replicaHost == null) || (replicaHost.trim().length() == 0)) {
+            replicaHost = "localhost";
+        }
+
+        if (hostPortPairParts[NonRegisteringDriver.PORT_NUMBER_INDEX] != null) {
+            replicaPort = Integer.parseInt(hostPortPairParts[NonRegisteringDriver.PORT_NUMBER_INDEX]);
+        }
+
+        MysqlIO replica = new MysqlIO(replicaHost, replicaPort,
+                this.socketFactoryClassName, this.props, this,
+                this.socketTimeout);
+
+        try {
+            replica.doHandshake(this.user, this.password, this.database);
+
+            for (int i = 0; i < this.charsetQueries.size(); i++) {
+                replica.sqlQuery((String) this.charsetQueries.get(i),
+                    MysqlDefs.MAX_ROWS, null, this,
+                    java.sql.ResultSet.CONCUR_READ_ONLY, false, this.database);
+            }
+        } catch (Exception ex) {
+            replica.forceClose();
+
+            throw ex;
+        }
+
+        return replica;
+    }
+
+    /**
+     * Closes the connection to the replica, if there is one.
+     *
+     * @param force should the socket just be closed, rather than sending
+     *        COM_QUIT first?
+     */
+    private void closeReplicaIO(boolean force) {
+        if (this.replicaIo != null) {
+            if (force) {
+                this.replicaIo.forceClose();
+            } else {
+                try {
+                    this.replicaIo.quit();
+                } catch (Exception ex) {
+                    ;
+                }
+            }
+
+            this.replicaStatus.connectionClosed();
+            this.replicaIo = null;
+            this.replicaStatus = null;
+            this.replicaDatabase = null;
+        }
+    }
+
+    /**
+     * Sends one of the queries that sets up the connection's character set,
+     * and remembers it so it can be sent to replicas too.
+     *
+     * @param sql the 'SET ...' query
+     *
+     * @throws SQLException if the query fails
+     */
+    private void execCharsetSQL(String sql) throws SQLException {
+        execSQL(sql, -1, this.database);
+        this.charsetQueries.add(sql);
+    }
+
+    /**
+     * Should this query be sent to a replica? Only SELECTs sent while the
+     * connection is read-only are, and not while any statement is using
+     * setMaxRows(), as SQL_SELECT_LIMIT is only set on the master.
+     *
+     * @param queryIsSelectOnly is the query a SELECT?
+     *
+     * @return true if the query should go to a replica
+     */
+    private boolean shouldLoadBalance(boolean queryIsSelectOnly) {
+        return queryIsSelectOnly && this.loadBalanceReads && this.readOnly
+        && (this.hostListSize > 1) && !useMaxRows();
+    }
+
     /**
      * Has the maxRows value changed?
      *
@@ -2580,6 +3149,8 @@ public class Connection implements java.sql.Connection {
             // ignore, we're going away.
         }
 
+        closeReplicaIO(true);
+
         this.isClosed = true;
         this.forcedCloseReason = cleanupReason;
     }
@@ -2601,6 +3172,8 @@ public class Connection implements java.sql.Connection {
         String realJavaEncoding = getEncoding();
         boolean characterSetAlreadyConfigured = false;
 
+        this.charsetQueries.clear();
+
         try {
             if (this.io.versionMeetsMinimum(4, 1, 0)) {
             	
@@ -2668,7 +3241,7 @@ public class Connection implements java.sql.Connection {
                     if (realJavaEncoding.equalsIgnoreCase("UTF-8")
                             || realJavaEncoding.equalsIgnoreCase("UTF8")) {
                         // charset names are case-sensitive
-                        execSQL("SET NAMES utf8", -1, this.database);
+                        execCharsetSQL("SET NAMES utf8");
 
                         // Switch driver's encoding now, since the server
                         // knows what we're sending...
@@ -2682,8 +3255,7 @@ public class Connection implements java.sql.Connection {
                         }
                        
                         if (namesEncoding != null) {
-                            execSQL("SET NAMES " + namesEncoding, -1,
-                                this.database);
+                            execCharsetSQL("SET NAMES " + namesEncoding);
                         }
 
                         // Switch driver's encoding now, since the server
@@ -2699,12 +3271,12 @@ public class Connection implements java.sql.Connection {
                 //
                 
                 if (this.characterSetResults == null) {
-                	execSQL("SET character_set_results = NULL", -1, this.database);
+                	execCharsetSQL("SET character_set_results = NULL");
                 } else {
                 	StringBuffer setBuf = new StringBuffer("SET character_set_results = ".length() + this.characterSetResults.length());
                 	setBuf.append("SET character_set_results = ").append(this.characterSetResults);
                 	
-                	execSQL(setBuf.toString(), -1, this.database);
+                	execCharsetSQL(setBuf.toString());
                 }
             } else {
                 // Use what the server has specified
@@ -2911,7 +3483,7 @@ public class Connection implements java.sql.Connection {
                     }
                 }
 
-                this.cachedPreparedStatementParams = new HashMap(this.preparedStatementCacheSize);
+                this.cachedPreparedStatementParams = new LRUCache(this.preparedStatementCacheSize);
             }
         }
 
@@ -3032,6 +3604,58 @@ public class Connection implements java.sql.Connection {
                                            .equalsIgnoreCase("TRUE");
         }
 
+        if (info.getProperty("useFastIntParsing") != null) {
+            this.useFastIntParsing = info.getProperty("useFastIntParsing")
+                                         .equalsIgnoreCase("TRUE");
+        }
+
+        if (info.getProperty("rewriteBatchedStatements") != null) {
+            this.rewriteBatchedStatements = info.getProperty(
+                    "rewriteBatchedStatements").equalsIgnoreCase("TRUE");
+        }
+
+        if (info.getProperty("useServerPrepStmts") != null) {
+            this.useServerPreparedStmts = info.getProperty(
+                    "useServerPrepStmts").equalsIgnoreCase("TRUE");
+        }
+
+        if (info.getProperty("useWindowedFetch") != null) {
+            this.useWindowedFetch = info.getProperty("useWindowedFetch")
+                                        .equalsIgnoreCase("TRUE");
+        }
+
+        if (info.getProperty("loadBalanceReads") != null) {
+            this.loadBalanceReads = info.getProperty("loadBalanceReads")
+                                        .equalsIgnoreCase("TRUE");
+        }
+
+        if (info.getProperty("loadBalanceStrategy") != null) {
+            this.loadBalanceStrategy = info.getProperty("loadBalanceStrategy");
+
+            if (!LoadBalancer.isValidStrategy(this.loadBalanceStrategy)) {
+                throw new SQLException("Connection property 'loadBalanceStrategy' must be one of '"
+                    + LoadBalancer.ROUND_ROBIN + "', '"
+                    + LoadBalancer.LEAST_IN_FLIGHT + "' or '"
+                    + LoadBalancer.LATENCY_WEIGHTED + "'.",
+                    SQLError.SQL_STATE_INVALID_CONNECTION_ATTRIBUTE);
+            }
+        }
+
+        if (info.getProperty("loadBalanceBlacklistTimeout") != null) {
+            try {
+                this.loadBalanceBlacklistTimeout = Long.parseLong(info.getProperty(
+                            "loadBalanceBlacklistTimeout"));
+
+                if (this.loadBalanceBlacklistTimeout < 0) {
+                    throw new SQLException("Connection property 'loadBalanceBlacklistTimeout' must be a non-negative integer value.",
+                        SQLError.SQL_STATE_INVALID_CONNECTION_ATTRIBUTE);
+                }
+            } catch (NumberFormatException nfe) {
+                throw new SQLException("Connection property 'loadBalanceBlacklistTimeout' must be a non-negative integer value.",
+                    SQLError.SQL_STATE_INVALID_CONNECTION_ATTRIBUTE);
+            }
+        }
+
         if (info.getProperty("useSSL") != null) {
             this.useSSL = info.getProperty("useSSL").equalsIgnoreCase("TRUE");
         }
@@ -3041,6 +3665,21 @@ public class Connection implements java.sql.Connection {
                                       .equalsIgnoreCase("TRUE");
         }
 
+        if (info.getProperty("compressionThreshold") != null) {
+            try {
+                this.compressionThreshold = Integer.parseInt(info.getProperty(
+                            "compressionThreshold"));
+
+                if (this.compressionThreshold < 0) {
+                    throw new SQLException("Connection property 'compressionThreshold' must be a non-negative integer value.",
+                        SQLError.SQL_STATE_INVALID_CONNECTION_ATTRIBUTE);
+                }
+            } catch (NumberFormatException nfe) {
+                throw new SQLException("Connection property 'compressionThreshold' must be a non-negative integer value.",
+                    SQLError.SQL_STATE_INVALID_CONNECTION_ATTRIBUTE);
+            }
+        }
+
         if (info.getProperty("socketTimeout") != null) {
             try {
                 int n = Integer.parseInt(info.getProperty("socketTimeout"));
@@ -3085,6 +3724,21 @@ public class Connection implements java.sql.Connection {
             }
         }
 
+        if (info.getProperty("maxPipelinedQueries") != null) {
+            try {
+                this.maxPipelinedQueries = Integer.parseInt(info.getProperty(
+                            "maxPipelinedQueries"));
+
+                if (this.maxPipelinedQueries < 1) {
+                    throw new SQLException("Connection property 'maxPipelinedQueries' must be a positive integer value.",
+                        SQLError.SQL_STATE_INVALID_CONNECTION_ATTRIBUTE);
+                }
+            } catch (NumberFormatException nfe) {
+                throw new SQLException("Connection property 'maxPipelinedQueries' must be a positive integer value.",
+                    SQLError.SQL_STATE_INVALID_CONNECTION_ATTRIBUTE);
+            }
+        }
+
         if (info.getProperty("maxRows") != null) {
             try {
                 int n = Integer.parseInt(info.getProperty("maxRows"));
@@ -3396,11 +4050,31 @@ public class Connection implements java.sql.Connection {
     // *********************************************************************
 
     /**
-     * Detect if the connection is still good
+     * Detect if the connection is still good, using COM_PING if the server
+     * supports it (which is cheaper than issuing a query).
      *
-     * @throws Exception DOCUMENT ME!
+     * @throws SQLException if the connection is closed, or the server can't
+     *         be reached
      */
-    private void ping() throws Exception {
+    public void ping() throws SQLException {
+        checkClosed();
+
+        synchronized (getMutex()) {
+            try {
+                pingInternal();
+            } catch (SQLException sqlEx) {
+                throw sqlEx;
+            } catch (Exception ex) {
+                throw new SQLException(SQLError.get(
+                        SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE) + ": "
+                    + ex.getClass().getName() + ", underlying cause: "
+                    + ex.getMessage(),
+                    SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE);
+            }
+        }
+    }
+
+    private void pingInternal() throws Exception {
         if (this.useFastPing) {
             this.io.sendCommand(MysqlDefs.PING, null, null);
         } else {
@@ -3439,7 +4113,7 @@ public class Connection implements java.sql.Connection {
 
         if ((this.highAvailability || this.failedOver) && localAutoCommit) {
             try {
-                ping();
+                pingInternal();
             } catch (Exception Ex) {
                 createNewIO(true);
             }
@@ -4354,4 +5028,44 @@ public class Connection implements java.sql.Connection {
 	protected String getCharacterSetMetadata() {
 		return characterSetMetadata;
 	}
+
+    /**
+     * Key for the prepared statement cache, the catalog in use and the SQL.
+     */
+    static class PreparedStatementCacheKey {
+        private String catalog;
+        private String sql;
+        private int hashCode;
+
+        PreparedStatementCacheKey(String catalog, String sql) {
+            this.catalog = (catalog == null) ? "" : catalog;
+            this.sql = sql;
+            this.hashCode = (31 * this.catalog.hashCode()) + sql.hashCode();
+        }
+
+        /**
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof PreparedStatementCacheKey)) {
+                return false;
+            }
+
+            PreparedStatementCacheKey other = (PreparedStatementCacheKey) obj;
+
+            return (this.hashCode == other.hashCode)
+            && this.sql.equals(other.sql) && this.catalog.equals(other.catalog);
+        }
+
+        /**
+         * @see java.lang.Object#hashCode()
+         */
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
 }
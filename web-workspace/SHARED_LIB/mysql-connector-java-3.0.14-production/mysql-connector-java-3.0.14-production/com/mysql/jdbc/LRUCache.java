@@ -0,0 +1,55 @@
+/*
+   Copyright (C) 2002 MySQL AB
+
+      This program is free software; you can redistribute it and/or modify
+      it under the terms of the GNU General Public License as published by
+      the Free Software Foundation; either version 2 of the License, or
+      (at your option) any later version.
+
+      This program is distributed in the hope that it will be useful,
+      but WITHOUT ANY WARRANTY; without even the implied warranty of
+      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+      GNU General Public License for more details.
+
+      You should have received a copy of the GNU General Public License
+      along with this program; if not, write to the Free Software
+      Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+ */
+package com.mysql.jdbc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * A Map that holds at most a given number of entries, evicting the least
+ * recently accessed entry when a new one is added to a full cache.
+ * 
+ * <p>
+ * Not synchronized, callers must provide their own locking.
+ * </p>
+ *
+ * @author Mark Matthews
+ */
+public class LRUCache extends LinkedHashMap {
+    /** The maximum number of entries to hold */
+    protected int maxElements;
+
+    /**
+     * Creates a new LRUCache.
+     *
+     * @param maxSize the maximum number of entries to hold
+     */
+    public LRUCache(int maxSize) {
+        super(maxSize, 0.75F, true);
+        this.maxElements = maxSize;
+    }
+
+    /**
+     * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+     */
+    protected boolean removeEldestEntry(Map.Entry eldest) {
+        return (size() > this.maxElements);
+    }
+}
@@ -0,0 +1,290 @@
+/*
+   Copyright (C) 2002 MySQL AB
+
+      This program is free software; you can redistribute it and/or modify
+      it under the terms of the GNU General Public License as published by
+      the Free Software Foundation; either version 2 of the License, or
+      (at your option) any later version.
+
+      This program is distributed in the hope that it will be useful,
+      but WITHOUT ANY WARRANTY; without even the implied warranty of
+      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+      GNU General Public License for more details.
+
+      You should have received a copy of the GNU General Public License
+      along with this program; if not, write to the Free Software
+      Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+ */
+package com.mysql.jdbc;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+
+/**
+ * Picks which replica a read-only connection sends its SELECTs to. The
+ * health of each host (queries in flight, average response time, and
+ * whether it has recently failed) is shared by all connections in the VM,
+ * so that connections opened later steer away from busy or broken hosts.
+ *
+ * @author Mark Matthews
+ */
+class LoadBalancer {
+    /** Send each new replica connection to the next host in the list */
+    static final String ROUND_ROBIN = "roundRobin";
+
+    /**
+     * Send each new replica connection to the host with the fewest queries
+     * running, or failing that the fewest connections open
+     */
+    static final String LEAST_IN_FLIGHT = "leastInFlight";
+
+    /** Pick hosts at random, weighted towards those that answer quickest */
+    static final String LATENCY_WEIGHTED = "latencyWeighted";
+
+    /** The health of each host we've used, keyed by 'host:port' */
+    private static final Map hostStatuses = new HashMap();
+
+    private static final Random random = new Random();
+
+    /** Where the next round-robin pick starts, shared by all connections */
+    private static int roundRobinPosition = 0;
+
+    /**
+     * Returns the (shared) health of the given host, creating it if this is
+     * the first time the host has been seen.
+     *
+     * @param hostPortPair the host, as given in the URL
+     *
+     * @return the status of the host
+     */
+    static HostStatus getHostStatus(String hostPortPair) {
+        synchronized (hostStatuses) {
+            HostStatus status = (HostStatus) hostStatuses.get(hostPortPair);
+
+            if (status == null) {
+                status = new HostStatus(hostPortPair);
+                hostStatuses.put(hostPortPair, status);
+            }
+
+            return status;
+        }
+    }
+
+    /**
+     * Chooses one of the replicas in the host list (every host but the first,
+     * which is the master), skipping those that are blacklisted.
+     *
+     * @param hostList the hosts from the URL
+     * @param strategy one of ROUND_ROBIN, LEAST_IN_FLIGHT or LATENCY_WEIGHTED
+     *
+     * @return the replica to use, or null if there are none available
+     */
+    static HostStatus chooseReplica(List hostList, String strategy) {
+        int numReplicas = hostList.size() - 1;
+
+        if (numReplicas < 1) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+
+        HostStatus[] candidates = new HostStatus[numReplicas];
+        int numCandidates = 0;
+
+        for (int i = 0; i < numReplicas; i++) {
+            HostStatus status = getHostStatus((String) hostList.get(i + 1));
+
+            if (!status.isBlacklisted(now)) {
+                candidates[numCandidates++] = status;
+            }
+        }
+
+        if (numCandidates == 0) {
+            return null;
+        }
+
+        if (LEAST_IN_FLIGHT.equalsIgnoreCase(strategy)) {
+            HostStatus best = null;
+
+            for (int i = 0; i < numCandidates; i++) {
+                if ((best == null) || candidates[i].isLessLoadedThan(best)) {
+                    best = candidates[i];
+                }
+            }
+
+            return best;
+        } else if (LATENCY_WEIGHTED.equalsIgnoreCase(strategy)) {
+            double[] weights = new double[numCandidates];
+            double totalWeight = 0;
+
+            for (int i = 0; i < numCandidates; i++) {
+                // +1 so hosts we haven't timed yet (or that answer in
+                // under a millisecond) don't get an infinite weight
+                weights[i] = 1.0D / (candidates[i].getAverageResponseTime()
+                    + 1.0D);
+                totalWeight += weights[i];
+            }
+
+            double pick;
+
+            synchronized (random) {
+                pick = random.nextDouble() * totalWeight;
+            }
+
+            for (int i = 0; i < (numCandidates - 1); i++) {
+                pick -= weights[i];
+
+                if (pick < 0) {
+                    return candidates[i];
+                }
+            }
+
+            return candidates[numCandidates - 1];
+        } else {
+            int position;
+
+            synchronized (hostStatuses) {
+                position = roundRobinPosition++;
+
+                if (roundRobinPosition < 0) {
+                    roundRobinPosition = 0;
+                }
+            }
+
+            return candidates[position % numCandidates];
+        }
+    }
+
+    /**
+     * Checks that the given strategy name is one we know about.
+     *
+     * @param strategy the value of the 'loadBalanceStrategy' property
+     *
+     * @return true if the strategy is known
+     */
+    static boolean isValidStrategy(String strategy) {
+        return ROUND_ROBIN.equalsIgnoreCase(strategy)
+        || LEAST_IN_FLIGHT.equalsIgnoreCase(strategy)
+        || LATENCY_WEIGHTED.equalsIgnoreCase(strategy);
+    }
+
+    /**
+     * The health of one host, as seen by all connections in this VM.
+     */
+    static class HostStatus {
+        /** How much of each new response time goes into the average */
+        private static final double RESPONSE_TIME_WEIGHT = 0.2D;
+
+        /** The host, as given in the URL */
+        private String hostPortPair;
+
+        /** Average (exponentially weighted) response time, in ms */
+        private double averageResponseTime = 0;
+
+        /** Number of queries currently running against this host */
+        private int inFlight = 0;
+
+        /** Number of connections currently open to this host */
+        private int openConnections = 0;
+
+        /** Don't use this host again before this time */
+        private long blacklistedUntil = 0;
+
+        HostStatus(String hostPortPair) {
+            this.hostPortPair = hostPortPair;
+        }
+
+        String getHostPortPair() {
+            return this.hostPortPair;
+        }
+
+        synchronized double getAverageResponseTime() {
+            return this.averageResponseTime;
+        }
+
+        synchronized int getInFlight() {
+            return this.inFlight;
+        }
+
+        synchronized int getOpenConnections() {
+            return this.openConnections;
+        }
+
+        synchronized boolean isBlacklisted(long now) {
+            return now < this.blacklistedUntil;
+        }
+
+        /**
+         * Does this host have fewer queries in flight than the other, or
+         * the same number and fewer connections open?
+         *
+         * @param other the host to compare with
+         *
+         * @return true if this host is the better choice
+         */
+        boolean isLessLoadedThan(HostStatus other) {
+            int thisInFlight;
+            int thisConnections;
+
+            synchronized (this) {
+                thisInFlight = this.inFlight;
+                thisConnections = this.openConnections;
+            }
+
+            int otherInFlight = other.getInFlight();
+
+            if (thisInFlight != otherInFlight) {
+                return thisInFlight < otherInFlight;
+            }
+
+            return thisConnections < other.getOpenConnections();
+        }
+
+        /**
+         * Stops this host from being chosen for the given number of ms, after
+         * which it will be tried again.
+         *
+         * @param timeoutMillis how long to avoid the host for
+         */
+        synchronized void blacklist(long timeoutMillis) {
+            this.blacklistedUntil = System.currentTimeMillis()
+                + timeoutMillis;
+        }
+
+        synchronized void connectionOpened() {
+            this.openConnections++;
+        }
+
+        synchronized void connectionClosed() {
+            this.openConnections--;
+        }
+
+        /**
+         * Called before a query is sent to this host.
+         */
+        synchronized void queryStarted() {
+            this.inFlight++;
+        }
+
+        /**
+         * Called once the results of a query have been read (or it has
+         * failed).
+         *
+         * @param elapsedMillis how long the query took
+         */
+        synchronized void queryFinished(long elapsedMillis) {
+            this.inFlight--;
+
+            if (this.averageResponseTime == 0) {
+                this.averageResponseTime = elapsedMillis;
+            } else {
+                this.averageResponseTime += (RESPONSE_TIME_WEIGHT * (elapsedMillis
+                - this.averageResponseTime));
+            }
+        }
+    }
+}
@@ -58,6 +58,8 @@ final class MysqlDefs {
     static final int COM_PREPARE = 22;
     static final int COM_EXECUTE = 23;
     static final int COM_LONG_DATA = 24;
+    static final int COM_CLOSE_STATEMENT = 25;
+    static final int COM_RESET_STMT = 26;
 
     // Data Types
     static final int FIELD_TYPE_DECIMAL = 0;
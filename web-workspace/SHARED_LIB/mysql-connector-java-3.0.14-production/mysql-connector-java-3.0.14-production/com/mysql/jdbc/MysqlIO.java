@@ -27,11 +27,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.lang.ref.SoftReference;
+import java.math.BigInteger;
 import java.net.Socket;
 import java.security.NoSuchAlgorithmException;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.Properties;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
@@ -117,6 +120,13 @@ public class MysqlIO {
     private Deflater deflater = null;
     private Inflater inflater = null;
 
+    /** The header of compressed packets, re-used for every packet */
+    private byte[] compressedHeader = new byte[HEADER_LENGTH
+        + COMP_HEADER_LENGTH];
+
+    /** Where packets are deflated to, re-used while it is small enough */
+    private byte[] deflateBuffer = null;
+
     /** Buffered data from the server */
 
     //private BufferedInputStream  _Mysql_Buf_Input          = null;
@@ -131,6 +141,12 @@ public class MysqlIO {
     private InputStream mysqlInput = null;
     private RowData streamingData = null;
 
+    /**
+     * Queries sent with sendQueryAsync() whose replies haven't been read
+     * yet, in the order they were sent (QueryFutures)
+     */
+    private LinkedList pendingQueries = new LinkedList();
+
     //
     // For SQL Warnings
     //
@@ -230,7 +246,16 @@ public class MysqlIO {
 
         this.mysqlConnection = this.socketFactory.beforeHandshake();
 
-        if (!this.connection.isUsingUnbufferedInput()) {
+        //
+        // Sockets created by NioSocketFactory are read through their
+        // channel. Blocking channel reads don't honor SO_TIMEOUT, so
+        // stick with the socket's stream when a timeout was requested.
+        //
+        if ((this.mysqlConnection.getChannel() != null)
+                && (socketTimeout == 0)) {
+            this.mysqlInput = new ChannelInputStream(this.mysqlConnection
+                    .getChannel());
+        } else if (!this.connection.isUsingUnbufferedInput()) {
             this.mysqlInput = new BufferedInputStream(this.mysqlConnection
                     .getInputStream(), 16384);
         } else {
@@ -271,6 +296,31 @@ public class MysqlIO {
     protected ResultSet getResultSet(long columnCount, int maxRows,
         int resultSetType, boolean streamResults, String catalog)
         throws Exception {
+        return getResultSet(columnCount, maxRows, resultSetType,
+            streamResults, catalog, false);
+    }
+
+    /**
+     * Build a result set, reading rows that are either in the text protocol
+     * used for plain queries, or in the binary protocol used by server-side
+     * prepared statements.
+     *
+     * @param columnCount the number of columns in the result set
+     * @param maxRows the maximum number of rows to read (-1 means all rows)
+     * @param resultSetType the type of result set (CONCUR_UPDATABLE or
+     *        READ_ONLY)
+     * @param streamResults should the result set be read all at once, or
+     *        streamed?
+     * @param catalog the database name in use when the result set was created
+     * @param isBinaryEncoded are the rows sent using the binary protocol?
+     *
+     * @return a result set
+     *
+     * @throws Exception if a database access error occurs
+     */
+    protected ResultSet getResultSet(long columnCount, int maxRows,
+        int resultSetType, boolean streamResults, String catalog,
+        boolean isBinaryEncoded) throws Exception {
         Buffer packet; // The packet from the server
         Field[] fields = new Field[(int) columnCount];
 
@@ -288,7 +338,8 @@ public class MysqlIO {
             ArrayList rows = new ArrayList();
 
             // Now read the data
-            byte[][] rowBytes = nextRow((int) columnCount);
+            byte[][] rowBytes = nextRow(fields, (int) columnCount,
+                    isBinaryEncoded);
             int rowCount = 0;
 
             if (rowBytes != null) {
@@ -297,7 +348,7 @@ public class MysqlIO {
             }
 
             while ((rowBytes != null) && (rowCount < maxRows)) {
-                rowBytes = nextRow((int) columnCount);
+                rowBytes = nextRow(fields, (int) columnCount, isBinaryEncoded);
 
                 if (rowBytes != null) {
                     rows.add(rowBytes);
@@ -326,7 +377,8 @@ public class MysqlIO {
             rowData = new RowDataStatic(rows);
             reclaimLargeReusablePacket();
         } else {
-            rowData = new RowDataDynamic(this, (int) columnCount);
+            rowData = new RowDataDynamic(this, (int) columnCount, fields,
+                    isBinaryEncoded);
             this.streamingData = rowData;
         }
 
@@ -337,6 +389,12 @@ public class MysqlIO {
      * Forcibly closes the underlying socket to MySQL.
      */
     protected final void forceClose() {
+        if (!this.pendingQueries.isEmpty()) {
+            failPendingQueries(new SQLException(
+                    "Connection closed before query results were read",
+                    SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE));
+        }
+
         try {
             if (this.mysqlInput != null) {
                 this.mysqlInput.close();
@@ -366,6 +424,13 @@ public class MysqlIO {
             // Let the JVM clean it up later
             this.mysqlConnection = null;
         }
+
+        if (this.deflater != null) {
+            // Frees the native zlib state now, rather than at finalization
+            this.deflater.end();
+            this.deflater = null;
+            this.useCompression = false;
+        }
     }
 
     /**
@@ -378,6 +443,8 @@ public class MysqlIO {
      */
     protected void changeUser(String userName, String password, String database)
         throws SQLException {
+        completePendingQueries(null);
+
         this.packetSequence = -1;
 
         int passwordLength = 16;
@@ -886,6 +953,13 @@ public class MysqlIO {
                 ((javax.net.ssl.SSLSocket) this.mysqlConnection)
                 .setEnabledProtocols(new String[] { "TLSv1" });
                 ((javax.net.ssl.SSLSocket) this.mysqlConnection).startHandshake();
+
+                if (this.mysqlInput instanceof ChannelInputStream) {
+                    // The channel now belongs to the SSL socket, so only
+                    // hand the read buffer back to the pool
+                    ((ChannelInputStream) this.mysqlInput).detach();
+                }
+
                 this.mysqlInput = new BufferedInputStream(this.mysqlConnection
                         .getInputStream(), 16384);
                 this.mysqlOutput = new BufferedOutputStream(this.mysqlConnection
@@ -1028,6 +1102,37 @@ public class MysqlIO {
         return null;
     }
 
+    /**
+     * Retrieves the next row, which is in the binary protocol format if the
+     * result set was created by a server-side prepared statement. Binary rows
+     * are converted to the same representation as rows sent using the text
+     * protocol, so ResultSet can treat both alike.
+     *
+     * @param fields the field metadata for the result set
+     * @param columnCount the number of columns in the row
+     * @param isBinaryEncoded is the row in the binary protocol format?
+     *
+     * @return the row data, or null if there are no more rows
+     *
+     * @throws Exception if an error occurs
+     */
+    final byte[][] nextRow(Field[] fields, int columnCount,
+        boolean isBinaryEncoded) throws Exception {
+        if (!isBinaryEncoded) {
+            return nextRow(columnCount);
+        }
+
+        Buffer rowPacket = checkErrorPacket();
+
+        rowPacket.setPosition(rowPacket.getPosition() - 1);
+
+        if (rowPacket.isLastDataPacket()) {
+            return null;
+        }
+
+        return unpackBinaryResultSetRow(fields, rowPacket, columnCount);
+    }
+
     /**
      * Log-off of the MySQL server and close the socket.
      *
@@ -1096,10 +1201,38 @@ public class MysqlIO {
      */
     final Buffer sendCommand(int command, String extraData, Buffer queryPacket)
         throws Exception {
+        return sendCommand(command, extraData, queryPacket, false);
+    }
+
+    /**
+     * Send a command to the MySQL server, optionally not waiting for a reply
+     * (COM_LONG_DATA and COM_CLOSE_STATEMENT have none).
+     *
+     * @param command the command to send
+     * @param extraData any string data to send with the command
+     * @param queryPacket a packet already built by the caller, or null
+     * @param skipCheck should we not read the server's reply?
+     *
+     * @return the reply packet, or null if skipCheck was set
+     *
+     * @throws Exception if an error occurs
+     */
+    final Buffer sendCommand(int command, String extraData,
+        Buffer queryPacket, boolean skipCheck) throws Exception {
         checkForOutstandingStreamingData();
 
+        //
+        // Replies come back in the order commands were sent, so any
+        // pipelined queries must be read before we wait for the reply
+        // to this command. Commands without a reply can be interleaved.
+        //
+        if (!skipCheck) {
+            completePendingQueries(null);
+        }
+
         try {
-            if (this.clearStreamBeforeEachQuery) {
+            if (this.clearStreamBeforeEachQuery
+                    && this.pendingQueries.isEmpty()) {
                 clearInputStream();
             }
 
@@ -1160,6 +1293,10 @@ public class MysqlIO {
                 SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE, 0);
         }
 
+        if (skipCheck) {
+            return null;
+        }
+
         return checkErrorPacket(command);
     }
 
@@ -1183,6 +1320,120 @@ public class MysqlIO {
     final ResultSet sqlQuery(String query, int maxRows,
         String characterEncoding, Connection conn, int resultSetType,
         boolean streamResults, String catalog) throws Exception {
+        return sqlQueryDirect(buildQueryPacket(query, characterEncoding),
+            maxRows, conn, resultSetType, streamResults, catalog);
+    }
+
+    /**
+     * Sends a query without waiting for its reply, so that several queries
+     * can be in flight on this connection at once. The reply is read into
+     * the given future by completePendingQueries(), which is called before
+     * any other command that waits for a reply is sent. At most
+     * 'maxPipelinedQueries' replies are left unread, so that neither side
+     * blocks forever on full socket buffers.
+     *
+     * @param query the query to send
+     * @param characterEncoding the encoding to use for the query, or null
+     * @param future receives the results of the query
+     *
+     * @throws Exception if an error occurs
+     */
+    final void sendQueryAsync(String query, String characterEncoding,
+        QueryFuture future) throws Exception {
+        if (this.pendingQueries.size() >= this.connection
+                .getMaxPipelinedQueries()) {
+            readPendingQueryResult();
+        }
+
+        sendCommand(MysqlDefs.QUERY, null,
+            buildQueryPacket(query, characterEncoding), true);
+
+        this.pendingQueries.addLast(future);
+    }
+
+    /**
+     * Reads the replies to queries sent with sendQueryAsync(), in the order
+     * they were sent, until the reply for the given future has been read.
+     *
+     * @param upTo the future to read up to, or null to read all replies
+     *
+     * @throws SQLException if the connection to the server fails
+     */
+    final void completePendingQueries(QueryFuture upTo)
+        throws SQLException {
+        while (!this.pendingQueries.isEmpty()) {
+            if (readPendingQueryResult() == upTo) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Reads the reply to the oldest query sent with sendQueryAsync(). An
+     * error returned by the server only fails that query, but if the
+     * connection fails, all pending queries fail.
+     *
+     * @return the future the reply was read into
+     *
+     * @throws SQLException if the connection to the server fails
+     */
+    private QueryFuture readPendingQueryResult() throws SQLException {
+        QueryFuture future = (QueryFuture) this.pendingQueries.removeFirst();
+        SQLException failure = null;
+
+        try {
+            Buffer resultPacket = checkErrorPacket(MysqlDefs.QUERY);
+
+            future.setResults(readResultsForQueryOrUpdate(resultPacket,
+                    MysqlDefs.MAX_ROWS, java.sql.ResultSet.CONCUR_READ_ONLY,
+                    false, future.getCatalog(), false));
+
+            return future;
+        } catch (SQLException sqlEx) {
+            failure = sqlEx;
+        } catch (Exception ex) {
+            failure = new SQLException(SQLError.get(
+                        SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE) + ": "
+                    + ex.getClass().getName() + ", underlying cause: "
+                    + ex.getMessage(),
+                    SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE);
+        }
+
+        future.setException(failure);
+
+        if (SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE.equals(
+                    failure.getSQLState())) {
+            failPendingQueries(failure);
+
+            throw failure;
+        }
+
+        return future;
+    }
+
+    private void failPendingQueries(SQLException cause) {
+        Iterator iter = this.pendingQueries.iterator();
+
+        while (iter.hasNext()) {
+            ((QueryFuture) iter.next()).setException(cause);
+        }
+
+        this.pendingQueries.clear();
+    }
+
+    /**
+     * Builds a COM_QUERY packet for the given query in the shared send
+     * packet.
+     *
+     * @param query the query to send
+     * @param characterEncoding the encoding to use for the query, or null
+     *
+     * @return the packet to send
+     *
+     * @throws Exception if the query can't be encoded
+     */
+    private Buffer buildQueryPacket(String query, String characterEncoding)
+        throws Exception {
         // We don't know exactly how many bytes we're going to get
         // from the query. Since we're dealing with Unicode, the
         // max is 2, so pad it (2 * query) + space for headers
@@ -1215,8 +1466,7 @@ public class MysqlIO {
             this.sendPacket.writeStringNoNull(query);
         }
 
-        return sqlQueryDirect(this.sendPacket, maxRows, conn, resultSetType,
-            streamResults, catalog);
+        return this.sendPacket;
     }
 
     /**
@@ -1331,6 +1581,38 @@ public class MysqlIO {
         }
     }
 
+    /**
+     * Reads the reply to a command that may return either a result set or an
+     * update count, i.e. the reply to COM_EXECUTE.
+     *
+     * @param resultPacket the first packet of the reply, as returned by
+     *        sendCommand()
+     * @param maxRows the maximum number of rows to read
+     * @param resultSetType the type of result set (CONCUR_UPDATABLE or
+     *        READ_ONLY)
+     * @param streamResults should the result set be streamed?
+     * @param catalog the database name in use
+     * @param isBinaryEncoded are the rows sent using the binary protocol?
+     *
+     * @return a result set holding either rows or the update count
+     *
+     * @throws Exception if an error occurs
+     */
+    final ResultSet readResultsForQueryOrUpdate(Buffer resultPacket,
+        int maxRows, int resultSetType, boolean streamResults, String catalog,
+        boolean isBinaryEncoded) throws Exception {
+        resultPacket.setPosition(resultPacket.getPosition() - 1);
+
+        long columnCount = resultPacket.readFieldLength();
+
+        if (columnCount == 0) {
+            return buildResultSetWithUpdates(resultPacket);
+        }
+
+        return getResultSet(columnCount, maxRows, resultSetType,
+            streamResults, catalog, isBinaryEncoded);
+    }
+
     /**
      * Returns the host this IO is connected to
      *
@@ -1402,7 +1684,7 @@ public class MysqlIO {
      * @throws SQLException DOCUMENT ME!
      * @throws java.sql.SQLException DOCUMENT ME!
      */
-    private final Buffer readPacket() throws SQLException {
+    final Buffer readPacket() throws SQLException {
         try {
             int lengthRead = readFully(mysqlInput, this.packetHeaderBuf, 0, 4);
 
@@ -1504,6 +1786,208 @@ public class MysqlIO {
         return updateRs;
     }
 
+    /**
+     * Un-packs a row sent using the binary protocol into the same form as a
+     * row sent as text.
+     *
+     * @param fields the field metadata for the row
+     * @param binaryData the packet holding the row
+     * @param columnCount the number of columns in the row
+     *
+     * @return the row data
+     *
+     * @throws SQLException if the row can not be unpacked
+     */
+    private final byte[][] unpackBinaryResultSetRow(Field[] fields,
+        Buffer binaryData, int columnCount) throws SQLException {
+        byte[][] unpackedRowData = new byte[columnCount][];
+
+        binaryData.readByte(); // skip the packet header
+
+        //
+        // The null bitmask has two reserved bits at the
+        // start
+        //
+        int nullCount = (columnCount + 9) / 8;
+        byte[] nullBitMask = new byte[nullCount];
+
+        for (int i = 0; i < nullCount; i++) {
+            nullBitMask[i] = binaryData.readByte();
+        }
+
+        int nullMaskPos = 0;
+        int bit = 4;
+
+        for (int i = 0; i < columnCount; i++) {
+            if ((nullBitMask[nullMaskPos] & bit) == 0) {
+                unpackedRowData[i] = unpackBinaryColumn(fields[i], binaryData);
+            }
+
+            if (((bit <<= 1) & 255) == 0) {
+                bit = 1;
+                nullMaskPos++;
+            }
+        }
+
+        return unpackedRowData;
+    }
+
+    private final byte[] unpackBinaryColumn(Field field, Buffer binaryData)
+        throws SQLException {
+        boolean isUnsigned = field.isUnsigned();
+
+        switch (field.getMysqlType()) {
+        case MysqlDefs.FIELD_TYPE_NULL:
+            return null;
+
+        case MysqlDefs.FIELD_TYPE_TINY:
+
+            byte tinyVal = binaryData.readByte();
+
+            return String.valueOf(isUnsigned ? (tinyVal & 0xff) : tinyVal)
+                         .getBytes();
+
+        case MysqlDefs.FIELD_TYPE_SHORT:
+        case MysqlDefs.FIELD_TYPE_YEAR:
+
+            int shortVal = binaryData.readInt();
+
+            return String.valueOf(isUnsigned ? shortVal : (short) shortVal)
+                         .getBytes();
+
+        case MysqlDefs.FIELD_TYPE_LONG:
+        case MysqlDefs.FIELD_TYPE_INT24:
+
+            long intVal = binaryData.readLong();
+
+            return String.valueOf(isUnsigned ? (intVal & 0xffffffffL)
+                                             : (int) intVal).getBytes();
+
+        case MysqlDefs.FIELD_TYPE_LONGLONG:
+
+            long longVal = binaryData.readLongLong();
+
+            if (isUnsigned && (longVal < 0)) {
+                byte[] asBytes = new byte[8];
+
+                for (int i = 0; i < 8; i++) {
+                    asBytes[i] = (byte) (longVal >>> (8 * (7 - i)));
+                }
+
+                return new BigInteger(1, asBytes).toString().getBytes();
+            }
+
+            return String.valueOf(longVal).getBytes();
+
+        case MysqlDefs.FIELD_TYPE_FLOAT:
+            return String.valueOf(Float.intBitsToFloat(
+                    (int) binaryData.readLong())).getBytes();
+
+        case MysqlDefs.FIELD_TYPE_DOUBLE:
+            return String.valueOf(Double.longBitsToDouble(
+                    binaryData.readLongLong())).getBytes();
+
+        case MysqlDefs.FIELD_TYPE_TIME:
+
+            int timeLength = binaryData.readByte() & 0xff;
+            boolean negative = false;
+            long hour = 0;
+            int minute = 0;
+            int second = 0;
+
+            if (timeLength != 0) {
+                negative = (binaryData.readByte() != 0);
+
+                long days = binaryData.readLong();
+
+                hour = (days * 24) + binaryData.readByte();
+                minute = binaryData.readByte();
+                second = binaryData.readByte();
+
+                if (timeLength > 8) {
+                    binaryData.readLong(); // skip microseconds
+                }
+            }
+
+            StringBuffer timeBuf = new StringBuffer(10);
+
+            if (negative) {
+                timeBuf.append('-');
+            }
+
+            appendPadded(timeBuf, hour, 2);
+            timeBuf.append(':');
+            appendPadded(timeBuf, minute, 2);
+            timeBuf.append(':');
+            appendPadded(timeBuf, second, 2);
+
+            return timeBuf.toString().getBytes();
+
+        case MysqlDefs.FIELD_TYPE_DATE:
+        case MysqlDefs.FIELD_TYPE_NEWDATE:
+        case MysqlDefs.FIELD_TYPE_DATETIME:
+        case MysqlDefs.FIELD_TYPE_TIMESTAMP:
+
+            int dateLength = binaryData.readByte() & 0xff;
+            int year = 0;
+            int month = 0;
+            int day = 0;
+            int hourOfDay = 0;
+            int minuteOfHour = 0;
+            int secondOfMinute = 0;
+
+            if (dateLength != 0) {
+                year = binaryData.readInt();
+                month = binaryData.readByte();
+                day = binaryData.readByte();
+
+                if (dateLength > 4) {
+                    hourOfDay = binaryData.readByte();
+                    minuteOfHour = binaryData.readByte();
+                    secondOfMinute = binaryData.readByte();
+                }
+
+                if (dateLength > 7) {
+                    binaryData.readLong(); // skip microseconds
+                }
+            }
+
+            StringBuffer dateBuf = new StringBuffer(19);
+
+            appendPadded(dateBuf, year, 4);
+            dateBuf.append('-');
+            appendPadded(dateBuf, month, 2);
+            dateBuf.append('-');
+            appendPadded(dateBuf, day, 2);
+
+            if ((field.getMysqlType() == MysqlDefs.FIELD_TYPE_DATETIME)
+                    || (field.getMysqlType() == MysqlDefs.FIELD_TYPE_TIMESTAMP)) {
+                dateBuf.append(' ');
+                appendPadded(dateBuf, hourOfDay, 2);
+                dateBuf.append(':');
+                appendPadded(dateBuf, minuteOfHour, 2);
+                dateBuf.append(':');
+                appendPadded(dateBuf, secondOfMinute, 2);
+            }
+
+            return dateBuf.toString().getBytes();
+
+        default:
+            return binaryData.readLenByteArray(0);
+        }
+    }
+
+    private static final void appendPadded(StringBuffer buf, long value,
+        int width) {
+        String asString = String.valueOf(value);
+
+        for (int i = asString.length(); i < width; i++) {
+            buf.append('0');
+        }
+
+        buf.append(asString);
+    }
+
     /**
      * Don't hold on to overly-large packets
      */
@@ -1740,21 +2224,18 @@ public class MysqlIO {
             } else {
                 this.packetSequence++;
 
-                Buffer packetToSend = packet;
-
-                packetToSend.setPosition(0);
+                packet.setPosition(0);
 
                 if (this.useCompression) {
-                    packetToSend = compressPacket(packet, 0, packetLen,
-                            HEADER_LENGTH);
-                    packetLen = packetToSend.getPosition();
+                    sendCompressedPacket(packet, packetLen);
                 } else {
-                    packetToSend.writeLongInt(packetLen - HEADER_LENGTH);
-                    packetToSend.writeByte(this.packetSequence);
+                    packet.writeLongInt(packetLen - HEADER_LENGTH);
+                    packet.writeByte(this.packetSequence);
+
+                    this.mysqlOutput.write(packet.getByteBuffer(), 0,
+                        packetLen);
                 }
 
-                this.mysqlOutput.write(packetToSend.getByteBuffer(), 0,
-                    packetLen);
                 this.mysqlOutput.flush();
             }
 
@@ -2150,53 +2631,72 @@ public class MysqlIO {
         }
     }
 
-    private Buffer compressPacket(Buffer packet, int offset, int packetLen,
-        int headerLength) throws SQLException {
-        packet.writeLongInt(packetLen - headerLength);
-        packet.writeByte((byte) 0); // wrapped packet has 0 packet seq.
-
-        int lengthToWrite = 0;
-        int compressedLength = 0;
-        byte[] bytesToCompress = packet.getByteBuffer();
-        byte[] compressedBytes = null;
-        int offsetWrite = 0;
-
-        if (true /*packetLen < MIN_COMPRESS_LEN*/) {
-            lengthToWrite = packetLen;
-            compressedBytes = packet.getByteBuffer();
-            compressedLength = 0;
-            offsetWrite = offset;
-        } else {
-            compressedBytes = new byte[bytesToCompress.length * 2];
+    /**
+     * Wraps the given packet in a compressed packet, and writes it to the
+     * server. Packets shorter than the connection's 'compressionThreshold',
+     * or that don't get any smaller when deflated, are sent as-is. The
+     * deflater and the buffer it writes to are re-used for every packet.
+     *
+     * @param packet the packet to send, with room for the header
+     * @param packetLen the length of the packet, including the header
+     *
+     * @throws IOException if the packet can't be written
+     */
+    private void sendCompressedPacket(Buffer packet, int packetLen)
+        throws IOException {
+        byte[] bytesToSend = packet.getByteBuffer();
+        int payloadLength = packetLen - HEADER_LENGTH;
+
+        // Written directly, as the Buffer methods throw SQLException
+        bytesToSend[0] = (byte) (payloadLength & 0xff);
+        bytesToSend[1] = (byte) (payloadLength >>> 8);
+        bytesToSend[2] = (byte) (payloadLength >>> 16);
+        bytesToSend[3] = 0; // wrapped packet has 0 packet seq.
+
+        int lengthToWrite = packetLen;
+        int uncompressedLength = 0; // 0 means 'not compressed'
+
+        if (packetLen >= this.connection.getCompressionThreshold()) {
+            if ((this.deflateBuffer == null)
+                    || (this.deflateBuffer.length < packetLen)) {
+                this.deflateBuffer = new byte[packetLen];
+            }
 
             this.deflater.reset();
-            this.deflater.setInput(bytesToCompress, offset, packetLen);
+            this.deflater.setInput(bytesToSend, 0, packetLen);
             this.deflater.finish();
 
-            int compLen = this.deflater.deflate(compressedBytes);
+            // If the output doesn't fit in packetLen bytes, it isn't
+            // worth sending compressed
+            int compressedLength = this.deflater.deflate(this.deflateBuffer,
+                    0, packetLen);
 
-            if (compLen > packetLen) {
-                lengthToWrite = packetLen;
-                compressedBytes = packet.getByteBuffer();
-                compressedLength = 0;
-                offsetWrite = offset;
-            } else {
-                lengthToWrite = compLen;
-                headerLength += COMP_HEADER_LENGTH;
-                compressedLength = packetLen;
+            if (this.deflater.finished() && (compressedLength < packetLen)) {
+                bytesToSend = this.deflateBuffer;
+                lengthToWrite = compressedLength;
+                uncompressedLength = packetLen;
             }
         }
 
-        Buffer compressedPacket = new Buffer(packetLen + headerLength);
+        this.compressedHeader[0] = (byte) (lengthToWrite & 0xff);
+        this.compressedHeader[1] = (byte) (lengthToWrite >>> 8);
+        this.compressedHeader[2] = (byte) (lengthToWrite >>> 16);
+        this.compressedHeader[3] = this.packetSequence;
+        this.compressedHeader[4] = (byte) (uncompressedLength & 0xff);
+        this.compressedHeader[5] = (byte) (uncompressedLength >>> 8);
+        this.compressedHeader[6] = (byte) (uncompressedLength >>> 16);
 
-        compressedPacket.setPosition(0);
-        compressedPacket.writeLongInt(lengthToWrite);
-        compressedPacket.writeByte(this.packetSequence);
-        compressedPacket.writeLongInt(compressedLength);
-        compressedPacket.writeBytesNoNull(compressedBytes, offsetWrite,
-            lengthToWrite);
+        this.mysqlOutput.write(this.compressedHeader, 0,
+            this.compressedHeader.length);
+        this.mysqlOutput.write(bytesToSend, 0, lengthToWrite);
 
-        return compressedPacket;
+        // 
+        // Don't hold on to large buffers
+        //
+        if ((this.deflateBuffer != null)
+                && (this.deflateBuffer.length > 1048576)) {
+            this.deflateBuffer = null;
+        }
     }
 
     private SocketFactory createSocketFactory() throws SQLException {
@@ -0,0 +1,97 @@
+/*
+   Copyright (C) 2002 MySQL AB
+
+      This program is free software; you can redistribute it and/or modify
+      it under the terms of the GNU General Public License as published by
+      the Free Software Foundation; either version 2 of the License, or
+      (at your option) any later version.
+
+      This program is distributed in the hope that it will be useful,
+      but WITHOUT ANY WARRANTY; without even the implied warranty of
+      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+      GNU General Public License for more details.
+
+      You should have received a copy of the GNU General Public License
+      along with this program; if not, write to the Free Software
+      Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+ */
+package com.mysql.jdbc;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.channels.SocketChannel;
+import java.util.Properties;
+
+
+/**
+ * Socket factory that creates sockets backed by a (blocking)
+ * java.nio.channels.SocketChannel. When the driver sees a socket with a
+ * channel, it reads from the server through a ChannelInputStream, which
+ * fills a pooled direct ByteBuffer straight from the channel instead of
+ * going through the socket's InputStream. Requires a 1.4 or newer JVM.
+ *
+ * Use by setting 'socketFactory=com.mysql.jdbc.NioSocketFactory'.
+ *
+ * @author Mark Matthews
+ */
+public class NioSocketFactory extends StandardSocketFactory {
+    /**
+     * @see com.mysql.jdbc.SocketFactory#connect(String, Properties)
+     */
+    public Socket connect(String host, Properties props)
+        throws SocketException, IOException {
+        if ((props != null) && (host != null)) {
+            this.host = host;
+
+            String portStr = props.getProperty("PORT");
+
+            if (portStr != null) {
+                this.port = Integer.parseInt(portStr);
+            }
+
+            int connectTimeout = 0;
+
+            String connectTimeoutStr = props.getProperty("connectTimeout");
+
+            if (connectTimeoutStr != null) {
+                try {
+                    connectTimeout = Integer.parseInt(connectTimeoutStr);
+                } catch (NumberFormatException nfe) {
+                    throw new SocketException("Illegal value '"
+                        + connectTimeoutStr + "' for connectTimeout");
+                }
+            }
+
+            SocketChannel channel = SocketChannel.open();
+
+            try {
+                this.rawSocket = channel.socket();
+                this.rawSocket.connect(new InetSocketAddress(this.host,
+                        this.port), connectTimeout);
+            } catch (IOException ioEx) {
+                try {
+                    channel.close();
+                } catch (IOException closeEx) {
+                    /* Ignore */
+                }
+
+                this.rawSocket = null;
+
+                throw ioEx;
+            }
+
+            try {
+                this.rawSocket.setTcpNoDelay(true);
+            } catch (Exception ex) {
+                /* Ignore */
+            }
+
+            return this.rawSocket;
+        }
+
+        throw new SocketException("Unable to create socket");
+    }
+}
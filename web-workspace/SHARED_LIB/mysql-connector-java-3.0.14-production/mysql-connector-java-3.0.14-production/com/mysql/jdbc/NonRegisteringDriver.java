@@ -322,6 +322,71 @@ public class NonRegisteringDriver implements java.sql.Driver {
         useUnbufferedInput.required = false;
         useUnbufferedInput.description = "Don't use BufferedInputStream for reading data from the server true/false (default is 'true')";
 
+        DriverPropertyInfo useFastIntParsing = new DriverPropertyInfo("useFastIntParsing",
+                info.getProperty("useFastIntParsing", "true"));
+        useFastIntParsing.required = false;
+        useFastIntParsing.choices = new String[] { "true", "false" };
+        useFastIntParsing.description = "Should getInt()/getLong()/getShort()/getDouble() parse numeric columns "
+            + "directly from the row data rather than converting to Strings first? (true/false, defaults to 'true')";
+
+        DriverPropertyInfo useServerPrepStmts = new DriverPropertyInfo("useServerPrepStmts",
+                info.getProperty("useServerPrepStmts", "false"));
+        useServerPrepStmts.required = false;
+        useServerPrepStmts.choices = new String[] { "true", "false" };
+        useServerPrepStmts.description = "Should prepareStatement() prepare statements on the server, "
+            + "and send parameters and rows using the binary protocol, "
+            + "if the server is 4.1 or newer? (true/false, defaults to 'false')";
+
+        DriverPropertyInfo rewriteBatchedStatements = new DriverPropertyInfo("rewriteBatchedStatements",
+                info.getProperty("rewriteBatchedStatements", "false"));
+        rewriteBatchedStatements.required = false;
+        rewriteBatchedStatements.choices = new String[] { "true", "false" };
+        rewriteBatchedStatements.description = "Should PreparedStatement.executeBatch() send batches of simple "
+            + "INSERT ... VALUES (...) statements as multi-row INSERTs, bounded by 'max_allowed_packet'? "
+            + "(true/false, defaults to 'false')";
+
+        DriverPropertyInfo useWindowedFetch = new DriverPropertyInfo("useWindowedFetch",
+                info.getProperty("useWindowedFetch", "false"));
+        useWindowedFetch.required = false;
+        useWindowedFetch.choices = new String[] { "true", "false" };
+        useWindowedFetch.description = "Should forward-only, read-only SELECTs issued with Statement.executeQuery() "
+            + "or client-side PreparedStatement.executeQuery() be read in windows of setFetchSize() rows, using LIMIT, so the whole result is never held "
+            + "in memory and the connection stays usable between windows? (true/false, defaults to 'false')";
+
+        DriverPropertyInfo maxPipelinedQueries = new DriverPropertyInfo("maxPipelinedQueries",
+                info.getProperty("maxPipelinedQueries", "16"));
+        maxPipelinedQueries.required = false;
+        maxPipelinedQueries.description = "How many queries sent with Connection.executeAsync() may be waiting "
+            + "for their results to be read before the driver reads the oldest one (default is '16')";
+
+        DriverPropertyInfo loadBalanceReads = new DriverPropertyInfo("loadBalanceReads",
+                info.getProperty("loadBalanceReads", "false"));
+        loadBalanceReads.required = false;
+        loadBalanceReads.choices = new String[] { "true", "false" };
+        loadBalanceReads.description = "Should SELECTs issued while the connection is read-only be sent to "
+            + "one of the replicas, i.e. the hosts after the first one in the URL? (true/false, defaults to 'false')";
+
+        DriverPropertyInfo loadBalanceStrategy = new DriverPropertyInfo("loadBalanceStrategy",
+                info.getProperty("loadBalanceStrategy", "roundRobin"));
+        loadBalanceStrategy.required = false;
+        loadBalanceStrategy.choices = new String[] {
+                "roundRobin", "leastInFlight", "latencyWeighted"
+            };
+        loadBalanceStrategy.description = "How should the replica used for reads be chosen, when 'loadBalanceReads' "
+            + "is 'true'? (roundRobin/leastInFlight/latencyWeighted, defaults to 'roundRobin')";
+
+        DriverPropertyInfo loadBalanceBlacklistTimeout = new DriverPropertyInfo("loadBalanceBlacklistTimeout",
+                info.getProperty("loadBalanceBlacklistTimeout", "30000"));
+        loadBalanceBlacklistTimeout.required = false;
+        loadBalanceBlacklistTimeout.description = "How long (in ms) should a replica that couldn't be reached "
+            + "be avoided before it is tried again (default is '30000')";
+
+        DriverPropertyInfo compressionThreshold = new DriverPropertyInfo("compressionThreshold",
+                info.getProperty("compressionThreshold", "50"));
+        compressionThreshold.required = false;
+        compressionThreshold.description = "When 'useCompression' is 'true', packets shorter than this many "
+            + "bytes are sent uncompressed (default is '50')";
+
         DriverPropertyInfo[] dpi = {
             hostProp, portProp, dbProp, userProp, passwordProp, autoReconnect,
             maxReconnects, initialTimeout, profileSql, socketTimeout, useSSL,
@@ -331,7 +396,11 @@ public class NonRegisteringDriver implements java.sql.Driver {
             useStreamLengthsInPrepStmts, continueBatchOnError,
             allowLoadLocalInfile, strictUpdates, ignoreNonTxTables,
             reconnectAtTxEnd, alwaysClearStream, cachePrepStmts,
-            prepStmtCacheSize, prepStmtCacheSqlLimit, useUnbufferedInput
+            prepStmtCacheSize, prepStmtCacheSqlLimit, useUnbufferedInput,
+            useFastIntParsing, useServerPrepStmts, rewriteBatchedStatements,
+            useWindowedFetch, maxPipelinedQueries, loadBalanceReads,
+            loadBalanceStrategy, loadBalanceBlacklistTimeout,
+            compressionThreshold
         };
 
         return dpi;
@@ -123,6 +123,21 @@ public class PreparedStatement extends com.mysql.jdbc.Statement
         initializeFromParseInfo();
     }
 
+    /**
+     * Creates a new PreparedStatement object that doesn't parse any SQL on
+     * the client, used by ServerPreparedStatement.
+     *
+     * @param conn the connection creating this statement
+     * @param catalog the catalog/database this statement should be issued
+     *        against
+     *
+     * @throws SQLException if a database error occurs.
+     */
+    protected PreparedStatement(Connection conn, String catalog)
+        throws SQLException {
+        super(conn, catalog);
+    }
+
     /**
      * Creates a new PreparedStatement object.
      *
@@ -1388,6 +1403,10 @@ public class PreparedStatement extends com.mysql.jdbc.Statement
         try {
             int[] updateCounts = null;
 
+            if (canRewriteBatchAsMultiValueInsert()) {
+                return executeBatchedInserts();
+            }
+
             if (batchedArgs != null) {
                 int nbrCommands = batchedArgs.size();
                 updateCounts = new int[nbrCommands];
@@ -1521,7 +1540,28 @@ public class PreparedStatement extends com.mysql.jdbc.Statement
                 this.connection.setCatalog(currentCatalog);
             }
 
-            if (this.connection.useMaxRows()) {
+            if (!hasLimitClause && createWindowedResultSet(this.originalSql)) {
+                // Keep the query as sent (with its parameter values) to
+                // re-issue it for the following windows, without the
+                // packet header and the command byte
+                int queryOffset = MysqlIO.HEADER_LENGTH + 1;
+                byte[] queryBytes = new byte[sendPacket.getPosition()
+                    - queryOffset];
+                System.arraycopy(sendPacket.getByteBuffer(), queryOffset,
+                    queryBytes, 0, queryBytes.length);
+
+                sendPacket.writeBytesNoNull((" LIMIT 0," + getFetchSize()).getBytes());
+
+                ResultSet firstWindow = this.connection.execSQL(null, -1,
+                        sendPacket, resultSetConcurrency, false, true,
+                        this.currentCatalog);
+
+                this.results = new ResultSet(this.currentCatalog,
+                        firstWindow.fields,
+                        new RowDataWindowed(this.connection, queryBytes,
+                            this.currentCatalog, getFetchSize(),
+                            firstWindow.rowData), this.connection);
+            } else if (this.connection.useMaxRows()) {
                 // If there isn't a limit clause in the SQL
                 // then limit the number of rows to return in
                 // an efficient manner. Only do this if
@@ -1770,6 +1810,208 @@ public class PreparedStatement extends com.mysql.jdbc.Statement
         return truncatedUpdateCount;
     }
 
+    /**
+     * Sends the batched parameter sets of a simple INSERT as one or more
+     * multi-row INSERTs, each no larger than max_allowed_packet.
+     *
+     * @return an array of update counts containing one element for each
+     *         parameter set in the batch.  Elements are
+     *         Statement.SUCCESS_NO_INFO if the server affected fewer rows
+     *         than the multi-row INSERT they were sent in contained (INSERT
+     *         IGNORE, for example).
+     *
+     * @throws SQLException if a database-access error occurs
+     * @throws java.sql.BatchUpdateException if one of the INSERTs fails
+     */
+    private int[] executeBatchedInserts() throws SQLException {
+        checkClosed();
+
+        int nbrCommands = batchedArgs.size();
+        int[] updateCounts = new int[nbrCommands];
+
+        for (int i = 0; i < nbrCommands; i++) {
+            updateCounts[i] = -3;
+        }
+
+        int headLength = this.parseInfo.multiValueInsertHeadLength;
+        int rowStaticLength = this.staticSqlStrings[0].length - headLength;
+
+        for (int i = 1; i < this.staticSqlStrings.length; i++) {
+            rowStaticLength += this.staticSqlStrings[i].length;
+        }
+
+        int maxPacketLength = this.connection.getMaxAllowedPacket();
+
+        SQLException sqlEx = null;
+
+        synchronized (connection.getMutex()) {
+            int commandIndex = 0;
+
+            while (commandIndex < nbrCommands) {
+                int firstCommandIndex = commandIndex;
+
+                Buffer sendPacket = this.connection.getIO()
+                                                   .getSharedSendPacket();
+
+                sendPacket.clear();
+                sendPacket.writeByte((byte) MysqlDefs.QUERY);
+                sendPacket.writeBytesNoNull(this.staticSqlStrings[0], 0,
+                    headLength);
+
+                int packetLength = MysqlIO.HEADER_LENGTH + 1 + headLength;
+
+                while (commandIndex < nbrCommands) {
+                    BatchParams paramArg = (BatchParams) batchedArgs.get(commandIndex);
+
+                    int rowLength = rowStaticLength + 1;
+
+                    for (int i = 0; i < paramArg.parameterStrings.length;
+                            i++) {
+                        if (paramArg.parameterStrings[i] == null) {
+                            throw new java.sql.SQLException(
+                                "No value specified for parameter " + (i + 1),
+                                SQLError.SQL_STATE_WRONG_NO_OF_PARAMETERS);
+                        }
+
+                        rowLength += paramArg.parameterStrings[i].length;
+                    }
+
+                    if ((commandIndex > firstCommandIndex)
+                            && ((packetLength + rowLength) > maxPacketLength)) {
+                        break;
+                    }
+
+                    if (commandIndex > firstCommandIndex) {
+                        sendPacket.writeByte((byte) ',');
+                    }
+
+                    sendPacket.writeBytesNoNull(this.staticSqlStrings[0],
+                        headLength, this.staticSqlStrings[0].length
+                        - headLength);
+
+                    for (int i = 0; i < paramArg.parameterStrings.length;
+                            i++) {
+                        sendPacket.writeBytesNoNull(paramArg.parameterStrings[i]);
+                        sendPacket.writeBytesNoNull(this.staticSqlStrings[i
+                            + 1]);
+                    }
+
+                    packetLength += rowLength;
+                    commandIndex++;
+                }
+
+                int rowsInStatement = commandIndex - firstCommandIndex;
+
+                try {
+                    ResultSet rs = executeBatchedInsertPacket(sendPacket);
+
+                    int rowUpdateCount = (rs.getUpdateCount() == rowsInStatement)
+                        ? 1 : SUCCESS_NO_INFO;
+
+                    for (int i = firstCommandIndex; i < commandIndex; i++) {
+                        updateCounts[i] = rowUpdateCount;
+                    }
+
+                    this.updateCount = rs.getUpdateCount();
+                    this.lastInsertId = rs.getUpdateID();
+                } catch (SQLException ex) {
+                    for (int i = firstCommandIndex; i < commandIndex; i++) {
+                        updateCounts[i] = EXECUTE_FAILED;
+                    }
+
+                    if (this.connection.continueBatchOnError()) {
+                        sqlEx = ex;
+                    } else {
+                        int[] newUpdateCounts = new int[firstCommandIndex];
+                        System.arraycopy(updateCounts, 0, newUpdateCounts, 0,
+                            firstCommandIndex);
+
+                        throw new java.sql.BatchUpdateException(ex.getMessage(),
+                            ex.getSQLState(), ex.getErrorCode(),
+                            newUpdateCounts);
+                    }
+                }
+            }
+        }
+
+        if (sqlEx != null) {
+            throw new java.sql.BatchUpdateException(sqlEx.getMessage(),
+                sqlEx.getSQLState(), sqlEx.getErrorCode(), updateCounts);
+        }
+
+        return updateCounts;
+    }
+
+    /**
+     * Sends one multi-row INSERT built by executeBatchedInserts(). Guarded
+     * by the connection's mutex.
+     *
+     * @param sendPacket the INSERT
+     *
+     * @return the result of the INSERT
+     *
+     * @throws SQLException if a database error occurs
+     */
+    private ResultSet executeBatchedInsertPacket(Buffer sendPacket)
+        throws SQLException {
+        String oldCatalog = null;
+
+        if (!this.connection.getCatalog().equals(currentCatalog)) {
+            oldCatalog = this.connection.getCatalog();
+            this.connection.setCatalog(currentCatalog);
+        }
+
+        try {
+            if (this.connection.useMaxRows()) {
+                this.connection.execSQL("SET OPTION SQL_SELECT_LIMIT=DEFAULT",
+                    -1, this.currentCatalog);
+            }
+
+            return this.connection.execSQL(null, -1, sendPacket,
+                resultSetConcurrency, false, false, this.currentCatalog);
+        } finally {
+            if (oldCatalog != null) {
+                this.connection.setCatalog(oldCatalog);
+            }
+        }
+    }
+
+    /**
+     * Can the current batch be sent as multi-row INSERTs? Only if the
+     * connection has 'rewriteBatchedStatements' enabled, this is a simple
+     * INSERT ... VALUES (...), the batch holds more than one parameter set,
+     * no streams are used and no generated keys are wanted (the server only
+     * reports the first one).
+     *
+     * @return true if the batch can be rewritten.
+     */
+    private boolean canRewriteBatchAsMultiValueInsert() {
+        if (!this.connection.rewriteBatchedStatements()
+                || (this.parseInfo.multiValueInsertHeadLength == -1)
+                || this.retrieveGeneratedKeys || (batchedArgs == null)
+                || (batchedArgs.size() < 2)) {
+            return false;
+        }
+
+        for (int i = 0; i < batchedArgs.size(); i++) {
+            Object arg = batchedArgs.get(i);
+
+            if (!(arg instanceof BatchParams)) {
+                return false;
+            }
+
+            boolean[] argIsStream = ((BatchParams) arg).isStream;
+
+            for (int j = 0; j < argIsStream.length; j++) {
+                if (argIsStream[j]) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
     byte[] getBytes(int parameterIndex) throws SQLException {
         if (isStream[parameterIndex]) {
             return streamToBytes(parameterStreams[parameterIndex], false,
@@ -2543,6 +2785,13 @@ public class PreparedStatement extends com.mysql.jdbc.Statement
         boolean foundLimitClause = false;
         boolean foundLoadData = false;
         char firstStmtChar = 0;
+
+        /**
+         * Length (in bytes) of staticSql[0] up to the start of the VALUES
+         * (...) list, or -1 if this isn't a simple INSERT that batches can be
+         * rewritten to as a multi-row INSERT.
+         */
+        int multiValueInsertHeadLength = -1;
         int statementLength = 0;
         long lastUsed = 0;
 
@@ -2583,6 +2832,11 @@ public class PreparedStatement extends com.mysql.jdbc.Statement
             int lastAlphaCharPos = 0;
             int stopLookingForLimitClause = statementLength - 5;
 
+            boolean checkForValuesClause = conn.rewriteBatchedStatements();
+            int valuesClauseStart = -1;
+            int valuesClauseEnd = -1;
+            int parenDepth = 0;
+
             foundLimitClause = false;
 
             for (i = 0; i < statementLength; ++i) {
@@ -2613,6 +2867,41 @@ public class PreparedStatement extends com.mysql.jdbc.Statement
                     }
                 }
 
+                // Look for a VALUES (...) list that ends the statement,
+                // with no parameters before it
+                if (checkForValuesClause && !inQuotes && !inQuotedId) {
+                    if (valuesClauseStart == -1) {
+                        if ((lastParmEnd == 0) && ((c == 'V') || (c == 'v'))
+                                && sql.regionMatches(true, i, "VALUES", 0, 6)
+                                && (i > 0)
+                                && (Character.isWhitespace(sql.charAt(i - 1))
+                                || (sql.charAt(i - 1) == ')'))) {
+                            int j = i + 6;
+
+                            while ((j < statementLength)
+                                    && Character.isWhitespace(sql.charAt(j))) {
+                                j++;
+                            }
+
+                            if ((j < statementLength) && (sql.charAt(j) == '(')) {
+                                valuesClauseStart = j;
+                            }
+                        }
+                    } else if (valuesClauseEnd == -1) {
+                        if (i >= valuesClauseStart) {
+                            if (c == '(') {
+                                parenDepth++;
+                            } else if ((c == ')') && (--parenDepth == 0)) {
+                                valuesClauseEnd = i;
+                            }
+                        }
+                    } else if (!Character.isWhitespace(c)) {
+                        // Something follows the VALUES list, i.e.
+                        // ON DUPLICATE KEY UPDATE, can't rewrite
+                        checkForValuesClause = false;
+                    }
+                }
+
                 if ((c == '?') && !inQuotes) {
                     endpointList.add(new int[] { lastParmEnd, i });
                     lastParmEnd = i + 1;
@@ -2663,36 +2952,52 @@ public class PreparedStatement extends com.mysql.jdbc.Statement
                 int begin = ep[0];
                 int len = end - begin;
 
-                if (foundLoadData) {
-                    String temp = new String(sql.toCharArray(), begin, len);
-                    staticSql[i] = temp.getBytes();
-                } else if (encoding == null) {
-                    byte[] buf = new byte[len];
+                staticSql[i] = getStaticSqlBytes(sql, begin, len, encoding,
+                        converter);
+            }
 
-                    for (int j = 0; j < len; j++) {
-                        buf[j] = (byte) sql.charAt(begin + j);
-                    }
+            if (checkForValuesClause && (valuesClauseEnd != -1)
+                    && (firstStmtChar == 'I') && !foundLoadData
+                    && StringUtils.startsWithIgnoreCaseAndWs(sql, "INSERT")) {
+                // Measure the head the same way staticSql[0] was encoded,
+                // valuesClauseStart is a char index, not a byte offset
+                multiValueInsertHeadLength = getStaticSqlBytes(sql, 0,
+                        valuesClauseStart, encoding, converter).length;
+            }
 
-                    staticSql[i] = buf;
-                } else {
-                    try {
-                        if (converter != null) {
-                            staticSql[i] = StringUtils.getBytes(sql, converter,
-                                    encoding, begin, len,
-                                    connection.parserKnowsUnicode());
-                        } else {
-                            String temp = new String(sql.toCharArray(), begin,
-                                    len);
-                            staticSql[i] = StringUtils.getBytes(temp, null,
-                                    encoding, connection.parserKnowsUnicode());
-                        }
-                    } catch (java.io.UnsupportedEncodingException ue) {
-                        throw new SQLException(ue.toString());
+            int numberOfParameters = staticSql.length - 1;
+        }
+
+        private byte[] getStaticSqlBytes(String sql, int begin, int len,
+            String encoding, SingleByteCharsetConverter converter)
+            throws SQLException {
+            if (foundLoadData) {
+                String temp = new String(sql.toCharArray(), begin, len);
+
+                return temp.getBytes();
+            } else if (encoding == null) {
+                byte[] buf = new byte[len];
+
+                for (int j = 0; j < len; j++) {
+                    buf[j] = (byte) sql.charAt(begin + j);
+                }
+
+                return buf;
+            } else {
+                try {
+                    if (converter != null) {
+                        return StringUtils.getBytes(sql, converter, encoding,
+                            begin, len, connection.parserKnowsUnicode());
+                    } else {
+                        String temp = new String(sql.toCharArray(), begin, len);
+
+                        return StringUtils.getBytes(temp, null, encoding,
+                            connection.parserKnowsUnicode());
                     }
+                } catch (java.io.UnsupportedEncodingException ue) {
+                    throw new SQLException(ue.toString());
                 }
             }
-
-            int numberOfParameters = staticSql.length - 1;
         }
     }
 }
@@ -0,0 +1,155 @@
+/*
+   Copyright (C) 2002 MySQL AB
+
+      This program is free software; you can redistribute it and/or modify
+      it under the terms of the GNU General Public License as published by
+      the Free Software Foundation; either version 2 of the License, or
+      (at your option) any later version.
+
+      This program is distributed in the hope that it will be useful,
+      but WITHOUT ANY WARRANTY; without even the implied warranty of
+      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+      GNU General Public License for more details.
+
+      You should have received a copy of the GNU General Public License
+      along with this program; if not, write to the Free Software
+      Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+ */
+package com.mysql.jdbc;
+
+import java.sql.SQLException;
+
+
+/**
+ * The pending results of a query sent with Connection.executeAsync().
+ *
+ * @author Mark Matthews
+ */
+public class QueryFuture {
+    /** The connection the query was sent on */
+    private Connection connection;
+
+    /** The I/O channel the reply will be read from */
+    private MysqlIO io;
+
+    /** Notified when the results have been read, may be null */
+    private QueryListener listener;
+
+    /** The results, once they have been read */
+    private ResultSet results;
+
+    /** Why the query failed, if it did */
+    private SQLException exception;
+
+    /** The catalog in use when the query was sent */
+    private String catalog;
+
+    /** Have the results (or an error) been read? */
+    private boolean isDone = false;
+
+    QueryFuture(Connection conn, MysqlIO io, String catalog,
+        QueryListener listener) {
+        this.connection = conn;
+        this.io = io;
+        this.catalog = catalog;
+        this.listener = listener;
+    }
+
+    /**
+     * Have the results of this query (or the error it caused) been read
+     * from the server? Does not block.
+     *
+     * @return true if getResultSet() and getUpdateCount() won't block
+     */
+    public synchronized boolean isDone() {
+        return this.isDone;
+    }
+
+    /**
+     * Returns the result set produced by the query, reading the results of
+     * this and any earlier pending queries if needed.
+     *
+     * @return the result set, or null if the query didn't produce one
+     *
+     * @throws SQLException if the query failed
+     */
+    public java.sql.ResultSet getResultSet() throws SQLException {
+        waitForResults();
+
+        return this.results.reallyResult() ? this.results : null;
+    }
+
+    /**
+     * Returns the number of rows changed by the query, reading the results
+     * of this and any earlier pending queries if needed.
+     *
+     * @return the update count, or -1 if the query produced a result set
+     *
+     * @throws SQLException if the query failed
+     */
+    public int getUpdateCount() throws SQLException {
+        waitForResults();
+
+        return this.results.reallyResult() ? -1
+                                           : (int) this.results.getUpdateCount();
+    }
+
+    /**
+     * Returns the AUTO_INCREMENT value generated by the query, reading the
+     * results of this and any earlier pending queries if needed.
+     *
+     * @return the last insert id
+     *
+     * @throws SQLException if the query failed
+     */
+    public long getLastInsertID() throws SQLException {
+        waitForResults();
+
+        return this.results.getUpdateID();
+    }
+
+    String getCatalog() {
+        return this.catalog;
+    }
+
+    void setException(SQLException sqlEx) {
+        synchronized (this) {
+            this.exception = sqlEx;
+            this.isDone = true;
+        }
+
+        if (this.listener != null) {
+            this.listener.queryCompleted(this);
+        }
+    }
+
+    void setResults(ResultSet results) throws SQLException {
+        results.setConnection(this.connection);
+
+        synchronized (this) {
+            this.results = results;
+            this.isDone = true;
+        }
+
+        if (this.listener != null) {
+            this.listener.queryCompleted(this);
+        }
+    }
+
+    private void waitForResults() throws SQLException {
+        if (!isDone()) {
+            synchronized (this.connection.getMutex()) {
+                if (!isDone()) {
+                    this.io.completePendingQueries(this);
+                }
+            }
+        }
+
+        synchronized (this) {
+            if (this.exception != null) {
+                throw this.exception;
+            }
+        }
+    }
+}
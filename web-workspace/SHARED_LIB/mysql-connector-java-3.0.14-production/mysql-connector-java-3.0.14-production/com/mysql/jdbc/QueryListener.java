@@ -0,0 +1,37 @@
+/*
+   Copyright (C) 2002 MySQL AB
+
+      This program is free software; you can redistribute it and/or modify
+      it under the terms of the GNU General Public License as published by
+      the Free Software Foundation; either version 2 of the License, or
+      (at your option) any later version.
+
+      This program is distributed in the hope that it will be useful,
+      but WITHOUT ANY WARRANTY; without even the implied warranty of
+      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+      GNU General Public License for more details.
+
+      You should have received a copy of the GNU General Public License
+      along with this program; if not, write to the Free Software
+      Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+ */
+package com.mysql.jdbc;
+
+/**
+ * Notified when the results of a query sent with
+ * Connection.executeAsync() have been read.
+ *
+ * @author Mark Matthews
+ */
+public interface QueryListener {
+    /**
+     * Called once the results (or the error) for the given query have been
+     * read. This is called from whichever thread reads the results, while
+     * it holds the connection's lock, so implementations should not block
+     * or use the connection.
+     *
+     * @param future the query that completed, whose isDone() is now true
+     */
+    void queryCompleted(QueryFuture future);
+}
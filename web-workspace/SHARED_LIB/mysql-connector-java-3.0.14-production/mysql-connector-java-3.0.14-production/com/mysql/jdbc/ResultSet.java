@@ -194,6 +194,7 @@ public class ResultSet implements java.sql.ResultSet {
     protected long updateId = -1;
     private Calendar fastDateCal = null;
     private boolean hasBuiltIndexMapping = false;
+    private boolean useFastIntParsing = false;
     private boolean useStrictFloatingPoint = false;
 
     /**
@@ -864,6 +865,7 @@ public class ResultSet implements java.sql.ResultSet {
 
 		if (this.connection != null) {
 			this.useStrictFloatingPoint = this.connection.useStrictFloatingPoint();
+			this.useFastIntParsing = this.connection.useFastIntParsing();
 			this.defaultTimeZone = this.connection.getDefaultTimeZone();
 		} else {
 			this.defaultTimeZone = TimeZone.getDefault();
@@ -1252,6 +1254,18 @@ public class ResultSet implements java.sql.ResultSet {
      * @throws SQLException DOCUMENT ME!
      */
     public int getInt(int columnIndex) throws java.sql.SQLException {
+        byte[] intAsBytes = getBytesForFastParsing(columnIndex);
+
+        if (intAsBytes != null) {
+            try {
+                return StringUtils.getInt(intAsBytes);
+            } catch (NumberFormatException nfe) {
+                ; // out of range, let the String-based code deal with it
+            }
+        } else if (this.wasNullFlag) {
+            return 0;
+        }
+
         String val = null;
 
         try {
@@ -1334,7 +1348,17 @@ public class ResultSet implements java.sql.ResultSet {
      * @throws SQLException DOCUMENT ME!
      */
     public long getLong(int columnIndex) throws java.sql.SQLException {
-        checkRowPos();
+        byte[] longAsBytes = getBytesForFastParsing(columnIndex);
+
+        if (longAsBytes != null) {
+            try {
+                return StringUtils.getLong(longAsBytes);
+            } catch (NumberFormatException nfe) {
+                ; // out of range, let the String-based code deal with it
+            }
+        } else if (this.wasNullFlag) {
+            return 0;
+        }
 
         String val = null;
 
@@ -1693,7 +1717,17 @@ public class ResultSet implements java.sql.ResultSet {
      * @throws SQLException DOCUMENT ME!
      */
     public short getShort(int columnIndex) throws java.sql.SQLException {
-        checkRowPos();
+        byte[] shortAsBytes = getBytesForFastParsing(columnIndex);
+
+        if (shortAsBytes != null) {
+            try {
+                return StringUtils.getShort(shortAsBytes);
+            } catch (NumberFormatException nfe) {
+                ; // out of range, let the String-based code deal with it
+            }
+        } else if (this.wasNullFlag) {
+            return 0;
+        }
 
         String val = null;
 
@@ -3457,13 +3491,32 @@ public class ResultSet implements java.sql.ResultSet {
         String s = "";
 
         try {
-            s = getString(colIndex);
+            double d = 0;
+            boolean parsedFromBytes = false;
+            byte[] doubleAsBytes = getBytesForFastParsing(colIndex);
 
-            if ((s == null) || (s.length() == 0)) {
+            if (doubleAsBytes != null) {
+                // Integral values (INT, BIGINT columns) never need the
+                // String round-trip, only decimal/exponent forms do
+                try {
+                    d = StringUtils.getLong(doubleAsBytes);
+                    parsedFromBytes = true;
+                } catch (NumberFormatException nfe) {
+                    ; // larger than a long, let Double.parseDouble() handle it
+                }
+            } else if (this.wasNullFlag) {
                 return 0;
             }
 
-            double d = Double.parseDouble(s);
+            if (!parsedFromBytes) {
+                s = getString(colIndex);
+
+                if ((s == null) || (s.length() == 0)) {
+                    return 0;
+                }
+
+                d = Double.parseDouble(s);
+            }
 
             if (this.useStrictFloatingPoint) {
                 // Fix endpoint rounding precision loss in MySQL server
@@ -3657,6 +3710,64 @@ public class ResultSet implements java.sql.ResultSet {
         return reallyResult;
     }
 
+    /**
+     * Returns the raw row data for the given column when it holds a plain
+     * integer that StringUtils can parse without going through a String (and
+     * the character set converters), otherwise null. Sets wasNullFlag, so
+     * that callers can tell a SQL NULL apart from 'take the slow path'.
+     *
+     * @param columnIndex the 1-based index of the column
+     *
+     * @return the bytes to parse, or null
+     *
+     * @throws SQLException if the result set is not positioned on a row
+     */
+    private byte[] getBytesForFastParsing(int columnIndex)
+        throws SQLException {
+        this.wasNullFlag = false;
+
+        if (!this.useFastIntParsing) {
+            return null;
+        }
+
+        checkRowPos();
+
+        if ((columnIndex < 1) || (columnIndex > this.fields.length)) {
+            return null; // let getString() report the bad index
+        }
+
+        if ((this.thisRow == null) || (this.thisRow[columnIndex - 1] == null)) {
+            this.wasNullFlag = true;
+
+            return null;
+        }
+
+        switch (this.fields[columnIndex - 1].getMysqlType()) {
+        case MysqlDefs.FIELD_TYPE_DECIMAL:
+        case MysqlDefs.FIELD_TYPE_TINY:
+        case MysqlDefs.FIELD_TYPE_SHORT:
+        case MysqlDefs.FIELD_TYPE_LONG:
+        case MysqlDefs.FIELD_TYPE_FLOAT:
+        case MysqlDefs.FIELD_TYPE_DOUBLE:
+        case MysqlDefs.FIELD_TYPE_LONGLONG:
+        case MysqlDefs.FIELD_TYPE_INT24:
+
+            byte[] numberAsBytes = this.thisRow[columnIndex - 1];
+
+            if ((numberAsBytes.length == 0)
+                    || StringUtils.isDecimalOrExponentForm(numberAsBytes)) {
+                return null;
+            }
+
+            return numberAsBytes;
+
+        default:
+
+            // Character data may not be ASCII (UCS-2 for example)
+            return null;
+        }
+    }
+
     /**
      * Get the value of a column in the current row as a java.sql.Time object
      * in the given timezone
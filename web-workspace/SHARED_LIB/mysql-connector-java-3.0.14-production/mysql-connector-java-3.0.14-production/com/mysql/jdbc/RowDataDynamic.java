@@ -29,10 +29,12 @@ import java.sql.SQLException;
  * @version $Id: RowDataDynamic.java,v 1.8.2.7 2004/04/18 21:02:50 mmatthew Exp $
  */
 public class RowDataDynamic implements RowData {
+    private Field[] fields;
     private MysqlIO io;
     private byte[][] nextRow;
     private boolean isAfterEnd = false;
     private boolean isAtEnd = false;
+    private boolean isBinaryEncoded = false;
     private boolean streamerClosed = false;
     private int columnCount;
     private int index = -1;
@@ -40,6 +42,10 @@ public class RowDataDynamic implements RowData {
     private long netWriteTimeoutMs = 0;
     private ResultSet owner;
 
+    /** The replica to report the query as finished to, if load-balancing */
+    private LoadBalancer.HostStatus hostStatus;
+    private long queryStartTime = 0;
+
     /**
      * Creates a new RowDataDynamic object.
      *
@@ -49,8 +55,26 @@ public class RowDataDynamic implements RowData {
      * @throws SQLException DOCUMENT ME!
      */
     public RowDataDynamic(MysqlIO io, int colCount) throws SQLException {
+        this(io, colCount, null, false);
+    }
+
+    /**
+     * Creates a new RowDataDynamic object that reads rows which may have
+     * been sent using the binary (server-side prepared statement) protocol.
+     *
+     * @param io the I/O channel rows are read from
+     * @param colCount the number of columns in each row
+     * @param fields the field metadata, needed to decode binary rows
+     * @param isBinaryEncoded are rows sent using the binary protocol?
+     *
+     * @throws SQLException if a database error occurs
+     */
+    public RowDataDynamic(MysqlIO io, int colCount, Field[] fields,
+        boolean isBinaryEncoded) throws SQLException {
         this.io = io;
         this.columnCount = colCount;
+        this.fields = fields;
+        this.isBinaryEncoded = isBinaryEncoded;
         nextRecord();
     }
 
@@ -250,6 +274,7 @@ public class RowDataDynamic implements RowData {
         if (!hasNext && !streamerClosed) {
             io.closeStreamer(this);
             streamerClosed = true;
+            finishQuery();
         }
 
         return hasNext;
@@ -302,10 +327,33 @@ public class RowDataDynamic implements RowData {
         return RESULT_SET_SIZE_UNKNOWN;
     }
 
+    /**
+     * Has the query that produced these rows reported to the given
+     * replica's status when the last row has been read (or reading fails),
+     * so the replica's in-flight count and response time include the time
+     * spent streaming.
+     *
+     * @param status the replica the query was sent to
+     * @param startTime when the query was sent
+     */
+    void setHostStatus(LoadBalancer.HostStatus status, long startTime) {
+        this.hostStatus = status;
+        this.queryStartTime = startTime;
+    }
+
+    private void finishQuery() {
+        if (this.hostStatus != null) {
+            this.hostStatus.queryFinished(System.currentTimeMillis()
+                - this.queryStartTime);
+            this.hostStatus = null;
+        }
+    }
+
     private void nextRecord() throws SQLException {
         try {
             if (!isAtEnd) {
-                nextRow = io.nextRow((int) columnCount);
+                nextRow = io.nextRow(this.fields, (int) columnCount,
+                        this.isBinaryEncoded);
 
                 if (nextRow == null) {
                     isAtEnd = true;
@@ -316,9 +364,13 @@ public class RowDataDynamic implements RowData {
                 isAfterEnd = true;
             }
         } catch (SQLException sqlEx) {
+            finishQuery();
+
             // don't wrap SQLExceptions
             throw sqlEx;
         } catch (IOException ioEx) {
+            finishQuery();
+
         	long timeSinceLastReadMs = System.currentTimeMillis() - this.lastSuccessfulReadTimeMs;
         	
             String exceptionType = ioEx.getClass().getName();
@@ -335,6 +387,8 @@ public class RowDataDynamic implements RowData {
                 + " ms.) : "
                 + exceptionType + " message given: " + exceptionMessage, SQLError.SQL_STATE_GENERAL_ERROR);
         } catch (Exception ex) {
+            finishQuery();
+
             String exceptionType = ex.getClass().getName();
             String exceptionMessage = ex.getMessage();
 
@@ -0,0 +1,367 @@
+/*
+   Copyright (C) 2002 MySQL AB
+
+      This program is free software; you can redistribute it and/or modify
+      it under the terms of the GNU General Public License as published by
+      the Free Software Foundation; either version 2 of the License, or
+      (at your option) any later version.
+
+      This program is distributed in the hope that it will be useful,
+      but WITHOUT ANY WARRANTY; without even the implied warranty of
+      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+      GNU General Public License for more details.
+
+      You should have received a copy of the GNU General Public License
+      along with this program; if not, write to the Free Software
+      Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+ */
+package com.mysql.jdbc;
+
+import java.sql.SQLException;
+
+
+/**
+ * Reads the results of a SELECT in windows of 'fetchSize' rows, by
+ * re-issuing the query with "LIMIT offset, fetchSize" each time the
+ * current window has been consumed. Only one window is held in memory at a
+ * time, and each window is read completely, so unlike RowDataDynamic the
+ * connection can be used for other statements while this result set is
+ * open.
+ *
+ * Each window is a separate query, so the rows are only consistent if the
+ * query has a deterministic order (i.e. an ORDER BY on a unique key), and
+ * the table isn't being modified, or the windows are read inside one
+ * transaction with a consistent snapshot.
+ *
+ * The query is either given as a String (for Statements), or as the bytes
+ * of a client-side PreparedStatement's query, with its parameter values
+ * already filled in and escaped.
+ *
+ * @author Mark Matthews
+ */
+public class RowDataWindowed implements RowData {
+    /** The connection windows are fetched with */
+    private Connection connection;
+
+    /** The rows of the current window */
+    private RowData window;
+
+    /** The owning result set */
+    private ResultSet owner;
+
+    /** The SELECT, without a LIMIT clause */
+    private String sql;
+
+    /**
+     * The SELECT as sent to the server by a PreparedStatement, without the
+     * command byte or a LIMIT clause, or null if 'sql' is used
+     */
+    private byte[] queryBytes;
+
+    /** The catalog the query was issued against */
+    private String catalog;
+
+    /** Was the current window full, i.e. might there be more rows? */
+    private boolean lastWindowWasFull;
+
+    private boolean isAfterEnd = false;
+
+    /** How many rows make up a window */
+    private int fetchSize;
+
+    /** The position of the current row in the whole result */
+    private int index = -1;
+
+    /** The number of rows read from the server so far */
+    private long rowsFetched = 0;
+
+    /**
+     * Creates a new RowDataWindowed.
+     *
+     * @param conn the connection to fetch further windows with
+     * @param sql the SELECT, without a LIMIT clause
+     * @param catalog the catalog the query was issued against
+     * @param fetchSize the number of rows in each window
+     * @param firstWindow the result of the query with "LIMIT 0, fetchSize"
+     *
+     * @throws SQLException if a database error occurs
+     */
+    public RowDataWindowed(Connection conn, String sql, String catalog,
+        int fetchSize, RowData firstWindow) throws SQLException {
+        this.connection = conn;
+        this.sql = sql;
+        this.catalog = catalog;
+        this.fetchSize = fetchSize;
+
+        setWindow(firstWindow);
+    }
+
+    /**
+     * Creates a new RowDataWindowed for a client-side prepared statement.
+     *
+     * @param conn the connection to fetch further windows with
+     * @param queryBytes the SELECT as sent to the server, with the parameter
+     *        values filled in, but without the command byte or a LIMIT
+     *        clause
+     * @param catalog the catalog the query was issued against
+     * @param fetchSize the number of rows in each window
+     * @param firstWindow the result of the query with "LIMIT 0, fetchSize"
+     *
+     * @throws SQLException if a database error occurs
+     */
+    public RowDataWindowed(Connection conn, byte[] queryBytes, String catalog,
+        int fetchSize, RowData firstWindow) throws SQLException {
+        this.connection = conn;
+        this.queryBytes = queryBytes;
+        this.catalog = catalog;
+        this.fetchSize = fetchSize;
+
+        setWindow(firstWindow);
+    }
+
+    /**
+     * @see com.mysql.jdbc.RowData#isAfterLast()
+     */
+    public boolean isAfterLast() throws SQLException {
+        return this.isAfterEnd;
+    }
+
+    /**
+     * Only works on non dynamic result sets.
+     *
+     * @see com.mysql.jdbc.RowData#getAt(int)
+     */
+    public byte[][] getAt(int index) throws SQLException {
+        notSupported();
+
+        return null;
+    }
+
+    /**
+     * @see com.mysql.jdbc.RowData#isBeforeFirst()
+     */
+    public boolean isBeforeFirst() throws SQLException {
+        return this.index < 0;
+    }
+
+    /**
+     * @see com.mysql.jdbc.RowData#setCurrentRow(int)
+     */
+    public void setCurrentRow(int rowNumber) throws SQLException {
+        notSupported();
+    }
+
+    /**
+     * @see com.mysql.jdbc.RowData#setOwner(com.mysql.jdbc.ResultSet)
+     */
+    public void setOwner(ResultSet rs) {
+        this.owner = rs;
+    }
+
+    /**
+     * @see com.mysql.jdbc.RowData#getOwner()
+     */
+    public ResultSet getOwner() {
+        return this.owner;
+    }
+
+    /**
+     * @see com.mysql.jdbc.RowData#getCurrentRowNumber()
+     */
+    public int getCurrentRowNumber() throws SQLException {
+        return this.index;
+    }
+
+    /**
+     * Like streaming result sets, windowed result sets can only be moved
+     * forward.
+     *
+     * @see com.mysql.jdbc.RowData#isDynamic()
+     */
+    public boolean isDynamic() {
+        return true;
+    }
+
+    /**
+     * @see com.mysql.jdbc.RowData#isEmpty()
+     */
+    public boolean isEmpty() throws SQLException {
+        notSupported();
+
+        return false;
+    }
+
+    /**
+     * @see com.mysql.jdbc.RowData#isFirst()
+     */
+    public boolean isFirst() throws SQLException {
+        notSupported();
+
+        return false;
+    }
+
+    /**
+     * @see com.mysql.jdbc.RowData#isLast()
+     */
+    public boolean isLast() throws SQLException {
+        notSupported();
+
+        return false;
+    }
+
+    /**
+     * @see com.mysql.jdbc.RowData#addRow(byte[][])
+     */
+    public void addRow(byte[][] row) throws SQLException {
+        notSupported();
+    }
+
+    /**
+     * @see com.mysql.jdbc.RowData#afterLast()
+     */
+    public void afterLast() throws SQLException {
+        notSupported();
+    }
+
+    /**
+     * @see com.mysql.jdbc.RowData#beforeFirst()
+     */
+    public void beforeFirst() throws SQLException {
+        notSupported();
+    }
+
+    /**
+     * @see com.mysql.jdbc.RowData#beforeLast()
+     */
+    public void beforeLast() throws SQLException {
+        notSupported();
+    }
+
+    /**
+     * Each window has already been read completely, so there is nothing
+     * to drain from the server.
+     *
+     * @see com.mysql.jdbc.RowData#close()
+     */
+    public void close() throws SQLException {
+        if (this.window != null) {
+            this.window.close();
+            this.window = null;
+        }
+
+        this.lastWindowWasFull = false;
+    }
+
+    /**
+     * Returns true if another row exists, fetching the next window from
+     * the server if the current one has been consumed.
+     *
+     * @see com.mysql.jdbc.RowData#hasNext()
+     */
+    public boolean hasNext() throws SQLException {
+        if (this.window == null) {
+            return false;
+        }
+
+        if (!this.window.hasNext() && this.lastWindowWasFull) {
+            fetchNextWindow();
+        }
+
+        return this.window.hasNext();
+    }
+
+    /**
+     * @see com.mysql.jdbc.RowData#moveRowRelative(int)
+     */
+    public void moveRowRelative(int rows) throws SQLException {
+        notSupported();
+    }
+
+    /**
+     * @see com.mysql.jdbc.RowData#next()
+     */
+    public byte[][] next() throws SQLException {
+        if (!hasNext()) {
+            this.isAfterEnd = true;
+
+            return null;
+        }
+
+        this.index++;
+
+        return this.window.next();
+    }
+
+    /**
+     * @see com.mysql.jdbc.RowData#removeRow(int)
+     */
+    public void removeRow(int index) throws SQLException {
+        notSupported();
+    }
+
+    /**
+     * Only works on non dynamic result sets.
+     *
+     * @return the size of this row data
+     */
+    public int size() {
+        return RESULT_SET_SIZE_UNKNOWN;
+    }
+
+    private void fetchNextWindow() throws SQLException {
+        String limitClause = " LIMIT " + this.rowsFetched + ","
+            + this.fetchSize;
+
+        ResultSet windowResults = null;
+
+        synchronized (this.connection.getMutex()) {
+            String oldCatalog = null;
+
+            if (!this.connection.getCatalog().equals(this.catalog)) {
+                oldCatalog = this.connection.getCatalog();
+                this.connection.setCatalog(this.catalog);
+            }
+
+            try {
+                if (this.queryBytes != null) {
+                    Buffer sendPacket = this.connection.getIO()
+                                                       .getSharedSendPacket();
+                    sendPacket.clear();
+                    sendPacket.writeByte((byte) MysqlDefs.QUERY);
+                    sendPacket.writeBytesNoNull(this.queryBytes);
+                    sendPacket.writeBytesNoNull(limitClause.getBytes());
+
+                    windowResults = this.connection.execSQL(null, -1,
+                            sendPacket, java.sql.ResultSet.CONCUR_READ_ONLY,
+                            false, true, this.catalog);
+                } else {
+                    windowResults = this.connection.execSQL(this.sql
+                            + limitClause, -1,
+                            java.sql.ResultSet.CONCUR_READ_ONLY, false, true,
+                            this.catalog);
+                }
+            } finally {
+                if (oldCatalog != null) {
+                    this.connection.setCatalog(oldCatalog);
+                }
+            }
+        }
+
+        this.window.close();
+        setWindow(windowResults.rowData);
+    }
+
+    private void notSupported() throws SQLException {
+        throw new SQLException("Operation not supported for windowed result sets",
+            SQLError.SQL_STATE_ILLEGAL_ARGUMENT);
+    }
+
+    private void setWindow(RowData rows) throws SQLException {
+        int windowSize = rows.size();
+
+        this.window = rows;
+        this.rowsFetched += windowSize;
+        this.lastWindowWasFull = (windowSize == this.fetchSize);
+    }
+}
@@ -0,0 +1,1081 @@
+/*
+   Copyright (C) 2002 MySQL AB
+
+      This program is free software; you can redistribute it and/or modify
+      it under the terms of the GNU General Public License as published by
+      the Free Software Foundation; either version 2 of the License, or
+      (at your option) any later version.
+
+      This program is distributed in the hope that it will be useful,
+      but WITHOUT ANY WARRANTY; without even the implied warranty of
+      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+      GNU General Public License for more details.
+
+      You should have received a copy of the GNU General Public License
+      along with this program; if not, write to the Free Software
+      Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+ */
+package com.mysql.jdbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+
+import java.math.BigDecimal;
+
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+
+/**
+ * A PreparedStatement that is prepared on the MySQL server (4.1 and newer)
+ * using COM_PREPARE, and executed with parameters sent in their binary form
+ * using COM_EXECUTE.
+ *
+ * <p>
+ * The SQL is only parsed (and sent) once, parameters don't need to be escaped
+ * or converted to strings, and result rows are sent by the server in the
+ * binary protocol.
+ * </p>
+ *
+ * <p>
+ * Created by Connection.prepareStatement() when the 'useServerPrepStmts'
+ * property is set to 'true'.
+ * </p>
+ *
+ * @author Mark Matthews
+ * @version $Id$
+ *
+ * @see com.mysql.jdbc.PreparedStatement
+ */
+public class ServerPreparedStatement extends PreparedStatement {
+    /** Maximum number of bytes sent in one COM_LONG_DATA packet */
+    private static final int BLOB_STREAM_READ_BUF_SIZE = 8192;
+
+    /** Error returned by servers that can't prepare the given statement */
+    static final int ER_UNSUPPORTED_PS = 1295;
+
+    /** Used to split parameter dates/times into their fields */
+    private Calendar dateTimeBindingCal = null;
+
+    /** The metadata of the result set, as sent by the server */
+    private Field[] resultFields;
+
+    /** The SQL this statement was prepared with */
+    private String originalSql;
+
+    /** The current parameter values */
+    private BindValue[] parameterBindings;
+
+    /** The parameter types last sent to the server for this statement */
+    private int[] sentParameterTypes;
+
+    /** The first character of the statement (upper-cased) */
+    private char firstCharOfStmt;
+
+    /** The number of columns in the result set */
+    private int fieldCount;
+
+    /** The number of parameters in the statement */
+    private int parameterCount;
+
+    /** The id the server uses to identify this statement */
+    private long serverStatementId;
+
+    /**
+     * Creates a new ServerPreparedStatement, preparing the given SQL on the
+     * server.
+     *
+     * @param conn the connection creating this statement
+     * @param sql the SQL for this statement
+     * @param catalog the catalog/database this statement should be issued
+     *        against
+     *
+     * @throws SQLException if the server can't prepare the statement.
+     */
+    public ServerPreparedStatement(Connection conn, String sql, String catalog)
+        throws SQLException {
+        super(conn, catalog);
+
+        if (sql == null) {
+            throw new SQLException("SQL String can not be NULL",
+                SQLError.SQL_STATE_ILLEGAL_ARGUMENT);
+        }
+
+        this.originalSql = sql;
+        this.firstCharOfStmt = StringUtils.firstNonWsCharUc(sql);
+
+        serverPrepare(sql);
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setAsciiStream(int, InputStream, int)
+     */
+    public synchronized void setAsciiStream(int parameterIndex,
+        InputStream x, int length) throws SQLException {
+        if (x == null) {
+            setNull(parameterIndex, Types.VARCHAR);
+        } else {
+            setBinaryStream(parameterIndex, x, length);
+        }
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setBigDecimal(int, BigDecimal)
+     */
+    public void setBigDecimal(int parameterIndex, BigDecimal x)
+        throws SQLException {
+        if (x == null) {
+            setNull(parameterIndex, Types.DECIMAL);
+        } else {
+            BindValue binding = getBinding(parameterIndex,
+                    MysqlDefs.FIELD_TYPE_VAR_STRING);
+            binding.value = x.toString().getBytes();
+        }
+    }
+
+    /**
+     * Sets a stream parameter. The stream is sent to the server in chunks
+     * using COM_LONG_DATA when the statement is executed, so it never has to
+     * be held in memory in its entirety.
+     *
+     * @param parameterIndex the first parameter is 1...
+     * @param x the parameter value
+     * @param length the number of bytes to read from the stream
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    public void setBinaryStream(int parameterIndex, InputStream x, int length)
+        throws SQLException {
+        if (x == null) {
+            setNull(parameterIndex, Types.BINARY);
+        } else {
+            BindValue binding = getBinding(parameterIndex,
+                    MysqlDefs.FIELD_TYPE_BLOB);
+            binding.value = x;
+            binding.isLongData = true;
+            binding.streamLength = length;
+        }
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setBoolean(int, boolean)
+     */
+    public void setBoolean(int parameterIndex, boolean x)
+        throws SQLException {
+        setByte(parameterIndex, x ? (byte) 1 : (byte) 0);
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setByte(int, byte)
+     */
+    public void setByte(int parameterIndex, byte x) throws SQLException {
+        getBinding(parameterIndex, MysqlDefs.FIELD_TYPE_TINY).longBinding = x;
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setBytes(int, byte[])
+     */
+    public void setBytes(int parameterIndex, byte[] x)
+        throws SQLException {
+        if (x == null) {
+            setNull(parameterIndex, Types.BINARY);
+        } else {
+            getBinding(parameterIndex, MysqlDefs.FIELD_TYPE_BLOB).value = x;
+        }
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setDate(int, java.sql.Date)
+     */
+    public void setDate(int parameterIndex, java.sql.Date x)
+        throws SQLException {
+        if (x == null) {
+            setNull(parameterIndex, Types.DATE);
+        } else {
+            getBinding(parameterIndex, MysqlDefs.FIELD_TYPE_DATE).value = x;
+        }
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setDouble(int, double)
+     */
+    public void setDouble(int parameterIndex, double x)
+        throws SQLException {
+        getBinding(parameterIndex, MysqlDefs.FIELD_TYPE_DOUBLE).doubleBinding = x;
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setFloat(int, float)
+     */
+    public void setFloat(int parameterIndex, float x) throws SQLException {
+        getBinding(parameterIndex, MysqlDefs.FIELD_TYPE_FLOAT).doubleBinding = x;
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setInt(int, int)
+     */
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        getBinding(parameterIndex, MysqlDefs.FIELD_TYPE_LONG).longBinding = x;
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setLong(int, long)
+     */
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        getBinding(parameterIndex, MysqlDefs.FIELD_TYPE_LONGLONG).longBinding = x;
+    }
+
+    /**
+     * Returns the metadata of the result set this statement will produce,
+     * which the server sends when the statement is prepared.
+     *
+     * @return the description of a ResultSet's columns
+     *
+     * @throws SQLException if a database-access error occurs.
+     */
+    public synchronized java.sql.ResultSetMetaData getMetaData()
+        throws SQLException {
+        checkClosed();
+
+        if (this.resultFields == null) {
+            return new ResultSetMetaData(new Field[0]);
+        }
+
+        return new ResultSetMetaData(this.resultFields);
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setNull(int, int)
+     */
+    public void setNull(int parameterIndex, int sqlType)
+        throws SQLException {
+        getBinding(parameterIndex, MysqlDefs.FIELD_TYPE_NULL).isNull = true;
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setShort(int, short)
+     */
+    public void setShort(int parameterIndex, short x) throws SQLException {
+        getBinding(parameterIndex, MysqlDefs.FIELD_TYPE_SHORT).longBinding = x;
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setString(int, String)
+     */
+    public void setString(int parameterIndex, String x)
+        throws SQLException {
+        if (x == null) {
+            setNull(parameterIndex, Types.CHAR);
+        } else {
+            try {
+                getBinding(parameterIndex, MysqlDefs.FIELD_TYPE_VAR_STRING).value = StringUtils
+                    .getBytes(x, this.charConverter, this.charEncoding,
+                        this.connection.parserKnowsUnicode());
+            } catch (UnsupportedEncodingException uue) {
+                throw new SQLException("Unsupported character encoding '"
+                    + this.charEncoding + "'",
+                    SQLError.SQL_STATE_ILLEGAL_ARGUMENT);
+            }
+        }
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setTime(int, Time)
+     */
+    public void setTime(int parameterIndex, Time x) throws SQLException {
+        setTimeInternal(parameterIndex, x,
+            this.connection.getDefaultTimeZone());
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setTime(int, Time, Calendar)
+     */
+    public void setTime(int parameterIndex, Time x, Calendar cal)
+        throws SQLException {
+        setTimeInternal(parameterIndex, x, cal.getTimeZone());
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setTimestamp(int, Timestamp)
+     */
+    public void setTimestamp(int parameterIndex, Timestamp x)
+        throws SQLException {
+        setTimestampInternal(parameterIndex, x,
+            this.connection.getDefaultTimeZone());
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setTimestamp(int, Timestamp, Calendar)
+     */
+    public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal)
+        throws SQLException {
+        setTimestampInternal(parameterIndex, x, cal.getTimeZone());
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#setUnicodeStream(int, InputStream, int)
+     * @deprecated
+     */
+    public void setUnicodeStream(int parameterIndex, InputStream x, int length)
+        throws SQLException {
+        if (x == null) {
+            setNull(parameterIndex, Types.VARCHAR);
+        } else {
+            setBinaryStream(parameterIndex, x, length);
+        }
+    }
+
+    /**
+     * JDBC 2.0 Add a set of parameters to the batch.
+     *
+     * @throws SQLException if a database-access error occurs.
+     *
+     * @see Statement#addBatch
+     */
+    public void addBatch() throws SQLException {
+        checkClosed();
+
+        if (this.batchedArgs == null) {
+            this.batchedArgs = new ArrayList();
+        }
+
+        BindValue[] batchedBindings = new BindValue[this.parameterCount];
+
+        for (int i = 0; i < this.parameterCount; i++) {
+            batchedBindings[i] = new BindValue(this.parameterBindings[i]);
+        }
+
+        this.batchedArgs.add(batchedBindings);
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#clearParameters()
+     */
+    public void clearParameters() throws SQLException {
+        for (int i = 0; i < this.parameterCount; i++) {
+            this.parameterBindings[i].reset();
+        }
+    }
+
+    /**
+     * Closes this statement, and de-allocates it on the server.
+     *
+     * @throws SQLException if a database error occurs.
+     */
+    public synchronized void close() throws SQLException {
+        if (this.isClosed) {
+            return;
+        }
+
+        if (this.connection != null) {
+            try {
+                synchronized (this.connection.getMutex()) {
+                    MysqlIO mysql = this.connection.getIO();
+
+                    Buffer packet = mysql.getSharedSendPacket();
+                    packet.clear();
+                    packet.writeByte((byte) MysqlDefs.COM_CLOSE_STATEMENT);
+                    packet.ensureCapacity(4);
+                    packet.writeLong(this.serverStatementId);
+
+                    // The server doesn't respond to COM_CLOSE_STATEMENT
+                    mysql.sendCommand(MysqlDefs.COM_CLOSE_STATEMENT, null,
+                        packet, true);
+                }
+            } catch (SQLException sqlEx) {
+                // Connection is already closed, or the server is gone,
+                // either way the statement no longer exists on the server
+            } catch (Exception ex) {
+                ;
+            }
+        }
+
+        super.close();
+
+        this.parameterBindings = null;
+        this.resultFields = null;
+        this.sentParameterTypes = null;
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#execute()
+     */
+    public boolean execute() throws SQLException {
+        checkClosed();
+
+        if (this.connection.isReadOnly() && (this.firstCharOfStmt != 'S')) {
+            throw new SQLException("Connection is read-only. "
+                + "Queries leading to data modification are not allowed",
+                SQLError.SQL_STATE_ILLEGAL_ARGUMENT);
+        }
+
+        ResultSet rs = serverExecute(this.parameterBindings,
+                this.firstCharOfStmt == 'S');
+
+        return ((rs != null) && rs.reallyResult());
+    }
+
+    /**
+     * JDBC 2.0 Submit a batch of commands to the database for execution. The
+     * statement is executed once for each set of batched parameters, without
+     * being re-parsed by the server.
+     *
+     * @return an array of update counts containing one element for each
+     *         command in the batch.
+     *
+     * @throws SQLException if a database-access error occurs
+     * @throws java.sql.BatchUpdateException if one of the commands fails
+     */
+    public synchronized int[] executeBatch() throws SQLException {
+        checkClosed();
+
+        if (this.connection.isReadOnly()) {
+            throw new SQLException("Connection is read-only. "
+                + "Queries leading to data modification are not allowed",
+                SQLError.SQL_STATE_ILLEGAL_ARGUMENT);
+        }
+
+        try {
+            if (this.batchedArgs == null) {
+                return new int[0];
+            }
+
+            int nbrCommands = this.batchedArgs.size();
+            int[] updateCounts = new int[nbrCommands];
+
+            for (int i = 0; i < nbrCommands; i++) {
+                updateCounts[i] = -3;
+            }
+
+            SQLException sqlEx = null;
+
+            for (int commandIndex = 0; commandIndex < nbrCommands;
+                    commandIndex++) {
+                Object arg = this.batchedArgs.get(commandIndex);
+
+                try {
+                    if (arg instanceof String) {
+                        updateCounts[commandIndex] = executeUpdate((String) arg);
+                    } else {
+                        updateCounts[commandIndex] = getTruncatedUpdateCount(serverExecute(
+                                    (BindValue[]) arg, false));
+                    }
+                } catch (SQLException ex) {
+                    updateCounts[commandIndex] = EXECUTE_FAILED;
+
+                    if (this.connection.continueBatchOnError()) {
+                        sqlEx = ex;
+                    } else {
+                        int[] newUpdateCounts = new int[commandIndex];
+                        System.arraycopy(updateCounts, 0, newUpdateCounts, 0,
+                            commandIndex);
+
+                        throw new java.sql.BatchUpdateException(ex.getMessage(),
+                            ex.getSQLState(), ex.getErrorCode(),
+                            newUpdateCounts);
+                    }
+                }
+            }
+
+            if (sqlEx != null) {
+                throw new java.sql.BatchUpdateException(sqlEx.getMessage(),
+                    sqlEx.getSQLState(), sqlEx.getErrorCode(), updateCounts);
+            }
+
+            return updateCounts;
+        } finally {
+            clearBatch();
+        }
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#executeQuery()
+     */
+    public synchronized java.sql.ResultSet executeQuery()
+        throws SQLException {
+        checkClosed();
+
+        if ((this.firstCharOfStmt == 'I') || (this.firstCharOfStmt == 'U')
+                || (this.firstCharOfStmt == 'D')
+                || (this.firstCharOfStmt == 'A')
+                || (this.firstCharOfStmt == 'C')) {
+            if (StringUtils.startsWithIgnoreCaseAndWs(this.originalSql, "INSERT")
+                    || StringUtils.startsWithIgnoreCaseAndWs(this.originalSql,
+                        "UPDATE")
+                    || StringUtils.startsWithIgnoreCaseAndWs(this.originalSql,
+                        "DELETE")
+                    || StringUtils.startsWithIgnoreCaseAndWs(this.originalSql,
+                        "DROP")
+                    || StringUtils.startsWithIgnoreCaseAndWs(this.originalSql,
+                        "CREATE")
+                    || StringUtils.startsWithIgnoreCaseAndWs(this.originalSql,
+                        "ALTER")) {
+                throw new SQLException("Can not issue data manipulation statements with executeQuery()",
+                    SQLError.SQL_STATE_ILLEGAL_ARGUMENT);
+            }
+        }
+
+        ResultSet rs = serverExecute(this.parameterBindings, true);
+
+        this.nextResults = rs;
+
+        return rs;
+    }
+
+    /**
+     * @see java.sql.PreparedStatement#executeUpdate()
+     */
+    public synchronized int executeUpdate() throws SQLException {
+        checkClosed();
+
+        if (this.connection.isReadOnly()) {
+            throw new SQLException("Connection is read-only. "
+                + "Queries leading to data modification are not allowed",
+                SQLError.SQL_STATE_ILLEGAL_ARGUMENT);
+        }
+
+        if ((this.firstCharOfStmt == 'S')
+                && StringUtils.startsWithIgnoreCaseAndWs(this.originalSql,
+                    "SELECT")) {
+            throw new java.sql.SQLException("Can not issue executeUpdate() for SELECTs",
+                SQLError.SQL_STATE_ILLEGAL_ARGUMENT);
+        }
+
+        return getTruncatedUpdateCount(serverExecute(this.parameterBindings,
+                false));
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    public String toString() {
+        StringBuffer buf = new StringBuffer();
+        buf.append(getClass().getName());
+        buf.append("[");
+        buf.append(this.serverStatementId);
+        buf.append("]: ");
+        buf.append(this.originalSql);
+
+        return buf.toString();
+    }
+
+    /**
+     * Used by updatable result sets, which always use client-side prepared
+     * statements, but implemented here for completeness.
+     *
+     * @param parameterIndex the parameter to set.
+     * @param parameterAsBytes the parameter as a string.
+     *
+     * @throws SQLException if an error occurs
+     */
+    protected void setBytesNoEscape(int parameterIndex, byte[] parameterAsBytes)
+        throws SQLException {
+        getBinding(parameterIndex, MysqlDefs.FIELD_TYPE_VAR_STRING).value = parameterAsBytes;
+    }
+
+    /**
+     * Returns the id the server has assigned to this statement.
+     *
+     * @return the server statement id
+     */
+    long getServerStatementId() {
+        return this.serverStatementId;
+    }
+
+    private BindValue getBinding(int parameterIndex, int bufferType)
+        throws SQLException {
+        checkClosed();
+
+        if ((parameterIndex < 1) || (parameterIndex > this.parameterCount)) {
+            throw new SQLException("Parameter index out of range ("
+                + parameterIndex + " > " + this.parameterCount + ")",
+                SQLError.SQL_STATE_ILLEGAL_ARGUMENT);
+        }
+
+        BindValue binding = this.parameterBindings[parameterIndex - 1];
+        binding.reset();
+        binding.bufferType = bufferType;
+        binding.isSet = true;
+
+        return binding;
+    }
+
+    private void setTimeInternal(int parameterIndex, Time x, TimeZone tz)
+        throws SQLException {
+        if (x == null) {
+            setNull(parameterIndex, Types.TIME);
+        } else {
+            getBinding(parameterIndex, MysqlDefs.FIELD_TYPE_TIME).value = TimeUtil
+                .changeTimezone(this.connection, x, tz,
+                    this.connection.getServerTimezone());
+        }
+    }
+
+    private void setTimestampInternal(int parameterIndex, Timestamp x,
+        TimeZone tz) throws SQLException {
+        if (x == null) {
+            setNull(parameterIndex, Types.TIMESTAMP);
+        } else {
+            getBinding(parameterIndex, MysqlDefs.FIELD_TYPE_DATETIME).value = TimeUtil
+                .changeTimezone(this.connection, x, tz,
+                    this.connection.getServerTimezone());
+        }
+    }
+
+    private int getTruncatedUpdateCount(ResultSet rs) {
+        this.updateCount = rs.getUpdateCount();
+
+        if (this.updateCount > Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+
+        return (int) this.updateCount;
+    }
+
+    /**
+     * Sends COM_EXECUTE for this statement with the given parameter values,
+     * sending any stream parameters first.
+     *
+     * @param bindings the parameter values
+     * @param isQuery is a result set expected?
+     *
+     * @return the result of the execution
+     *
+     * @throws SQLException if a database error occurs
+     */
+    private ResultSet serverExecute(BindValue[] bindings, boolean isQuery)
+        throws SQLException {
+        for (int i = 0; i < this.parameterCount; i++) {
+            if (!bindings[i].isSet) {
+                throw new SQLException("No value specified for parameter "
+                    + (i + 1), SQLError.SQL_STATE_WRONG_NO_OF_PARAMETERS);
+            }
+        }
+
+        ResultSet rs = null;
+
+        synchronized (this.connection.getMutex()) {
+            if (this.results != null) {
+                this.results.close();
+                this.results = null;
+            }
+
+            String oldCatalog = null;
+
+            if (!this.connection.getCatalog().equals(this.currentCatalog)) {
+                oldCatalog = this.connection.getCatalog();
+                this.connection.setCatalog(this.currentCatalog);
+            }
+
+            //
+            // SQL_SELECT_LIMIT is connection-wide, so reset it if
+            // another statement has changed it. Our own row limit
+            // is applied while reading the rows.
+            //
+            if (this.connection.useMaxRows()) {
+                this.connection.execSQL("SET OPTION SQL_SELECT_LIMIT=DEFAULT",
+                    -1, this.currentCatalog);
+            }
+
+            MysqlIO mysql = this.connection.getIO();
+
+            try {
+                for (int i = 0; i < this.parameterCount; i++) {
+                    if (bindings[i].isLongData) {
+                        serverLongData(mysql, i, bindings[i]);
+                    }
+                }
+
+                Buffer packet = mysql.getSharedSendPacket();
+                packet.clear();
+                packet.writeByte((byte) MysqlDefs.COM_EXECUTE);
+                packet.ensureCapacity(9);
+                packet.writeLong(this.serverStatementId);
+                packet.writeByte((byte) 0); // no cursor
+                packet.writeLong(1); // iteration count
+
+                if (this.parameterCount > 0) {
+                    fillExecutePacket(packet, bindings);
+                }
+
+                Buffer resultPacket = mysql.sendCommand(MysqlDefs.COM_EXECUTE,
+                        null, packet, false);
+
+                int realMaxRows = (this.maxRows <= 0) ? MysqlDefs.MAX_ROWS
+                                                      : this.maxRows;
+
+                rs = mysql.readResultsForQueryOrUpdate(resultPacket,
+                        realMaxRows, this.resultSetConcurrency,
+                        isQuery && createStreamingResultSet(),
+                        this.currentCatalog, true);
+            } catch (SQLException sqlEx) {
+                // don't wrap SQLExceptions
+                throw sqlEx;
+            } catch (Exception ex) {
+                String exceptionMessage = ex.getMessage();
+
+                if (!this.connection.useParanoidErrorMessages()) {
+                    exceptionMessage += "\n\nNested Stack Trace:\n";
+                    exceptionMessage += Util.stackTraceToString(ex);
+                }
+
+                throw new SQLException(
+                    "Error during query: Unexpected Exception: "
+                    + ex.getClass().getName() + " message given: "
+                    + exceptionMessage, SQLError.SQL_STATE_GENERAL_ERROR);
+            } finally {
+                if (oldCatalog != null) {
+                    this.connection.setCatalog(oldCatalog);
+                }
+            }
+        }
+
+        this.lastInsertId = rs.getUpdateID();
+
+        rs.setFirstCharOfQuery(this.firstCharOfStmt);
+        rs.setConnection(this.connection);
+        rs.setResultSetType(this.resultSetType);
+        rs.setResultSetConcurrency(this.resultSetConcurrency);
+        rs.setStatement(this);
+
+        this.results = rs;
+
+        return rs;
+    }
+
+    private void fillExecutePacket(Buffer packet, BindValue[] bindings)
+        throws SQLException {
+        //
+        // Null bitmask
+        //
+        int nullCount = (this.parameterCount + 7) / 8;
+        byte[] nullBitsBuffer = new byte[nullCount];
+
+        for (int i = 0; i < this.parameterCount; i++) {
+            if (bindings[i].isNull) {
+                nullBitsBuffer[i / 8] |= (1 << (i & 7));
+            }
+        }
+
+        packet.writeBytesNoNull(nullBitsBuffer);
+
+        //
+        // Only send the types if they've changed since
+        // the last execution
+        //
+        boolean sendTypesToServer = false;
+
+        if (this.sentParameterTypes == null) {
+            this.sentParameterTypes = new int[this.parameterCount];
+            sendTypesToServer = true;
+        }
+
+        for (int i = 0; i < this.parameterCount; i++) {
+            if (this.sentParameterTypes[i] != bindings[i].bufferType) {
+                sendTypesToServer = true;
+            }
+        }
+
+        packet.writeByte(sendTypesToServer ? (byte) 1 : (byte) 0);
+
+        if (sendTypesToServer) {
+            packet.ensureCapacity(2 * this.parameterCount);
+
+            for (int i = 0; i < this.parameterCount; i++) {
+                packet.writeInt(bindings[i].bufferType);
+                this.sentParameterTypes[i] = bindings[i].bufferType;
+            }
+        }
+
+        for (int i = 0; i < this.parameterCount; i++) {
+            if (!bindings[i].isNull && !bindings[i].isLongData) {
+                storeBinding(packet, bindings[i]);
+            }
+        }
+    }
+
+    private void storeBinding(Buffer packet, BindValue binding)
+        throws SQLException {
+        switch (binding.bufferType) {
+        case MysqlDefs.FIELD_TYPE_TINY:
+            packet.writeByte((byte) binding.longBinding);
+
+            return;
+
+        case MysqlDefs.FIELD_TYPE_SHORT:
+            packet.ensureCapacity(2);
+            packet.writeInt((int) binding.longBinding);
+
+            return;
+
+        case MysqlDefs.FIELD_TYPE_LONG:
+            packet.ensureCapacity(4);
+            packet.writeLong(binding.longBinding);
+
+            return;
+
+        case MysqlDefs.FIELD_TYPE_LONGLONG:
+            packet.ensureCapacity(8);
+            packet.writeLongLong(binding.longBinding);
+
+            return;
+
+        case MysqlDefs.FIELD_TYPE_FLOAT:
+            packet.ensureCapacity(4);
+            packet.writeFloat((float) binding.doubleBinding);
+
+            return;
+
+        case MysqlDefs.FIELD_TYPE_DOUBLE:
+            packet.ensureCapacity(8);
+            packet.writeDouble(binding.doubleBinding);
+
+            return;
+
+        case MysqlDefs.FIELD_TYPE_TIME:
+            storeTime(packet, (java.util.Date) binding.value);
+
+            return;
+
+        case MysqlDefs.FIELD_TYPE_DATE:
+        case MysqlDefs.FIELD_TYPE_DATETIME:
+            storeDateTime(packet, (java.util.Date) binding.value,
+                binding.bufferType == MysqlDefs.FIELD_TYPE_DATETIME);
+
+            return;
+
+        default:
+            packet.writeLenBytes((byte[]) binding.value);
+        }
+    }
+
+    private void storeTime(Buffer packet, java.util.Date value)
+        throws SQLException {
+        if (this.dateTimeBindingCal == null) {
+            this.dateTimeBindingCal = Calendar.getInstance();
+        }
+
+        this.dateTimeBindingCal.setTime(value);
+
+        packet.ensureCapacity(9);
+        packet.writeByte((byte) 8); // length
+        packet.writeByte((byte) 0); // neg flag
+        packet.writeLong(0); // days
+        packet.writeByte((byte) this.dateTimeBindingCal.get(
+                Calendar.HOUR_OF_DAY));
+        packet.writeByte((byte) this.dateTimeBindingCal.get(Calendar.MINUTE));
+        packet.writeByte((byte) this.dateTimeBindingCal.get(Calendar.SECOND));
+    }
+
+    private void storeDateTime(Buffer packet, java.util.Date value,
+        boolean includeTime) throws SQLException {
+        if (this.dateTimeBindingCal == null) {
+            this.dateTimeBindingCal = Calendar.getInstance();
+        }
+
+        this.dateTimeBindingCal.setTime(value);
+
+        packet.ensureCapacity(8);
+        packet.writeByte(includeTime ? (byte) 7 : (byte) 4); // length
+        packet.writeInt(this.dateTimeBindingCal.get(Calendar.YEAR));
+        packet.writeByte((byte) (this.dateTimeBindingCal.get(Calendar.MONTH)
+            + 1));
+        packet.writeByte((byte) this.dateTimeBindingCal.get(
+                Calendar.DAY_OF_MONTH));
+
+        if (includeTime) {
+            packet.writeByte((byte) this.dateTimeBindingCal.get(
+                    Calendar.HOUR_OF_DAY));
+            packet.writeByte((byte) this.dateTimeBindingCal.get(
+                    Calendar.MINUTE));
+            packet.writeByte((byte) this.dateTimeBindingCal.get(
+                    Calendar.SECOND));
+        }
+    }
+
+    /**
+     * Sends the contents of a stream parameter to the server in one or more
+     * COM_LONG_DATA packets.
+     *
+     * @param mysql the I/O channel to use
+     * @param parameterIndex the (zero-based) parameter
+     * @param binding the parameter value
+     *
+     * @throws Exception if an error occurs
+     */
+    private void serverLongData(MysqlIO mysql, int parameterIndex,
+        BindValue binding) throws Exception {
+        InputStream inStream = (InputStream) binding.value;
+        boolean useLength = this.connection.useStreamLengthsInPrepStmts()
+            && (binding.streamLength != -1);
+        int bytesLeft = binding.streamLength;
+        byte[] buf = new byte[BLOB_STREAM_READ_BUF_SIZE];
+        boolean sentData = false;
+
+        Buffer packet = mysql.getSharedSendPacket();
+
+        try {
+            while (!useLength || (bytesLeft > 0)) {
+                int toRead = useLength ? Math.min(bytesLeft, buf.length)
+                                       : buf.length;
+                int numRead = inStream.read(buf, 0, toRead);
+
+                if (numRead == -1) {
+                    break;
+                }
+
+                if (useLength) {
+                    bytesLeft -= numRead;
+                }
+
+                packet.clear();
+                packet.writeByte((byte) MysqlDefs.COM_LONG_DATA);
+                packet.ensureCapacity(6);
+                packet.writeLong(this.serverStatementId);
+                packet.writeInt(parameterIndex);
+                packet.writeBytesNoNull(buf, 0, numRead);
+
+                // The server doesn't respond to COM_LONG_DATA
+                mysql.sendCommand(MysqlDefs.COM_LONG_DATA, null, packet, true);
+
+                sentData = true;
+            }
+        } catch (IOException ioEx) {
+            throw new SQLException("Error reading from InputStream "
+                + ioEx.getClass().getName(), SQLError.SQL_STATE_GENERAL_ERROR);
+        }
+
+        if (!sentData) {
+            //
+            // Empty stream, make sure the server knows about it
+            // (otherwise it thinks the parameter is NULL)
+            //
+            packet.clear();
+            packet.writeByte((byte) MysqlDefs.COM_LONG_DATA);
+            packet.ensureCapacity(6);
+            packet.writeLong(this.serverStatementId);
+            packet.writeInt(parameterIndex);
+
+            mysql.sendCommand(MysqlDefs.COM_LONG_DATA, null, packet, true);
+        }
+    }
+
+    /**
+     * Sends COM_PREPARE for the given SQL, and reads the statement id and
+     * parameter/result metadata from the server's response.
+     *
+     * @param sql the SQL to prepare
+     *
+     * @throws SQLException if the server can't prepare the statement
+     */
+    private void serverPrepare(String sql) throws SQLException {
+        synchronized (this.connection.getMutex()) {
+            MysqlIO mysql = this.connection.getIO();
+
+            try {
+                Buffer packet = mysql.getSharedSendPacket();
+                packet.clear();
+                packet.writeByte((byte) MysqlDefs.COM_PREPARE);
+
+                if (this.charEncoding != null) {
+                    packet.writeStringNoNull(sql, this.charEncoding,
+                        this.charConverter,
+                        this.connection.parserKnowsUnicode());
+                } else {
+                    packet.writeStringNoNull(sql);
+                }
+
+                Buffer prepareResultPacket = mysql.sendCommand(MysqlDefs.COM_PREPARE,
+                        null, packet, false);
+
+                // 4.1.1 and newer use the first byte
+                // as an 'ok' or 'error' flag, which
+                // sendCommand() has already read
+                this.serverStatementId = prepareResultPacket.readLong();
+                this.fieldCount = prepareResultPacket.readInt();
+                this.parameterCount = prepareResultPacket.readInt();
+
+                this.parameterBindings = new BindValue[this.parameterCount];
+
+                for (int i = 0; i < this.parameterCount; i++) {
+                    this.parameterBindings[i] = new BindValue();
+                }
+
+                if (this.parameterCount > 0) {
+                    readFields(mysql, this.parameterCount); // not used (yet)
+                }
+
+                if (this.fieldCount > 0) {
+                    this.resultFields = readFields(mysql, this.fieldCount);
+                }
+            } catch (SQLException sqlEx) {
+                throw sqlEx;
+            } catch (Exception ex) {
+                throw new SQLException("Unable to prepare statement: "
+                    + ex.getClass().getName() + ", " + ex.getMessage(),
+                    SQLError.SQL_STATE_GENERAL_ERROR);
+            }
+        }
+    }
+
+    private Field[] readFields(MysqlIO mysql, int count)
+        throws SQLException {
+        Field[] fields = new Field[count];
+
+        for (int i = 0; i < count; i++) {
+            fields[i] = mysql.unpackField(mysql.readPacket(), false);
+        }
+
+        mysql.readPacket(); // skip the EOF packet
+
+        return fields;
+    }
+
+    /**
+     * The value (and type) of one parameter of a server-side prepared
+     * statement.
+     */
+    static class BindValue {
+        Object value;
+        boolean isLongData;
+        boolean isNull;
+        boolean isSet = false;
+        double doubleBinding;
+        int bufferType;
+        int streamLength;
+        long longBinding;
+
+        BindValue() {
+        }
+
+        BindValue(BindValue copyMe) {
+            this.value = copyMe.value;
+            this.isLongData = copyMe.isLongData;
+            this.isNull = copyMe.isNull;
+            this.isSet = copyMe.isSet;
+            this.doubleBinding = copyMe.doubleBinding;
+            this.bufferType = copyMe.bufferType;
+            this.streamLength = copyMe.streamLength;
+            this.longBinding = copyMe.longBinding;
+        }
+
+        void reset() {
+            this.value = null;
+            this.isLongData = false;
+            this.isNull = false;
+            this.isSet = false;
+            this.doubleBinding = 0;
+            this.bufferType = 0;
+            this.streamLength = 0;
+            this.longBinding = 0;
+        }
+    }
+}
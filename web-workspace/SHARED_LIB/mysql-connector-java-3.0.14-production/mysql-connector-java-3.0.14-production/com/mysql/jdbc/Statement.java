@@ -1128,7 +1128,17 @@ public class Statement implements java.sql.Statement {
                 connection.setCatalog(currentCatalog);
             }
 
-            if (connection.useMaxRows()) {
+            if (createWindowedResultSet(sql)) {
+                ResultSet firstWindow = connection.execSQL(sql + " LIMIT 0,"
+                        + fetchSize, -1, resultSetConcurrency, false, true,
+                        this.currentCatalog);
+
+                results = new ResultSet(this.currentCatalog,
+                        firstWindow.fields,
+                        new RowDataWindowed(connection, sql,
+                            this.currentCatalog, fetchSize,
+                            firstWindow.rowData), connection);
+            } else if (connection.useMaxRows()) {
                 // We need to execute this all together
                 // So synchronize on the Connection's mutex (because
                 // even queries going through there synchronize
@@ -1402,6 +1412,34 @@ public class Statement implements java.sql.Statement {
         && (fetchSize == Integer.MIN_VALUE));
     }
 
+    /**
+     * We read results in windows of 'fetchSize' rows when the connection was
+     * configured with 'useWindowedFetch', the result set is forward-only
+     * and read-only, no maximum row count is in effect, and the query is a
+     * plain SELECT that we can safely append a LIMIT clause to.
+     *
+     * @param sql the query being executed
+     *
+     * @return true if this result set should be fetched in windows
+     */
+    protected boolean createWindowedResultSet(String sql) {
+        if (!connection.useWindowedFetch() || (fetchSize <= 0)
+                || (maxRows > 0)
+                || (resultSetType != java.sql.ResultSet.TYPE_FORWARD_ONLY)
+                || (resultSetConcurrency != java.sql.ResultSet.CONCUR_READ_ONLY)
+                || !StringUtils.startsWithIgnoreCaseAndWs(sql, "SELECT")) {
+            return false;
+        }
+
+        String sqlUc = sql.toUpperCase();
+
+        return (sqlUc.indexOf("LIMIT") == -1)
+        && (sqlUc.indexOf("FOR UPDATE") == -1)
+        && (sqlUc.indexOf("LOCK IN SHARE MODE") == -1)
+        && (sqlUc.indexOf("INTO") == -1) && (sqlUc.indexOf("PROCEDURE") == -1)
+        && (sql.indexOf(';') == -1);
+    }
+
     /**
      * Sets the concurrency for result sets generated by this statement
      *
@@ -253,6 +253,141 @@ public class StringUtils {
         return new String(charArray);
     }
 
+    /**
+     * Does the given ASCII representation of a number contain a decimal point
+     * or an exponent, i.e. can it not be handled by getInt(), getLong() or
+     * getShort()?
+     *
+     * @param buf the bytes representing the number
+     *
+     * @return true if the number is in decimal or scientific notation
+     */
+    public static final boolean isDecimalOrExponentForm(byte[] buf) {
+        for (int i = 0; i < buf.length; i++) {
+            byte b = buf[i];
+
+            if ((b == '.') || (b == 'e') || (b == 'E')) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Parses the ASCII representation of an integer directly from the bytes
+     * that came from the server, without creating an intermediate String.
+     *
+     * @param buf the bytes representing the number
+     *
+     * @return the int value
+     *
+     * @throws NumberFormatException if the bytes are not a plain integer, or
+     *         the value does not fit into an int
+     */
+    public static final int getInt(byte[] buf) throws NumberFormatException {
+        return (int) parseLong(buf, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Parses the ASCII representation of an integer directly from the bytes
+     * that came from the server, without creating an intermediate String.
+     *
+     * @param buf the bytes representing the number
+     *
+     * @return the long value
+     *
+     * @throws NumberFormatException if the bytes are not a plain integer, or
+     *         the value does not fit into a long
+     */
+    public static final long getLong(byte[] buf) throws NumberFormatException {
+        return parseLong(buf, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Parses the ASCII representation of an integer directly from the bytes
+     * that came from the server, without creating an intermediate String.
+     *
+     * @param buf the bytes representing the number
+     *
+     * @return the short value
+     *
+     * @throws NumberFormatException if the bytes are not a plain integer, or
+     *         the value does not fit into a short
+     */
+    public static final short getShort(byte[] buf)
+        throws NumberFormatException {
+        return (short) parseLong(buf, Short.MIN_VALUE, Short.MAX_VALUE);
+    }
+
+    /**
+     * Parses an optionally signed run of ASCII digits (surrounding whitespace
+     * is allowed) into a long, checking that the result lies within
+     * [minValue, maxValue]. Accumulates negatively, the same way
+     * Long.parseLong() does, so that minValue itself can be represented.
+     *
+     * @param buf the bytes to parse
+     * @param minValue the smallest value allowed
+     * @param maxValue the largest value allowed
+     *
+     * @return the parsed value
+     *
+     * @throws NumberFormatException if the bytes are not a plain integer or
+     *         the value is out of range
+     */
+    private static long parseLong(byte[] buf, long minValue, long maxValue)
+        throws NumberFormatException {
+        int pos = 0;
+        int end = buf.length;
+
+        while ((pos < end) && Character.isWhitespace((char) buf[pos])) {
+            pos++;
+        }
+
+        while ((end > pos) && Character.isWhitespace((char) buf[end - 1])) {
+            end--;
+        }
+
+        if (pos == end) {
+            throw new NumberFormatException(toAsciiString(buf));
+        }
+
+        boolean negative = false;
+
+        if (buf[pos] == '-') {
+            negative = true;
+            pos++;
+        } else if (buf[pos] == '+') {
+            pos++;
+        }
+
+        if (pos == end) {
+            throw new NumberFormatException(toAsciiString(buf));
+        }
+
+        long limit = negative ? minValue : -maxValue;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+
+        for (; pos < end; pos++) {
+            int digit = buf[pos] - '0';
+
+            if ((digit < 0) || (digit > 9) || (result < multiplyLimit)) {
+                throw new NumberFormatException(toAsciiString(buf));
+            }
+
+            result *= 10;
+
+            if (result < (limit + digit)) {
+                throw new NumberFormatException(toAsciiString(buf));
+            }
+
+            result -= digit;
+        }
+
+        return negative ? result : -result;
+    }
+
     /**
      * Unfortunately, SJIS has 0x5c as a high byte in some of its double-byte
      * characters, so we need to escape it.
@@ -347,7 +347,7 @@ public class UpdatableResultSet extends ResultSet {
             }
 
             deleter = (com.mysql.jdbc.PreparedStatement) connection
-                .prepareStatement(deleteSQL);
+                .clientPrepareStatement(deleteSQL);
             
             if (deleter.getMaxRows() != 0) {
             	deleter.setMaxRows(0);
@@ -510,7 +510,7 @@ public class UpdatableResultSet extends ResultSet {
         if (this.inserter == null) {
             generateStatements();
             this.inserter = (com.mysql.jdbc.PreparedStatement) connection
-                .prepareStatement(this.insertSQL);
+                .clientPrepareStatement(this.insertSQL);
             
             if (this.inserter.getMaxRows() != 0) {
             	this.inserter.setMaxRows(0);
@@ -648,7 +648,7 @@ public class UpdatableResultSet extends ResultSet {
             }
 
             refresher = (com.mysql.jdbc.PreparedStatement) connection
-                .prepareStatement(refreshSQL);
+                .clientPrepareStatement(refreshSQL);
             
             if (refresher.getMaxRows() != 0) {
             	refresher.setMaxRows(0);
@@ -1932,7 +1932,7 @@ public class UpdatableResultSet extends ResultSet {
             }
 
             updater = (com.mysql.jdbc.PreparedStatement) connection
-                .prepareStatement(updateSQL);
+                .clientPrepareStatement(updateSQL);
             
             if (updater.getMaxRows() != 0) {
             	updater.setMaxRows(0);
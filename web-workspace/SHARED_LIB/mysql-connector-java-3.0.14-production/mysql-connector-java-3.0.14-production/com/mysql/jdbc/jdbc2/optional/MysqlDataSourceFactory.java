@@ -46,6 +46,11 @@ public class MysqlDataSourceFactory
      */
     protected final String poolDataSourceName = "com.mysql.jdbc.jdbc2.optional.MysqlConnectionPoolDataSource";
 
+    /**
+     * The class name for a MySQL DataSource with a built-in connection pool.
+     */
+    protected final String poolingDataSourceName = "com.mysql.jdbc.jdbc2.optional.MysqlPoolingDataSource";
+
     //~ Methods ...............................................................
 
     /**
@@ -67,7 +72,8 @@ public class MysqlDataSourceFactory
 
         if (className != null
             && (className.equals(dataSourceClassName) || className.equals(
-                                                                 poolDataSourceName))) {
+                                                                 poolDataSourceName)
+            || className.equals(poolingDataSourceName))) {
 
             MysqlDataSource dataSource = null;
 
@@ -0,0 +1,822 @@
+/*
+   Copyright (C) 2002 MySQL AB
+
+      This program is free software; you can redistribute it and/or modify
+      it under the terms of the GNU General Public License as published by
+      the Free Software Foundation; either version 2 of the License, or
+      (at your option) any later version.
+
+      This program is distributed in the hope that it will be useful,
+      but WITHOUT ANY WARRANTY; without even the implied warranty of
+      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+      GNU General Public License for more details.
+
+      You should have received a copy of the GNU General Public License
+      along with this program; if not, write to the Free Software
+      Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+ */
+package com.mysql.jdbc.jdbc2.optional;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+
+import com.mysql.jdbc.SQLError;
+
+
+/**
+ * A DataSource that keeps a pool of physical connections to the server,
+ * handing out logical connections (that return their physical connection
+ * to the pool when closed) from getConnection().
+ *
+ * <p>
+ * Idle connections are re-used most-recently-returned first, and are
+ * validated with COM_PING when borrowed (if 'testOnBorrow' is set). A
+ * background thread closes connections that have been idle for longer than
+ * 'minEvictableIdleTimeMillis' (while keeping 'minIdle' of them open),
+ * pings the idle connections that remain, and reports connections that
+ * have been borrowed for longer than 'leakDetectionThresholdMillis',
+ * along with the stack trace of the code that borrowed them.
+ * </p>
+ *
+ * <p>
+ * Only connections for the configured user and password are pooled,
+ * getConnection(user, password) with other credentials returns a new,
+ * unpooled, connection.
+ * </p>
+ *
+ * @author Mark Matthews
+ */
+public class MysqlPoolingDataSource extends MysqlDataSource {
+    /**
+     * The upper bounds (in milliseconds, exclusive) of the buckets of the
+     * wait time histogram. The last bucket counts everything else.
+     */
+    private static final long[] WAIT_TIME_BUCKET_BOUNDS = {
+            1, 5, 10, 50, 100, 500, 1000, 5000
+        };
+
+    /** Serves as the pool's lock, and is waited on by borrowers */
+    private transient Object poolLock = new Object();
+
+    /** Idle connections (PoolEntries), most recently returned first */
+    private transient LinkedList idleConnections = new LinkedList();
+
+    /** Borrowed connections, MysqlPooledConnection -> PoolEntry */
+    private transient Map activeConnections = new HashMap();
+
+    /** Returns closed connections to the pool */
+    private transient ConnectionEventListener poolListener = new PoolListener();
+
+    /** Evicts idle connections and detects leaks */
+    private transient Thread maintenanceThread;
+
+    /** How many borrows waited how long, by WAIT_TIME_BUCKET_BOUNDS */
+    private transient long[] waitTimeHistogram = new long[WAIT_TIME_BUCKET_BOUNDS.length
+        + 1];
+
+    /** Has close() been called? */
+    private transient boolean isClosed = false;
+
+    /** Should idle connections be pinged before they are handed out? */
+    private boolean testOnBorrow = true;
+
+    /** How many borrows timed out waiting for a connection */
+    private transient long waitTimeoutCount = 0;
+
+    /** How many connections were reported as leaked */
+    private transient long leakedConnectionCount = 0;
+
+    /** How often the maintenance thread runs, <= 0 disables it */
+    private long timeBetweenEvictionRunsMillis = 30000;
+
+    /** How long a connection may be idle before it is evicted */
+    private long minEvictableIdleTimeMillis = 60000;
+
+    /**
+     * How long a connection may be borrowed before it is reported as
+     * leaked, <= 0 disables leak detection
+     */
+    private long leakDetectionThresholdMillis = 0;
+
+    /** How long to wait for a connection, <= 0 waits forever */
+    private long maxWaitMillis = 30000;
+
+    /** The maximum number of connections, borrowed or idle */
+    private int maxActive = 8;
+
+    /** The maximum number of idle connections */
+    private int maxIdle = 8;
+
+    /** The number of idle connections the maintenance thread keeps open */
+    private int minIdle = 0;
+
+    /** The number of physical connections, borrowed, idle or being created */
+    private transient int totalConnections = 0;
+
+    /**
+     * Default no-arg constructor for Serialization
+     */
+    public MysqlPoolingDataSource() {
+    }
+
+    /**
+     * Returns a connection from the pool, creating one if none are idle
+     * and fewer than 'maxActive' exist, otherwise waiting up to
+     * 'maxWaitMillis' for one to be returned.
+     *
+     * @return a connection to the database, which is returned to the pool
+     *         when it is closed
+     *
+     * @throws SQLException if no connection can be created, or none became
+     *         available in time
+     */
+    public java.sql.Connection getConnection() throws SQLException {
+        long waitStartTime = System.currentTimeMillis();
+
+        startMaintenanceIfRequired();
+
+        while (true) {
+            PoolEntry entry = borrowEntry(waitStartTime);
+
+            if (entry.physicalConn == null) {
+                try {
+                    createConnection(entry);
+                } catch (SQLException sqlEx) {
+                    destroy(entry);
+
+                    throw sqlEx;
+                }
+            } else if (this.testOnBorrow && !isValid(entry)) {
+                destroy(entry);
+
+                continue;
+            }
+
+            recordWaitTime(System.currentTimeMillis() - waitStartTime);
+
+            if (this.leakDetectionThresholdMillis > 0) {
+                entry.borrowerStack = new Throwable("Connection borrowed here");
+            }
+
+            entry.borrowedTime = System.currentTimeMillis();
+            entry.leakReported = false;
+
+            synchronized (this.poolLock) {
+                this.activeConnections.put(entry.pooledConn, entry);
+            }
+
+            // Resets server-side state, and reports errors to our listener,
+            // which throws away the connection
+            Connection logicalConn = entry.pooledConn.getConnection();
+
+            if (logicalConn != null) {
+                return logicalConn;
+            }
+        }
+    }
+
+    /**
+     * Returns a pooled connection if the given credentials are the ones
+     * this data source was configured with, otherwise a new connection that
+     * isn't pooled.
+     *
+     * @see javax.sql.DataSource#getConnection(String, String)
+     */
+    public java.sql.Connection getConnection(String userID, String pass)
+        throws SQLException {
+        if (credentialsMatch(userID, this.user)
+                && credentialsMatch(pass, this.password)) {
+            return getConnection();
+        }
+
+        return super.getConnection(userID, pass);
+    }
+
+    /**
+     * Closes all idle connections and stops the maintenance thread.
+     * Connections that are borrowed are closed when they are returned.
+     *
+     * @throws SQLException if an error occurs
+     */
+    public void close() throws SQLException {
+        List toClose = null;
+        Thread maintenance = null;
+
+        synchronized (this.poolLock) {
+            this.isClosed = true;
+            toClose = new ArrayList(this.idleConnections);
+            this.idleConnections.clear();
+            maintenance = this.maintenanceThread;
+            this.maintenanceThread = null;
+            this.poolLock.notifyAll();
+        }
+
+        if (maintenance != null) {
+            maintenance.interrupt();
+        }
+
+        for (int i = 0; i < toClose.size(); i++) {
+            destroy((PoolEntry) toClose.get(i));
+        }
+    }
+
+    /**
+     * Returns the number of connections that are currently borrowed.
+     *
+     * @return the number of borrowed connections
+     */
+    public int getNumActive() {
+        synchronized (this.poolLock) {
+            return this.activeConnections.size();
+        }
+    }
+
+    /**
+     * Returns the number of connections that are currently idle.
+     *
+     * @return the number of idle connections
+     */
+    public int getNumIdle() {
+        synchronized (this.poolLock) {
+            return this.idleConnections.size();
+        }
+    }
+
+    /**
+     * Returns the upper bounds (in milliseconds, exclusive) of the buckets
+     * returned by getWaitTimeHistogram(). The last bucket counts waits
+     * longer than the last bound.
+     *
+     * @return the bucket bounds
+     */
+    public long[] getWaitTimeHistogramBounds() {
+        return (long[]) WAIT_TIME_BUCKET_BOUNDS.clone();
+    }
+
+    /**
+     * Returns how many successful calls to getConnection() waited for how
+     * long, bucketed by getWaitTimeHistogramBounds(). Waits include the
+     * time taken to create or validate a connection.
+     *
+     * @return the number of calls in each bucket
+     */
+    public long[] getWaitTimeHistogram() {
+        synchronized (this.waitTimeHistogram) {
+            return (long[]) this.waitTimeHistogram.clone();
+        }
+    }
+
+    /**
+     * Returns how many calls to getConnection() timed out waiting for a
+     * connection to become available.
+     *
+     * @return the number of timed out calls
+     */
+    public long getWaitTimeoutCount() {
+        synchronized (this.poolLock) {
+            return this.waitTimeoutCount;
+        }
+    }
+
+    /**
+     * Returns how many connections have been reported as leaked.
+     *
+     * @return the number of leaked connections
+     */
+    public long getLeakedConnectionCount() {
+        synchronized (this.poolLock) {
+            return this.leakedConnectionCount;
+        }
+    }
+
+    /**
+     * Sets how long a connection may be borrowed before it is reported as
+     * leaked (to the log writer, or System.err). Zero (the default)
+     * disables leak detection.
+     *
+     * @param millis the leak detection threshold
+     */
+    public void setLeakDetectionThresholdMillis(long millis) {
+        this.leakDetectionThresholdMillis = millis;
+    }
+
+    /**
+     * Returns the leak detection threshold.
+     *
+     * @return the leak detection threshold, in milliseconds
+     */
+    public long getLeakDetectionThresholdMillis() {
+        return this.leakDetectionThresholdMillis;
+    }
+
+    /**
+     * Sets the maximum number of connections, borrowed or idle (defaults
+     * to 8).
+     *
+     * @param max the maximum number of connections
+     */
+    public void setMaxActive(int max) {
+        this.maxActive = max;
+    }
+
+    /**
+     * Returns the maximum number of connections.
+     *
+     * @return the maximum number of connections
+     */
+    public int getMaxActive() {
+        return this.maxActive;
+    }
+
+    /**
+     * Sets the maximum number of idle connections, connections returned
+     * when this many are idle are closed (defaults to 8).
+     *
+     * @param max the maximum number of idle connections
+     */
+    public void setMaxIdle(int max) {
+        this.maxIdle = max;
+    }
+
+    /**
+     * Returns the maximum number of idle connections.
+     *
+     * @return the maximum number of idle connections
+     */
+    public int getMaxIdle() {
+        return this.maxIdle;
+    }
+
+    /**
+     * Sets how long getConnection() waits for a connection to be returned
+     * when 'maxActive' are borrowed. Zero or less waits forever (defaults
+     * to 30000).
+     *
+     * @param millis the maximum wait
+     */
+    public void setMaxWaitMillis(long millis) {
+        this.maxWaitMillis = millis;
+    }
+
+    /**
+     * Returns how long getConnection() waits for a connection.
+     *
+     * @return the maximum wait, in milliseconds
+     */
+    public long getMaxWaitMillis() {
+        return this.maxWaitMillis;
+    }
+
+    /**
+     * Sets how long a connection may be idle before the maintenance thread
+     * closes it (defaults to 60000).
+     *
+     * @param millis the idle time
+     */
+    public void setMinEvictableIdleTimeMillis(long millis) {
+        this.minEvictableIdleTimeMillis = millis;
+    }
+
+    /**
+     * Returns how long a connection may be idle before it is closed.
+     *
+     * @return the idle time, in milliseconds
+     */
+    public long getMinEvictableIdleTimeMillis() {
+        return this.minEvictableIdleTimeMillis;
+    }
+
+    /**
+     * Sets the number of idle connections the maintenance thread keeps
+     * open (defaults to 0).
+     *
+     * @param min the minimum number of idle connections
+     */
+    public void setMinIdle(int min) {
+        this.minIdle = min;
+    }
+
+    /**
+     * Returns the number of idle connections the maintenance thread keeps
+     * open.
+     *
+     * @return the minimum number of idle connections
+     */
+    public int getMinIdle() {
+        return this.minIdle;
+    }
+
+    /**
+     * Sets whether idle connections are pinged before they are handed out
+     * (defaults to true).
+     *
+     * @param flag should connections be validated when borrowed?
+     */
+    public void setTestOnBorrow(boolean flag) {
+        this.testOnBorrow = flag;
+    }
+
+    /**
+     * Returns whether idle connections are pinged before they are handed
+     * out.
+     *
+     * @return should connections be validated when borrowed?
+     */
+    public boolean getTestOnBorrow() {
+        return this.testOnBorrow;
+    }
+
+    /**
+     * Sets how often the maintenance thread evicts idle connections and
+     * checks for leaks. Zero or less disables the thread (defaults to
+     * 30000).
+     *
+     * @param millis the time between runs
+     */
+    public void setTimeBetweenEvictionRunsMillis(long millis) {
+        this.timeBetweenEvictionRunsMillis = millis;
+    }
+
+    /**
+     * Returns how often the maintenance thread runs.
+     *
+     * @return the time between runs, in milliseconds
+     */
+    public long getTimeBetweenEvictionRunsMillis() {
+        return this.timeBetweenEvictionRunsMillis;
+    }
+
+    /**
+     * Runs one pass of the maintenance thread: closes connections that have
+     * been idle too long, pings the rest, opens connections up to
+     * 'minIdle', and reports leaked connections.
+     */
+    void evict() {
+        List toClose = new ArrayList();
+        List toValidate = new ArrayList();
+        List leaked = new ArrayList();
+        int toCreate = 0;
+        long now = System.currentTimeMillis();
+
+        synchronized (this.poolLock) {
+            if (this.isClosed) {
+                return;
+            }
+
+            // Oldest returned are at the end
+            while (this.idleConnections.size() > this.minIdle) {
+                PoolEntry entry = (PoolEntry) this.idleConnections.getLast();
+
+                if ((now - entry.returnedTime) < this.minEvictableIdleTimeMillis) {
+                    break;
+                }
+
+                this.idleConnections.removeLast();
+                toClose.add(entry);
+            }
+
+            // Left in the idle list, so they can still be borrowed, and
+            // taken out one at a time while they are pinged
+            toValidate.addAll(this.idleConnections);
+
+            while ((this.totalConnections + toCreate) < this.maxActive
+                    && (this.idleConnections.size() + toCreate) < this.minIdle) {
+                toCreate++;
+            }
+
+            this.totalConnections += toCreate;
+
+            if (this.leakDetectionThresholdMillis > 0) {
+                Iterator iter = this.activeConnections.values().iterator();
+
+                while (iter.hasNext()) {
+                    PoolEntry entry = (PoolEntry) iter.next();
+
+                    if (!entry.leakReported
+                            && ((now - entry.borrowedTime) > this.leakDetectionThresholdMillis)) {
+                        entry.leakReported = true;
+                        this.leakedConnectionCount++;
+                        leaked.add(entry);
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < toClose.size(); i++) {
+            destroy((PoolEntry) toClose.get(i));
+        }
+
+        for (int i = 0; i < toValidate.size(); i++) {
+            PoolEntry entry = (PoolEntry) toValidate.get(i);
+
+            synchronized (this.poolLock) {
+                // Borrowed (or closed by close()) since the list was copied
+                if (!this.idleConnections.remove(entry)) {
+                    continue;
+                }
+            }
+
+            if (isValid(entry)) {
+                returnValidated(entry);
+            } else {
+                destroy(entry);
+            }
+        }
+
+        for (int i = 0; i < toCreate; i++) {
+            PoolEntry entry = new PoolEntry();
+
+            try {
+                createConnection(entry);
+                returnIdle(entry, true);
+            } catch (SQLException sqlEx) {
+                destroy(entry);
+            }
+        }
+
+        for (int i = 0; i < leaked.size(); i++) {
+            PoolEntry entry = (PoolEntry) leaked.get(i);
+
+            PrintWriter out = getLogWriter();
+
+            if (out == null) {
+                out = new PrintWriter(System.err, true);
+            }
+
+            out.println("Connection has been borrowed for "
+                + (now - entry.borrowedTime)
+                + " ms without being returned to the pool, possible leak:");
+
+            if (entry.borrowerStack != null) {
+                entry.borrowerStack.printStackTrace(out);
+            }
+
+            out.flush();
+        }
+    }
+
+    private static boolean credentialsMatch(String s1, String s2) {
+        if (s1 == null) {
+            return (s2 == null) || (s2.length() == 0);
+        }
+
+        if (s2 == null) {
+            return s1.length() == 0;
+        }
+
+        return s1.equals(s2);
+    }
+
+    /**
+     * Takes an idle connection from the pool, or reserves room for a new
+     * one (in which case the returned entry has no physical connection),
+     * waiting for a connection to be returned if neither is possible.
+     */
+    private PoolEntry borrowEntry(long waitStartTime) throws SQLException {
+        synchronized (this.poolLock) {
+            while (true) {
+                if (this.isClosed) {
+                    throw new SQLException("Connection pool has been closed",
+                        SQLError.SQL_STATE_CONNECTION_REJECTED);
+                }
+
+                if (!this.idleConnections.isEmpty()) {
+                    return (PoolEntry) this.idleConnections.removeFirst();
+                }
+
+                if (this.totalConnections < this.maxActive) {
+                    this.totalConnections++;
+
+                    return new PoolEntry();
+                }
+
+                long waitTime = 0;
+
+                if (this.maxWaitMillis > 0) {
+                    waitTime = this.maxWaitMillis
+                        - (System.currentTimeMillis() - waitStartTime);
+
+                    if (waitTime <= 0) {
+                        this.waitTimeoutCount++;
+
+                        throw new SQLException("Timed out after "
+                            + this.maxWaitMillis
+                            + " ms waiting for a connection from the pool ("
+                            + this.maxActive + " connections in use)",
+                            SQLError.SQL_STATE_CONNECTION_REJECTED);
+                    }
+                }
+
+                try {
+                    this.poolLock.wait(waitTime);
+                } catch (InterruptedException ie) {
+                    throw new SQLException("Interrupted while waiting for a connection from the pool",
+                        SQLError.SQL_STATE_CONNECTION_REJECTED);
+                }
+            }
+        }
+    }
+
+    private void createConnection(PoolEntry entry) throws SQLException {
+        entry.physicalConn = super.getConnection(this.user, this.password);
+        entry.pooledConn = new MysqlPooledConnection(entry.physicalConn);
+        entry.pooledConn.addConnectionEventListener(this.poolListener);
+        entry.returnedTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Closes the entry's physical connection (if any), and frees its place
+     * in the pool.
+     */
+    private void destroy(PoolEntry entry) {
+        synchronized (this.poolLock) {
+            this.totalConnections--;
+            this.poolLock.notify();
+        }
+
+        if (entry.physicalConn != null) {
+            try {
+                entry.physicalConn.close();
+            } catch (SQLException sqlEx) {
+                // we can't do anything constructive about this
+            }
+        }
+    }
+
+    private boolean isValid(PoolEntry entry) {
+        try {
+            ((com.mysql.jdbc.Connection) entry.physicalConn).ping();
+
+            return true;
+        } catch (SQLException sqlEx) {
+            return false;
+        }
+    }
+
+    private void recordWaitTime(long waitTime) {
+        int bucket = 0;
+
+        while ((bucket < WAIT_TIME_BUCKET_BOUNDS.length)
+                && (waitTime >= WAIT_TIME_BUCKET_BOUNDS[bucket])) {
+            bucket++;
+        }
+
+        synchronized (this.waitTimeHistogram) {
+            this.waitTimeHistogram[bucket]++;
+        }
+    }
+
+    /**
+     * Puts a connection back in the idle list, or closes it if the pool is
+     * closed or has enough idle connections.
+     */
+    private void returnIdle(PoolEntry entry, boolean isNewConnection) {
+        synchronized (this.poolLock) {
+            if (!this.isClosed
+                    && (this.idleConnections.size() < this.maxIdle)) {
+                if (!isNewConnection) {
+                    entry.returnedTime = System.currentTimeMillis();
+                }
+
+                entry.borrowerStack = null;
+                this.idleConnections.addFirst(entry);
+                this.poolLock.notify();
+
+                return;
+            }
+        }
+
+        destroy(entry);
+    }
+
+    /**
+     * Puts a connection validated by evict() back in the idle list, behind
+     * every connection returned at the same time or later, and with its
+     * original idle time, so that being pinged doesn't stop it from being
+     * evicted.
+     */
+    private void returnValidated(PoolEntry entry) {
+        synchronized (this.poolLock) {
+            if (!this.isClosed
+                    && (this.idleConnections.size() < this.maxIdle)) {
+                int index = 0;
+                Iterator iter = this.idleConnections.iterator();
+
+                while (iter.hasNext()
+                        && (((PoolEntry) iter.next()).returnedTime >= entry.returnedTime)) {
+                    index++;
+                }
+
+                this.idleConnections.add(index, entry);
+                this.poolLock.notify();
+
+                return;
+            }
+        }
+
+        destroy(entry);
+    }
+
+    private void readObject(ObjectInputStream in)
+        throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+
+        this.poolLock = new Object();
+        this.idleConnections = new LinkedList();
+        this.activeConnections = new HashMap();
+        this.poolListener = new PoolListener();
+        this.waitTimeHistogram = new long[WAIT_TIME_BUCKET_BOUNDS.length + 1];
+    }
+
+    private void startMaintenanceIfRequired() {
+        if (this.timeBetweenEvictionRunsMillis <= 0) {
+            return;
+        }
+
+        synchronized (this.poolLock) {
+            if ((this.maintenanceThread == null) && !this.isClosed) {
+                this.maintenanceThread = new Thread(new PoolMaintainer(),
+                        "MySQL connection pool maintenance");
+                this.maintenanceThread.setDaemon(true);
+                this.maintenanceThread.start();
+            }
+        }
+    }
+
+    /**
+     * A physical connection, and its bookkeeping.
+     */
+    static class PoolEntry {
+        Connection physicalConn;
+        MysqlPooledConnection pooledConn;
+        Throwable borrowerStack;
+        boolean leakReported;
+        long borrowedTime;
+        long returnedTime;
+    }
+
+    /**
+     * Returns connections to the pool when their logical connection is
+     * closed, and throws them away when they fail.
+     */
+    class PoolListener implements ConnectionEventListener {
+        public void connectionClosed(ConnectionEvent event) {
+            PoolEntry entry = removeActive(event);
+
+            if (entry != null) {
+                returnIdle(entry, false);
+            }
+        }
+
+        public void connectionErrorOccurred(ConnectionEvent event) {
+            PoolEntry entry = removeActive(event);
+
+            if (entry != null) {
+                destroy(entry);
+            }
+        }
+
+        private PoolEntry removeActive(ConnectionEvent event) {
+            synchronized (poolLock) {
+                return (PoolEntry) activeConnections.remove(event.getSource());
+            }
+        }
+    }
+
+    /**
+     * Runs evict() every 'timeBetweenEvictionRunsMillis' until the pool is
+     * closed.
+     */
+    class PoolMaintainer implements Runnable {
+        public void run() {
+            while (true) {
+                try {
+                    Thread.sleep(timeBetweenEvictionRunsMillis);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+
+                synchronized (poolLock) {
+                    if (isClosed) {
+                        return;
+                    }
+                }
+
+                evict();
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+   Copyright (C) 2002 MySQL AB
+
+      This program is free software; you can redistribute it and/or modify
+      it under the terms of the GNU General Public License as published by
+      the Free Software Foundation; either version 2 of the License, or
+      (at your option) any later version.
+
+      This program is distributed in the hope that it will be useful,
+      but WITHOUT ANY WARRANTY; without even the implied warranty of
+      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+      GNU General Public License for more details.
+
+      You should have received a copy of the GNU General Public License
+      along with this program; if not, write to the Free Software
+      Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+ */
+package testsuite.perf;
+
+import testsuite.BaseTestCase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import java.text.NumberFormat;
+
+import java.util.Properties;
+import java.util.Random;
+
+
+/**
+ * Compares round-trip throughput with and without protocol compression, for
+ * several payload sizes.
+ *
+ * @author Mark Matthews
+ */
+public class CompressionPerfTest extends BaseTestCase {
+    /** The payload sizes (in bytes) to measure */
+    private static final int[] PAYLOAD_SIZES = { 32, 256, 4096, 65536, 524288 };
+
+    /** How many bytes to send (and receive) for each measurement */
+    private static final int BYTES_PER_RUN = 16 * 1024 * 1024;
+
+    /** Words the payloads are made of, so they compress like real text */
+    private static final String[] WORDS = {
+        "customer", "order", "line", "item", "status", "shipped", "pending",
+        "invoice", "amount", "total", "address", "street", "city", "country",
+        "1", "42", "2004-06-01", "NULL", "true", "false"
+    };
+
+    /**
+     * Constructor for CompressionPerfTest.
+     *
+     * @param name name of the test to run
+     */
+    public CompressionPerfTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Runs all test cases in this test suite
+     *
+     * @param args
+     */
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(CompressionPerfTest.class);
+    }
+
+    /**
+     * Sends each payload size as a parameter of "SELECT ?" and reads it
+     * back, reporting KB/sec for uncompressed and compressed connections.
+     *
+     * @throws Exception if an error occurs
+     */
+    public void testCompressionThroughput() throws Exception {
+        NumberFormat numFormatter = NumberFormat.getInstance();
+        numFormatter.setMaximumFractionDigits(2);
+
+        System.out.println("\n\nPayload\tUncompressed KB/sec\tCompressed KB/sec");
+
+        for (int i = 0; i < PAYLOAD_SIZES.length; i++) {
+            String payload = makePayload(PAYLOAD_SIZES[i]);
+
+            // Warm-up
+            roundTrips(payload, false);
+            roundTrips(payload, true);
+
+            double plain = roundTrips(payload, false);
+            double compressed = roundTrips(payload, true);
+
+            System.out.println(PAYLOAD_SIZES[i] + "\t"
+                + numFormatter.format(plain) + "\t\t\t"
+                + numFormatter.format(compressed));
+        }
+    }
+
+    private String makePayload(int size) {
+        Random random = new Random(size);
+        StringBuffer buf = new StringBuffer(size + 16);
+
+        while (buf.length() < size) {
+            buf.append(WORDS[random.nextInt(WORDS.length)]);
+            buf.append(' ');
+        }
+
+        buf.setLength(size);
+
+        return buf.toString();
+    }
+
+    private double roundTrips(String payload, boolean useCompression)
+        throws Exception {
+        Properties props = new Properties();
+        props.setProperty("useCompression", String.valueOf(useCompression));
+
+        Connection perfConn = getConnectionWithProps(props);
+        PreparedStatement pStmt = null;
+
+        try {
+            pStmt = perfConn.prepareStatement("SELECT ?");
+
+            int numRoundTrips = Math.max(BYTES_PER_RUN / payload.length(), 1);
+
+            long begin = System.currentTimeMillis();
+
+            for (int i = 0; i < numRoundTrips; i++) {
+                pStmt.setString(1, payload);
+
+                ResultSet perfRs = pStmt.executeQuery();
+                perfRs.next();
+                assertTrue(perfRs.getString(1).length() == payload.length());
+                perfRs.close();
+            }
+
+            long elapsed = System.currentTimeMillis() - begin;
+
+            if (elapsed == 0) {
+                elapsed = 1;
+            }
+
+            return ((double) numRoundTrips * payload.length() * 2 / 1024) / ((double) elapsed / 1000);
+        } finally {
+            if (pStmt != null) {
+                pStmt.close();
+            }
+
+            perfConn.close();
+        }
+    }
+}
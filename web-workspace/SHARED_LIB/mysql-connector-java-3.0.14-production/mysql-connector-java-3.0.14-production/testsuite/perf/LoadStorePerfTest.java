@@ -20,11 +20,15 @@ package testsuite.perf;
 
 import testsuite.BaseTestCase;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 
 import java.text.NumberFormat;
 
+import java.util.Properties;
+
 
 /**
  * Simple performance testing unit test.
@@ -32,6 +36,12 @@ import java.text.NumberFormat;
  * @author Mark Matthews
  */
 public class LoadStorePerfTest extends BasePerfTest {
+    /** The number of rows inserted by testBatchedInserts() */
+    private static final int BATCHED_INSERT_ROWS = 20000;
+
+    /** The number of rows added to each batch by testBatchedInserts() */
+    private static final int BATCHED_INSERT_BATCH_SIZE = 500;
+
     /** The table type to use (only for MySQL), 'HEAP' by default */
     private String tableType = "HEAP";
     private boolean takeMeasurements = false;
@@ -161,6 +171,102 @@ public class LoadStorePerfTest extends BasePerfTest {
         reportResults("\n\nResults for instance # 1: ");
     }
 
+    /**
+     * Compares rows/sec for batched INSERTs sent one row per round-trip, and
+     * rewritten as multi-row INSERTs ('rewriteBatchedStatements').
+     *
+     * @throws Exception if an error occurs
+     */
+    public void testBatchedInserts() throws Exception {
+        if (BaseTestCase.dbUrl.indexOf("mysql") == -1) {
+            return;
+        }
+
+        NumberFormat numFormatter = NumberFormat.getInstance();
+        numFormatter.setMaximumFractionDigits(2);
+
+        // Warm-up
+        doBatchedInserts(false);
+        doBatchedInserts(true);
+
+        double rowsPerSecPlain = doBatchedInserts(false);
+        double rowsPerSecRewritten = doBatchedInserts(true);
+
+        System.out.println("\n\nBatched INSERTs (" + BATCHED_INSERT_ROWS
+            + " rows, batches of " + BATCHED_INSERT_BATCH_SIZE + ")");
+        System.out.println("One round-trip per row:\t"
+            + numFormatter.format(rowsPerSecPlain) + " rows/sec");
+        System.out.println("Multi-row INSERTs:\t"
+            + numFormatter.format(rowsPerSecRewritten) + " rows/sec");
+    }
+
+    private double doBatchedInserts(boolean rewrite) throws Exception {
+        stmt.executeUpdate("DELETE FROM perfLoadStore WHERE priKey > 1");
+
+        Properties props = new Properties();
+        props.setProperty("rewriteBatchedStatements", String.valueOf(rewrite));
+
+        Connection batchConn = getConnectionWithProps(props);
+        PreparedStatement pStmtInsert = null;
+
+        try {
+            pStmtInsert = batchConn.prepareStatement("INSERT INTO perfLoadStore ("
+                    + "priKey, fk1, fk2, dtField, charField1, charField2, "
+                    + "charField3, charField4, intField1, intField2, "
+                    + "intField3, intField4, doubleField1, doubleField2, "
+                    + "doubleField3, doubleField4) VALUES "
+                    + "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+
+            long begin = System.currentTimeMillis();
+
+            for (int i = 0; i < BATCHED_INSERT_ROWS; i++) {
+                pStmtInsert.setInt(1, i + 2); // priKey
+                pStmtInsert.setInt(2, 2); // fk1
+                pStmtInsert.setInt(3, 3); // fk2
+                pStmtInsert.setTimestamp(4, now); // dtField
+                pStmtInsert.setString(5, "0123456789ABCDEF0123456789ABCDEF"); // charField1
+                pStmtInsert.setString(6, "0123456789ABCDEF0123456789ABCDEF"); // charField2
+                pStmtInsert.setString(7, "0123456789ABCDEF0123456789ABCDEF"); // charField3
+                pStmtInsert.setString(8, "0123456789ABCDEF0123456789ABCDEF"); // charField4
+                pStmtInsert.setInt(9, 7); // intField1
+                pStmtInsert.setInt(10, 8); // intField2
+                pStmtInsert.setInt(11, 9); // intField3
+                pStmtInsert.setInt(12, 10); // intField4
+                pStmtInsert.setDouble(13, 1.20); // doubleField1
+                pStmtInsert.setDouble(14, 2.30); // doubleField2
+                pStmtInsert.setDouble(15, 3.40); // doubleField3
+                pStmtInsert.setDouble(16, 4.50); // doubleField4
+                pStmtInsert.addBatch();
+
+                if (((i + 1) % BATCHED_INSERT_BATCH_SIZE) == 0) {
+                    int[] updateCounts = pStmtInsert.executeBatch();
+
+                    for (int j = 0; j < updateCounts.length; j++) {
+                        assertTrue(updateCounts[j] == 1);
+                    }
+                }
+            }
+
+            pStmtInsert.executeBatch();
+
+            long elapsed = System.currentTimeMillis() - begin;
+
+            if (elapsed == 0) {
+                elapsed = 1;
+            }
+
+            return (double) BATCHED_INSERT_ROWS / ((double) elapsed / 1000);
+        } finally {
+            if (pStmtInsert != null) {
+                pStmtInsert.close();
+            }
+
+            batchConn.close();
+        }
+    }
+
     /**
      * Runs one iteration of the test.
      *
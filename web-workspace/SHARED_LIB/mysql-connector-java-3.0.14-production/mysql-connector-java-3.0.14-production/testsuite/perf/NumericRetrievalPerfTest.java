@@ -0,0 +1,145 @@
+/*
+   Copyright (C) 2002 MySQL AB
+
+      This program is free software; you can redistribute it and/or modify
+      it under the terms of the GNU General Public License as published by
+      the Free Software Foundation; either version 2 of the License, or
+      (at your option) any later version.
+
+      This program is distributed in the hope that it will be useful,
+      but WITHOUT ANY WARRANTY; without even the implied warranty of
+      MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+      GNU General Public License for more details.
+
+      You should have received a copy of the GNU General Public License
+      along with this program; if not, write to the Free Software
+      Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+ */
+package testsuite.perf;
+
+import testsuite.BaseTestCase;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import java.util.Properties;
+
+
+/**
+ * Compares the retrieval speed of numeric columns with and without the
+ * byte-level number parsing enabled by 'useFastIntParsing'.
+ *
+ * @author Mark Matthews
+ */
+public class NumericRetrievalPerfTest extends BaseTestCase {
+    private static final int NUM_TESTS = 2000;
+    private static final int NUM_ROWS = 500;
+
+    /**
+     * Constructor for NumericRetrievalPerfTest.
+     *
+     * @param name name of the test to run
+     */
+    public NumericRetrievalPerfTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Runs all test cases in this test suite
+     *
+     * @param args
+     */
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(NumericRetrievalPerfTest.class);
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    public void setUp() throws Exception {
+        super.setUp();
+        stmt.executeUpdate("DROP TABLE IF EXISTS numericRetrievalPerfTest");
+        stmt.executeUpdate(
+            "CREATE TABLE numericRetrievalPerfTest (priKey INT NOT NULL PRIMARY KEY,"
+            + "intField INT, bigIntField BIGINT, smallIntField SMALLINT) TYPE=HEAP");
+
+        for (int i = 0; i < NUM_ROWS; i++) {
+            stmt.executeUpdate(
+                "INSERT INTO numericRetrievalPerfTest VALUES (" + i + ", "
+                + (Integer.MAX_VALUE - i) + ", " + (Long.MIN_VALUE + i) + ", "
+                + (i % Short.MAX_VALUE) + ")");
+        }
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    public void tearDown() throws Exception {
+        stmt.executeUpdate("DROP TABLE IF EXISTS numericRetrievalPerfTest");
+        super.tearDown();
+    }
+
+    /**
+     * Runs the same traversal with the String-based and byte-based number
+     * parsing, and reports both.
+     *
+     * @throws Exception if an error occurs
+     */
+    public void testNumericRetrieval() throws Exception {
+        // Warm up both code paths first
+        traverse(false, NUM_TESTS / 10);
+        traverse(true, NUM_TESTS / 10);
+
+        double stringParsingTime = traverse(false, NUM_TESTS);
+        double byteParsingTime = traverse(true, NUM_TESTS);
+
+        System.out.println("\nNumeric Column Retrieval\n");
+        System.out.println("useFastIntParsing=false: " + stringParsingTime
+            + " seconds, " + ((NUM_ROWS * NUM_TESTS) / stringParsingTime)
+            + " rows/second");
+        System.out.println("useFastIntParsing=true: " + byteParsingTime
+            + " seconds, " + ((NUM_ROWS * NUM_TESTS) / byteParsingTime)
+            + " rows/second");
+        System.out.println("Speedup: " + (stringParsingTime / byteParsingTime));
+
+        // We're doing something wrong if we can't beat 45 seconds :(
+        assertTrue(byteParsingTime < 45);
+    }
+
+    private double traverse(boolean useFastIntParsing, int numTests)
+        throws Exception {
+        Properties props = new Properties();
+        props.setProperty("useFastIntParsing", String.valueOf(useFastIntParsing));
+
+        Connection perfConn = getConnectionWithProps(props);
+
+        try {
+            Statement perfStmt = perfConn.createStatement();
+
+            double fullBegin = System.currentTimeMillis();
+
+            for (int i = 0; i < numTests; i++) {
+                ResultSet perfRs = perfStmt.executeQuery(
+                        "SELECT * FROM numericRetrievalPerfTest");
+
+                while (perfRs.next()) {
+                    perfRs.getInt(1);
+                    perfRs.getInt(2);
+                    perfRs.getLong(3);
+                    perfRs.getShort(4);
+                    perfRs.getDouble(2);
+                }
+
+                perfRs.close();
+            }
+
+            double fullEnd = System.currentTimeMillis();
+
+            return (fullEnd - fullBegin) / 1000;
+        } finally {
+            perfConn.close();
+        }
+    }
+}
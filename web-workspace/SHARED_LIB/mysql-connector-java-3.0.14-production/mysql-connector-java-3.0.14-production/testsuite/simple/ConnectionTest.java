@@ -18,6 +18,9 @@
  */
 package testsuite.simple;
 
+import com.mysql.jdbc.NonRegisteringDriver;
+import com.mysql.jdbc.QueryFuture;
+import com.mysql.jdbc.QueryListener;
 import com.mysql.jdbc.SQLError;
 
 import testsuite.BaseTestCase;
@@ -25,6 +28,7 @@ import testsuite.BaseTestCase;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -57,6 +61,76 @@ public class ConnectionTest extends BaseTestCase {
         junit.textui.TestRunner.run(ConnectionTest.class);
     }
 
+    /**
+     * Tests sending several queries with executeAsync() before reading any
+     * of their results.
+     *
+     * @throws Exception if an error occurs
+     */
+    public void testAsyncQueries() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("maxPipelinedQueries", "4");
+
+        com.mysql.jdbc.Connection asyncConn = (com.mysql.jdbc.Connection) getConnectionWithProps(props);
+
+        try {
+            final int[] completedCount = new int[1];
+
+            QueryListener listener = new QueryListener() {
+                    public void queryCompleted(QueryFuture future) {
+                        completedCount[0]++;
+                    }
+                };
+
+            int numQueries = 10;
+            QueryFuture[] futures = new QueryFuture[numQueries];
+
+            for (int i = 0; i < numQueries; i++) {
+                futures[i] = asyncConn.executeAsync("SELECT " + i, listener);
+            }
+
+            // More than 'maxPipelinedQueries' were sent, so the oldest
+            // results have already been read
+            assertTrue(futures[0].isDone());
+            assertTrue(!futures[numQueries - 1].isDone());
+
+            QueryFuture badQuery = asyncConn.executeAsync("SELECT * FROM thisTableDoesNotExist");
+            QueryFuture doUpdate = asyncConn.executeAsync("DO 1");
+
+            // Reading the last result reads all the ones before it
+            assertTrue(doUpdate.getUpdateCount() == 0);
+            assertTrue(completedCount[0] == (numQueries + 2));
+
+            for (int i = numQueries - 1; i >= 0; i--) {
+                ResultSet asyncRs = futures[i].getResultSet();
+                assertTrue(asyncRs.next());
+                assertTrue(asyncRs.getInt(1) == i);
+                asyncRs.close();
+            }
+
+            try {
+                badQuery.getResultSet();
+                fail("Query against a table that doesn't exist should fail");
+            } catch (SQLException sqlEx) {
+                // expected
+            }
+
+            // Synchronous statements read any pending results first
+            QueryFuture pending = asyncConn.executeAsync("SELECT 'async'");
+
+            ResultSet syncRs = asyncConn.createStatement().executeQuery("SELECT 'sync'");
+            assertTrue(pending.isDone());
+            assertTrue(syncRs.next());
+            assertEquals("sync", syncRs.getString(1));
+
+            ResultSet asyncRs = pending.getResultSet();
+            assertTrue(asyncRs.next());
+            assertEquals("async", asyncRs.getString(1));
+        } finally {
+            asyncConn.close();
+        }
+    }
+
     /**
      * Tests catalog functionality
      *
@@ -148,6 +222,50 @@ public class ConnectionTest extends BaseTestCase {
         }
     }
 
+    /**
+     * Tests sending and reading values on both sides of the compression
+     * threshold, and larger than the stream's buffers, with compression on.
+     *
+     * @throws Exception if an error occurs
+     */
+    public void testCompression() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("useCompression", "true");
+        props.setProperty("compressionThreshold", "100");
+
+        Connection compressedConn = getConnectionWithProps(props);
+
+        try {
+            PreparedStatement pStmt = compressedConn.prepareStatement(
+                    "SELECT ?, REPEAT(?, 2)");
+            int[] sizes = { 1, 99, 100, 4000, 70000 };
+
+            for (int i = 0; i < sizes.length; i++) {
+                StringBuffer buf = new StringBuffer(sizes[i]);
+
+                for (int j = 0; j < sizes[i]; j++) {
+                    buf.append((char) ('a' + ((j * 7) % 26)));
+                }
+
+                String value = buf.toString();
+
+                pStmt.setString(1, value);
+                pStmt.setString(2, value);
+                this.rs = pStmt.executeQuery();
+
+                assertTrue(this.rs.next());
+                assertEquals(value, this.rs.getString(1));
+                assertEquals(value + value, this.rs.getString(2));
+
+                this.rs.close();
+            }
+
+            pStmt.close();
+        } finally {
+            compressedConn.close();
+        }
+    }
+
     /**
      * DOCUMENT ME!
      *
@@ -219,6 +337,135 @@ public class ConnectionTest extends BaseTestCase {
         }
     }
 
+    /**
+     * Tests that SELECTs issued while read-only go to the replica (here the
+     * same server, listed twice), and that an unreachable replica is
+     * skipped in favour of the master.
+     *
+     * @throws Exception if an error occurs.
+     */
+    public void testLoadBalancedReads() throws Exception {
+        NonRegisteringDriver driver = new NonRegisteringDriver();
+        Properties props = driver.parseURL(dbUrl, null);
+        String hostPortPair = driver.host(props) + ":" + driver.port(props);
+        String database = driver.database(props);
+
+        props.setProperty("loadBalanceReads", "true");
+        props.setProperty("loadBalanceStrategy", "leastInFlight");
+
+        com.mysql.jdbc.Connection lbConn = (com.mysql.jdbc.Connection) DriverManager
+            .getConnection("jdbc:mysql://" + hostPortPair + ","
+                + hostPortPair + "/" + database, props);
+
+        try {
+            Statement lbStmt = lbConn.createStatement();
+            String masterId = getConnectionId(lbStmt);
+
+            lbConn.setReadOnly(true);
+
+            String replicaId = getConnectionId(lbStmt);
+            assertEquals(hostPortPair, lbConn.getReplicaHost());
+            assertTrue(!masterId.equals(replicaId));
+
+            // Catalog changes follow us to the replica
+            lbConn.setCatalog("mysql");
+            this.rs = lbStmt.executeQuery("SELECT DATABASE()");
+            assertTrue(this.rs.next());
+            assertEquals("mysql", this.rs.getString(1));
+            lbConn.setCatalog(database);
+
+            lbConn.setReadOnly(false);
+            assertEquals(masterId, getConnectionId(lbStmt));
+        } finally {
+            lbConn.close();
+        }
+
+        props.setProperty("loadBalanceBlacklistTimeout", "60000");
+
+        lbConn = (com.mysql.jdbc.Connection) DriverManager.getConnection(
+                "jdbc:mysql://" + hostPortPair + ",127.0.0.1:1/" + database,
+                props);
+
+        try {
+            lbConn.setReadOnly(true);
+
+            this.rs = lbConn.createStatement().executeQuery("SELECT 1");
+            assertTrue(this.rs.next());
+            assertTrue(lbConn.getReplicaHost() == null);
+        } finally {
+            lbConn.close();
+        }
+    }
+
+    /**
+     * Tests reading results larger than the pooled read buffer through a
+     * socket created by NioSocketFactory.
+     *
+     * @throws Exception if an error occurs.
+     */
+    public void testNioSocketFactory() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("socketFactory", "com.mysql.jdbc.NioSocketFactory");
+
+        Connection nioConn = getConnectionWithProps(props);
+
+        try {
+            Statement nioStmt = nioConn.createStatement();
+
+            for (int i = 0; i < 3; i++) {
+                this.rs = nioStmt.executeQuery("SELECT REPEAT('a', 65536), "
+                        + i);
+
+                assertTrue(this.rs.next());
+                assertTrue(this.rs.getString(1).length() == 65536);
+                assertTrue(this.rs.getInt(2) == i);
+                assertTrue(!this.rs.next());
+
+                this.rs.close();
+            }
+        } finally {
+            nioConn.close();
+        }
+    }
+
+    /**
+     * Tests that the prepared statement cache is bounded, keyed by catalog
+     * and SQL, and counts hits and misses.
+     *
+     * @throws Exception if an error occurs.
+     */
+    public void testPreparedStatementCache() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("cachePrepStmts", "true");
+        props.setProperty("prepStmtCacheSize", "5");
+
+        com.mysql.jdbc.Connection cacheConn = (com.mysql.jdbc.Connection) getConnectionWithProps(props);
+
+        try {
+            for (int i = 0; i < 10; i++) {
+                cacheConn.prepareStatement("SELECT " + i + ", ?").close();
+            }
+
+            assertTrue(cacheConn.getPreparedStatementCacheMisses() == 10);
+            assertTrue(cacheConn.getPreparedStatementCacheHits() == 0);
+            assertTrue(cacheConn.getPreparedStatementCacheSize() == 5);
+
+            // Most recently used are still cached
+            for (int i = 5; i < 10; i++) {
+                cacheConn.prepareStatement("SELECT " + i + ", ?").close();
+            }
+
+            assertTrue(cacheConn.getPreparedStatementCacheHits() == 5);
+
+            // Least recently used were evicted
+            cacheConn.prepareStatement("SELECT 0, ?").close();
+
+            assertTrue(cacheConn.getPreparedStatementCacheMisses() == 11);
+        } finally {
+            cacheConn.close();
+        }
+    }
+
     /**
      * Tests setting profileSql on/off in the span of one connection.
      *
@@ -230,4 +477,16 @@ public class ConnectionTest extends BaseTestCase {
         ((com.mysql.jdbc.Connection) this.conn).setProfileSql(true);
         stmt.executeQuery("SELECT 1");
     }
+
+    private String getConnectionId(Statement idStmt) throws SQLException {
+        ResultSet idRs = idStmt.executeQuery("SELECT CONNECTION_ID()");
+
+        try {
+            assertTrue(idRs.next());
+
+            return idRs.getString(1);
+        } finally {
+            idRs.close();
+        }
+    }
 }
@@ -24,6 +24,7 @@ import java.io.File;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 
 import java.util.Hashtable;
@@ -39,6 +40,7 @@ import javax.sql.ConnectionPoolDataSource;
 import javax.sql.DataSource;
 
 import com.mysql.jdbc.jdbc2.optional.MysqlConnectionPoolDataSource;
+import com.mysql.jdbc.jdbc2.optional.MysqlPoolingDataSource;
 
 
 /**
@@ -127,6 +129,111 @@ public class DataSourceTest extends BaseTestCase {
             con != null);
     }
     
+    /**
+     * Tests borrowing and returning connections from MysqlPoolingDataSource,
+     * and that idle connections are evicted and leaks are detected.
+     *
+     * @throws Exception if an error occurs
+     */
+    public void testPoolingDataSource() throws Exception {
+        MysqlPoolingDataSource poolingDs = new MysqlPoolingDataSource();
+        poolingDs.setUrl(dbUrl);
+        poolingDs.setMaxActive(2);
+        poolingDs.setMaxWaitMillis(500);
+        poolingDs.setTimeBetweenEvictionRunsMillis(0);
+
+        try {
+            Connection conn1 = poolingDs.getConnection();
+            Connection conn2 = poolingDs.getConnection();
+
+            assertTrue(poolingDs.getNumActive() == 2);
+
+            try {
+                poolingDs.getConnection();
+                fail("Pool should be exhausted");
+            } catch (SQLException sqlEx) {
+                assertTrue(poolingDs.getWaitTimeoutCount() == 1);
+            }
+
+            conn1.close();
+
+            assertTrue(poolingDs.getNumActive() == 1);
+            assertTrue(poolingDs.getNumIdle() == 1);
+
+            Connection conn3 = poolingDs.getConnection();
+            ResultSet poolRs = conn3.createStatement().executeQuery("SELECT 1");
+            assertTrue(poolRs.next());
+            poolRs.close();
+
+            conn2.close();
+            conn3.close();
+
+            assertTrue(poolingDs.getNumActive() == 0);
+            assertTrue(poolingDs.getNumIdle() == 2);
+
+            long[] histogram = poolingDs.getWaitTimeHistogram();
+            long borrows = 0;
+
+            for (int i = 0; i < histogram.length; i++) {
+                borrows += histogram[i];
+            }
+
+            assertTrue(borrows == 3);
+        } finally {
+            poolingDs.close();
+        }
+
+        poolingDs = new MysqlPoolingDataSource();
+        poolingDs.setUrl(dbUrl);
+        poolingDs.setTimeBetweenEvictionRunsMillis(50);
+        poolingDs.setMinEvictableIdleTimeMillis(50);
+        poolingDs.setLeakDetectionThresholdMillis(50);
+        poolingDs.setLogWriter(new java.io.PrintWriter(new java.io.StringWriter()));
+
+        try {
+            Connection leakedConn = poolingDs.getConnection();
+            poolingDs.getConnection().close();
+
+            Thread.sleep(500);
+
+            assertTrue(poolingDs.getNumIdle() == 0);
+            assertTrue(poolingDs.getLeakedConnectionCount() == 1);
+
+            leakedConn.close();
+        } finally {
+            poolingDs.close();
+        }
+    }
+
+    /**
+     * Tests that pinging idle connections doesn't keep them from being
+     * evicted when the maintenance thread runs more often than the idle
+     * time allows (as with the defaults, 30s between runs, 60s idle), here
+     * scaled down to 100ms and 200ms.
+     *
+     * @throws Exception if an error occurs
+     */
+    public void testPoolingDataSourceEvictsValidatedConnections()
+        throws Exception {
+        MysqlPoolingDataSource poolingDs = new MysqlPoolingDataSource();
+        poolingDs.setUrl(dbUrl);
+        poolingDs.setTimeBetweenEvictionRunsMillis(100);
+        poolingDs.setMinEvictableIdleTimeMillis(200);
+
+        try {
+            poolingDs.getConnection().close();
+
+            assertTrue(poolingDs.getNumIdle() == 1);
+
+            // pinged by the first run, evicted by the second or third
+            Thread.sleep(1000);
+
+            assertTrue(poolingDs.getNumIdle() == 0);
+        } finally {
+            poolingDs.close();
+        }
+    }
+
     /**
      * This method is separated from the rest of the example since you normally
      * would NOT register a JDBC driver in your code.  It would likely be
@@ -20,7 +20,12 @@ package testsuite.simple;
 
 import testsuite.BaseTestCase;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+
+import java.util.Properties;
 
 
 /**
@@ -81,6 +86,72 @@ public class NumbersTest extends BaseTestCase {
         }
     }
 
+    /**
+     * Tests that the byte-level number parsing used when
+     * 'useFastIntParsing' is enabled returns the same values as the
+     * String-based conversions.
+     *
+     * @throws Exception if the test fails.
+     */
+    public void testFastIntParsing() throws Exception {
+        try {
+            stmt.executeUpdate("DROP TABLE IF EXISTS testFastIntParsing");
+            stmt.executeUpdate(
+                "CREATE TABLE testFastIntParsing (intField INT, bigIntField BIGINT, "
+                + "smallIntField SMALLINT, doubleField DOUBLE, decimalField DECIMAL(10,2))");
+            stmt.executeUpdate(
+                "INSERT INTO testFastIntParsing VALUES (" + Integer.MIN_VALUE
+                + ", " + Long.MIN_VALUE + ", " + Short.MIN_VALUE
+                + ", -1.5E10, -123.45)");
+            stmt.executeUpdate(
+                "INSERT INTO testFastIntParsing VALUES (" + Integer.MAX_VALUE
+                + ", " + Long.MAX_VALUE + ", " + Short.MAX_VALUE
+                + ", 42, 99)");
+            stmt.executeUpdate(
+                "INSERT INTO testFastIntParsing VALUES (0, "
+                + TEST_BIGINT_VALUE + ", -1, NULL, NULL)");
+
+            Properties props = new Properties();
+            props.setProperty("useFastIntParsing", "false");
+
+            Connection slowConn = getConnectionWithProps(props);
+            Statement slowStmt = slowConn.createStatement();
+
+            props.setProperty("useFastIntParsing", "true");
+
+            Connection fastConn = getConnectionWithProps(props);
+            Statement fastStmt = fastConn.createStatement();
+
+            try {
+                ResultSet slowRs = slowStmt.executeQuery(
+                        "SELECT * FROM testFastIntParsing");
+                ResultSet fastRs = fastStmt.executeQuery(
+                        "SELECT * FROM testFastIntParsing");
+
+                while (slowRs.next()) {
+                    assertTrue(fastRs.next());
+
+                    for (int i = 1; i <= 5; i++) {
+                        assertEquals(slowRs.getInt(i), fastRs.getInt(i));
+                        assertEquals(slowRs.wasNull(), fastRs.wasNull());
+                        assertEquals(slowRs.getLong(i), fastRs.getLong(i));
+                        assertEquals(slowRs.getShort(i), fastRs.getShort(i));
+                        assertEquals(slowRs.getDouble(i), fastRs.getDouble(i),
+                            0.0);
+                        assertEquals(slowRs.wasNull(), fastRs.wasNull());
+                    }
+                }
+
+                assertTrue(!fastRs.next());
+            } finally {
+                slowConn.close();
+                fastConn.close();
+            }
+        } finally {
+            stmt.executeUpdate("DROP TABLE IF EXISTS testFastIntParsing");
+        }
+    }
+
     private void createTestTable() throws SQLException {
         try {
             stmt.executeUpdate("DROP TABLE number_test");
@@ -23,9 +23,14 @@ import com.mysql.jdbc.SQLError;
 
 import testsuite.BaseTestCase;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
+import java.util.Properties;
+
 
 /**
  * DOCUMENT ME!
@@ -489,6 +494,169 @@ public class StatementsTest extends BaseTestCase {
         }
     }
 
+    /**
+     * Tests that batched INSERTs rewritten as multi-row INSERTs insert all
+     * rows and report the correct update counts.
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRewriteBatchedInserts() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("rewriteBatchedStatements", "true");
+
+        Connection rewriteConn = null;
+        PreparedStatement rewritePstmt = null;
+
+        try {
+            rewriteConn = getConnectionWithProps(props);
+
+            rewritePstmt = rewriteConn.prepareStatement("INSERT INTO "
+                    + "statement_batch_test (strdata1, strdata2) VALUES (?, 'b')");
+
+            int numRows = 1000;
+
+            for (int i = 0; i < numRows; i++) {
+                rewritePstmt.setString(1, "batch_'" + i);
+                rewritePstmt.addBatch();
+            }
+
+            int[] updateCounts = rewritePstmt.executeBatch();
+
+            assertTrue(updateCounts.length == numRows);
+
+            for (int i = 0; i < updateCounts.length; i++) {
+                assertTrue("Update count must be '1', was '" + updateCounts[i]
+                    + "'", (updateCounts[i] == 1));
+            }
+
+            rs = stmt.executeQuery(
+                    "SELECT COUNT(*) FROM statement_batch_test WHERE strdata2='b'");
+            assertTrue(rs.next());
+            assertTrue(rs.getInt(1) == numRows);
+            rs.close();
+
+            rewritePstmt.close();
+
+            // Rows that aren't inserted can't be attributed to a
+            // parameter set
+            rewritePstmt = rewriteConn.prepareStatement("INSERT IGNORE INTO "
+                    + "statement_batch_test (strdata1, strdata2) VALUES (?, ?)");
+            rewritePstmt.setString(1, "batch_'0");
+            rewritePstmt.setString(2, "c");
+            rewritePstmt.addBatch();
+            rewritePstmt.setString(1, "new_row");
+            rewritePstmt.setString(2, "c");
+            rewritePstmt.addBatch();
+
+            updateCounts = rewritePstmt.executeBatch();
+
+            assertTrue(updateCounts[0] == Statement.SUCCESS_NO_INFO);
+            assertTrue(updateCounts[1] == Statement.SUCCESS_NO_INFO);
+        } finally {
+            if (rewritePstmt != null) {
+                rewritePstmt.close();
+            }
+
+            if (rewriteConn != null) {
+                rewriteConn.close();
+            }
+        }
+    }
+
+    /**
+     * Tests that server-side prepared statements bind parameters and return
+     * rows the same way client-side prepared statements do.
+     *
+     * @throws Exception if the test fails
+     */
+    public void testServerPreparedStatements() throws Exception {
+        if (!versionMeetsMinimum(4, 1)) {
+            return;
+        }
+
+        Properties props = new Properties();
+        props.setProperty("useServerPrepStmts", "true");
+
+        Connection serverPrepConn = null;
+        PreparedStatement serverPstmt = null;
+        ResultSet serverRs = null;
+
+        try {
+            stmt.executeUpdate("DROP TABLE IF EXISTS testServerPrepStmts");
+            stmt.executeUpdate("CREATE TABLE testServerPrepStmts "
+                + "(field1 INT, field2 BIGINT UNSIGNED, field3 DOUBLE, "
+                + "field4 VARCHAR(32), field5 DATETIME, field6 BLOB)");
+
+            serverPrepConn = getConnectionWithProps(props);
+
+            serverPstmt = serverPrepConn.prepareStatement(
+                    "INSERT INTO testServerPrepStmts VALUES (?, ?, ?, ?, ?, ?)");
+
+            assertTrue(serverPstmt instanceof com.mysql.jdbc.ServerPreparedStatement);
+
+            java.sql.Timestamp ts = java.sql.Timestamp.valueOf(
+                    "2004-06-01 12:34:56");
+
+            for (int i = 0; i < 5; i++) {
+                serverPstmt.setInt(1, i);
+                serverPstmt.setLong(2, Long.MAX_VALUE - i);
+                serverPstmt.setDouble(3, i + 0.5);
+                serverPstmt.setString(4, "'row\\" + i + "'");
+                serverPstmt.setTimestamp(5, ts);
+
+                if ((i % 2) == 0) {
+                    serverPstmt.setNull(6, java.sql.Types.BLOB);
+                } else {
+                    serverPstmt.setBinaryStream(6,
+                        new java.io.ByteArrayInputStream(new byte[] { 0, 1, 2 }),
+                        3);
+                }
+
+                serverPstmt.addBatch();
+            }
+
+            int[] updateCounts = serverPstmt.executeBatch();
+
+            for (int i = 0; i < updateCounts.length; i++) {
+                assertTrue(updateCounts[i] == 1);
+            }
+
+            serverPstmt.close();
+
+            serverPstmt = serverPrepConn.prepareStatement(
+                    "SELECT * FROM testServerPrepStmts WHERE field1 >= ? ORDER BY field1");
+            serverPstmt.setInt(1, 0);
+            serverRs = serverPstmt.executeQuery();
+
+            rs = stmt.executeQuery(
+                    "SELECT * FROM testServerPrepStmts ORDER BY field1");
+
+            while (rs.next()) {
+                assertTrue(serverRs.next());
+
+                for (int i = 1; i <= 6; i++) {
+                    assertEquals(rs.getString(i), serverRs.getString(i));
+                }
+            }
+
+            assertTrue(!serverRs.next());
+        } finally {
+            if (serverRs != null) {
+                serverRs.close();
+            }
+
+            if (serverPstmt != null) {
+                serverPstmt.close();
+            }
+
+            if (serverPrepConn != null) {
+                serverPrepConn.close();
+            }
+
+            stmt.executeUpdate("DROP TABLE IF EXISTS testServerPrepStmts");
+        }
+    }
+
     /**
      * DOCUMENT ME!
      *
@@ -520,4 +688,165 @@ public class StatementsTest extends BaseTestCase {
             ;
         }
     }
+
+    /**
+     * Tests reading a result in windows of setFetchSize() rows, while
+     * issuing other statements on the same connection.
+     *
+     * @throws Exception if an error occurs
+     */
+    public void testWindowedFetch() throws Exception {
+        int numRows = 25;
+
+        for (int i = 0; i < numRows; i++) {
+            stmt.executeUpdate("INSERT INTO statement_test (strdata1) VALUES ('"
+                + i + "')");
+        }
+
+        Properties props = new Properties();
+        props.setProperty("useWindowedFetch", "true");
+
+        Connection windowedConn = getConnectionWithProps(props);
+
+        try {
+            Statement windowedStmt = windowedConn.createStatement();
+            windowedStmt.setFetchSize(10);
+
+            Statement otherStmt = windowedConn.createStatement();
+
+            rs = windowedStmt.executeQuery(
+                    "SELECT id, strdata1 FROM statement_test ORDER BY id");
+
+            int rowCount = 0;
+            int lastId = 0;
+
+            while (rs.next()) {
+                assertTrue(rs.getInt(1) > lastId);
+                lastId = rs.getInt(1);
+                rowCount++;
+
+                ResultSet otherRs = otherStmt.executeQuery("SELECT 1");
+                assertTrue(otherRs.next());
+                otherRs.close();
+            }
+
+            assertTrue("Expected " + numRows + " rows, got " + rowCount,
+                rowCount == numRows);
+            assertTrue(!rs.next());
+            rs.close();
+        } finally {
+            windowedConn.close();
+        }
+    }
+
+    /**
+     * Tests reading the result of a PreparedStatement in windows of
+     * setFetchSize() rows, with its parameters re-sent for each window.
+     *
+     * @throws Exception if an error occurs
+     */
+    public void testWindowedFetchPreparedStatement() throws Exception {
+        int numRows = 25;
+
+        for (int i = 0; i < numRows; i++) {
+            stmt.executeUpdate("INSERT INTO statement_test (strdata1) VALUES ('"
+                + (i % 2) + "')");
+        }
+
+        Properties props = new Properties();
+        props.setProperty("useWindowedFetch", "true");
+
+        Connection windowedConn = getConnectionWithProps(props);
+
+        try {
+            PreparedStatement windowedPstmt = windowedConn.prepareStatement(
+                    "SELECT id, strdata1 FROM statement_test WHERE strdata1 = ? ORDER BY id");
+            windowedPstmt.setFetchSize(4);
+            windowedPstmt.setString(1, "1");
+
+            Statement otherStmt = windowedConn.createStatement();
+
+            rs = windowedPstmt.executeQuery();
+
+            int rowCount = 0;
+            int lastId = 0;
+
+            while (rs.next()) {
+                assertTrue(rs.getInt(1) > lastId);
+                assertTrue("1".equals(rs.getString(2)));
+                lastId = rs.getInt(1);
+                rowCount++;
+
+                ResultSet otherRs = otherStmt.executeQuery("SELECT 1");
+                assertTrue(otherRs.next());
+                otherRs.close();
+            }
+
+            assertTrue("Expected " + (numRows / 2) + " rows, got " + rowCount,
+                rowCount == (numRows / 2));
+            assertTrue(!rs.next());
+            rs.close();
+        } finally {
+            windowedConn.close();
+        }
+    }
+
+    /**
+     * Tests that every window of a windowed prepared statement re-issues
+     * the same query, with the same parameter values, by comparing it
+     * with the rows read in one go.
+     *
+     * @throws Exception if an error occurs.
+     */
+    public void testWindowedFetchPreparedStatementWindows()
+        throws Exception {
+        int numRows = 25;
+
+        for (int i = 0; i < numRows; i++) {
+            stmt.executeUpdate("INSERT INTO statement_test (strdata1) VALUES ('"
+                + (i % 3) + "')");
+        }
+
+        StringBuffer expected = new StringBuffer();
+        rs = stmt.executeQuery(
+                "SELECT id FROM statement_test WHERE strdata1 <> '1' ORDER BY id");
+
+        while (rs.next()) {
+            expected.append(rs.getInt(1)).append(',');
+        }
+
+        rs.close();
+
+        Properties props = new Properties();
+        props.setProperty("useWindowedFetch", "true");
+
+        Connection windowedConn = getConnectionWithProps(props);
+
+        try {
+            PreparedStatement windowedPstmt = windowedConn.prepareStatement(
+                    "SELECT id FROM statement_test WHERE strdata1 <> ? ORDER BY id");
+            windowedPstmt.setFetchSize(3);
+
+            for (int run = 0; run < 2; run++) {
+                windowedPstmt.setString(1, "1");
+                rs = windowedPstmt.executeQuery();
+
+                StringBuffer actual = new StringBuffer();
+                int rowCount = 0;
+
+                while (rs.next()) {
+                    actual.append(rs.getInt(1)).append(',');
+                    rowCount++;
+                }
+
+                rs.close();
+
+                assertTrue("Expected more than one window, got " + rowCount
+                    + " rows", rowCount > (2 * 3));
+                assertEquals(expected.toString(), actual.toString());
+            }
+        } finally {
+            windowedConn.close();
+        }
+    }
 }